@@ -0,0 +1,109 @@
+package com.example.topfoodnow.config;
+
+import com.example.topfoodnow.util.HotImageCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.connector.CoyoteOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UriUtils;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 在資源處理器之前，以 HotImageCache 提供 /dynamic-content 下上傳圖片與截圖中最常被請求的檔案，命中時不讀取磁碟。
+ * 內容直接從 direct buffer 寫入 Tomcat 的輸出串流，不複製到堆積上的 byte[]。
+ * 回應標頭與 WebConfig 的資源處理器相同；條件式請求（304）、Range、HEAD 與未命中的請求仍交給資源處理器。
+ */
+@Component
+public class DynamicContentCacheFilter extends OncePerRequestFilter {
+    private static final String URL_PREFIX = "/dynamic-content/";
+
+    private final boolean enabled;
+    private final Path baseDir;
+    private final List<Path> cachedDirs;
+    private final String cacheControl;
+    private final HotImageCache hotImageCache;
+
+    public DynamicContentCacheFilter(@Value("${file.dynamic-content-base-dir}") String baseDir,
+                                     @Value("${file.upload-sub-dir}") String uploadSubDir,
+                                     @Value("${file.screenshot-sub-dir}") String screenshotSubDir,
+                                     @Value("${file.dynamic-content.cache-days:365}") long cacheDays,
+                                     @Value("${image.hot-cache.enabled:true}") boolean enabled,
+                                     @Value("${image.hot-cache.max-size-mb:64}") long maxSizeMb,
+                                     @Value("${image.hot-cache.max-entry-kb:1024}") long maxEntryKb,
+                                     MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.baseDir = Paths.get(baseDir).toAbsolutePath().normalize();
+        this.cachedDirs = List.of(this.baseDir.resolve(uploadSubDir).normalize(), this.baseDir.resolve(screenshotSubDir).normalize());
+        this.cacheControl = WebConfig.dynamicContentCacheControl(cacheDays).getHeaderValue();
+        this.hotImageCache = new HotImageCache(maxSizeMb * 1024 * 1024, maxEntryKb * 1024, meterRegistry, "image.hot-cache");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled
+                || !"GET".equals(request.getMethod())
+                || !request.getRequestURI().startsWith(request.getContextPath() + URL_PREFIX)
+                || request.getHeader(HttpHeaders.RANGE) != null
+                || request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                || request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Optional<HotImageCache.Entry> entry = resolve(request).flatMap(hotImageCache::get);
+        if (entry.isEmpty()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        HotImageCache.Entry image = entry.get();
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaTypeFactory.getMediaType(image.getFileName())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+        response.setContentLengthLong(image.getSize());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        response.setHeader(HttpHeaders.ETAG, WebConfig.contentEtag(image.getFileName(), image.getSize()));
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, image.getLastModified());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        write(response.getOutputStream(), image.content());
+    }
+
+    private Optional<Path> resolve(HttpServletRequest request) {
+        String relative = request.getRequestURI().substring(request.getContextPath().length() + URL_PREFIX.length());
+        Path file = baseDir.resolve(UriUtils.decode(relative, StandardCharsets.UTF_8)).normalize();
+        return cachedDirs.stream().anyMatch(file::startsWith) ? Optional.of(file) : Optional.empty();
+    }
+
+    // Tomcat 的輸出串流可直接寫入 ByteBuffer；其他容器以 channel 分段寫出，只使用固定大小的暫存區
+    private static void write(ServletOutputStream out, ByteBuffer content) throws IOException {
+        if (out instanceof CoyoteOutputStream coyote) {
+            coyote.write(content);
+            return;
+        }
+        WritableByteChannel channel = Channels.newChannel(out);
+        while (content.hasRemaining()) {
+            channel.write(content);
+        }
+    }
+
+    HotImageCache getHotImageCache() {
+        return hotImageCache;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.topfoodnow.config;
+
+import com.example.topfoodnow.util.ObjectStorage;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.web.servlet.resource.AbstractResourceResolver;
+import org.springframework.web.servlet.resource.ResourceResolverChain;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * /dynamic-content 的讀取穿透：本機目錄沒有請求的檔案時，從物件儲存取回並寫入本機目錄，再交給後續的解析器提供。
+ * 物件鍵即為 /dynamic-content/ 之後的路徑，因此 photoUrl 不隨儲存後端改變，其他節點上傳的檔案也能直接提供。
+ * 只有符合上傳圖片（sha256.副檔名）與截圖（sha256-擷取時間.副檔名）命名的路徑才會查詢物件儲存，
+ * 各尺寸圖片與任意路徑直接回應 404；物件儲存回報不存在的鍵會短暫記住，重複請求不再查詢。
+ */
+public class ObjectStorageResourceResolver extends AbstractResourceResolver {
+    private static final Logger logger = LoggerFactory.getLogger(ObjectStorageResourceResolver.class);
+    private static final Pattern OBJECT_KEY = Pattern.compile("(?:[A-Za-z0-9_-]+/)*[0-9a-f]{64}(?:-\\d+)?\\.(?:png|jpg|gif|webp)");
+
+    private final ObjectStorage objectStorage;
+    private final Path localDir;
+    // 物件儲存中不存在的鍵，期限內直接視為不存在
+    private final Cache<String, Boolean> misses;
+
+    public ObjectStorageResourceResolver(ObjectStorage objectStorage, Path localDir, Duration missTtl) {
+        this.objectStorage = objectStorage;
+        this.localDir = localDir.toAbsolutePath().normalize();
+        this.misses = Caffeine.newBuilder().maximumSize(10_000).expireAfterWrite(missTtl).build();
+    }
+
+    @Override
+    protected Resource resolveResourceInternal(HttpServletRequest request, String requestPath,
+                                               List<? extends Resource> locations, ResourceResolverChain chain) {
+        Resource resource = chain.resolveResource(request, requestPath, locations);
+        if (resource != null || !fetch(requestPath)) {
+            return resource;
+        }
+        return chain.resolveResource(request, requestPath, locations);
+    }
+
+    @Override
+    protected String resolveUrlPathInternal(String resourceUrlPath, List<? extends Resource> locations,
+                                            ResourceResolverChain chain) {
+        return chain.resolveUrlPath(resourceUrlPath, locations);
+    }
+
+    private boolean fetch(String key) {
+        if (!OBJECT_KEY.matcher(key).matches() || misses.getIfPresent(key) != null) {
+            return false;
+        }
+        Path target = localDir.resolve(key).normalize();
+        if (!target.startsWith(localDir) || target.equals(localDir)) {
+            return false;
+        }
+        Path tempFile = null;
+        try {
+            Optional<InputStream> object = objectStorage.get(key);
+            if (object.isEmpty()) {
+                misses.put(key, Boolean.TRUE);
+                return false;
+            }
+            Files.createDirectories(target.getParent());
+            tempFile = Files.createTempFile(target.getParent(), "fetch", ".tmp");
+            try (InputStream in = object.get()) {
+                Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            // 同時取回同一檔案時各自寫入暫存檔，最後一個改名的覆蓋相同內容
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("已從物件儲存取回: {}", key);
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            logger.warn("無法從物件儲存取回 {}: {}", key, e.getMessage());
+            return false;
+        } finally {
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException e) {
+                    logger.debug("無法刪除暫存檔 {}: {}", tempFile, e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.topfoodnow.config;
+
+import com.example.topfoodnow.util.LocalObjectStorage;
+import com.example.topfoodnow.util.ObjectStorage;
+import com.example.topfoodnow.util.S3ObjectStorage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+@Configuration
+public class StorageConfig {
+
+    /**
+     * 上傳圖片與截圖的持久儲存。storage.type=local 時就是 dynamic-content 目錄本身；
+     * storage.type=s3 時保存到 S3 相容的物件儲存，dynamic-content 目錄只作為本節點的快取，
+     * 本機沒有的檔案在第一次被請求時由 ObjectStorageResourceResolver 取回。
+     */
+    @Bean
+    public ObjectStorage objectStorage(@Value("${storage.type:local}") String type,
+                                       @Value("${file.dynamic-content-base-dir}") String baseDir,
+                                       @Value("${storage.s3.endpoint:}") String endpoint,
+                                       @Value("${storage.s3.region:us-east-1}") String region,
+                                       @Value("${storage.s3.bucket:}") String bucket,
+                                       @Value("${storage.s3.access-key:}") String accessKey,
+                                       @Value("${storage.s3.secret-key:}") String secretKey,
+                                       @Value("${storage.s3.path-style:true}") boolean pathStyle,
+                                       @Value("${storage.s3.multipart-threshold-mb:16}") long multipartThresholdMb,
+                                       @Value("${storage.s3.part-size-mb:8}") long partSizeMb,
+                                       @Value("${storage.s3.timeout-ms:30000}") long timeoutMillis) throws IOException {
+        if ("local".equalsIgnoreCase(type)) {
+            return new LocalObjectStorage(Paths.get(baseDir));
+        }
+        if (!"s3".equalsIgnoreCase(type)) {
+            throw new IllegalArgumentException("不支援的 storage.type: " + type);
+        }
+        if (endpoint.isBlank() || bucket.isBlank()) {
+            throw new IllegalArgumentException("storage.type=s3 時必須設定 storage.s3.endpoint 與 storage.s3.bucket");
+        }
+        return new S3ObjectStorage(URI.create(endpoint), region, bucket, accessKey, secretKey, pathStyle,
+                multipartThresholdMb * 1024 * 1024, partSizeMb * 1024 * 1024, Duration.ofMillis(timeoutMillis));
+    }
+}
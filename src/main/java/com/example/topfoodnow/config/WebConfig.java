@@ -1,10 +1,16 @@
 package com.example.topfoodnow.config;
 
+import com.example.topfoodnow.util.ObjectStorage;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
@@ -15,10 +21,51 @@ public class WebConfig implements WebMvcConfigurer {
     @Value("${file.screenshot-sub-dir}")
     private String screenshotSubDir;
 
+    @Value("${file.dynamic-content.cache-days:365}")
+    private long dynamicContentCacheDays;
+
+    @Value("${storage.miss-cache-seconds:30}")
+    private long storageMissCacheSeconds;
+
+    private final ObjectStorage objectStorage;
+
+    public WebConfig(ObjectStorage objectStorage) {
+        this.objectStorage = objectStorage;
+    }
+
+    /**
+     * 上傳圖片以內容雜湊命名、截圖以網址雜湊加擷取時間命名、各尺寸圖片由原圖衍生，檔案寫入後內容不再改變，
+     * 因此回應標示為 immutable 並長期快取，瀏覽器在期限內不會重新驗證。
+     * 期限過後以檔名與大小組成的強 ETag（或 Last-Modified）重新驗證，未變更時回傳 304，不重送內容；
+     * Range 請求由 Spring 的資源處理器回傳 206。
+     * 本機目錄沒有的檔案經由 ObjectStorageResourceResolver 從物件儲存取回。
+     */
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        String fullDynamicContentPath = Paths.get(dynamicContentBaseDir).toAbsolutePath().normalize().toUri().toString();
+        Path dynamicContentPath = Paths.get(dynamicContentBaseDir).toAbsolutePath().normalize();
         registry.addResourceHandler("/dynamic-content/**")
-                .addResourceLocations(fullDynamicContentPath);
+                .addResourceLocations(dynamicContentPath.toUri().toString())
+                .setCacheControl(dynamicContentCacheControl(dynamicContentCacheDays))
+                .setEtagGenerator(WebConfig::contentEtag)
+                .resourceChain(false)
+                .addResolver(new ObjectStorageResourceResolver(objectStorage, dynamicContentPath,
+                        Duration.ofSeconds(storageMissCacheSeconds)));
+    }
+
+    static CacheControl dynamicContentCacheControl(long cacheDays) {
+        return CacheControl.maxAge(Duration.ofDays(cacheDays)).cachePublic().immutable();
+    }
+
+    static String contentEtag(Resource resource) {
+        try {
+            return contentEtag(resource.getFilename(), resource.contentLength());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // 檔名已代表內容，加上大小避免同名檔案被意外覆寫時沿用舊的快取
+    static String contentEtag(String fileName, long length) {
+        return "\"" + fileName + "-" + Long.toHexString(length) + "\"";
     }
-}
\ No newline at end of file
+}
@@ -1,55 +1,62 @@
 package com.example.topfoodnow.controller;
 
 import com.example.topfoodnow.model.AiRestaurantModel;
-import com.example.topfoodnow.util.BatchScreenshotUtil;
-import com.example.topfoodnow.util.AiUtil;
-import com.example.topfoodnow.util.JsonUtil;
-import com.example.topfoodnow.dto.RecommendDTO;
-import com.example.topfoodnow.service.RecommendService;
+import com.example.topfoodnow.service.AiRecommendCache;
+import com.example.topfoodnow.service.AiRecommendService;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.json.JSONObject;
-import org.json.JSONArray;
-import org.json.JSONException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @RestController
 @RequestMapping("/api/ai")
 public class AiRestaurantController {
     private static final Logger logger = LoggerFactory.getLogger(AiRestaurantController.class);
-    private final JsonUtil jsonUtil;
-    private final BatchScreenshotUtil batchScreenshotUtil;
-    private final RecommendService recommendService;
 
-    @Value("${ai.api.key}")
-    private String apiKey;
-
-    public AiRestaurantController(JsonUtil jsonUtil,
-                                  BatchScreenshotUtil batchScreenshotUtil,
-                                  RecommendService recommendService) {
-        this.jsonUtil = jsonUtil;
-        this.batchScreenshotUtil = batchScreenshotUtil;
-        this.recommendService = recommendService;
+    private final AiRecommendCache aiRecommendCache;
+    private final long requestTimeoutMillis;
+    // 沒有快取時的請求專用線程池：流程最長可達 Gemini 期限加上截圖時間，
+    // 不可佔用 @Async 等共用的 applicationTaskExecutor；池與佇列都滿時回應 503
+    private final ThreadPoolExecutor aiExecutor;
+
+    public AiRestaurantController(AiRecommendCache aiRecommendCache,
+                                  @Value("${ai.request.timeout-ms:420000}") long requestTimeoutMillis,
+                                  @Value("${ai.request.threads:4}") int threads,
+                                  @Value("${ai.request.queue-capacity:16}") int queueCapacity) {
+        this.aiRecommendCache = aiRecommendCache;
+        this.requestTimeoutMillis = requestTimeoutMillis;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.aiExecutor = new ThreadPoolExecutor(Math.max(1, threads), Math.max(1, threads), 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+                    Thread thread = new Thread(runnable, "ai-request-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
     }
 
-    private static final String PROMPT =
-        "請輸出台北6家熱門美食餐廳，包含名稱、地址和網址(盡量提供穩定可訪問的非社群媒體官方網站)。使用 JSON 陣列格式回傳，例如：\n" +
-        "[{\"name\": \"鼎泰豐\", \"address\": \"台北市信義路二段22號\", \"url\": \"https://www.dintaifung.com.tw/\"}]\n" +
-        "請確保回傳內容為純 JSON 陣列，不包含任何額外文字或 markdown 格式符號。"; // 針對Gemini優化提示，要求純JSON
-
     @Operation(
         summary = "獲取 AI 推薦餐廳列表",
-        description = "呼叫 Google Gemini API 生成台北6家熱門美食餐廳推薦，並嘗試進行截圖。如果 AI 回傳解析失敗或截圖失敗，則從資料庫中提供備用餐廳列表。",
+        description = "呼叫 Google Gemini API 生成台北6家熱門美食餐廳推薦，並嘗試進行截圖。結果由背景預熱定期產生並快取，請求只讀取最近一次成功的結果；尚未產生時先回傳資料庫備用餐廳列表。如果 AI 回傳解析失敗或截圖失敗，則從資料庫中提供備用餐廳列表。",
         responses = {
             @ApiResponse(
                     responseCode = "200",
@@ -67,109 +74,94 @@ public class AiRestaurantController {
         }
     )
     @GetMapping
-    public List<AiRestaurantModel> getAIRecommend() throws IOException {
-        logger.info("啟動 AI 搜尋 (Gemini)");
-
-        String geminiFullResponseJson = AiUtil.askAi(PROMPT, apiKey);
-        logger.debug("Gemini 回傳原始 JSON: {}", geminiFullResponseJson);
-
-        String geminiContent = null;
+    public CompletableFuture<List<AiRestaurantModel>> getAIRecommend() {
+        logger.info("取得 AI 推薦 (Gemini)");
+        // 背景預熱產生的結果直接在請求線程回傳，不需切換線程
+        Optional<List<AiRestaurantModel>> cached = aiRecommendCache.getCachedRecommendations();
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(cached.get());
+        }
+        // 尚無結果時需查詢資料庫 fallback（未啟用預熱時則等待 Gemini 與截圖），改在背景線程執行，不佔用 Tomcat 請求線程；
+        // 非同步請求的逾時由 spring.mvc.async.request-timeout 設定，需涵蓋整個流程
         try {
-            JSONObject fullGeminiResponse = new JSONObject(geminiFullResponseJson);
-            geminiContent = fullGeminiResponse
-                    .getJSONArray("candidates")
-                    .getJSONObject(0)
-                    .getJSONObject("content")
-                    .getJSONArray("parts")
-                    .getJSONObject(0)
-                    .getString("text");
-
-            logger.debug("Gemini content 原始內容 (已處理): {}", geminiContent);
-            logger.debug("Gemini content 原始內容 (HEX): {}", toHex(geminiContent));
-        } catch (JSONException e) {
-            logger.error("無法解析 Gemini 原始回傳 JSON 或提取 'content' 欄位。", e);
-            logger.error("Gemini 原始回傳 JSON (HEX): {}", toHex(geminiFullResponseJson));
-            return getFallbackFromDatabase();
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return aiRecommendCache.getRecommendations();
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }, aiExecutor);
+        } catch (RejectedExecutionException e) {
+            logger.warn("AI 推薦請求過多，線程池與佇列已滿，拒絕請求。");
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "AI 推薦產生中，請稍後再試");
         }
+    }
 
-        String extractedJsonString = null;
-        Pattern pattern = Pattern.compile("```json\\s*\\n([\\s\\S]*?)\\n```");
-        Matcher matcher = pattern.matcher(geminiContent);
-
-        if (matcher.find()) {
-            extractedJsonString = matcher.group(1);
-            logger.debug("從 Markdown 區塊中提取的 JSON 字串 (初步): {}", extractedJsonString);
-            logger.debug("從 Markdown 區塊中提取的 JSON 字串 (初步 HEX): {}", toHex(extractedJsonString));
-
-            extractedJsonString = extractedJsonString.replaceAll("[\\p{C}&&[^\t\n\r]]", "");
-            extractedJsonString = extractedJsonString.trim();
-        } else {
-            extractedJsonString = geminiContent.trim();
-            extractedJsonString = extractedJsonString.replaceAll("[\\p{C}&&[^\t\n\r]]", "");
-            logger.debug("無法從 Markdown 區塊中提取，直接使用清理後的 Gemini content 作為 JSON 字串: {}", extractedJsonString);
-            logger.debug("直接使用的 JSON 字串 (HEX): {}", toHex(extractedJsonString));
-
-            if (extractedJsonString.startsWith("```json") || extractedJsonString.endsWith("```")) {
-                logger.error("即使直接使用，清理後的 Gemini content 仍然包含 Markdown 標記。這表示解析邏輯可能需要進一步調整。內容: '{}'", extractedJsonString);
-                return getFallbackFromDatabase();
-            }
+    @Operation(
+        summary = "以 Server-Sent Events 串流 AI 推薦餐廳",
+        description = "與 GET /api/ai 相同的流程，但分段推送：解析出餐廳清單後立即送出 restaurants 事件（尚無截圖），" +
+                "之後每張截圖完成就依完成順序送出 photo 事件（index 為餐廳在清單中的位置），最後送出 done 事件。" +
+                "有快取或改用資料庫 fallback 時，restaurants 事件會直接包含完整結果；收到新的 restaurants 事件時應以其取代目前清單。",
+        responses = {
+            @ApiResponse(responseCode = "200", description = "事件串流", content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE))
         }
-
-        List<AiRestaurantModel> aiList;
-        try {
-            logger.debug("Gemini 回傳最終清理後 JSON (傳給 JsonUtil 的內容): {}", extractedJsonString);
-            logger.debug("Gemini 回傳最終清理後 JSON (HEX): {}", toHex(extractedJsonString));
-
-            aiList = jsonUtil.parseRestaurants(extractedJsonString);
-        } catch (JSONException e) {
-            logger.error("解析 Gemini 回傳 JSON 失敗，傳入 JsonUtil 的內容有誤。內容: '{}'", extractedJsonString, e);
-            logger.error("傳入 JsonUtil 的內容 (HEX): {}", toHex(extractedJsonString));
-            return getFallbackFromDatabase();
-        } catch (Exception e) {
-            logger.error("解析 Gemini 回傳 JSON 時發生未預期錯誤，內容: '{}'", extractedJsonString, e);
-            logger.error("傳入 JsonUtil 的內容 (HEX): {}", toHex(extractedJsonString));
-            return getFallbackFromDatabase();
+    )
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAIRecommend() {
+        logger.info("取得 AI 推薦 (Gemini，串流)");
+        SseEmitter emitter = new SseEmitter(requestTimeoutMillis);
+        // 有快取時在請求線程送出整份結果即結束，不佔用線程池
+        Optional<List<AiRestaurantModel>> cached = aiRecommendCache.getCachedRecommendations();
+        if (cached.isPresent()) {
+            send(emitter, "restaurants", cached.get());
+            send(emitter, "done", Map.of());
+            emitter.complete();
+            return emitter;
         }
-        logger.info("解析後餐廳數: {}", aiList.size());
-
-        List<AiRestaurantModel> successList = batchScreenshotUtil.captureScreenshots(aiList);
-        logger.info("總任務數: {}, 成功截圖: {} 個，因 URL 為空跳過: {} 個，截圖失敗: {} 個。",
-                aiList.size(),
-                (int) successList.stream().filter(r -> r.getPhotoUrl() != null && !r.getPhotoUrl().contains("No+URL") && !r.getPhotoUrl().contains("Error+Image")).count(),
-                (int) successList.stream().filter(r -> r.getPhotoUrl() != null && r.getPhotoUrl().contains("No+URL")).count(),
-                (int) successList.stream().filter(r -> r.getPhotoUrl() != null && r.getPhotoUrl().contains("Error+Image")).count());
-
-        long actualSuccessCount = successList.stream()
-                .filter(r -> r.getPhotoUrl() != null && !r.getPhotoUrl().contains("No+URL") && !r.getPhotoUrl().contains("Error+Image"))
-                .count();
-
-        if (actualSuccessCount == 0 && !aiList.isEmpty()) {
-            logger.warn("AI 推薦全部截圖失敗或跳過，改用資料庫 fallback。");
-            return getFallbackFromDatabase();
+        // 沒有快取時整段流程佔用一個線程直到最後一張截圖，因此與 GET /api/ai 共用有上限的專用線程池，已滿時回應 503
+        try {
+            executeStream(emitter);
+        } catch (RejectedExecutionException e) {
+            logger.warn("AI 推薦串流過多，線程池與佇列已滿，拒絕請求。");
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "AI 推薦產生中，請稍後再試");
         }
-        return successList;
+        return emitter;
     }
 
-    private List<AiRestaurantModel> getFallbackFromDatabase() {
-        logger.info("執行資料庫 fallback (從 RecommendService 獲取隨機推薦)。");
-        List<RecommendDTO> recommends = recommendService.findRandom6Recommends();
-        List<AiRestaurantModel> fallback = new ArrayList<>();
+    private void executeStream(SseEmitter emitter) {
+        aiExecutor.execute(() -> {
+            try {
+                aiRecommendCache.streamRecommendations(new AiRecommendService.PipelineListener() {
+                    @Override
+                    public void onRestaurants(List<AiRestaurantModel> restaurants) {
+                        send(emitter, "restaurants", restaurants);
+                    }
+
+                    @Override
+                    public void onPhoto(AiRestaurantModel restaurant, int index) {
+                        send(emitter, "photo", Map.of("index", index, "restaurant", restaurant));
+                    }
+                });
+                send(emitter, "done", Map.of());
+                emitter.complete();
+            } catch (Exception e) {
+                logger.error("串流 AI 推薦失敗: {}", e.getMessage(), e);
+                emitter.completeWithError(e);
+            }
+        });
+    }
 
-        for (RecommendDTO r : recommends) {
-            fallback.add(new AiRestaurantModel(r.getStoreName(), r.getStoreAddress(), null, r.getStorePhotoUrl()));
-        }
-        return fallback;
+    @PreDestroy
+    public void shutdown() {
+        aiExecutor.shutdownNow();
     }
 
-    // 將字符串轉換為十六進制表示，以便排查不可見字符
-    private String toHex(String s) {
-        if (s == null) {
-            return "null";
-        }
-        StringBuilder sb = new StringBuilder();
-        for (char c : s.toCharArray()) {
-            sb.append(String.format("\\u%04x", (int) c));
+    // 用戶端中途離開時送出會失敗，但流程仍會跑完並寫入快取
+    private void send(SseEmitter emitter, String eventName, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(eventName).data(data, MediaType.APPLICATION_JSON));
+        } catch (Exception e) {
+            logger.debug("SSE 事件 {} 送出失敗，用戶端可能已離線: {}", eventName, e.getMessage());
         }
-        return sb.toString();
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package com.example.topfoodnow.controller;
 
+import com.example.topfoodnow.dto.CursorPage;
 import com.example.topfoodnow.dto.RecommendDTO;
 import com.example.topfoodnow.service.RecommendService;
 import org.springframework.data.domain.Page;
@@ -8,10 +9,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import java.util.Arrays;
 
 @Controller
 public class AllRecommendsController {
+    private static final Logger logger = LoggerFactory.getLogger(AllRecommendsController.class);
+    // 每頁筆數上限，避免單次請求產生過大的查詢
+    static final int MAX_PAGE_SIZE = 100;
+
     @Autowired
     private RecommendService recommendService;
 
@@ -21,13 +28,34 @@ public class AllRecommendsController {
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(required = false) Boolean isFamous,
             @RequestParam(required = false) String search,
+            @RequestParam(defaultValue = "page") String mode,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String before,
             Model model
     ) {
+        size = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        page = Math.max(0, page);
         Boolean isFamousFilter = isFamous;
+        String pagingMode = "cursor".equals(mode) ? "cursor" : "page";
 
-        Page<RecommendDTO> allRecommendsPage = recommendService.findAllRecommendsPaged(page, size, isFamousFilter, search);
+        // cursor 模式使用鍵集分頁，深頁成本與第一頁相同；page 模式保留原本的頁碼分頁
+        if ("cursor".equals(pagingMode)) {
+            CursorPage<RecommendDTO> cursorPage;
+            try {
+                cursorPage = recommendService.findAllRecommendsByCursor(after, before, size, isFamousFilter, search);
+            } catch (IllegalArgumentException e) {
+                logger.warn("分頁游標無效，改為顯示第一頁: {}", e.getMessage());
+                cursorPage = recommendService.findAllRecommendsByCursor(null, null, size, isFamousFilter, search);
+            }
+            model.addAttribute("cursorPage", cursorPage);
+            model.addAttribute("recommends", cursorPage.getContent());
+        } else {
+            Page<RecommendDTO> allRecommendsPage = recommendService.findAllRecommendsPaged(page, size, isFamousFilter, search);
+            model.addAttribute("allRecommendsPage", allRecommendsPage);
+            model.addAttribute("recommends", allRecommendsPage.getContent());
+        }
 
-        model.addAttribute("allRecommendsPage", allRecommendsPage);
+        model.addAttribute("pagingMode", pagingMode);
         model.addAttribute("currentPage", page);
         model.addAttribute("pageSize", size);
         model.addAttribute("isFamousFilter", isFamousFilter);
@@ -3,7 +3,7 @@ package com.example.topfoodnow.controller;
 import com.example.topfoodnow.dto.RecommendDTO;
 import com.example.topfoodnow.model.StoreModel;
 import com.example.topfoodnow.service.StoreService;
-import com.example.topfoodnow.service.RecommendService;
+import com.example.topfoodnow.service.HomePageCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -14,14 +14,14 @@ import java.util.List;
 @Controller
 public class IndexController {
     @Autowired
-    private RecommendService recommendService;
+    private HomePageCache homePageCache;
 
     @GetMapping("/")
     public String index(Model model) {
-        List<RecommendDTO> randomRecommends = recommendService.findRandom6Recommends();
+        List<RecommendDTO> randomRecommends = homePageCache.getRandomRecommends();
         model.addAttribute("randomRecommends", randomRecommends);
 
-        List<RecommendDTO> famousUserNewStoreList = recommendService.findLatestFamousUserRecommends(6);
+        List<RecommendDTO> famousUserNewStoreList = homePageCache.getLatestFamousRecommends();
         model.addAttribute("newStoreList", famousUserNewStoreList);
         return "index";
     }
@@ -0,0 +1,67 @@
+package com.example.topfoodnow.controller;
+
+import com.example.topfoodnow.dto.RecommendImportResult;
+import com.example.topfoodnow.model.UserModel;
+import com.example.topfoodnow.service.CurrentUserResolver;
+import com.example.topfoodnow.service.RecommendImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import java.io.IOException;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/recommends")
+public class RecommendImportController {
+    private static final Logger logger = LoggerFactory.getLogger(RecommendImportController.class);
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+    private final RecommendImportService recommendImportService;
+    private final CurrentUserResolver currentUserResolver;
+
+    public RecommendImportController(RecommendImportService recommendImportService,
+                                     CurrentUserResolver currentUserResolver) {
+        this.recommendImportService = recommendImportService;
+        this.currentUserResolver = currentUserResolver;
+    }
+
+    @Operation(
+        summary = "批次匯入推薦",
+        description = "以 CSV（第一行為標題列）或 NDJSON（每行一筆 JSON）匯入登入用戶的推薦，欄位為 storeName, storeAddress, storePhotoUrl, reason, score。" +
+                "內容以串流方式分批處理，不存在的店家會自動建立，已推薦過的店家與格式錯誤的資料會逐筆回報，不影響其他資料。",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "匯入完成，回傳成功筆數與逐筆錯誤",
+                content = @Content(mediaType = "application/json", schema = @Schema(implementation = RecommendImportResult.class))
+            ),
+            @ApiResponse(responseCode = "401", description = "用戶未登入")
+        }
+    )
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<RecommendImportResult> importRecommends(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                                  HttpServletRequest request) throws IOException {
+        Optional<UserModel> currentUser = currentUserResolver.getUser();
+        if (currentUser.isEmpty()) {
+            logger.warn("未登入用戶嘗試批次匯入推薦。");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        RecommendImportService.Format format = TEXT_CSV.isCompatibleWith(MediaType.parseMediaType(contentType))
+                ? RecommendImportService.Format.CSV
+                : RecommendImportService.Format.NDJSON;
+        logger.info("用戶 ID: {} 開始批次匯入推薦，格式: {}", currentUser.get().getId(), format);
+        return ResponseEntity.ok(recommendImportService.importRecommends(request.getInputStream(), format, currentUser.get()));
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.topfoodnow.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import java.util.regex.Pattern;
+
+/**
+ * 上傳內容超過 multipart 上限時，請求在進入 controller 前就被拒絕；
+ * 改為導回原本的推薦表單並顯示與 FileStorageService 相同的錯誤訊息，而不是錯誤頁面。
+ */
+@ControllerAdvice
+public class UploadExceptionHandler {
+    private static final Logger logger = LoggerFactory.getLogger(UploadExceptionHandler.class);
+    // 送出表單的網址與顯示表單的網址相同
+    private static final Pattern FORM_PATH = Pattern.compile("/personal-recommend/(add|edit/\\d+)");
+
+    private final long maxSizeMb;
+
+    public UploadExceptionHandler(@Value("${file.upload.max-size-mb:10}") long maxSizeMb) {
+        this.maxSizeMb = maxSizeMb;
+    }
+
+    @ExceptionHandler(MaxUploadSizeExceededException.class)
+    public String handleMaxUploadSizeExceeded(MaxUploadSizeExceededException e, HttpServletRequest request,
+                                              RedirectAttributes redirectAttributes) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        logger.warn("上傳內容超過大小上限，路徑: {}，錯誤訊息: {}", path, e.getMessage());
+        redirectAttributes.addFlashAttribute("errorMessage", "圖片大小不可超過 " + maxSizeMb + " MB！");
+        return "redirect:" + (FORM_PATH.matcher(path).matches() ? path : "/personal-recommend");
+    }
+}
@@ -2,10 +2,12 @@ package com.example.topfoodnow.controller;
 
 import com.example.topfoodnow.model.UserModel;
 import com.example.topfoodnow.dto.RecommendDTO;
+import com.example.topfoodnow.dto.SessionUser;
 import com.example.topfoodnow.dto.LoginRequestDTO;
 import com.example.topfoodnow.dto.ForgotPasswordRequestDTO;
 import com.example.topfoodnow.dto.ResetPasswordRequestDTO;
 import com.example.topfoodnow.service.UserService;
+import com.example.topfoodnow.service.CurrentUserResolver;
 import com.example.topfoodnow.service.MailService;
 import com.example.topfoodnow.service.RecommendService;
 import com.example.topfoodnow.service.FileStorageService;
@@ -49,6 +51,7 @@ public class UserController {
     private final MailService mailService;
     private final RecommendService recommendService;
     private final FileStorageService fileStorageService;
+    private final CurrentUserResolver currentUserResolver;
 
     @GetMapping("/register")
     public String showRegisterPage(Model model) {
@@ -179,7 +182,7 @@ public class UserController {
                 model.addAttribute("error", "您的帳戶尚未啟用，請檢查您的信箱完成驗證。");
                 return "login";
             }
-            session.setAttribute("user", authenticatedUser);
+            CurrentUserResolver.login(session, authenticatedUser);
             logger.info("用戶 {} 登入成功。", email);
             return "redirect:/";
         } else {
@@ -198,8 +201,8 @@ public class UserController {
         }
     )
     @GetMapping("/personal-recommend")
-    public String showPersonalRecommendPage(Model model, HttpSession session) {
-        UserModel currentUser = (UserModel) session.getAttribute("user");
+    public String showPersonalRecommendPage(Model model) {
+        SessionUser currentUser = currentUserResolver.getSessionUser().orElse(null);
         if (currentUser == null) {
             logger.warn("未登入用戶嘗試訪問個人推薦頁面。");
             return "redirect:/login";
@@ -222,12 +225,9 @@ public class UserController {
     @ApiResponse(responseCode = "302", description = "成功登出，重定向至登入頁")
     @GetMapping("/logout")
     public String logout(HttpSession session) {
-        String userEmail = null;
-        if (session.getAttribute("user") instanceof UserModel) {
-            userEmail = ((UserModel) session.getAttribute("user")).getEmail();
-        }
+        Integer userId = currentUserResolver.getSessionUser().map(SessionUser::getId).orElse(null);
         session.invalidate();
-        logger.info("用戶 {} 登出成功。", userEmail != null ? userEmail : "未知用戶");
+        logger.info("用戶 ID {} 登出成功。", userId != null ? userId : "未知用戶");
         return "redirect:/login?logout";
     }
 
@@ -373,8 +373,8 @@ public class UserController {
         }
     )
     @GetMapping("/personal-recommend/add")
-    public String showAddRecommendForm(Model model, HttpSession session) {
-        if (session.getAttribute("user") == null) {
+    public String showAddRecommendForm(Model model) {
+        if (currentUserResolver.getSessionUser().isEmpty()) {
             return "redirect:/login";
         }
         model.addAttribute("recommendDTO", new RecommendDTO());
@@ -402,10 +402,9 @@ public class UserController {
     @PostMapping("/personal-recommend/add")
     public String addRecommendProcess(@ModelAttribute("recommendDTO") @Validated RecommendDTO recommendDTO,
                                       BindingResult bindingResult,
-                                      HttpSession session,
                                       RedirectAttributes redirectAttributes,
                                       Model model) {
-        UserModel currentUser = (UserModel) session.getAttribute("user");
+        UserModel currentUser = currentUserResolver.getUser().orElse(null);
         if (currentUser == null) {
             logger.warn("未登入用戶嘗試新增推薦。");
             return "redirect:/login";
@@ -467,9 +466,8 @@ public class UserController {
     @GetMapping("/personal-recommend/edit/{storeId}")
     public String showEditRecommendForm(@PathVariable("storeId") Integer storeId,
                                         Model model,
-                                        HttpSession session,
                                         RedirectAttributes redirectAttributes) {
-        UserModel currentUser = (UserModel) session.getAttribute("user");
+        SessionUser currentUser = currentUserResolver.getSessionUser().orElse(null);
         if (currentUser == null) {
             logger.warn("未登入用戶嘗試訪問編輯推薦頁面。");
             return "redirect:/login";
@@ -517,10 +515,9 @@ public class UserController {
     public String updateRecommendProcess(@PathVariable("storeId") Integer pathStoreId,
                                          @ModelAttribute("recommendDTO") @Validated RecommendDTO recommendDTO,
                                          BindingResult bindingResult,
-                                         HttpSession session,
                                          RedirectAttributes redirectAttributes,
                                          Model model) {
-        UserModel currentUser = (UserModel) session.getAttribute("user");
+        UserModel currentUser = currentUserResolver.getUser().orElse(null);
         if (currentUser == null) {
             return "redirect:/login";
         }
@@ -545,7 +542,7 @@ public class UserController {
 
             redirectAttributes.addFlashAttribute("successMessage", "推薦更新成功！");
             return "redirect:/personal-recommend";
-        } catch (SecurityException | EntityNotFoundException e) {
+        } catch (SecurityException | EntityNotFoundException | IllegalArgumentException e) {
             logger.error("更新推薦失敗：{}", e.getMessage(), e);
             redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
             model.addAttribute("pageTitle", "編輯我的推薦");
@@ -573,16 +570,15 @@ public class UserController {
     )
     @PostMapping("/personal-recommend/delete/{storeId}")
     public String deleteRecommendProcess(@PathVariable("storeId") Integer storeId,
-                                         HttpSession session,
                                          RedirectAttributes redirectAttributes) {
-        UserModel currentUser = (UserModel) session.getAttribute("user");
+        UserModel currentUser = currentUserResolver.getUser().orElse(null);
         if (currentUser == null) {
             logger.warn("未登入用戶嘗試刪除推薦，店家ID: {}", storeId);
             return "redirect:/login";
         }
 
         try {
-            recommendService.deleteRecommend(currentUser.getId(), storeId, currentUser);
+            recommendService.deleteRecommend(storeId, currentUser);
             redirectAttributes.addFlashAttribute("successMessage", "推薦已成功刪除！");
             logger.info("用戶 ID: {} 成功刪除對店家 ID: {} 的推薦。", currentUser.getId(), storeId);
         } catch (jakarta.persistence.EntityNotFoundException e) {
@@ -0,0 +1,22 @@
+package com.example.topfoodnow.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.util.List;
+
+// 鍵集分頁結果，只提供上一頁/下一頁游標，不計算總筆數
+@Data
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> content;
+    private String previousCursor;
+    private String nextCursor;
+
+    public boolean hasPrevious() {
+        return previousCursor != null;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
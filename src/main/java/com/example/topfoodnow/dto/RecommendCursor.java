@@ -0,0 +1,40 @@
+package com.example.topfoodnow.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+// 鍵集分頁游標：依 (created_at, user_id, store_id) 定位，編碼為網址安全的字串
+@Data
+@AllArgsConstructor
+public class RecommendCursor {
+    private LocalDateTime createdAt;
+    private Integer userId;
+    private Integer storeId;
+
+    public String encode() {
+        String raw = createdAt + "|" + userId + "|" + storeId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游標字串
+     * @param token encode() 產生的字串
+     * @return 解析後的游標
+     * @throws IllegalArgumentException 如果游標格式錯誤
+     */
+    public static RecommendCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("欄位數量錯誤");
+            }
+            return new RecommendCursor(LocalDateTime.parse(parts[0]), Integer.valueOf(parts[1]), Integer.valueOf(parts[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("無效的分頁游標: " + token, e);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.topfoodnow.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Schema(description = "推薦批次匯入結果")
+public class RecommendImportResult {
+    // 錯誤明細最多回傳的筆數，超過時只累計 errorCount
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    @Schema(description = "讀取到的資料筆數（不含標題列與空白行）", example = "1200")
+    private int totalRows;
+
+    @Schema(description = "成功匯入的推薦筆數", example = "1180")
+    private int importedRows;
+
+    @Schema(description = "失敗的資料筆數", example = "20")
+    private int errorCount;
+
+    @Schema(description = "失敗資料的明細，最多 1000 筆")
+    private List<RowError> errors = new ArrayList<>();
+
+    public void addError(int line, String storeName, String message) {
+        errorCount++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new RowError(line, storeName, message));
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    @Schema(description = "單筆匯入錯誤")
+    public static class RowError {
+        @Schema(description = "資料所在行號（從 1 開始）", example = "42")
+        private int line;
+
+        @Schema(description = "店家名稱", example = "四木欣福")
+        private String storeName;
+
+        @Schema(description = "錯誤原因", example = "您已經推薦過這家餐廳了！")
+        private String message;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.topfoodnow.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Value;
+import java.time.LocalDateTime;
+
+// 唯讀投影：查詢時直接選出畫面需要的欄位，不載入 UserModel/StoreModel 實體
+@Value
+@AllArgsConstructor
+public class RecommendRow {
+    Integer userId;
+    String userName;
+    Boolean isFamous;
+    Integer storeId;
+    String storeName;
+    String storeAddress;
+    String storePhotoUrl;
+    String reason;
+    Integer score;
+    LocalDateTime createdAt;
+}
@@ -0,0 +1,21 @@
+package com.example.topfoodnow.dto;
+
+import com.example.topfoodnow.model.UserModel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+import java.io.Serializable;
+
+// 存放在 HttpSession 的登入用戶摘要，只保留顯示與授權需要的欄位，不含密碼雜湊與各種 Token
+@Value
+@AllArgsConstructor
+public class SessionUser implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    Integer id;
+    String userName;
+    boolean famous;
+
+    public static SessionUser from(UserModel user) {
+        return new SessionUser(user.getId(), user.getUserName(), Boolean.TRUE.equals(user.getIsFamous()));
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.topfoodnow.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// 推薦新增、更新或刪除時發布，供快取與索引在交易提交後同步
+@Getter
+@AllArgsConstructor
+public class RecommendChangedEvent {
+    public enum Type { ADDED, UPDATED, DELETED }
+
+    private final Type type;
+    private final Integer userId;
+    private final Integer storeId;
+    private final boolean famous; // 推薦者是否為網紅，供計數快取增量調整
+}
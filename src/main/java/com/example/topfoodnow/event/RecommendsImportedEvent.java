@@ -0,0 +1,14 @@
+package com.example.topfoodnow.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import java.util.List;
+
+// 批次匯入推薦時每個批次發布一次，取代逐筆的 RecommendChangedEvent，讓快取與索引一次同步整批
+@Getter
+@AllArgsConstructor
+public class RecommendsImportedEvent {
+    private final Integer userId;
+    private final List<Integer> storeIds;
+    private final boolean famous;
+}
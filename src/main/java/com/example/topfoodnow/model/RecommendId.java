@@ -14,6 +14,14 @@ public class RecommendId implements Serializable {
         this.storeId = storeId;
     }
 
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public Integer getStoreId() {
+        return storeId;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -6,7 +6,9 @@ import lombok.Data;
 import io.swagger.v3.oas.annotations.media.Schema;
 
 @Entity
-@Table(name = "recommend_user")
+@Table(name = "recommend_user", indexes = {
+    @Index(name = "idx_recommend_user_created_at", columnList = "created_at, user_id, store_id") // 鍵集分頁排序用
+})
 @IdClass(RecommendId.class) // 指定複合主鍵類別
 @Data
 @Schema(description = "用戶推薦資料")
@@ -1,44 +1,144 @@
 package com.example.topfoodnow.repository;
 
+import com.example.topfoodnow.dto.RecommendRow;
 import com.example.topfoodnow.model.RecommendModel;
 import com.example.topfoodnow.model.RecommendId;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface RecommendRepository extends JpaRepository<RecommendModel, RecommendId> {
+public interface RecommendRepository extends JpaRepository<RecommendModel, RecommendId>, RecommendRepositoryCustom {
+    // 唯讀查詢直接投影成 RecommendRow，省去實體載入與髒檢查
+    String ROW_COLUMNS = "new com.example.topfoodnow.dto.RecommendRow(" +
+            "r.userId, u.userName, u.isFamous, s.id, s.name, s.address, s.photoUrl, r.reason, r.score, r.createdAt)";
+
+    // 實體查詢一律帶出用戶與店家，避免延遲載入造成 N+1
+    @EntityGraph(attributePaths = {"user", "store"})
     List<RecommendModel> findByUserId(Integer userId);
 
+    @EntityGraph(attributePaths = {"user", "store"})
     Optional<RecommendModel> findByUserIdAndStoreId(Integer userId, Integer storeId);
 
+    // 個人推薦列表的唯讀投影
+    @Query("SELECT " + ROW_COLUMNS + " FROM RecommendModel r " +
+            "JOIN r.user u " +
+            "JOIN r.store s " +
+            "WHERE r.userId = :userId " +
+            "ORDER BY r.createdAt DESC")
+    List<RecommendRow> findRowsByUserId(@Param("userId") Integer userId);
+
+    // 推薦詳情的唯讀投影
+    @Query("SELECT " + ROW_COLUMNS + " FROM RecommendModel r " +
+            "JOIN r.user u " +
+            "JOIN r.store s " +
+            "WHERE r.userId = :userId AND r.storeId = :storeId")
+    Optional<RecommendRow> findRowByUserIdAndStoreId(@Param("userId") Integer userId, @Param("storeId") Integer storeId);
+
     // 獲取最新且由名人推薦的店家
-    @Query("SELECT r FROM RecommendModel r " +
-            "JOIN FETCH r.user u " +
-            "JOIN FETCH r.store s " +
+    @Query("SELECT " + ROW_COLUMNS + " FROM RecommendModel r " +
+            "JOIN r.user u " +
+            "JOIN r.store s " +
             "WHERE u.isFamous = true " +
             "ORDER BY r.createdAt DESC")
-    List<RecommendModel> findLatestFamousUserRecommends(Pageable pageable);
+    List<RecommendRow> findLatestFamousUserRecommends(Pageable pageable);
 
-    @Query("SELECT r FROM RecommendModel r " +
-            "JOIN FETCH r.user u " +
-            "JOIN FETCH r.store s " +
+    @Query("SELECT " + ROW_COLUMNS + " FROM RecommendModel r " +
+            "JOIN r.user u " +
+            "JOIN r.store s " +
             "WHERE (:isFamousFilter IS NULL OR u.isFamous = :isFamousFilter) " +
             "AND (:searchTerm IS NULL OR :searchTerm = '' " +
             "       OR LOWER(u.userName) LIKE LOWER(CONCAT('%', :searchTerm, '%')) " +
             "       OR LOWER(s.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')) " +
             "       OR LOWER(s.address) LIKE LOWER(CONCAT('%', :searchTerm, '%'))) " +
             "ORDER BY r.createdAt DESC")
-    Page<RecommendModel> findFilteredRecommends(
+    Slice<RecommendRow> findFilteredRecommends(
             @Param("isFamousFilter") Boolean isFamousFilter,
             @Param("searchTerm") String searchTerm,
             Pageable pageable);
 
-    @Query(value = "SELECT * FROM recommend_user ORDER BY RAND() LIMIT 6", nativeQuery = true)
-    List<RecommendModel> findRandom6Recommends();
-}
\ No newline at end of file
+    @Query("SELECT COUNT(r) FROM RecommendModel r " +
+            "JOIN r.user u " +
+            "JOIN r.store s " +
+            "WHERE (:isFamousFilter IS NULL OR u.isFamous = :isFamousFilter) " +
+            "AND (:searchTerm IS NULL OR :searchTerm = '' " +
+            "       OR LOWER(u.userName) LIKE LOWER(CONCAT('%', :searchTerm, '%')) " +
+            "       OR LOWER(s.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')) " +
+            "       OR LOWER(s.address) LIKE LOWER(CONCAT('%', :searchTerm, '%')))")
+    long countFilteredRecommends(
+            @Param("isFamousFilter") Boolean isFamousFilter,
+            @Param("searchTerm") String searchTerm);
+
+    // 鍵集分頁：取游標之後（較舊）的推薦，游標為 null 時為第一頁
+    @Query("SELECT " + ROW_COLUMNS + " FROM RecommendModel r " +
+            "JOIN r.user u " +
+            "JOIN r.store s " +
+            "WHERE (:isFamousFilter IS NULL OR u.isFamous = :isFamousFilter) " +
+            "AND (:searchTerm IS NULL OR :searchTerm = '' " +
+            "       OR LOWER(u.userName) LIKE LOWER(CONCAT('%', :searchTerm, '%')) " +
+            "       OR LOWER(s.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')) " +
+            "       OR LOWER(s.address) LIKE LOWER(CONCAT('%', :searchTerm, '%'))) " +
+            "AND (:cursorCreatedAt IS NULL OR r.createdAt < :cursorCreatedAt " +
+            "       OR (r.createdAt = :cursorCreatedAt AND (r.userId < :cursorUserId " +
+            "           OR (r.userId = :cursorUserId AND r.storeId < :cursorStoreId)))) " +
+            "ORDER BY r.createdAt DESC, r.userId DESC, r.storeId DESC")
+    List<RecommendRow> findFilteredRecommendsAfter(
+            @Param("isFamousFilter") Boolean isFamousFilter,
+            @Param("searchTerm") String searchTerm,
+            @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+            @Param("cursorUserId") Integer cursorUserId,
+            @Param("cursorStoreId") Integer cursorStoreId,
+            Pageable pageable);
+
+    // 鍵集分頁：取游標之前（較新）的推薦，結果為由舊到新，呼叫端需反轉
+    @Query("SELECT " + ROW_COLUMNS + " FROM RecommendModel r " +
+            "JOIN r.user u " +
+            "JOIN r.store s " +
+            "WHERE (:isFamousFilter IS NULL OR u.isFamous = :isFamousFilter) " +
+            "AND (:searchTerm IS NULL OR :searchTerm = '' " +
+            "       OR LOWER(u.userName) LIKE LOWER(CONCAT('%', :searchTerm, '%')) " +
+            "       OR LOWER(s.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')) " +
+            "       OR LOWER(s.address) LIKE LOWER(CONCAT('%', :searchTerm, '%'))) " +
+            "AND (r.createdAt > :cursorCreatedAt " +
+            "       OR (r.createdAt = :cursorCreatedAt AND (r.userId > :cursorUserId " +
+            "           OR (r.userId = :cursorUserId AND r.storeId > :cursorStoreId)))) " +
+            "ORDER BY r.createdAt ASC, r.userId ASC, r.storeId ASC")
+    List<RecommendRow> findFilteredRecommendsBefore(
+            @Param("isFamousFilter") Boolean isFamousFilter,
+            @Param("searchTerm") String searchTerm,
+            @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+            @Param("cursorUserId") Integer cursorUserId,
+            @Param("cursorStoreId") Integer cursorStoreId,
+            Pageable pageable);
+
+    // 只取複合主鍵，用於初始化隨機抽樣池
+    @Query("SELECT r.userId, r.storeId FROM RecommendModel r")
+    List<Object[]> findAllIds();
+
+    // 依主鍵順序分批讀取全部推薦，用於重建搜尋索引
+    @Query("SELECT " + ROW_COLUMNS + " FROM RecommendModel r " +
+            "JOIN r.user u " +
+            "JOIN r.store s " +
+            "ORDER BY r.userId, r.storeId")
+    Slice<RecommendRow> findAllRows(Pageable pageable);
+
+    // 某店家的全部推薦，店家資料變更時用於重新索引
+    @Query("SELECT " + ROW_COLUMNS + " FROM RecommendModel r " +
+            "JOIN r.user u " +
+            "JOIN r.store s " +
+            "WHERE r.storeId = :storeId")
+    List<RecommendRow> findRowsByStoreId(@Param("storeId") Integer storeId);
+
+    // 批次匯入時一次找出用戶已推薦過的店家
+    @Query("SELECT r.storeId FROM RecommendModel r WHERE r.userId = :userId AND r.storeId IN :storeIds")
+    List<Integer> findStoreIdsByUserIdAndStoreIdIn(@Param("userId") Integer userId,
+                                                   @Param("storeIds") Collection<Integer> storeIds);
+}
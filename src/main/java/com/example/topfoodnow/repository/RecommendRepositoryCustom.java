@@ -0,0 +1,11 @@
+package com.example.topfoodnow.repository;
+
+import com.example.topfoodnow.dto.RecommendRow;
+import com.example.topfoodnow.model.RecommendId;
+import java.util.Collection;
+import java.util.List;
+
+public interface RecommendRepositoryCustom {
+    // 以單次查詢依複合主鍵取回多筆推薦投影，不保證回傳順序
+    List<RecommendRow> findRowsByIds(Collection<RecommendId> ids);
+}
@@ -0,0 +1,49 @@
+package com.example.topfoodnow.repository;
+
+import com.example.topfoodnow.dto.RecommendRow;
+import com.example.topfoodnow.model.RecommendId;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Spring Data 的 findAllById 遇到 @IdClass 會逐筆查詢，這裡改為組出 OR 條件的 JPQL；主鍵很多時分批查詢，每條查詢的條件數有上限
+public class RecommendRepositoryImpl implements RecommendRepositoryCustom {
+    static final int MAX_IDS_PER_QUERY = 100;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<RecommendRow> findRowsByIds(Collection<RecommendId> ids) {
+        List<RecommendId> all = new ArrayList<>(ids);
+        List<RecommendRow> rows = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += MAX_IDS_PER_QUERY) {
+            rows.addAll(findChunk(all.subList(from, Math.min(from + MAX_IDS_PER_QUERY, all.size()))));
+        }
+        return rows;
+    }
+
+    private List<RecommendRow> findChunk(List<RecommendId> ids) {
+        StringBuilder jpql = new StringBuilder("SELECT " + RecommendRepository.ROW_COLUMNS + " FROM RecommendModel r " +
+                "JOIN r.user u " +
+                "JOIN r.store s " +
+                "WHERE ");
+        for (int i = 0; i < ids.size(); i++) {
+            if (i > 0) {
+                jpql.append(" OR ");
+            }
+            jpql.append("(r.userId = :u").append(i).append(" AND r.storeId = :s").append(i).append(")");
+        }
+        TypedQuery<RecommendRow> query = entityManager.createQuery(jpql.toString(), RecommendRow.class);
+        int i = 0;
+        for (RecommendId id : ids) {
+            query.setParameter("u" + i, id.getUserId());
+            query.setParameter("s" + i, id.getStoreId());
+            i++;
+        }
+        return query.getResultList();
+    }
+}
@@ -3,16 +3,23 @@ package com.example.topfoodnow.repository;
 import com.example.topfoodnow.model.StoreModel;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface StoreRepository extends JpaRepository<StoreModel, Integer> {
-    @Query(value = "SELECT * FROM store ORDER BY RAND() LIMIT 6", nativeQuery = true)
-    List<StoreModel> findRandom6Stores();
+    // 只取主鍵，用於初始化隨機抽樣池
+    @Query("SELECT s.id FROM StoreModel s")
+    List<Integer> findAllIds();
 
     List<StoreModel> findTop6ByOrderByCreatedAtDesc();
 
     Optional<StoreModel> findByName(String name);
+
+    // 批次匯入時一次取得多家店的 ID，每列為 [name, id]
+    @Query("SELECT s.name, s.id FROM StoreModel s WHERE s.name IN :names")
+    List<Object[]> findIdsByNameIn(@Param("names") Collection<String> names);
 }
@@ -0,0 +1,271 @@
+package com.example.topfoodnow.service;
+
+import com.example.topfoodnow.model.AiRestaurantModel;
+import com.example.topfoodnow.util.SingleFlight;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AI 推薦結果快取。提示詞固定，因此整份結果只有一筆快取。
+ * 過期後仍先回傳舊結果，同時只在背景重建一次（stale-while-revalidate）；
+ * 結果會寫入磁碟，重新啟動後不必再等待 Gemini 與截圖。
+ * AI 失敗時回傳的資料庫 fallback 不會被快取。
+ * 同時進來的請求共用同一次流程執行（single-flight），避免重複呼叫 Gemini 與排入大量截圖任務。
+ * 啟用背景預熱（ai.warmup.enabled）時由 AiRecommendWarmer 定期更新，請求路徑上不會呼叫 Gemini：
+ * 尚無結果時先回傳資料庫 fallback 並在背景產生。
+ */
+@Service
+public class AiRecommendCache {
+    private static final Logger logger = LoggerFactory.getLogger(AiRecommendCache.class);
+
+    private final AiRecommendService aiRecommendService;
+    private final ObjectMapper objectMapper;
+    private final long ttlMillis;
+    private final Path cacheFile;
+    private final Path dynamicContentBase;
+    private final boolean warmupEnabled;
+
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final SingleFlight<Optional<List<AiRestaurantModel>>> pipelineFlight;
+    private final AtomicLong lastReadAt = new AtomicLong(System.currentTimeMillis());
+    private volatile CachedResult cached;
+
+    public AiRecommendCache(AiRecommendService aiRecommendService,
+                            ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry,
+                            @Value("${ai.cache.ttl-minutes:360}") long ttlMinutes,
+                            @Value("${ai.cache.file:./data/ai-recommend-cache.json}") String cacheFile,
+                            @Value("${file.dynamic-content-base-dir}") String dynamicContentBaseDir,
+                            @Value("${ai.warmup.enabled:true}") boolean warmupEnabled) {
+        this.aiRecommendService = aiRecommendService;
+        this.objectMapper = objectMapper;
+        this.pipelineFlight = new SingleFlight<>(meterRegistry, "ai.recommend.pipeline");
+        this.ttlMillis = ttlMinutes * 60_000;
+        this.cacheFile = Paths.get(cacheFile).toAbsolutePath().normalize();
+        this.dynamicContentBase = Paths.get(dynamicContentBaseDir).toAbsolutePath().normalize();
+        this.warmupEnabled = warmupEnabled;
+        this.cached = loadFromDisk();
+    }
+
+    /**
+     * 取得快取中的 AI 推薦，不執行流程也不查詢資料庫
+     * @return 快取中的結果（可能已過期，並已排程背景更新）；尚無結果時返回 Optional.empty()
+     */
+    public Optional<List<AiRestaurantModel>> getCachedRecommendations() {
+        lastReadAt.set(System.currentTimeMillis());
+        CachedResult current = cached;
+        if (current == null) {
+            return Optional.empty();
+        }
+        if (System.currentTimeMillis() - current.getFetchedAt() > ttlMillis) {
+            scheduleRefresh();
+        }
+        return Optional.of(current.getRestaurants());
+    }
+
+    /**
+     * 取得 AI 推薦餐廳
+     * @return 快取中的結果（可能已過期，並已排程背景更新）；沒有快取時，啟用預熱則回傳資料庫 fallback 並在背景產生，否則同步執行一次完整流程
+     * @throws IOException 沒有快取、未啟用預熱且與 Gemini API 通訊失敗
+     */
+    public List<AiRestaurantModel> getRecommendations() throws IOException {
+        Optional<List<AiRestaurantModel>> current = getCachedRecommendations();
+        if (current.isPresent()) {
+            return current.get();
+        }
+        if (warmupEnabled) {
+            scheduleRefresh();
+            return aiRecommendService.getFallbackFromDatabase();
+        }
+        Optional<List<AiRestaurantModel>> result = runPipelineOnce();
+        if (result.isPresent() && !result.get().isEmpty()) {
+            return result.get();
+        }
+        return aiRecommendService.getFallbackFromDatabase();
+    }
+
+    /**
+     * 串流版本：有快取時直接通知整份結果；沒有快取時，啟用預熱則通知資料庫 fallback 並在背景產生，
+     * 否則執行流程，並在解析完成與每張截圖完成時通知 listener。
+     * 若已有其他請求正在執行流程，則等待其結果後一次通知。
+     * @param listener 進度通知
+     * @return 最終結果，與 getRecommendations() 相同
+     * @throws IOException 沒有快取、未啟用預熱且與 Gemini API 通訊失敗
+     */
+    public List<AiRestaurantModel> streamRecommendations(AiRecommendService.PipelineListener listener) throws IOException {
+        lastReadAt.set(System.currentTimeMillis());
+        CachedResult current = cached;
+        if (current == null && warmupEnabled) {
+            scheduleRefresh();
+            List<AiRestaurantModel> fallback = aiRecommendService.getFallbackFromDatabase();
+            listener.onRestaurants(fallback);
+            return fallback;
+        }
+        if (current == null) {
+            AtomicBoolean streamed = new AtomicBoolean();
+            Optional<List<AiRestaurantModel>> result = runPipelineOnce(new AiRecommendService.PipelineListener() {
+                @Override
+                public void onRestaurants(List<AiRestaurantModel> restaurants) {
+                    streamed.set(true);
+                    listener.onRestaurants(restaurants);
+                }
+
+                @Override
+                public void onPhoto(AiRestaurantModel restaurant, int index) {
+                    listener.onPhoto(restaurant, index);
+                }
+            });
+            if (result.isPresent() && !result.get().isEmpty()) {
+                if (!streamed.get()) {
+                    listener.onRestaurants(result.get()); // 與其他請求合併執行時，只能在最後一次送出
+                }
+                return result.get();
+            }
+            List<AiRestaurantModel> fallback = aiRecommendService.getFallbackFromDatabase();
+            listener.onRestaurants(fallback);
+            return fallback;
+        }
+        List<AiRestaurantModel> restaurants = getRecommendations();
+        listener.onRestaurants(restaurants);
+        return restaurants;
+    }
+
+    /**
+     * 同步執行一次流程，成功時以新結果取代快取；失敗時保留原本的結果
+     * @return 是否取得新結果
+     * @throws IOException 與 Gemini API 通訊失敗
+     */
+    public boolean refresh() throws IOException {
+        Optional<List<AiRestaurantModel>> result = runPipelineOnce();
+        return result.isPresent() && !result.get().isEmpty();
+    }
+
+    /**
+     * @return 目前結果產生至今的毫秒數；尚無結果時為 Long.MAX_VALUE
+     */
+    public long getAgeMillis() {
+        CachedResult current = cached;
+        return current == null ? Long.MAX_VALUE : System.currentTimeMillis() - current.getFetchedAt();
+    }
+
+    /**
+     * @return 最近一次有請求讀取推薦的時間（epoch 毫秒），啟動時為啟動時間
+     */
+    public long getLastReadAt() {
+        return lastReadAt.get();
+    }
+
+    private Optional<List<AiRestaurantModel>> runPipelineOnce() throws IOException {
+        return runPipelineOnce(AiRecommendService.PipelineListener.NONE);
+    }
+
+    // 執行流程並在成功時寫入快取；執行期間的其他呼叫者等待並共用同一份結果，listener 只會收到自己執行時的進度
+    private Optional<List<AiRestaurantModel>> runPipelineOnce(AiRecommendService.PipelineListener listener) throws IOException {
+        try {
+            return pipelineFlight.execute(() -> {
+                Optional<List<AiRestaurantModel>> result = aiRecommendService.runPipeline(listener);
+                if (result.isPresent() && !result.get().isEmpty()) {
+                    store(result.get());
+                }
+                return result;
+            });
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void scheduleRefresh() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        refreshExecutor.submit(() -> {
+            try {
+                long start = System.currentTimeMillis();
+                if (refresh()) {
+                    logger.info("AI 推薦快取已在背景更新，耗時 {} ms。", System.currentTimeMillis() - start);
+                } else {
+                    logger.warn("背景更新 AI 推薦失敗，繼續提供舊的快取結果。");
+                }
+            } catch (Exception e) {
+                logger.warn("背景更新 AI 推薦時發生錯誤，繼續提供舊的快取結果: {}", e.getMessage());
+            } finally {
+                refreshing.set(false);
+            }
+        });
+    }
+
+    private void store(List<AiRestaurantModel> restaurants) {
+        CachedResult result = new CachedResult(System.currentTimeMillis(), List.copyOf(restaurants));
+        cached = result;
+        try {
+            Files.createDirectories(cacheFile.getParent());
+            // 先寫暫存檔再替換，避免寫到一半時重啟留下損壞的檔案
+            Path tempFile = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+            objectMapper.writeValue(tempFile.toFile(), result);
+            Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("無法寫入 AI 推薦快取檔 {}: {}", cacheFile, e.getMessage());
+        }
+    }
+
+    private CachedResult loadFromDisk() {
+        if (!Files.isRegularFile(cacheFile)) {
+            return null;
+        }
+        try {
+            CachedResult result = objectMapper.readValue(cacheFile.toFile(), CachedResult.class);
+            if (result.getRestaurants() == null || result.getRestaurants().isEmpty()) {
+                return null;
+            }
+            // 截圖檔案若已被清除，舊結果的圖片會失效，寧可重新產生
+            for (AiRestaurantModel restaurant : result.getRestaurants()) {
+                String photoUrl = restaurant.getPhotoUrl();
+                if (photoUrl != null && photoUrl.startsWith("/dynamic-content/")
+                        && !Files.exists(dynamicContentBase.resolve(photoUrl.substring("/dynamic-content/".length())))) {
+                    logger.info("AI 推薦快取檔引用的截圖已不存在，捨棄快取: {}", photoUrl);
+                    return null;
+                }
+            }
+            logger.info("已從 {} 載入 AI 推薦快取，共 {} 家餐廳。", cacheFile, result.getRestaurants().size());
+            return result;
+        } catch (IOException e) {
+            logger.warn("無法讀取 AI 推薦快取檔 {}，將重新產生: {}", cacheFile, e.getMessage());
+            return null;
+        }
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        refreshExecutor.shutdownNow();
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class CachedResult {
+        private long fetchedAt;
+        private List<AiRestaurantModel> restaurants;
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.topfoodnow.service;
+
+import com.example.topfoodnow.dto.RecommendDTO;
+import com.example.topfoodnow.model.AiRestaurantModel;
+import com.example.topfoodnow.util.BatchScreenshotUtil;
+import com.example.topfoodnow.util.GeminiClient;
+import com.example.topfoodnow.util.JsonUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * AI 推薦流程：呼叫 Gemini 取得餐廳清單、以單次串流解析 JSON，再批量截圖。
+ * 由 AiRecommendCache 呼叫，結果會被快取，不會每個請求都執行一次。
+ */
+@Service
+public class AiRecommendService {
+    private static final Logger logger = LoggerFactory.getLogger(AiRecommendService.class);
+    private final JsonUtil jsonUtil;
+    private final BatchScreenshotUtil batchScreenshotUtil;
+    private final RecommendService recommendService;
+    private final GeminiClient geminiClient;
+
+    public AiRecommendService(JsonUtil jsonUtil,
+                              BatchScreenshotUtil batchScreenshotUtil,
+                              RecommendService recommendService,
+                              GeminiClient geminiClient) {
+        this.jsonUtil = jsonUtil;
+        this.geminiClient = geminiClient;
+        this.batchScreenshotUtil = batchScreenshotUtil;
+        this.recommendService = recommendService;
+    }
+
+    private static final String PROMPT =
+        "請輸出台北6家熱門美食餐廳，包含名稱、地址和網址(盡量提供穩定可訪問的非社群媒體官方網站)。使用 JSON 陣列格式回傳，例如：\n" +
+        "[{\"name\": \"鼎泰豐\", \"address\": \"台北市信義路二段22號\", \"url\": \"https://www.dintaifung.com.tw/\"}]\n" +
+        "請確保回傳內容為純 JSON 陣列，不包含任何額外文字或 markdown 格式符號。"; // 針對Gemini優化提示，要求純JSON
+
+    /**
+     * 執行完整的 AI 推薦流程
+     * @return AI 推薦且至少一張截圖成功時返回結果；Gemini 斷路器開啟、AI 回傳無法解析或截圖全部失敗時返回 Optional.empty()，由呼叫端改用資料庫 fallback
+     * @throws IOException 與 Gemini API 通訊失敗
+     */
+    public Optional<List<AiRestaurantModel>> runPipeline() throws IOException {
+        return runPipeline(PipelineListener.NONE);
+    }
+
+    /**
+     * 執行完整的 AI 推薦流程，並在各階段完成時通知 listener，供串流回應使用
+     * @param listener 解析出餐廳清單後與每張截圖完成時被呼叫
+     * @return 同 runPipeline()
+     * @throws IOException 與 Gemini API 通訊失敗
+     */
+    public Optional<List<AiRestaurantModel>> runPipeline(PipelineListener listener) throws IOException {
+        logger.info("啟動 AI 搜尋 (Gemini)");
+
+        byte[] geminiResponse;
+        try {
+            geminiResponse = geminiClient.generateContent(PROMPT);
+        } catch (GeminiClient.CircuitOpenException e) {
+            logger.warn("{}，直接改用資料庫 fallback。", e.getMessage());
+            return Optional.empty();
+        }
+
+        List<AiRestaurantModel> aiList;
+        try {
+            aiList = jsonUtil.parseGeminiResponse(geminiResponse);
+        } catch (IOException e) {
+            // 原始內容只在解析失敗時才轉成字串；十六進位內容只在開啟 DEBUG 時才產生
+            String raw = new String(geminiResponse, StandardCharsets.UTF_8);
+            logger.error("解析 Gemini 回傳 JSON 失敗: {}，原始回傳: '{}'", e.getMessage(), raw);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Gemini 原始回傳 (HEX): {}", toHex(raw));
+            }
+            return Optional.empty();
+        }
+        logger.info("解析後餐廳數: {}", aiList.size());
+        listener.onRestaurants(aiList);
+
+        List<AiRestaurantModel> successList = batchScreenshotUtil.captureScreenshots(aiList, listener::onPhoto);
+        logger.info("總任務數: {}, 成功截圖: {} 個，因 URL 為空跳過: {} 個，截圖失敗: {} 個。",
+                aiList.size(),
+                (int) successList.stream().filter(r -> r.getPhotoUrl() != null && !r.getPhotoUrl().contains("No+URL") && !r.getPhotoUrl().contains("Error+Image")).count(),
+                (int) successList.stream().filter(r -> r.getPhotoUrl() != null && r.getPhotoUrl().contains("No+URL")).count(),
+                (int) successList.stream().filter(r -> r.getPhotoUrl() != null && r.getPhotoUrl().contains("Error+Image")).count());
+
+        long actualSuccessCount = successList.stream()
+                .filter(r -> r.getPhotoUrl() != null && !r.getPhotoUrl().contains("No+URL") && !r.getPhotoUrl().contains("Error+Image"))
+                .count();
+
+        if (actualSuccessCount == 0 && !aiList.isEmpty()) {
+            logger.warn("AI 推薦全部截圖失敗或跳過，改用資料庫 fallback。");
+            return Optional.empty();
+        }
+        return Optional.of(successList);
+    }
+
+    public List<AiRestaurantModel> getFallbackFromDatabase() {
+        logger.info("執行資料庫 fallback (從 RecommendService 獲取隨機推薦)。");
+        List<RecommendDTO> recommends = recommendService.findRandom6Recommends();
+        List<AiRestaurantModel> fallback = new ArrayList<>();
+
+        for (RecommendDTO r : recommends) {
+            fallback.add(new AiRestaurantModel(r.getStoreName(), r.getStoreAddress(), null, r.getStorePhotoUrl()));
+        }
+        return fallback;
+    }
+
+    // 將字符串轉換為十六進制表示，以便排查不可見字符
+    private String toHex(String s) {
+        if (s == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (char c : s.toCharArray()) {
+            sb.append(String.format("\\u%04x", (int) c));
+        }
+        return sb.toString();
+    }
+
+    // 流程進度通知，預設不做任何事
+    public interface PipelineListener {
+        PipelineListener NONE = new PipelineListener() { };
+
+        // 解析出餐廳清單後呼叫，此時尚未有截圖
+        default void onRestaurants(List<AiRestaurantModel> restaurants) { }
+
+        // 每張截圖完成（成功或失敗）時依完成順序呼叫
+        default void onPhoto(AiRestaurantModel restaurant, int index) { }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.topfoodnow.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AI 推薦背景預熱：定期在背景執行完整流程（Gemini、解析、截圖），由 AiRecommendCache 原子地替換結果，
+ * 讓 /api/ai 只需讀取記憶體中的結果。
+ * 下一次執行排在目前結果滿 ai.warmup.interval-minutes 時，並加上隨機延遲，避免多個實例同時呼叫 Gemini；
+ * 超過 ai.warmup.idle-minutes 沒有請求讀取時暫停更新，有請求時再由快取過期機制或下一次排程恢復。
+ * 執行失敗時保留上一次成功的結果，於 ai.warmup.retry-minutes 後重試。
+ * 執行次數以 ai.warmup.runs{outcome=success|failure|idle} 計數。
+ */
+@Service
+public class AiRecommendWarmer {
+    private static final Logger logger = LoggerFactory.getLogger(AiRecommendWarmer.class);
+
+    private final AiRecommendCache aiRecommendCache;
+    private final boolean enabled;
+    private final long intervalMillis;
+    private final long initialDelayMillis;
+    private final long jitterMillis;
+    private final long idleMillis;
+    private final long retryMillis;
+    private final Counter successCounter;
+    private final Counter failureCounter;
+    private final Counter idleCounter;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ai-warmup");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public AiRecommendWarmer(AiRecommendCache aiRecommendCache,
+                             MeterRegistry meterRegistry,
+                             @Value("${ai.warmup.enabled:true}") boolean enabled,
+                             @Value("${ai.warmup.interval-minutes:300}") long intervalMinutes,
+                             @Value("${ai.warmup.initial-delay-seconds:10}") long initialDelaySeconds,
+                             @Value("${ai.warmup.jitter-seconds:60}") long jitterSeconds,
+                             @Value("${ai.warmup.idle-minutes:720}") long idleMinutes,
+                             @Value("${ai.warmup.retry-minutes:5}") long retryMinutes) {
+        this.aiRecommendCache = aiRecommendCache;
+        this.enabled = enabled;
+        this.intervalMillis = TimeUnit.MINUTES.toMillis(Math.max(1, intervalMinutes));
+        this.initialDelayMillis = TimeUnit.SECONDS.toMillis(Math.max(0, initialDelaySeconds));
+        this.jitterMillis = TimeUnit.SECONDS.toMillis(Math.max(0, jitterSeconds));
+        this.idleMillis = TimeUnit.MINUTES.toMillis(Math.max(1, idleMinutes));
+        this.retryMillis = TimeUnit.MINUTES.toMillis(Math.max(1, retryMinutes));
+        this.successCounter = Counter.builder("ai.warmup.runs").tag("outcome", "success").register(meterRegistry);
+        this.failureCounter = Counter.builder("ai.warmup.runs").tag("outcome", "failure").register(meterRegistry);
+        this.idleCounter = Counter.builder("ai.warmup.runs").tag("outcome", "idle").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            logger.info("AI 推薦背景預熱未啟用。");
+            return;
+        }
+        // 已從磁碟載入仍新鮮的結果時，等到它該更新時才執行
+        long delay = Math.max(initialDelayMillis, untilStale()) + jitter();
+        logger.info("AI 推薦背景預熱將於 {} 秒後開始，之後每 {} 分鐘更新。", delay / 1000, TimeUnit.MILLISECONDS.toMinutes(intervalMillis));
+        schedule(delay);
+    }
+
+    private void schedule(long delayMillis) {
+        if (!scheduler.isShutdown()) {
+            scheduler.schedule(() -> schedule(runOnce()), delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 執行一次預熱
+     * @return 距離下一次執行的毫秒數
+     */
+    long runOnce() {
+        if (System.currentTimeMillis() - aiRecommendCache.getLastReadAt() > idleMillis) {
+            idleCounter.increment();
+            logger.debug("超過 {} 分鐘沒有請求讀取 AI 推薦，暫停背景更新。", TimeUnit.MILLISECONDS.toMinutes(idleMillis));
+            return intervalMillis + jitter();
+        }
+        if (untilStale() > 0) {
+            return untilStale() + jitter(); // 期間已由其他路徑更新
+        }
+        long start = System.currentTimeMillis();
+        try {
+            if (aiRecommendCache.refresh()) {
+                successCounter.increment();
+                logger.info("AI 推薦背景預熱完成，耗時 {} ms。", System.currentTimeMillis() - start);
+                return intervalMillis + jitter();
+            }
+            logger.warn("AI 推薦背景預熱未取得結果，繼續提供上一次的結果。");
+        } catch (Exception e) {
+            logger.warn("AI 推薦背景預熱失敗，繼續提供上一次的結果: {}", e.getMessage());
+        }
+        failureCounter.increment();
+        return retryMillis + jitter();
+    }
+
+    private long untilStale() {
+        return Math.max(0, intervalMillis - aiRecommendCache.getAgeMillis());
+    }
+
+    private long jitter() {
+        return jitterMillis == 0 ? 0 : ThreadLocalRandom.current().nextLong(jitterMillis + 1);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
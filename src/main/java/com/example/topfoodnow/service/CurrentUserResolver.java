@@ -0,0 +1,77 @@
+package com.example.topfoodnow.service;
+
+import com.example.topfoodnow.dto.SessionUser;
+import com.example.topfoodnow.model.UserModel;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+import java.util.Optional;
+
+/**
+ * 解析目前請求的登入用戶。
+ * Session 只保存 SessionUser；需要完整的 UserModel 時才載入，且每個請求最多載入一次，
+ * 同一請求內的多次呼叫共用同一個物件。取得的是 UserService 的快照（不含密碼與 Token），
+ * 並非受管理的實體；寫入時由各服務依 ID 重新載入或取得參考。
+ */
+@Component
+@RequestScope
+public class CurrentUserResolver {
+    private static final Logger logger = LoggerFactory.getLogger(CurrentUserResolver.class);
+    public static final String SESSION_ATTRIBUTE = "user";
+
+    private final HttpServletRequest request;
+    private final UserService userService;
+
+    private boolean loaded;
+    private UserModel user;
+
+    public CurrentUserResolver(HttpServletRequest request, UserService userService) {
+        this.request = request;
+        this.userService = userService;
+    }
+
+    /**
+     * 登入成功後寫入 Session
+     * @param session 目前的 HttpSession
+     * @param user 通過驗證的用戶
+     */
+    public static void login(HttpSession session, UserModel user) {
+        session.setAttribute(SESSION_ATTRIBUTE, SessionUser.from(user));
+    }
+
+    /**
+     * 取得 Session 中的登入用戶摘要，不查詢資料庫
+     * @return 已登入則返回 SessionUser，否則返回 Optional.empty()
+     */
+    public Optional<SessionUser> getSessionUser() {
+        HttpSession session = request.getSession(false);
+        if (session == null) {
+            return Optional.empty();
+        }
+        Object attribute = session.getAttribute(SESSION_ATTRIBUTE);
+        return attribute instanceof SessionUser sessionUser ? Optional.of(sessionUser) : Optional.empty();
+    }
+
+    /**
+     * 取得登入用戶的完整資料，同一請求內只載入一次
+     * 用戶已被刪除時會清除 Session，視同未登入
+     * @return 已登入且用戶存在則返回 UserModel，否則返回 Optional.empty()
+     */
+    public Optional<UserModel> getUser() {
+        if (!loaded) {
+            loaded = true;
+            user = getSessionUser().flatMap(sessionUser -> {
+                Optional<UserModel> found = userService.findById(sessionUser.getId());
+                if (found.isEmpty()) {
+                    logger.warn("Session 中的用戶 ID {} 已不存在，清除登入狀態。", sessionUser.getId());
+                    request.getSession().removeAttribute(SESSION_ATTRIBUTE);
+                }
+                return found;
+            }).orElse(null);
+        }
+        return Optional.ofNullable(user);
+    }
+}
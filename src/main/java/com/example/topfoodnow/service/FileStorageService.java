@@ -1,18 +1,44 @@
 package com.example.topfoodnow.service;
 
+import com.example.topfoodnow.util.ImageVariantUtil;
+import com.example.topfoodnow.util.ObjectStorage;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.util.StringUtils;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.util.UUID;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
+/**
+ * 上傳檔案儲存。檔案只讀取一次：寫入暫存檔的同時計算 SHA-256，完成後以雜湊值命名原子地搬移到上傳目錄，
+ * 相同內容只保存一份，網址固定為 /dynamic-content/{upload-sub-dir}{sha256}.{副檔名}。
+ * 只接受 JPEG、PNG、GIF、WebP（依檔案開頭的格式標記判斷，不採信檔名與 Content-Type），
+ * 超過 file.upload.max-size-mb 時在讀取前或讀取途中即拒絕。
+ * 上傳目錄作為本節點的快取，檔案同時以 {upload-sub-dir}{sha256}.{副檔名} 為鍵保存到 ObjectStorage，
+ * 物件儲存尚無此鍵時才上傳；保存失敗時上傳失敗，不留下只存在於本機的新檔案。
+ * 保存後由 ImageVariantUtil 在背景產生縮圖、卡片、詳細頁尺寸。
+ * 量測值：file.upload{result=stored|duplicate|rejected} 記錄寫入耗時，file.upload.disk.bytes 為上傳目錄總大小。
+ */
 @Service
 public class FileStorageService {
+    private static final Logger logger = LoggerFactory.getLogger(FileStorageService.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
     @Value("${file.dynamic-content-base-dir}")
     private String dynamicContentBaseDir;
 
@@ -20,29 +46,172 @@ public class FileStorageService {
     private String uploadSubDir;
 
     private Path fileUploadLocation;
+    private final long maxBytes;
+    private final ImageVariantUtil imageVariantUtil;
+    private final ObjectStorage objectStorage;
+    private final AtomicLong diskBytes = new AtomicLong();
+    private final Timer storedTimer;
+    private final Timer duplicateTimer;
+    private final Timer rejectedTimer;
 
     public FileStorageService(@Value("${file.dynamic-content-base-dir}") String baseDir,
-                              @Value("${file.upload-sub-dir}") String uploadDir) {
+                              @Value("${file.upload-sub-dir}") String uploadDir,
+                              @Value("${file.upload.max-size-mb:10}") long maxSizeMb,
+                              ImageVariantUtil imageVariantUtil,
+                              ObjectStorage objectStorage,
+                              MeterRegistry meterRegistry) {
         this.fileUploadLocation = Paths.get(baseDir, uploadDir).toAbsolutePath().normalize();
+        this.uploadSubDir = uploadDir;
+        this.maxBytes = maxSizeMb * 1024 * 1024;
+        this.imageVariantUtil = imageVariantUtil;
+        this.objectStorage = objectStorage;
         try {
             Files.createDirectories(this.fileUploadLocation);
         } catch (IOException ex) {
             throw new RuntimeException("無法創建文件上傳目錄！" + this.fileUploadLocation, ex);
         }
+        this.diskBytes.set(directorySize(this.fileUploadLocation));
+        this.storedTimer = Timer.builder("file.upload").tag("result", "stored").register(meterRegistry);
+        this.duplicateTimer = Timer.builder("file.upload").tag("result", "duplicate").register(meterRegistry);
+        this.rejectedTimer = Timer.builder("file.upload").tag("result", "rejected").register(meterRegistry);
+        Gauge.builder("file.upload.disk.bytes", diskBytes, AtomicLong::get).register(meterRegistry);
     }
 
     /**
      * 上傳文件並返回其在應用程式中的相對 URL 路徑
      * @param file 要上傳的 MultipartFile
-     * @return 文件的相對 URL 路徑
+     * @return 文件的相對 URL 路徑；內容相同的檔案返回相同的路徑
+     * @throws IllegalArgumentException 檔案超過大小上限或不是支援的圖片格式
      * @throws IOException 如果文件儲存失敗
      */
     public String uploadFile(MultipartFile file) throws IOException {
-        String originalFileName = StringUtils.cleanPath(file.getOriginalFilename());
-        String fileName = UUID.randomUUID().toString() + "_" + originalFileName;
+        long start = System.nanoTime();
+        if (file.getSize() > maxBytes) {
+            record(rejectedTimer, start);
+            throw new IllegalArgumentException("圖片大小不可超過 " + maxBytes / 1024 / 1024 + " MB！");
+        }
+
+        Path tempFile = Files.createTempFile(fileUploadLocation, "upload", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            String extension;
+            long total = 0;
+            try (InputStream in = file.getInputStream(); OutputStream out = Files.newOutputStream(tempFile)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int headerLength = in.readNBytes(buffer, 0, 12);
+                extension = imageExtension(buffer, headerLength);
+                if (extension == null) {
+                    throw new IllegalArgumentException("只支援 JPEG、PNG、GIF、WebP 格式的圖片！");
+                }
+                int read = headerLength;
+                do {
+                    total += read;
+                    if (total > maxBytes) {
+                        throw new IllegalArgumentException("圖片大小不可超過 " + maxBytes / 1024 / 1024 + " MB！");
+                    }
+                    digest.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                } while ((read = in.read(buffer)) != -1);
+            }
 
-        Path targetLocation = this.fileUploadLocation.resolve(fileName);
-        Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
-        return "/dynamic-content/" + uploadSubDir + fileName;
+            String fileName = HexFormat.of().formatHex(digest.digest()) + "." + extension;
+            Path target = fileUploadLocation.resolve(fileName);
+            // 目標已存在代表內容相同；否則在同一目錄內改名，不再複製一次內容
+            boolean stored = !Files.exists(target) && moveIfAbsent(tempFile, target);
+            try {
+                putObject(uploadSubDir + fileName, target, extension);
+            } catch (IOException e) {
+                if (stored) {
+                    Files.deleteIfExists(target);
+                }
+                throw e;
+            }
+            if (stored) {
+                diskBytes.addAndGet(total);
+                record(storedTimer, start);
+                logger.info("已保存上傳圖片 {} ({} bytes)", fileName, total);
+            } else {
+                record(duplicateTimer, start);
+                logger.info("上傳圖片內容與既有檔案相同，沿用 {}", fileName);
+            }
+            if (imageVariantUtil != null) {
+                imageVariantUtil.generateAsync(target); // 相同內容先前若未產生成功，也會補上
+            }
+            return "/dynamic-content/" + uploadSubDir + fileName;
+        } catch (IllegalArgumentException e) {
+            record(rejectedTimer, start);
+            logger.warn("拒絕上傳檔案 {}: {}", file.getOriginalFilename(), e.getMessage());
+            throw e;
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    // 未指定 REPLACE_EXISTING，同時上傳相同內容時只有一個會成功
+    private static boolean moveIfAbsent(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target);
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            return false;
+        }
+    }
+
+    // 鍵由內容雜湊決定，已存在的物件內容必定相同；本機重複的檔案也會補存先前未保存成功的物件
+    private void putObject(String key, Path file, String extension) throws IOException {
+        if (objectStorage.stat(key).isEmpty()) {
+            objectStorage.put(key, file, "image/" + (extension.equals("jpg") ? "jpeg" : extension));
+        }
+    }
+
+    public long getDiskBytes() {
+        return diskBytes.get();
+    }
+
+    // 依檔案開頭的格式標記判斷圖片類型
+    static String imageExtension(byte[] header, int length) {
+        if (length >= 3 && (header[0] & 0xFF) == 0xFF && (header[1] & 0xFF) == 0xD8 && (header[2] & 0xFF) == 0xFF) {
+            return "jpg";
+        }
+        if (length >= 8 && (header[0] & 0xFF) == 0x89 && header[1] == 'P' && header[2] == 'N' && header[3] == 'G'
+                && header[4] == 0x0D && header[5] == 0x0A && header[6] == 0x1A && header[7] == 0x0A) {
+            return "png";
+        }
+        if (length >= 6 && header[0] == 'G' && header[1] == 'I' && header[2] == 'F' && header[3] == '8'
+                && (header[4] == '7' || header[4] == '9') && header[5] == 'a') {
+            return "gif";
+        }
+        if (length >= 12 && header[0] == 'R' && header[1] == 'I' && header[2] == 'F' && header[3] == 'F'
+                && header[8] == 'W' && header[9] == 'E' && header[10] == 'B' && header[11] == 'P') {
+            return "webp";
+        }
+        return null;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void record(Timer timer, long start) {
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private static long directorySize(Path dir) {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(Files::isRegularFile).mapToLong(path -> {
+                try {
+                    return Files.size(path);
+                } catch (IOException e) {
+                    return 0;
+                }
+            }).sum();
+        } catch (IOException e) {
+            logger.warn("無法計算上傳目錄大小 {}: {}", dir, e.getMessage());
+            return 0;
+        }
     }
-}
\ No newline at end of file
+}
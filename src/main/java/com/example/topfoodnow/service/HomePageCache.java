@@ -0,0 +1,112 @@
+package com.example.topfoodnow.service;
+
+import com.example.topfoodnow.dto.RecommendDTO;
+import com.example.topfoodnow.event.RecommendChangedEvent;
+import com.example.topfoodnow.event.RecommendsImportedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 首頁資料快取：保存網紅最新推薦與數組預先抽好的隨機推薦，輪流提供給首頁。
+ * 只有在推薦新增、更新、刪除的交易提交後才失效，命中時首頁不需要查詢資料庫。
+ */
+@Service
+public class HomePageCache {
+    private static final Logger logger = LoggerFactory.getLogger(HomePageCache.class);
+    private static final int HOME_PAGE_SIZE = 6;
+
+    private final RecommendService recommendService;
+    private final int randomSetCount;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    private final AtomicInteger rotation = new AtomicInteger();
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    public HomePageCache(RecommendService recommendService,
+                         MeterRegistry meterRegistry,
+                         @Value("${home.cache.random-sets:8}") int randomSetCount) {
+        this.recommendService = recommendService;
+        this.randomSetCount = Math.max(1, randomSetCount);
+        this.hitCounter = Counter.builder("home.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.missCounter = Counter.builder("home.cache.requests").tag("result", "miss").register(meterRegistry);
+    }
+
+    public List<RecommendDTO> getRandomRecommends() {
+        List<List<RecommendDTO>> sets = currentSnapshot().randomSets;
+        return sets.get(Math.floorMod(rotation.getAndIncrement(), sets.size()));
+    }
+
+    public List<RecommendDTO> getLatestFamousRecommends() {
+        return currentSnapshot().latestFamous;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRecommendChanged(RecommendChangedEvent event) {
+        invalidate();
+        logger.debug("推薦異動 ({})，首頁快取已失效。用戶 ID: {}, 店家 ID: {}", event.getType(), event.getUserId(), event.getStoreId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRecommendsImported(RecommendsImportedEvent event) {
+        invalidate();
+        logger.debug("批次匯入 {} 筆推薦，首頁快取已失效。用戶 ID: {}", event.getStoreIds().size(), event.getUserId());
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    private Snapshot currentSnapshot() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            hitCounter.increment();
+            return current;
+        }
+        missCounter.increment();
+        synchronized (this) {
+            if (snapshot != null) {
+                return snapshot;
+            }
+            long startGeneration = generation.get();
+            Snapshot built = build();
+            // 建立期間若又有寫入，這份資料可能已過期，只供本次請求使用
+            if (generation.get() == startGeneration) {
+                snapshot = built;
+            }
+            return built;
+        }
+    }
+
+    private Snapshot build() {
+        List<RecommendDTO> latestFamous = List.copyOf(recommendService.findLatestFamousUserRecommends(HOME_PAGE_SIZE));
+        List<List<RecommendDTO>> randomSets = new ArrayList<>(randomSetCount);
+        for (int i = 0; i < randomSetCount; i++) {
+            randomSets.add(List.copyOf(recommendService.findRandom6Recommends()));
+        }
+        logger.info("首頁快取已重建：網紅推薦 {} 筆，隨機組合 {} 組。", latestFamous.size(), randomSets.size());
+        return new Snapshot(latestFamous, List.copyOf(randomSets));
+    }
+
+    private static class Snapshot {
+        private final List<RecommendDTO> latestFamous;
+        private final List<List<RecommendDTO>> randomSets;
+
+        private Snapshot(List<RecommendDTO> latestFamous, List<List<RecommendDTO>> randomSets) {
+            this.latestFamous = latestFamous;
+            this.randomSets = randomSets;
+        }
+    }
+}
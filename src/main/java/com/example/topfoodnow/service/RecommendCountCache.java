@@ -0,0 +1,189 @@
+package com.example.topfoodnow.service;
+
+import com.example.topfoodnow.event.RecommendChangedEvent;
+import com.example.topfoodnow.event.RecommendsImportedEvent;
+import com.example.topfoodnow.repository.RecommendRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 所有推薦頁的總筆數快取，以 (isFamousFilter, searchTerm) 為鍵。
+ * 分頁查詢改回傳 Slice 後不再每頁 COUNT；總數過期時先回傳舊值，再於背景重新計算。
+ * 無搜尋字串的總數在新增/刪除時直接加減，有搜尋字串的總數則標記為過期。
+ * 異動在重新計算進行中或剛完成時送達，無法判斷 COUNT 是否已包含該筆資料，此時不加減，改為標記過期再算一次，避免重複計算。
+ */
+@Service
+public class RecommendCountCache {
+    private static final Logger logger = LoggerFactory.getLogger(RecommendCountCache.class);
+
+    private final RecommendRepository recommendRepository;
+    private final long ttlMillis;
+    private final long settleMillis;
+    private final Map<CountKey, CachedCount> counts;
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor();
+    // 每次異動遞增，計算期間有異動時結果不標記為最新
+    private final AtomicLong changes = new AtomicLong();
+
+    public RecommendCountCache(RecommendRepository recommendRepository,
+                               @Value("${recommend.count-cache.ttl-seconds:300}") long ttlSeconds,
+                               @Value("${recommend.count-cache.max-entries:500}") int maxEntries,
+                               @Value("${recommend.count-cache.settle-ms:1000}") long settleMillis) {
+        this.recommendRepository = recommendRepository;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.settleMillis = settleMillis;
+        this.counts = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CountKey, CachedCount> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * 取得符合條件的推薦總數（近似值）
+     * @param isFamousFilter 是否只計算網紅推薦
+     * @param searchTerm 搜尋字串
+     * @return 快取中的總數；第一次查詢此條件時會同步計算一次
+     */
+    public long getTotal(Boolean isFamousFilter, String searchTerm) {
+        CountKey key = new CountKey(isFamousFilter, searchTerm);
+        CachedCount cached = counts.get(key);
+        if (cached == null) {
+            long changesBefore = changes.get();
+            cached = new CachedCount(recommendRepository.countFilteredRecommends(key.isFamousFilter, key.searchTermOrNull()));
+            if (changes.get() != changesBefore) {
+                cached.refreshedAt = 0;
+            }
+            counts.put(key, cached);
+            return cached.value.get();
+        }
+        if (System.currentTimeMillis() - cached.refreshedAt > ttlMillis) {
+            scheduleRefresh(key, cached);
+        }
+        return cached.value.get();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRecommendChanged(RecommendChangedEvent event) {
+        int delta = switch (event.getType()) {
+            case ADDED -> 1;
+            case DELETED -> -1;
+            case UPDATED -> 0;
+        };
+        adjust(delta, event.isFamous());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRecommendsImported(RecommendsImportedEvent event) {
+        adjust(event.getStoreIds().size(), event.isFamous());
+    }
+
+    private void adjust(int delta, boolean famous) {
+        changes.incrementAndGet();
+        long now = System.currentTimeMillis();
+        List<Map.Entry<CountKey, CachedCount>> entries;
+        synchronized (counts) {
+            entries = new ArrayList<>(counts.entrySet());
+        }
+        for (Map.Entry<CountKey, CachedCount> entry : entries) {
+            CountKey key = entry.getKey();
+            CachedCount cached = entry.getValue();
+            if (!key.searchTerm.isEmpty()) {
+                cached.refreshedAt = 0; // 店名或地址可能改變，無法判斷是否符合搜尋，下次讀取時背景重算
+            } else if (delta != 0 && (key.isFamousFilter == null || key.isFamousFilter == famous)) {
+                synchronized (cached) {
+                    if (cached.refreshing.get() || now - cached.countedAt < settleMillis) {
+                        cached.refreshedAt = 0;
+                    } else {
+                        cached.value.addAndGet(delta);
+                    }
+                }
+            }
+        }
+    }
+
+    private void scheduleRefresh(CountKey key, CachedCount cached) {
+        if (!cached.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        refreshExecutor.submit(() -> {
+            try {
+                long start = System.currentTimeMillis();
+                long changesBefore = changes.get();
+                long total = recommendRepository.countFilteredRecommends(key.isFamousFilter, key.searchTermOrNull());
+                synchronized (cached) {
+                    cached.value.set(total);
+                    cached.countedAt = System.currentTimeMillis();
+                    cached.refreshedAt = changes.get() == changesBefore ? cached.countedAt : 0;
+                }
+                logger.debug("推薦總數已更新: isFamous={}, search='{}', total={}, 耗時 {} ms",
+                        key.isFamousFilter, key.searchTerm, total, System.currentTimeMillis() - start);
+            } catch (Exception e) {
+                logger.warn("背景更新推薦總數失敗: {}", e.getMessage());
+            } finally {
+                cached.refreshing.set(false);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private static class CachedCount {
+        private final AtomicLong value;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+        private volatile long refreshedAt;
+        private volatile long countedAt; // 最近一次 COUNT 完成的時間
+
+        private CachedCount(long value) {
+            this.value = new AtomicLong(value);
+            this.refreshedAt = System.currentTimeMillis();
+            this.countedAt = this.refreshedAt;
+        }
+    }
+
+    private static class CountKey {
+        private final Boolean isFamousFilter;
+        private final String searchTerm;
+
+        private CountKey(Boolean isFamousFilter, String searchTerm) {
+            this.isFamousFilter = isFamousFilter;
+            this.searchTerm = searchTerm == null ? "" : searchTerm.toLowerCase(Locale.ROOT);
+        }
+
+        private String searchTermOrNull() {
+            return searchTerm.isEmpty() ? null : searchTerm;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof CountKey)) return false;
+            CountKey that = (CountKey) o;
+            return Objects.equals(isFamousFilter, that.isFamousFilter) && searchTerm.equals(that.searchTerm);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(isFamousFilter, searchTerm);
+        }
+    }
+}
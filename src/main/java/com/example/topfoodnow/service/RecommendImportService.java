@@ -0,0 +1,325 @@
+package com.example.topfoodnow.service;
+
+import com.example.topfoodnow.dto.RecommendDTO;
+import com.example.topfoodnow.dto.RecommendImportResult;
+import com.example.topfoodnow.event.RecommendsImportedEvent;
+import com.example.topfoodnow.model.StoreModel;
+import com.example.topfoodnow.model.UserModel;
+import com.example.topfoodnow.repository.RecommendRepository;
+import com.example.topfoodnow.util.CsvReader;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 推薦批次匯入：以串流方式讀取 CSV 或 NDJSON，每累積一批就用一次 IN 查詢解析店家、
+ * 批次新增缺少的店家，並以 JDBC 批次寫入 recommend_user。
+ * 每一批各自一個交易，單批失敗只影響該批資料，錯誤逐筆回報。
+ */
+@Service
+public class RecommendImportService {
+    private static final Logger logger = LoggerFactory.getLogger(RecommendImportService.class);
+
+    public enum Format { CSV, NDJSON }
+
+    private static final String DEFAULT_PHOTO_URL = "/images/default-image.jpg";
+    private static final String INSERT_RECOMMEND_SQL =
+            "INSERT INTO recommend_user (user_id, store_id, reason, score, created_at) VALUES (?, ?, ?, ?, ?)";
+    private static final List<String> CSV_COLUMNS = List.of("storename", "storeaddress", "storephotourl", "reason", "score");
+
+    private final StoreService storeService;
+    private final RecommendRepository recommendRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+
+    public RecommendImportService(StoreService storeService,
+                                  RecommendRepository recommendRepository,
+                                  JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  ApplicationEventPublisher eventPublisher,
+                                  ObjectMapper objectMapper,
+                                  @Value("${recommend.import.batch-size:500}") int batchSize) {
+        this.storeService = storeService;
+        this.recommendRepository = recommendRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * 匯入推薦到指定用戶名下
+     * CSV 第一行須為標題列，欄位名稱同 NDJSON 的鍵：storeName, storeAddress, storePhotoUrl, reason, score
+     * @param body 請求內容，UTF-8 編碼
+     * @param format 內容格式
+     * @param user 推薦者
+     * @return 匯入筆數與逐筆錯誤
+     */
+    public RecommendImportResult importRecommends(InputStream body, Format format, UserModel user) throws IOException {
+        long start = System.currentTimeMillis();
+        RecommendImportResult result = new RecommendImportResult();
+        Set<String> seenStoreNames = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        List<ImportRow> batch = new ArrayList<>(batchSize);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        RowSource source = format == Format.CSV ? new CsvRowSource(new CsvReader(reader)) : new NdjsonRowSource(reader);
+        while (true) {
+            ImportRow row;
+            try {
+                row = source.next();
+            } catch (IllegalArgumentException e) {
+                // 標題列或引號錯誤，後續內容無法可靠解析
+                result.addError(source.currentLine(), null, e.getMessage());
+                break;
+            }
+            if (row == null) {
+                break;
+            }
+            result.setTotalRows(result.getTotalRows() + 1);
+            String error = row.error != null ? row.error : validate(row.dto);
+            if (error == null && !seenStoreNames.add(row.dto.getStoreName())) {
+                error = "檔案中重複推薦同一家店";
+            }
+            if (error != null) {
+                result.addError(row.line, row.dto != null ? row.dto.getStoreName() : null, error);
+                continue;
+            }
+            batch.add(row);
+            if (batch.size() >= batchSize) {
+                flush(batch, user, result);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            flush(batch, user, result);
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        logger.info("用戶 ID: {} 批次匯入推薦完成：共 {} 筆，成功 {} 筆，失敗 {} 筆，耗時 {} ms。",
+                user.getId(), result.getTotalRows(), result.getImportedRows(), result.getErrorCount(), elapsed);
+        return result;
+    }
+
+    private void flush(List<ImportRow> batch, UserModel user, RecommendImportResult result) {
+        try {
+            List<RecommendImportResult.RowError> rejected = new ArrayList<>();
+            Integer imported = transactionTemplate.execute(status -> insertBatch(batch, user, rejected));
+            result.setImportedRows(result.getImportedRows() + (imported == null ? 0 : imported));
+            rejected.forEach(e -> result.addError(e.getLine(), e.getStoreName(), e.getMessage()));
+        } catch (DataAccessException e) {
+            logger.error("批次匯入推薦失敗，用戶 ID: {}，本批 {} 筆未寫入: {}", user.getId(), batch.size(), e.getMessage(), e);
+            for (ImportRow row : batch) {
+                result.addError(row.line, row.dto.getStoreName(), "寫入資料庫失敗，請稍後重試。");
+            }
+        }
+    }
+
+    private int insertBatch(List<ImportRow> batch, UserModel user, List<RecommendImportResult.RowError> rejected) {
+        List<StoreModel> stores = new ArrayList<>(batch.size());
+        for (ImportRow row : batch) {
+            StoreModel store = new StoreModel();
+            store.setName(row.dto.getStoreName());
+            store.setAddress(row.dto.getStoreAddress());
+            store.setPhotoUrl(row.dto.getStorePhotoUrl());
+            stores.add(store);
+        }
+        Map<String, Integer> storeIds = storeService.findOrCreateStoreIds(stores);
+        Set<Integer> alreadyRecommended = storeIds.isEmpty() ? Set.of()
+                : new HashSet<>(recommendRepository.findStoreIdsByUserIdAndStoreIdIn(user.getId(), storeIds.values()));
+
+        Map<ImportRow, Integer> toInsert = new HashMap<>();
+        List<ImportRow> ordered = new ArrayList<>(batch.size());
+        for (ImportRow row : batch) {
+            Integer storeId = storeIds.get(row.dto.getStoreName());
+            if (storeId == null) {
+                rejected.add(new RecommendImportResult.RowError(row.line, row.dto.getStoreName(), "無法建立店家"));
+            } else if (alreadyRecommended.contains(storeId)) {
+                rejected.add(new RecommendImportResult.RowError(row.line, row.dto.getStoreName(), "您已經推薦過這家餐廳了！"));
+            } else {
+                toInsert.put(row, storeId);
+                ordered.add(row);
+            }
+        }
+        if (ordered.isEmpty()) {
+            return 0;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_RECOMMEND_SQL, ordered, ordered.size(), (ps, row) -> {
+            ps.setInt(1, user.getId());
+            ps.setInt(2, toInsert.get(row));
+            ps.setString(3, row.dto.getReason());
+            ps.setInt(4, row.dto.getScore());
+            ps.setTimestamp(5, now);
+        });
+        List<Integer> insertedStoreIds = ordered.stream().map(toInsert::get).toList();
+        eventPublisher.publishEvent(new RecommendsImportedEvent(user.getId(), insertedStoreIds,
+                Boolean.TRUE.equals(user.getIsFamous())));
+        return ordered.size();
+    }
+
+    // 與新增推薦表單相同的規則，另外檢查欄位長度避免整批寫入失敗
+    private static String validate(RecommendDTO dto) {
+        if (isBlank(dto.getStoreName())) return "店家名稱為必填！";
+        if (isBlank(dto.getStoreAddress())) return "店家地址為必填！";
+        if (isBlank(dto.getReason())) return "推薦原因不能為空！";
+        if (dto.getScore() == null || dto.getScore() < 1 || dto.getScore() > 5) return "請選擇有效的星級評分！";
+        dto.setStoreName(dto.getStoreName().trim());
+        dto.setStoreAddress(dto.getStoreAddress().trim());
+        if (isBlank(dto.getStorePhotoUrl())) {
+            dto.setStorePhotoUrl(DEFAULT_PHOTO_URL);
+        }
+        if (dto.getStoreName().length() > 255) return "店家名稱不可超過 255 字";
+        if (dto.getStoreAddress().length() > 255) return "店家地址不可超過 255 字";
+        if (dto.getStorePhotoUrl().length() > 255) return "店家照片 URL 不可超過 255 字";
+        if (dto.getReason().length() > 500) return "推薦原因不可超過 500 字";
+        return null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static class ImportRow {
+        private final int line;
+        private final RecommendDTO dto;
+        private final String error;
+
+        private ImportRow(int line, RecommendDTO dto, String error) {
+            this.line = line;
+            this.dto = dto;
+            this.error = error;
+        }
+    }
+
+    private interface RowSource {
+        // 讀取下一筆資料，空白行會被略過；結尾時返回 null
+        ImportRow next() throws IOException;
+
+        int currentLine();
+    }
+
+    private static class CsvRowSource implements RowSource {
+        private final CsvReader csv;
+        private Map<String, Integer> columns;
+
+        private CsvRowSource(CsvReader csv) {
+            this.csv = csv;
+        }
+
+        @Override
+        public ImportRow next() throws IOException {
+            if (columns == null) {
+                columns = readHeader();
+            }
+            List<String> record;
+            do {
+                record = csv.readRecord();
+                if (record == null) {
+                    return null;
+                }
+            } while (record.size() == 1 && record.get(0).isBlank());
+
+            RecommendDTO dto = new RecommendDTO();
+            dto.setStoreName(field(record, "storename"));
+            dto.setStoreAddress(field(record, "storeaddress"));
+            dto.setStorePhotoUrl(field(record, "storephotourl"));
+            dto.setReason(field(record, "reason"));
+            String score = field(record, "score");
+            if (!isBlank(score)) {
+                try {
+                    dto.setScore(Integer.parseInt(score.trim()));
+                } catch (NumberFormatException e) {
+                    return new ImportRow(csv.getRecordLineNumber(), dto, "評分必須是 1 到 5 的整數");
+                }
+            }
+            return new ImportRow(csv.getRecordLineNumber(), dto, null);
+        }
+
+        @Override
+        public int currentLine() {
+            return Math.max(1, csv.getRecordLineNumber());
+        }
+
+        private Map<String, Integer> readHeader() throws IOException {
+            List<String> header = csv.readRecord();
+            if (header == null) {
+                throw new IllegalArgumentException("CSV 內容為空");
+            }
+            Map<String, Integer> indexes = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                // 去除 UTF-8 BOM 與欄位名稱中的底線，storeName 與 store_name 都可接受
+                String name = header.get(i).replace("\uFEFF", "").replace("_", "").trim().toLowerCase(Locale.ROOT);
+                indexes.putIfAbsent(name, i);
+            }
+            for (String required : List.of("storename", "storeaddress", "reason", "score")) {
+                if (!indexes.containsKey(required)) {
+                    throw new IllegalArgumentException("CSV 標題列缺少欄位，必須包含 " + String.join(", ", CSV_COLUMNS));
+                }
+            }
+            return indexes;
+        }
+
+        private String field(List<String> record, String column) {
+            Integer index = columns.get(column);
+            return index == null || index >= record.size() ? null : record.get(index);
+        }
+    }
+
+    private class NdjsonRowSource implements RowSource {
+        private final BufferedReader reader;
+        private int lineNumber;
+
+        private NdjsonRowSource(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public ImportRow next() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+                lineNumber++;
+            } while (line.isBlank());
+            try {
+                return new ImportRow(lineNumber, objectMapper.readValue(line, RecommendDTO.class), null);
+            } catch (JsonProcessingException e) {
+                return new ImportRow(lineNumber, null, "JSON 格式錯誤: " + e.getOriginalMessage());
+            }
+        }
+
+        @Override
+        public int currentLine() {
+            return Math.max(1, lineNumber);
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.example.topfoodnow.service;
+
+import com.example.topfoodnow.dto.RecommendRow;
+import com.example.topfoodnow.event.RecommendChangedEvent;
+import com.example.topfoodnow.event.RecommendsImportedEvent;
+import com.example.topfoodnow.model.RecommendId;
+import com.example.topfoodnow.repository.RecommendRepository;
+import com.example.topfoodnow.util.BigramTokenizer;
+import com.example.topfoodnow.util.RandomIdPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 推薦的記憶體內全文索引，取代 findFilteredRecommends 的 LIKE '%term%' 全表掃描。
+ * 以二元分詞建立倒排索引，涵蓋用戶名稱、店家名稱與地址；啟動時平行重建，之後依推薦異動事件增量更新。
+ * 倒排索引只用來找出候選，二元詞元全部命中不代表字串相連，候選須再以子字串比對確認，結果與 LIKE 查詢一致。
+ */
+@Service
+public class RecommendSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(RecommendSearchIndex.class);
+
+    // 欄位位元遮罩與權重：店名命中最相關，其次用戶名稱，地址最低
+    private static final int STORE_NAME = 1;
+    private static final int USER_NAME = 2;
+    private static final int ADDRESS = 4;
+    private static final int STORE_NAME_WEIGHT = 3;
+    private static final int USER_NAME_WEIGHT = 2;
+    private static final int ADDRESS_WEIGHT = 1;
+
+    private final RecommendRepository recommendRepository;
+    private final int rebuildBatchSize;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<String, Map<Long, Integer>> postings = new HashMap<>();
+    private Map<Long, IndexedDoc> docs = new HashMap<>();
+
+    // 重建完成前收到的異動先暫存，重建後再套用
+    private final List<Runnable> pendingEvents = new ArrayList<>();
+    private volatile boolean ready;
+
+    public RecommendSearchIndex(RecommendRepository recommendRepository,
+                                @Value("${search.index.rebuild-batch-size:2000}") int rebuildBatchSize) {
+        this.recommendRepository = recommendRepository;
+        this.rebuildBatchSize = rebuildBatchSize;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 搜尋推薦並依相關度排序，相關度相同時較新的推薦在前
+     * @param searchTerm 搜尋字串
+     * @param isFamousFilter null 表示不篩選，true/false 表示只要網紅/非網紅的推薦
+     * @return 排序後的推薦主鍵；索引尚未就緒或搜尋字串無有效詞元時返回 Optional.empty()
+     */
+    public Optional<List<RecommendId>> search(String searchTerm, Boolean isFamousFilter) {
+        Set<String> queryTokens = BigramTokenizer.queryTokens(searchTerm);
+        if (!ready || queryTokens.isEmpty()) {
+            return Optional.empty();
+        }
+        String needle = searchTerm.toLowerCase(Locale.ROOT);
+        lock.readLock().lock();
+        try {
+            List<Map<Long, Integer>> lists = new ArrayList<>(queryTokens.size());
+            for (String token : queryTokens) {
+                Map<Long, Integer> posting = postings.get(token);
+                if (posting == null) {
+                    return Optional.of(List.of());
+                }
+                lists.add(posting);
+            }
+            // 從最短的倒排列表開始交集
+            lists.sort(Comparator.comparingInt(Map::size));
+            List<ScoredDoc> hits = new ArrayList<>();
+            candidates:
+            for (Map.Entry<Long, Integer> entry : lists.get(0).entrySet()) {
+                IndexedDoc doc = docs.get(entry.getKey());
+                if (isFamousFilter != null && doc.famous != isFamousFilter) {
+                    continue;
+                }
+                int score = fieldScore(entry.getValue());
+                for (int i = 1; i < lists.size(); i++) {
+                    Integer mask = lists.get(i).get(entry.getKey());
+                    if (mask == null) {
+                        continue candidates;
+                    }
+                    score += fieldScore(mask);
+                }
+                if (doc.contains(needle)) {
+                    hits.add(new ScoredDoc(doc, score));
+                }
+            }
+            hits.sort(Comparator.comparingInt((ScoredDoc h) -> h.score).reversed()
+                    .thenComparing(h -> h.doc.createdAt, Comparator.nullsLast(Comparator.reverseOrder())));
+            List<RecommendId> result = new ArrayList<>(hits.size());
+            for (ScoredDoc hit : hits) {
+                result.add(new RecommendId(RandomIdPool.high(hit.doc.key), RandomIdPool.low(hit.doc.key)));
+            }
+            return Optional.of(result);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 完整重建索引：分批讀取全部推薦，讀取下一批的同時平行分詞上一批，最後一次性替換
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        try {
+            List<CompletableFuture<List<IndexedDoc>>> batches = new ArrayList<>();
+            Pageable pageable = PageRequest.of(0, rebuildBatchSize);
+            Slice<RecommendRow> slice;
+            do {
+                slice = recommendRepository.findAllRows(pageable);
+                List<RecommendRow> content = slice.getContent();
+                batches.add(CompletableFuture.supplyAsync(() -> content.stream().map(this::toIndexedDoc).toList()));
+                pageable = slice.nextPageable();
+            } while (slice.hasNext());
+
+            Map<String, Map<Long, Integer>> newPostings = new HashMap<>();
+            Map<Long, IndexedDoc> newDocs = new HashMap<>();
+            for (CompletableFuture<List<IndexedDoc>> batch : batches) {
+                for (IndexedDoc doc : batch.join()) {
+                    insert(doc, newPostings, newDocs);
+                }
+            }
+
+            lock.writeLock().lock();
+            try {
+                postings = newPostings;
+                docs = newDocs;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            synchronized (pendingEvents) {
+                ready = true;
+                pendingEvents.forEach(Runnable::run);
+                pendingEvents.clear();
+            }
+            logger.info("推薦搜尋索引重建完成：{} 筆推薦，{} 個詞元，耗時 {} ms。",
+                    newDocs.size(), newPostings.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            logger.error("推薦搜尋索引重建失敗，搜尋將改用資料庫查詢: {}", e.getMessage(), e);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRecommendChanged(RecommendChangedEvent event) {
+        applyWhenReady(() -> apply(event));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRecommendsImported(RecommendsImportedEvent event) {
+        applyWhenReady(() -> {
+            try {
+                List<RecommendId> ids = event.getStoreIds().stream()
+                        .map(storeId -> new RecommendId(event.getUserId(), storeId))
+                        .toList();
+                replace(List.of(), recommendRepository.findRowsByIds(ids));
+            } catch (Exception e) {
+                logger.error("更新推薦搜尋索引失敗，批次匯入用戶 ID: {}: {}", event.getUserId(), e.getMessage(), e);
+            }
+        });
+    }
+
+    private void applyWhenReady(Runnable update) {
+        synchronized (pendingEvents) {
+            if (!ready) {
+                pendingEvents.add(update);
+                return;
+            }
+        }
+        update.run();
+    }
+
+    private void apply(RecommendChangedEvent event) {
+        try {
+            switch (event.getType()) {
+                case ADDED -> {
+                    List<RecommendRow> added = recommendRepository.findRowsByIds(
+                            List.of(new RecommendId(event.getUserId(), event.getStoreId())));
+                    replace(List.of(RandomIdPool.pack(event.getUserId(), event.getStoreId())), added);
+                }
+                // 更新推薦時店名與地址可能一起變更，同店家的其他推薦也要重新索引
+                case UPDATED -> replace(List.of(), recommendRepository.findRowsByStoreId(event.getStoreId()));
+                case DELETED -> replace(List.of(RandomIdPool.pack(event.getUserId(), event.getStoreId())), List.of());
+            }
+        } catch (Exception e) {
+            logger.error("更新推薦搜尋索引失敗，用戶 ID: {}, 店家 ID: {}: {}", event.getUserId(), event.getStoreId(), e.getMessage(), e);
+        }
+    }
+
+    private void replace(List<Long> removedKeys, List<RecommendRow> rows) {
+        List<IndexedDoc> fresh = rows.stream().map(this::toIndexedDoc).toList();
+        lock.writeLock().lock();
+        try {
+            for (Long key : removedKeys) {
+                remove(key);
+            }
+            for (IndexedDoc doc : fresh) {
+                remove(doc.key);
+                insert(doc, postings, docs);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void remove(long key) {
+        IndexedDoc old = docs.remove(key);
+        if (old == null) {
+            return;
+        }
+        for (String token : old.tokenMasks.keySet()) {
+            Map<Long, Integer> posting = postings.get(token);
+            if (posting != null) {
+                posting.remove(key);
+                if (posting.isEmpty()) {
+                    postings.remove(token);
+                }
+            }
+        }
+    }
+
+    private static void insert(IndexedDoc doc, Map<String, Map<Long, Integer>> postings, Map<Long, IndexedDoc> docs) {
+        docs.put(doc.key, doc);
+        doc.tokenMasks.forEach((token, mask) -> postings.computeIfAbsent(token, t -> new HashMap<>()).put(doc.key, mask));
+    }
+
+    private IndexedDoc toIndexedDoc(RecommendRow row) {
+        Map<String, Integer> tokenMasks = new HashMap<>();
+        addField(tokenMasks, row.getStoreName(), STORE_NAME);
+        addField(tokenMasks, row.getUserName(), USER_NAME);
+        addField(tokenMasks, row.getStoreAddress(), ADDRESS);
+        boolean famous = Boolean.TRUE.equals(row.getIsFamous());
+        return new IndexedDoc(RandomIdPool.pack(row.getUserId(), row.getStoreId()), famous, row.getCreatedAt(), tokenMasks,
+                lower(row.getStoreName()), lower(row.getUserName()), lower(row.getStoreAddress()));
+    }
+
+    private static void addField(Map<String, Integer> tokenMasks, String text, int field) {
+        for (String token : BigramTokenizer.indexTokens(text)) {
+            tokenMasks.merge(token, field, (a, b) -> a | b);
+        }
+    }
+
+    private static String lower(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    private static int fieldScore(int mask) {
+        int score = 0;
+        if ((mask & STORE_NAME) != 0) score += STORE_NAME_WEIGHT;
+        if ((mask & USER_NAME) != 0) score += USER_NAME_WEIGHT;
+        if ((mask & ADDRESS) != 0) score += ADDRESS_WEIGHT;
+        return score;
+    }
+
+    private static class IndexedDoc {
+        private final long key;
+        private final boolean famous;
+        private final LocalDateTime createdAt;
+        private final Map<String, Integer> tokenMasks;
+        // 小寫後的原始欄位，用於確認子字串命中
+        private final String storeName;
+        private final String userName;
+        private final String address;
+
+        private IndexedDoc(long key, boolean famous, LocalDateTime createdAt, Map<String, Integer> tokenMasks,
+                           String storeName, String userName, String address) {
+            this.key = key;
+            this.famous = famous;
+            this.createdAt = createdAt;
+            this.tokenMasks = tokenMasks;
+            this.storeName = storeName;
+            this.userName = userName;
+            this.address = address;
+        }
+
+        private boolean contains(String needle) {
+            return storeName.contains(needle) || userName.contains(needle) || address.contains(needle);
+        }
+    }
+
+    private static class ScoredDoc {
+        private final IndexedDoc doc;
+        private final int score;
+
+        private ScoredDoc(IndexedDoc doc, int score) {
+            this.doc = doc;
+            this.score = score;
+        }
+    }
+}
@@ -1,22 +1,39 @@
 package com.example.topfoodnow.service;
 
+import com.example.topfoodnow.dto.CursorPage;
+import com.example.topfoodnow.dto.RecommendCursor;
 import com.example.topfoodnow.dto.RecommendDTO;
+import com.example.topfoodnow.dto.RecommendRow;
+import com.example.topfoodnow.event.RecommendChangedEvent;
+import com.example.topfoodnow.event.RecommendsImportedEvent;
+import com.example.topfoodnow.model.RecommendId;
 import com.example.topfoodnow.model.UserModel;
 import com.example.topfoodnow.model.StoreModel;
 import com.example.topfoodnow.model.RecommendModel;
 import com.example.topfoodnow.repository.UserRepository;
 import com.example.topfoodnow.repository.StoreRepository;
 import com.example.topfoodnow.repository.RecommendRepository;
+import com.example.topfoodnow.util.RandomIdPool;
+import com.example.topfoodnow.util.TransactionUtil;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 import jakarta.persistence.EntityNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -28,85 +45,97 @@ public class RecommendService {
     private final UserRepository userRepository;
     private final StoreRepository storeRepository;
     private final RecommendRepository recommendRepository;
+    private final StoreService storeService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RecommendSearchIndex searchIndex;
+    private final RecommendCountCache countCache;
 
-    // 新增推薦
+    // 推薦複合主鍵抽樣池，取代 ORDER BY RAND() 全表排序
+    private final RandomIdPool recommendIdPool = new RandomIdPool(this::loadRecommendIds);
+
+    // 新增推薦；currentUser 為 CurrentUserResolver 取得的用戶快照，只讀取其欄位，關聯改用 getReferenceById 不額外查詢
     @Transactional
-    public void addRecommend(RecommendDTO recommendDTO, UserModel currentUserFromSession) {
-        UserModel managedUser = userRepository.findById(currentUserFromSession.getId()).orElseThrow(() -> {
-            logger.error("新增推薦失敗：用戶 ID {} 不存在或會話已過期。", currentUserFromSession.getId());
-            return new EntityNotFoundException("用戶不存在或會話已過期。");
-        });
-        logger.info("為用戶 ID: {} (Email: {}) 嘗試新增推薦。", managedUser.getId(), managedUser.getEmail());
+    public void addRecommend(RecommendDTO recommendDTO, UserModel currentUser) {
+        logger.info("為用戶 ID: {} (Email: {}) 嘗試新增推薦。", currentUser.getId(), currentUser.getEmail());
 
-        StoreModel store = storeRepository.findByName(recommendDTO.getStoreName()).orElseGet(() -> {
+        StoreModel store = storeService.findStoreByName(recommendDTO.getStoreName()).orElseGet(() -> {
             StoreModel newStore = new StoreModel();
             newStore.setName(recommendDTO.getStoreName());
             newStore.setAddress(recommendDTO.getStoreAddress());
             newStore.setPhotoUrl(recommendDTO.getStorePhotoUrl());
             logger.info("新增新店家: {}", newStore.getName());
-            return storeRepository.save(newStore);
+            return storeService.saveStore(newStore);
         });
 
-        if (recommendRepository.findByUserIdAndStoreId(managedUser.getId(), store.getId()).isPresent()) {
-            logger.warn("用戶 ID: {} 已對店家 ID: {} 有推薦，避免重複新增。", managedUser.getId(), store.getId());
+        if (recommendRepository.findByUserIdAndStoreId(currentUser.getId(), store.getId()).isPresent()) {
+            logger.warn("用戶 ID: {} 已對店家 ID: {} 有推薦，避免重複新增。", currentUser.getId(), store.getId());
             throw new IllegalArgumentException("您已經推薦過這家餐廳了！");
         }
         RecommendModel recommend = new RecommendModel();
-        recommend.setUserId(managedUser.getId());
+        recommend.setUserId(currentUser.getId());
         recommend.setStoreId(store.getId());
-        recommend.setUser(managedUser);
-        recommend.setStore(store);
+        recommend.setUser(userRepository.getReferenceById(currentUser.getId()));
+        // 快取回傳的店家是脫離管理的複本，關聯改用目前持久化內容中的參考
+        recommend.setStore(storeRepository.getReferenceById(store.getId()));
         recommend.setReason(recommendDTO.getReason());
         recommend.setScore(recommendDTO.getScore());
         recommendRepository.save(recommend);
-        logger.info("成功為用戶 ID: {} 新增推薦，店家ID: {}。", managedUser.getId(), store.getId());
+        long packedId = RandomIdPool.pack(currentUser.getId(), store.getId());
+        TransactionUtil.afterCommit(() -> recommendIdPool.add(packedId));
+        eventPublisher.publishEvent(new RecommendChangedEvent(RecommendChangedEvent.Type.ADDED, currentUser.getId(), store.getId(),
+                Boolean.TRUE.equals(currentUser.getIsFamous())));
+        logger.info("成功為用戶 ID: {} 新增推薦，店家ID: {}。", currentUser.getId(), store.getId());
+    }
+
+    // 批次匯入的推薦在提交後加入抽樣池
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRecommendsImported(RecommendsImportedEvent event) {
+        for (Integer storeId : event.getStoreIds()) {
+            recommendIdPool.add(RandomIdPool.pack(event.getUserId(), storeId));
+        }
     }
 
     // 獲取用戶的所有推薦
     @Transactional(readOnly = true)
     public List<RecommendDTO> getRecommendsByUserId(Integer userId) {
-        UserModel managedUser = userRepository.findById(userId).orElseThrow(() -> {
+        List<RecommendRow> rows = recommendRepository.findRowsByUserId(userId);
+        // 有資料代表用戶必定存在，只有查無資料時才額外確認用戶
+        if (rows.isEmpty() && !userRepository.existsById(userId)) {
             logger.error("獲取推薦失敗：用戶 ID {} 不存在。", userId);
-            return new EntityNotFoundException("用戶不存在。");
-        });
-        return recommendRepository.findByUserId(managedUser.getId()).stream()
-            .map(this::convertToDto)
+            throw new EntityNotFoundException("用戶不存在。");
+        }
+        return rows.stream()
+            .map(this::convertRowToDto)
             .collect(Collectors.toList());
     }
 
     // 精確獲取用戶對店家的推薦，用於所有推薦詳情頁面
     @Transactional(readOnly = true)
     public Optional<RecommendDTO> getRecommendByUserAndStoreId(Integer userId, Integer storeId) {
-        UserModel user = userRepository.findById(userId).orElseThrow(() -> {
+        Optional<RecommendRow> row = recommendRepository.findRowByUserIdAndStoreId(userId, storeId);
+        if (row.isPresent()) {
+            return row.map(this::convertRowToDto);
+        }
+        // 查無推薦時才區分是用戶不存在，或只是沒有這筆推薦/店家
+        if (!userRepository.existsById(userId)) {
             logger.error("查詢推薦失敗：用戶 ID {} 不存在。", userId);
-            return new EntityNotFoundException("用戶不存在。");
-        });
-
-        Optional<StoreModel> storeOptional = storeRepository.findById(storeId);
-        if (storeOptional.isEmpty()) {
-            logger.warn("查詢推薦失敗：店家 ID {} 不存在。", storeId);
-            return Optional.empty();
+            throw new EntityNotFoundException("用戶不存在。");
         }
-        Optional<RecommendModel> recommendModelOptional = recommendRepository.findByUserIdAndStoreId(user.getId(), storeId);
-        return recommendModelOptional.map(this::convertToDto);
-
+        logger.warn("查詢推薦失敗：找不到用戶 ID {} 對店家 ID {} 的推薦。", userId, storeId);
+        return Optional.empty();
     }
 
     // 更新推薦
     @Transactional
-    public void updateRecommend(RecommendDTO recommendDTO, UserModel currentUserFromSession) {
-        UserModel managedUser = userRepository.findById(currentUserFromSession.getId()).orElseThrow(() -> {
-            logger.error("更新推薦失敗：用戶 ID {} 不存在或會話已過期。", currentUserFromSession.getId());
-            return new EntityNotFoundException("用戶不存在或會話已過期。");
-        });
-        logger.info("嘗試為用戶 ID: {} (Email: {}) 更新推薦。", managedUser.getId(), managedUser.getEmail());
+    public void updateRecommend(RecommendDTO recommendDTO, UserModel currentUser) {
+        logger.info("嘗試為用戶 ID: {} (Email: {}) 更新推薦。", currentUser.getId(), currentUser.getEmail());
         StoreModel storeToUpdate = storeRepository.findById(recommendDTO.getStoreId()).orElseThrow(() -> {
             logger.error("更新推薦失敗：要更新的店家不存在，店家ID: {}.", recommendDTO.getStoreId());
             return new EntityNotFoundException("要更新的店家不存在。店家ID: " + recommendDTO.getStoreId());
         });
-        RecommendModel existingRecommend = recommendRepository.findByUserIdAndStoreId(managedUser.getId(), storeToUpdate.getId()).orElseThrow(() -> {
-            logger.error("更新推薦失敗：找不到用戶 ID {} 對店家 ID {} 的推薦或您無權編輯。", managedUser.getId(), recommendDTO.getStoreId());
-            return new EntityNotFoundException("找不到該推薦或您無權編輯。用戶ID: " + managedUser.getId() + ", 店家ID: " + recommendDTO.getStoreId());
+        RecommendModel existingRecommend = recommendRepository.findByUserIdAndStoreId(currentUser.getId(), storeToUpdate.getId()).orElseThrow(() -> {
+            logger.error("更新推薦失敗：找不到用戶 ID {} 對店家 ID {} 的推薦或您無權編輯。", currentUser.getId(), recommendDTO.getStoreId());
+            return new EntityNotFoundException("找不到該推薦或您無權編輯。用戶ID: " + currentUser.getId() + ", 店家ID: " + recommendDTO.getStoreId());
         });
 
         storeToUpdate.setName(recommendDTO.getStoreName());
@@ -114,30 +143,31 @@ public class RecommendService {
         if (recommendDTO.getStorePhotoUrl() != null && !recommendDTO.getStorePhotoUrl().isEmpty()) {
             storeToUpdate.setPhotoUrl(recommendDTO.getStorePhotoUrl());
         }
-        storeRepository.save(storeToUpdate);
+        storeService.saveStore(storeToUpdate);
 
         existingRecommend.setReason(recommendDTO.getReason());
         existingRecommend.setScore(recommendDTO.getScore());
 
         recommendRepository.save(existingRecommend);
-        logger.info("成功更新用戶 ID: {} 對店家 ID: {} 的推薦。", managedUser.getId(), recommendDTO.getStoreId());
+        eventPublisher.publishEvent(new RecommendChangedEvent(RecommendChangedEvent.Type.UPDATED, currentUser.getId(), storeToUpdate.getId(),
+                Boolean.TRUE.equals(currentUser.getIsFamous())));
+        logger.info("成功更新用戶 ID: {} 對店家 ID: {} 的推薦。", currentUser.getId(), recommendDTO.getStoreId());
     }
 
     // 刪除推薦
     @Transactional
-    public void deleteRecommend(Integer userId, Integer storeId, UserModel currentUserFromSession) {
-        UserModel managedUser = userRepository.findById(currentUserFromSession.getId()).orElseThrow(() -> {
-            logger.error("刪除推薦失敗：用戶 ID {} 不存在或會話已過期。", currentUserFromSession.getId());
-            return new EntityNotFoundException("用戶不存在或會話已過期。");
-        });
-
-        RecommendModel recommendToDelete = recommendRepository.findByUserIdAndStoreId(managedUser.getId(), storeId).orElseThrow(() -> {
-            logger.error("刪除推薦失敗：找不到用戶 ID {} 對店家 ID {} 的推薦或您無權刪除。", managedUser.getId(), storeId);
+    public void deleteRecommend(Integer storeId, UserModel currentUser) {
+        RecommendModel recommendToDelete = recommendRepository.findByUserIdAndStoreId(currentUser.getId(), storeId).orElseThrow(() -> {
+            logger.error("刪除推薦失敗：找不到用戶 ID {} 對店家 ID {} 的推薦或您無權刪除。", currentUser.getId(), storeId);
             return new EntityNotFoundException("找不到該推薦或您無權刪除。");
         });
 
         recommendRepository.delete(recommendToDelete);
-        logger.info("用戶 ID: {} 刪除了對店家 ID: {} 的推薦。", managedUser.getId(), storeId);
+        long packedId = RandomIdPool.pack(currentUser.getId(), storeId);
+        TransactionUtil.afterCommit(() -> recommendIdPool.remove(packedId));
+        eventPublisher.publishEvent(new RecommendChangedEvent(RecommendChangedEvent.Type.DELETED, currentUser.getId(), storeId,
+                Boolean.TRUE.equals(currentUser.getIsFamous())));
+        logger.info("用戶 ID: {} 刪除了對店家 ID: {} 的推薦。", currentUser.getId(), storeId);
     }
 
     // 網紅最新推薦
@@ -146,52 +176,137 @@ public class RecommendService {
         Pageable pageable = PageRequest.of(0, limit);
         return recommendRepository.findLatestFamousUserRecommends(pageable)
             .stream()
-            .map(this::convertToDto)
+            .map(this::convertRowToDto)
             .collect(Collectors.toList());
     }
 
-    // 所有推薦
+    // 所有推薦；有搜尋字串且索引已就緒時改用記憶體索引，依相關度排序
+    @Transactional(readOnly = true)
     public Page<RecommendDTO> findAllRecommendsPaged(int page, int size, Boolean isFamousFilter, String searchTerm) {
         Pageable pageable = PageRequest.of(page, size);
-        Page<RecommendModel> recommendModelPage = recommendRepository.findFilteredRecommends(isFamousFilter,searchTerm,pageable);
-        return recommendModelPage.map(this::convertToDto);
+        if (searchTerm != null && !searchTerm.isBlank()) {
+            Optional<List<RecommendId>> hits = searchIndex.search(searchTerm, isFamousFilter);
+            if (hits.isPresent()) {
+                List<RecommendId> ids = hits.get();
+                int from = (int) Math.min(pageable.getOffset(), ids.size());
+                int to = Math.min(from + size, ids.size());
+                return new PageImpl<>(findAllByIdsInOrder(ids.subList(from, to)), pageable, ids.size());
+            }
+        }
+        // 以 Slice 查詢避免每頁 COUNT，總數改由快取提供
+        Slice<RecommendRow> recommendRowSlice = recommendRepository.findFilteredRecommends(isFamousFilter, searchTerm, pageable);
+        long total = countCache.getTotal(isFamousFilter, searchTerm);
+        // 快取總數為近似值，至少要讓分頁器看得到下一頁
+        if (recommendRowSlice.hasNext()) {
+            total = Math.max(total, pageable.getOffset() + recommendRowSlice.getNumberOfElements() + 1);
+        }
+        List<RecommendDTO> content = recommendRowSlice.getContent().stream()
+            .map(this::convertRowToDto)
+            .collect(Collectors.toList());
+        return new PageImpl<>(content, pageable, total);
     }
 
+    /**
+     * 所有推薦的鍵集（游標）分頁，依 (created_at, user_id, store_id) 由新到舊排序，
+     * 每頁成本與頁數無關，也不需要 COUNT 查詢
+     * @param after 下一頁游標，取此游標之後的資料；與 before 皆為 null 時為第一頁
+     * @param before 上一頁游標，取此游標之前的資料
+     * @param size 每頁筆數
+     * @param isFamousFilter 是否只顯示網紅推薦
+     * @param searchTerm 搜尋字串
+     * @return 本頁資料與上一頁/下一頁游標
+     */
     @Transactional(readOnly = true)
-    public List<RecommendDTO> findRandom6Recommends() {
-        return recommendRepository.findRandom6Recommends().stream()
-            .map(this::convertToDto)
-            .collect(Collectors.toList());
+    public CursorPage<RecommendDTO> findAllRecommendsByCursor(String after, String before, int size,
+                                                             Boolean isFamousFilter, String searchTerm) {
+        Pageable limit = PageRequest.of(0, size + 1); // 多取一筆用來判斷是否還有更多資料
+        if (before != null && !before.isEmpty()) {
+            RecommendCursor cursor = RecommendCursor.decode(before);
+            List<RecommendRow> rows = new ArrayList<>(recommendRepository.findFilteredRecommendsBefore(isFamousFilter, searchTerm,
+                    cursor.getCreatedAt(), cursor.getUserId(), cursor.getStoreId(), limit));
+            boolean hasPrevious = rows.size() > size;
+            if (hasPrevious) {
+                rows = rows.subList(0, size);
+            }
+            Collections.reverse(rows);
+            return toCursorPage(rows, hasPrevious, true);
+        }
+
+        RecommendCursor cursor = (after != null && !after.isEmpty()) ? RecommendCursor.decode(after) : null;
+        List<RecommendRow> rows = recommendRepository.findFilteredRecommendsAfter(isFamousFilter, searchTerm,
+                cursor != null ? cursor.getCreatedAt() : null,
+                cursor != null ? cursor.getUserId() : null,
+                cursor != null ? cursor.getStoreId() : null,
+                limit);
+        boolean hasNext = rows.size() > size;
+        if (hasNext) {
+            rows = rows.subList(0, size);
+        }
+        return toCursorPage(rows, cursor != null, hasNext);
     }
 
-    // 將 RecommendModel 轉換為 RecommendDTO
-    private RecommendDTO convertToDto(RecommendModel recommendModel) {
-        RecommendDTO dto = new RecommendDTO();
+    private CursorPage<RecommendDTO> toCursorPage(List<RecommendRow> rows, boolean hasPrevious, boolean hasNext) {
+        if (rows.isEmpty()) {
+            return new CursorPage<>(List.of(), null, null);
+        }
+        RecommendRow first = rows.get(0);
+        RecommendRow last = rows.get(rows.size() - 1);
+        String previousCursor = hasPrevious ? new RecommendCursor(first.getCreatedAt(), first.getUserId(), first.getStoreId()).encode() : null;
+        String nextCursor = hasNext ? new RecommendCursor(last.getCreatedAt(), last.getUserId(), last.getStoreId()).encode() : null;
+        List<RecommendDTO> content = rows.stream().map(this::convertRowToDto).collect(Collectors.toList());
+        return new CursorPage<>(content, previousCursor, nextCursor);
+    }
+
+    // 從抽樣池隨機取 6 筆主鍵，再以單次查詢取回完整資料
+    @Transactional(readOnly = true)
+    public List<RecommendDTO> findRandom6Recommends() {
+        List<RecommendId> ids = new ArrayList<>();
+        for (long id : recommendIdPool.sample(6)) {
+            ids.add(new RecommendId(RandomIdPool.high(id), RandomIdPool.low(id)));
+        }
+        return findAllByIdsInOrder(ids);
+    }
 
-        if (recommendModel.getUser() != null) {
-            dto.setUserId(recommendModel.getUser().getId());
-            dto.setUserName(recommendModel.getUser().getUserName());
-            dto.setFamous(recommendModel.getUser().getIsFamous());
-        } else {
-            dto.setUserId(null);
-            dto.setUserName("未知用戶");
-            dto.setFamous(false);
+    // 以單次查詢取回指定主鍵的推薦，並依傳入順序排列；已不存在的主鍵直接略過
+    private List<RecommendDTO> findAllByIdsInOrder(List<RecommendId> ids) {
+        Map<RecommendId, RecommendRow> byId = new HashMap<>();
+        for (RecommendRow row : recommendRepository.findRowsByIds(ids)) {
+            byId.put(new RecommendId(row.getUserId(), row.getStoreId()), row);
+        }
+        List<RecommendDTO> result = new ArrayList<>(ids.size());
+        for (RecommendId id : ids) {
+            RecommendRow row = byId.get(id);
+            if (row != null) {
+                result.add(convertRowToDto(row));
+            }
         }
+        return result;
+    }
 
-        if (recommendModel.getStore() != null) {
-            dto.setStoreId(recommendModel.getStore().getId());
-            dto.setStoreName(recommendModel.getStore().getName());
-            dto.setStoreAddress(recommendModel.getStore().getAddress());
-            dto.setStorePhotoUrl(recommendModel.getStore().getPhotoUrl());
-        } else {
-            dto.setStoreId(null);
-            dto.setStoreName("未知店家");
-            dto.setStoreAddress("未知地址");
-            dto.setStorePhotoUrl("/images/default-image.jpg");
+    private long[] loadRecommendIds() {
+        List<Object[]> rows = recommendRepository.findAllIds();
+        long[] ids = new long[rows.size()];
+        for (int i = 0; i < ids.length; i++) {
+            Object[] row = rows.get(i);
+            ids[i] = RandomIdPool.pack((Integer) row[0], (Integer) row[1]);
         }
-        dto.setReason(recommendModel.getReason());
-        dto.setScore(recommendModel.getScore());
-        dto.setCreatedAt(recommendModel.getCreatedAt());
+        logger.info("推薦抽樣池已載入，共 {} 筆。", ids.length);
+        return ids;
+    }
+
+    // 將唯讀投影 RecommendRow 轉換為 RecommendDTO
+    private RecommendDTO convertRowToDto(RecommendRow row) {
+        RecommendDTO dto = new RecommendDTO();
+        dto.setUserId(row.getUserId());
+        dto.setUserName(row.getUserName());
+        dto.setFamous(Boolean.TRUE.equals(row.getIsFamous()));
+        dto.setStoreId(row.getStoreId());
+        dto.setStoreName(row.getStoreName());
+        dto.setStoreAddress(row.getStoreAddress());
+        dto.setStorePhotoUrl(row.getStorePhotoUrl());
+        dto.setReason(row.getReason());
+        dto.setScore(row.getScore());
+        dto.setCreatedAt(row.getCreatedAt());
         return dto;
     }
 }
\ No newline at end of file
@@ -1,41 +1,167 @@
 package com.example.topfoodnow.service;
 
+import com.example.topfoodnow.config.CacheConfig;
 import com.example.topfoodnow.model.StoreModel;
 import com.example.topfoodnow.repository.StoreRepository;
+import com.example.topfoodnow.util.RandomIdPool;
+import com.example.topfoodnow.util.TransactionUtil;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 
 @Service
-@RequiredArgsConstructor
 public class StoreService {
+    private static final Logger logger = LoggerFactory.getLogger(StoreService.class);
+
     private final StoreRepository storeRepository;
+    private final JdbcTemplate jdbcTemplate;
+    // 店家快取：ID -> 店家，店名 -> ID；店名只對應到 ID，改名後舊店名的對應在讀取時會被驗證淘汰
+    // 快取與回傳的都是各自的複本，呼叫端修改回傳值不會影響快取或其他執行緒
+    private final Cache storeById;
+    private final Cache storeByName;
+
+    // 店家 ID 抽樣池，避免每次 ORDER BY RAND() 掃描整張 store 表
+    private final RandomIdPool storeIdPool = new RandomIdPool(this::loadStoreIds);
+
+    public StoreService(StoreRepository storeRepository, JdbcTemplate jdbcTemplate, CacheManager cacheManager) {
+        this.storeRepository = storeRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.storeById = cacheManager.getCache(CacheConfig.STORE_BY_ID);
+        this.storeByName = cacheManager.getCache(CacheConfig.STORE_BY_NAME);
+    }
 
     public List<StoreModel> findRandom6Stores() {
-        return storeRepository.findRandom6Stores();
+        List<Integer> ids = Arrays.stream(storeIdPool.sample(6)).mapToObj(id -> (int) id).toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return storeRepository.findAllById(ids);
+    }
+
+    private long[] loadStoreIds() {
+        return storeRepository.findAllIds().stream().mapToLong(Integer::longValue).toArray();
     }
 
     public List<StoreModel> findTop6ByOrderByCreatedAtDesc() {
         return storeRepository.findTop6ByOrderByCreatedAtDesc();
     }
 
+    /**
+     * 根據 ID 查找店家，優先從快取讀取
+     * 回傳的店家為脫離管理的複本，需要修改或作為關聯時請改用 repository 重新載入
+     * @param id 店家 ID
+     * @return 如果找到店家則返回 Optional<StoreModel>，否則返回 Optional.empty()
+     */
     public Optional<StoreModel> getStoreById(Integer id) {
-        return storeRepository.findById(id);
+        StoreModel cached = storeById.get(id, StoreModel.class);
+        if (cached != null) {
+            return Optional.of(copy(cached));
+        }
+        Optional<StoreModel> store = storeRepository.findById(id);
+        store.ifPresent(this::cache);
+        return store.map(StoreService::copy);
     }
 
+    /**
+     * 根據店名查找店家，優先從快取讀取
+     * 與 getStoreById 相同，回傳脫離管理的複本
+     * @param name 店家名稱
+     * @return 如果找到店家則返回 Optional<StoreModel>，否則返回 Optional.empty()
+     */
     public Optional<StoreModel> findStoreByName(String name) {
-        return storeRepository.findByName(name);
+        Integer id = storeByName.get(name, Integer.class);
+        if (id != null) {
+            StoreModel cached = storeById.get(id, StoreModel.class);
+            if (cached != null && cached.getName().equals(name)) {
+                return Optional.of(copy(cached));
+            }
+            storeByName.evict(name);
+        }
+        Optional<StoreModel> store = storeRepository.findByName(name);
+        store.ifPresent(this::cache);
+        return store.map(StoreService::copy);
     }
 
     public StoreModel saveStore(StoreModel store) {
-        return storeRepository.save(store);
+        boolean isNew = store.getId() == null;
+        StoreModel saved = storeRepository.save(store);
+        if (isNew) {
+            TransactionUtil.afterCommit(() -> storeIdPool.add(saved.getId()));
+        } else {
+            // 交易提交後才淘汰，避免其他請求在提交前又把舊資料放回快取
+            storeById.evict(saved.getId());
+        }
+        return saved;
+    }
+
+    /**
+     * 批次取得店家 ID，不存在的店家以 JDBC 批次新增，供推薦匯入使用
+     * 店名比對不分大小寫，與資料庫的排序規則一致；已存在的店家不會被修改
+     * @param stores 要解析的店家（至少需有名稱、地址與照片 URL），店名不可重複
+     * @return 店名 -> 店家 ID，鍵不分大小寫
+     */
+    public Map<String, Integer> findOrCreateStoreIds(Collection<StoreModel> stores) {
+        Map<String, Integer> ids = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        if (stores.isEmpty()) {
+            return ids;
+        }
+        List<String> names = stores.stream().map(StoreModel::getName).toList();
+        storeRepository.findIdsByNameIn(names).forEach(row -> ids.put((String) row[0], (Integer) row[1]));
+
+        List<StoreModel> missing = stores.stream().filter(store -> !ids.containsKey(store.getName())).toList();
+        if (missing.isEmpty()) {
+            return ids;
+        }
+        // INSERT IGNORE：同時有其他請求新增同名店家時不會失敗，稍後重新查詢即可取得 ID
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate("INSERT IGNORE INTO store (name, address, photo_url, created_at) VALUES (?, ?, ?, ?)",
+                missing, missing.size(), (ps, store) -> {
+                    ps.setString(1, store.getName());
+                    ps.setString(2, store.getAddress());
+                    ps.setString(3, store.getPhotoUrl());
+                    ps.setTimestamp(4, now);
+                });
+        List<Integer> createdIds = new ArrayList<>();
+        storeRepository.findIdsByNameIn(missing.stream().map(StoreModel::getName).toList()).forEach(row -> {
+            ids.put((String) row[0], (Integer) row[1]);
+            createdIds.add((Integer) row[1]);
+        });
+        TransactionUtil.afterCommit(() -> createdIds.forEach(storeIdPool::add));
+        logger.info("批次新增店家 {} 家。", createdIds.size());
+        return ids;
     }
 
     public void updateStorePhoto(Integer storeId, String photoUrl) {
         storeRepository.findById(storeId).ifPresent(store -> {
             store.setPhotoUrl(photoUrl);
-            storeRepository.save(store);
+            saveStore(store);
         });
     }
+
+    private void cache(StoreModel store) {
+        storeById.put(store.getId(), copy(store));
+        storeByName.put(store.getName(), store.getId());
+    }
+
+    private static StoreModel copy(StoreModel store) {
+        StoreModel copy = new StoreModel();
+        copy.setId(store.getId());
+        copy.setName(store.getName());
+        copy.setAddress(store.getAddress());
+        copy.setPhotoUrl(store.getPhotoUrl());
+        copy.setCreatedAt(store.getCreatedAt());
+        return copy;
+    }
 }
@@ -1,8 +1,11 @@
 package com.example.topfoodnow.service;
 
+import com.example.topfoodnow.config.CacheConfig;
 import com.example.topfoodnow.model.UserModel;
 import com.example.topfoodnow.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
@@ -14,30 +17,50 @@ public class UserService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final MailService mailService;
+    // 用戶快取：ID -> 用戶快照，信箱 -> ID；任何寫入都會同時淘汰兩者
+    // 快照不含密碼雜湊、驗證碼與重設 Token，讀取時另外複製一份，呼叫端修改回傳值不會影響快取
+    private final Cache userById;
+    private final Cache userByEmail;
 
     @Autowired
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, MailService mailService) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, MailService mailService,
+                       CacheManager cacheManager) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.mailService = mailService;
+        this.userById = cacheManager.getCache(CacheConfig.USER_BY_ID);
+        this.userByEmail = cacheManager.getCache(CacheConfig.USER_BY_EMAIL);
     }
 
     /**
-     * 根據用戶 ID 查找用戶
+     * 根據用戶 ID 查找用戶，優先從快取讀取
+     * 從快取取得的用戶不含密碼與 Token，需要寫入時請透過本類別的方法，由其重新載入後再修改
      * @param id 用戶 ID
      * @return 如果找到用戶則返回 Optional<UserModel>，否則返回 Optional.empty()
      */
     public Optional<UserModel> findById(Integer id) {
-        return userRepository.findById(id);
+        UserModel cached = userById.get(id, UserModel.class);
+        if (cached != null) {
+            return Optional.of(snapshot(cached));
+        }
+        return userRepository.findById(id).map(this::cache);
     }
 
     /**
-     * 根據電子郵件查找用戶
+     * 根據電子郵件查找用戶，優先從快取讀取
      * @param email 電子郵件地址
      * @return 如果找到用戶則返回 Optional<UserModel>，否則返回 Optional.empty()
      */
     public Optional<UserModel> findByEmail(String email) {
-        return userRepository.findByEmail(email);
+        Integer id = userByEmail.get(email, Integer.class);
+        if (id != null) {
+            UserModel cached = userById.get(id, UserModel.class);
+            if (cached != null && cached.getEmail().equals(email)) {
+                return Optional.of(snapshot(cached));
+            }
+            userByEmail.evict(email);
+        }
+        return userRepository.findByEmail(email).map(this::cache);
     }
 
     /**
@@ -50,7 +73,7 @@ public class UserService {
         String verificationCode = UUID.randomUUID().toString();
         user.setVerificationCode(verificationCode);
         user.setEnabled(false);
-        UserModel savedUser = userRepository.save(user);
+        UserModel savedUser = save(user);
         mailService.sendVerificationEmail(user.getEmail(), user.getUserName(), verificationCode);
         return savedUser;
     }
@@ -90,7 +113,7 @@ public class UserService {
             if (!user.isEnabled()) {
                 user.setEnabled(true);
                 user.setVerificationCode(null);
-                userRepository.save(user);
+                save(user);
                 return true;
             }
         }
@@ -105,11 +128,12 @@ public class UserService {
     public String createPasswordResetTokenForUser(UserModel user) {
         String token = UUID.randomUUID().toString();
 
-        user.setResetPasswordToken(token);
-        user.setResetPasswordExpiryDate(LocalDateTime.now().plusHours(1)); // Token 1 小時後過期
-        userRepository.save(user);
+        UserModel managedUser = reload(user);
+        managedUser.setResetPasswordToken(token);
+        managedUser.setResetPasswordExpiryDate(LocalDateTime.now().plusHours(1)); // Token 1 小時後過期
+        save(managedUser);
 
-        System.out.println("生成並保存了重設密碼 token: " + token + " 給用戶: " + user.getEmail());
+        System.out.println("生成並保存了重設密碼 token: " + token + " 給用戶: " + managedUser.getEmail());
         return token;
     }
 
@@ -131,7 +155,7 @@ public class UserService {
             System.out.println("Token 已過期: " + token);
             user.setResetPasswordToken(null);
             user.setResetPasswordExpiryDate(null);
-            userRepository.save(user);
+            save(user);
             return Optional.empty();
         }
         return Optional.of(user);
@@ -143,10 +167,44 @@ public class UserService {
      * @param newPassword 新密碼 (明文)
      */
     public void changeUserPassword(UserModel user, String newPassword) {
-        user.setPassword(passwordEncoder.encode(newPassword));
-        user.setResetPasswordToken(null);
-        user.setResetPasswordExpiryDate(null);
-        userRepository.save(user);
-        System.out.println("用戶 " + user.getEmail() + " 的密碼已更新。");
+        UserModel managedUser = reload(user);
+        managedUser.setPassword(passwordEncoder.encode(newPassword));
+        managedUser.setResetPasswordToken(null);
+        managedUser.setResetPasswordExpiryDate(null);
+        save(managedUser);
+        System.out.println("用戶 " + managedUser.getEmail() + " 的密碼已更新。");
+    }
+
+    // 所有寫入都經由此方法，儲存後淘汰該用戶的快取
+    private UserModel save(UserModel user) {
+        UserModel saved = userRepository.save(user);
+        userById.evict(saved.getId());
+        userByEmail.evict(saved.getEmail());
+        return saved;
+    }
+
+    // 傳入的可能是快取快照或其他請求的實體，寫入前一律從資料庫重新載入，避免覆寫密碼或修改共用的物件
+    private UserModel reload(UserModel user) {
+        return userRepository.findById(user.getId())
+                .orElseThrow(() -> new IllegalArgumentException("用戶不存在，ID: " + user.getId()));
+    }
+
+    // 快取快照並回傳另一份快照，命中與未命中時呼叫端拿到的內容一致
+    private UserModel cache(UserModel user) {
+        UserModel snapshot = snapshot(user);
+        userById.put(user.getId(), snapshot);
+        userByEmail.put(user.getEmail(), user.getId());
+        return snapshot(snapshot);
+    }
+
+    // 只複製公開資料，不含密碼雜湊、驗證碼與重設 Token
+    private static UserModel snapshot(UserModel user) {
+        UserModel copy = new UserModel();
+        copy.setId(user.getId());
+        copy.setEmail(user.getEmail());
+        copy.setUserName(user.getUserName());
+        copy.setIsFamous(user.getIsFamous());
+        copy.setEnabled(user.isEnabled());
+        return copy;
     }
-}
\ No newline at end of file
+}
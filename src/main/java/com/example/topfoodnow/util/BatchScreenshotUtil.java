@@ -1,22 +1,28 @@
 package com.example.topfoodnow.util;
 
 import com.example.topfoodnow.model.AiRestaurantModel;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.net.URI;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Collectors;
 @Component
 public class BatchScreenshotUtil {
     private static final Logger logger = LoggerFactory.getLogger(BatchScreenshotUtil.class);
@@ -29,60 +35,96 @@ public class BatchScreenshotUtil {
 
     private Path screenshotSaveLocation;
 
-    private final ExecutorService executorService;
-    private static final int MAX_THREADS = 4;
+    private final CaptureScheduler captureScheduler;
+    private final WebDriverPool driverPool;
+    private final ScreenshotCache screenshotCache;
+    private final PhotoResolver photoResolver;
 
     public BatchScreenshotUtil(@Value("${file.dynamic-content-base-dir}") String baseDir,
-                               @Value("${file.screenshot-sub-dir}") String subDir) {
+                               @Value("${file.screenshot-sub-dir}") String subDir,
+                               @Value("${screenshot.driver.max-uses:50}") int driverMaxUses,
+                               @Value("${screenshot.cache.ttl-hours:168}") long cacheTtlHours,
+                               @Value("${screenshot.cache.max-size-mb:256}") long cacheMaxSizeMb,
+                               @Value("${screenshot.cache.superseded-retention-minutes:${ai.cache.ttl-minutes:360}}") long supersededRetentionMinutes,
+                               @Value("${screenshot.concurrency:0}") int concurrency,
+                               @Value("${screenshot.max-concurrency:8}") int maxConcurrency,
+                               @Value("${screenshot.chrome-rss-mb:350}") long chromeRssMb,
+                               @Value("${screenshot.memory-fraction:0.5}") double memoryFraction,
+                               @Value("${screenshot.per-host-limit:2}") int perHostLimit,
+                               @Value("${screenshot.og-image.enabled:true}") boolean ogImageEnabled,
+                               @Value("${screenshot.og-image.timeout-ms:5000}") long ogImageTimeoutMillis,
+                               @Value("${screenshot.og-image.max-size-mb:5}") long ogImageMaxSizeMb,
+                               ImageVariantUtil imageVariantUtil,
+                               ObjectStorage objectStorage,
+                               MeterRegistry meterRegistry) {
         this.screenshotSaveLocation = Paths.get(baseDir, subDir).toAbsolutePath().normalize();
         try {
-            Files.createDirectories(this.screenshotSaveLocation);
+            // 截圖以網址為鍵保留在磁碟上，重啟後不再清空，同一網址在期限內直接重用
+            this.screenshotCache = new ScreenshotCache(this.screenshotSaveLocation,
+                    Duration.ofHours(cacheTtlHours), cacheMaxSizeMb * 1024 * 1024, Duration.ofMinutes(supersededRetentionMinutes),
+                    objectStorage, subDir.endsWith("/") ? subDir : subDir + "/");
             logger.info("截圖儲存目錄初始化成功: {}", this.screenshotSaveLocation);
-            cleanScreenshotDirectory();
         } catch (IOException ex) {
             logger.error("無法創建截圖儲存目錄！請檢查路徑和權限: {}", this.screenshotSaveLocation, ex);
             throw new RuntimeException("無法創建截圖儲存目錄！", ex);
         }
-        this.executorService = Executors.newFixedThreadPool(MAX_THREADS);
+        long chromeRssBytes = chromeRssMb * 1024 * 1024;
+        // screenshot.concurrency 為 0 時依 CPU 與實體記憶體自動決定
+        int effectiveConcurrency = concurrency > 0
+                ? concurrency
+                : CaptureScheduler.autoConcurrency(chromeRssBytes, memoryFraction, maxConcurrency);
+        this.captureScheduler = new CaptureScheduler(meterRegistry, effectiveConcurrency, perHostLimit,
+                chromeRssBytes, CaptureScheduler::availableMemoryBytes);
+        // 每個截圖線程最多佔用一個瀏覽器工作階段，池的大小與並行數相同
+        this.driverPool = new WebDriverPool(effectiveConcurrency, driverMaxUses, WebDriverPool.chromeDriverFactory(Duration.ofSeconds(30)));
+        // 先嘗試網站自己提供的 og:image，找不到才啟動 Chrome 截圖
+        OgImageFetcher ogImageFetcher = ogImageEnabled
+                ? new OgImageFetcher(Duration.ofMillis(ogImageTimeoutMillis), ogImageMaxSizeMb * 1024 * 1024)
+                : null;
+        this.photoResolver = new PhotoResolver(screenshotCache, subDir, ogImageFetcher, driverPool, imageVariantUtil, meterRegistry);
     }
 
-    private void cleanScreenshotDirectory() {
-        try {
-            Files.list(this.screenshotSaveLocation)
-                    .filter(p -> p.toString().toLowerCase().endsWith(".png"))
-                    .forEach(p -> {
-                        try {
-                            Files.delete(p);
-                            logger.debug("已刪除舊截圖: {}", p.getFileName());
-                        } catch (IOException e) {
-                            logger.warn("無法刪除舊截圖 {}: {}", p.getFileName(), e.getMessage());
-                        }
-                    });
-            logger.info("已清理截圖目錄: {}", this.screenshotSaveLocation);
-        } catch (IOException e) {
-            logger.error("清理截圖目錄 {} 時發生錯誤: {}", this.screenshotSaveLocation, e.getMessage());
-        }
+    public List<AiRestaurantModel> captureScreenshots(List<AiRestaurantModel> aiRestaurantList) {
+        return captureScreenshots(aiRestaurantList, (restaurant, index) -> { });
     }
 
-    public List<AiRestaurantModel> captureScreenshots(List<AiRestaurantModel> aiRestaurantList) {
+    /**
+     * 批量截圖，依完成順序（而非提交順序）逐一回報結果，最快完成的截圖可以先送出
+     * @param aiRestaurantList 要截圖的餐廳
+     * @param onCompleted 每個任務完成時呼叫，參數為處理後的餐廳與其在清單中的索引
+     * @return 所有處理過的餐廳，無論成功或失敗，維持原本清單順序
+     */
+    public List<AiRestaurantModel> captureScreenshots(List<AiRestaurantModel> aiRestaurantList,
+                                                      ObjIntConsumer<AiRestaurantModel> onCompleted) {
         logger.info("開始批量截圖，共 {} 個任務。", aiRestaurantList.size());
-        List<Future<AiRestaurantModel>> futures = new ArrayList<>();
-        List<AiRestaurantModel> processedRestaurants = new ArrayList<>(); // 用於收集所有處理過的餐廳，無論成功或失敗
+        CaptureScheduler.Batch<AiRestaurantModel> batch = captureScheduler.newBatch();
+        Map<Future<AiRestaurantModel>, Integer> indexes = new HashMap<>();
 
-        for (AiRestaurantModel restaurant : aiRestaurantList) {
-            ScreenShotTask task = new ScreenShotTask(restaurant, screenshotSaveLocation, screenshotSubDir);
-            futures.add(executorService.submit(task));
+        for (int i = 0; i < aiRestaurantList.size(); i++) {
+            AiRestaurantModel restaurant = aiRestaurantList.get(i);
+            indexes.put(batch.submit(hostOf(restaurant.getUrl()), () -> photoResolver.resolve(restaurant)), i);
         }
 
         int successCount = 0;
         int skippedCount = 0;
         int errorCount = 0;
+        AiRestaurantModel[] processedRestaurants = new AiRestaurantModel[aiRestaurantList.size()]; // 用於收集所有處理過的餐廳，無論成功或失敗
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(5);
 
-        for (Future<AiRestaurantModel> future : futures) {
+        for (int completed = 0; completed < indexes.size(); completed++) {
             try {
-                AiRestaurantModel resultRestaurant = future.get(5, TimeUnit.MINUTES);
+                Future<AiRestaurantModel> future = batch.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (future == null) {
+                    int remaining = indexes.size() - completed;
+                    logger.error("批量截圖逾時，尚有 {} 個任務未完成，已取消。", remaining);
+                    batch.cancelAll();
+                    errorCount += remaining;
+                    break;
+                }
+                int index = indexes.get(future);
+                AiRestaurantModel resultRestaurant = future.get();
                 if (resultRestaurant != null) {
-                    processedRestaurants.add(resultRestaurant);
+                    processedRestaurants[index] = resultRestaurant;
                     if (resultRestaurant.getPhotoUrl() != null) {
                         if (resultRestaurant.getPhotoUrl().contains("No+URL")) {
                             skippedCount++;
@@ -95,11 +137,18 @@ public class BatchScreenshotUtil {
                         logger.error("餐廳 {} 截圖結果的 photoUrl 為空，但未標記為跳過或錯誤。", resultRestaurant.getName());
                         errorCount++;
                     }
+                    try {
+                        onCompleted.accept(resultRestaurant, index);
+                    } catch (Exception e) {
+                        logger.warn("回報截圖結果失敗 (餐廳: {}): {}", resultRestaurant.getName(), e.getMessage());
+                    }
                 }
             } catch (InterruptedException e) {
                 logger.error("批量截圖中的任務被中斷: {}", e.getMessage(), e);
                 Thread.currentThread().interrupt();
-                errorCount++;
+                batch.cancelAll();
+                errorCount += indexes.size() - completed;
+                break;
             } catch (ExecutionException e) {
                 logger.error("批量截圖中的任務執行失敗 (ExecutionException): {}", e.getCause() != null ? e.getCause().getMessage() : e.getMessage(), e);
                 errorCount++;
@@ -111,24 +160,32 @@ public class BatchScreenshotUtil {
 
         logger.info("批量截圖完成。總任務數: {}，成功截圖: {} 個，因 URL 為空跳過: {} 個，截圖失敗: {} 個。",
                 aiRestaurantList.size(), successCount, skippedCount, errorCount);
-        return processedRestaurants;
+        return Arrays.stream(processedRestaurants).filter(Objects::nonNull).collect(Collectors.toList());
     }
 
-    @PreDestroy
-    public void cleanup() {
-        if (executorService != null && !executorService.isShutdown()) {
-            executorService.shutdown();
-            try {
-                if (!executorService.awaitTermination(30, TimeUnit.SECONDS)) {
-                    logger.warn("BatchScreenshotUtil 的線程池未能完全關閉在指定時間內，嘗試強制關閉。");
-                    executorService.shutdownNow();
-                }
-            } catch (InterruptedException e) {
-                logger.warn("BatchScreenshotUtil 的線程池關閉時被中斷。", e);
-                executorService.shutdownNow();
-                Thread.currentThread().interrupt();
+    // 同網站並行數限制的鍵：小寫主機名稱並去除 www.；無法解析時不限制
+    private static String hostOf(String url) {
+        if (url == null || url.isBlank()) {
+            return "";
+        }
+        try {
+            String trimmed = url.trim();
+            String host = URI.create(trimmed.contains("://") ? trimmed : "http://" + trimmed).getHost();
+            if (host == null) {
+                return "";
             }
-            logger.info("BatchScreenshotUtil 的線程池已關閉。");
+            host = host.toLowerCase(Locale.ROOT);
+            return host.startsWith("www.") ? host.substring(4) : host;
+        } catch (IllegalArgumentException e) {
+            return "";
         }
     }
-}
\ No newline at end of file
+
+    @PreDestroy
+    public void cleanup() {
+        captureScheduler.shutdown(30, TimeUnit.SECONDS);
+        logger.info("BatchScreenshotUtil 的線程池已關閉。");
+        driverPool.shutdown();
+        logger.info("已關閉所有瀏覽器工作階段，共建立過 {} 個。", driverPool.getCreatedCount());
+    }
+}
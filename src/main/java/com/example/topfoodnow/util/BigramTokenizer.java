@@ -0,0 +1,74 @@
+package com.example.topfoodnow.util;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * 搜尋用的二元分詞器（bigram）。中文沒有空白分隔，因此以連續字元兩兩切分，
+ * 英數字也一併處理，效果接近 LIKE '%term%' 的子字串比對。
+ */
+public class BigramTokenizer {
+    /**
+     * 索引用分詞：每段連續的文字輸出所有單字與相鄰兩字組合，單字用於支援一個字的查詢
+     * @param text 原始文字
+     * @return 不重複的詞元
+     */
+    public static Set<String> indexTokens(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        forEachRun(text, run -> {
+            for (int i = 0; i < run.length(); i++) {
+                tokens.add(run.substring(i, i + 1));
+                if (i + 1 < run.length()) {
+                    tokens.add(run.substring(i, i + 2));
+                }
+            }
+        });
+        return tokens;
+    }
+
+    /**
+     * 查詢用分詞：長度大於 1 的片段只取相鄰兩字組合，單一字元的片段才使用單字
+     * @param text 使用者輸入的搜尋字串
+     * @return 不重複的詞元，全部命中才算符合
+     */
+    public static Set<String> queryTokens(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        forEachRun(text, run -> {
+            if (run.length() == 1) {
+                tokens.add(run);
+                return;
+            }
+            for (int i = 0; i + 1 < run.length(); i++) {
+                tokens.add(run.substring(i, i + 2));
+            }
+        });
+        return tokens;
+    }
+
+    // 以非文字數字字元切段，並統一轉為小寫
+    private static void forEachRun(String text, Consumer<String> consumer) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        String normalized = text.toLowerCase(Locale.ROOT);
+        StringBuilder run = new StringBuilder();
+        normalized.codePoints().forEach(cp -> {
+            if (Character.isLetterOrDigit(cp)) {
+                // 以 BMP 字元為單位切分；極少見的補充平面字元視為分隔
+                if (Character.isBmpCodePoint(cp)) {
+                    run.append((char) cp);
+                    return;
+                }
+            }
+            if (run.length() > 0) {
+                consumer.accept(run.toString());
+                run.setLength(0);
+            }
+        });
+        if (run.length() > 0) {
+            consumer.accept(run.toString());
+        }
+    }
+}
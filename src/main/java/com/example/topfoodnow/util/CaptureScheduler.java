@@ -0,0 +1,335 @@
+package com.example.topfoodnow.util;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 截圖排程器：同時執行的截圖數依 CPU 核心數、實體記憶體與每個 Chrome 的常駐記憶體估算，
+ * 同一網站同時最多 perHostLimit 個截圖，避免對單一網站送出過多請求。
+ * 多個批次同時排隊時以輪流（round-robin）方式分配空位，先送出大批次的請求不會讓後到的批次一直等待。
+ * 量測值：screenshot.queue.depth（排隊數）、screenshot.active（執行中）、
+ * screenshot.queue.wait 與 screenshot.capture（排隊與截圖耗時直方圖）。
+ */
+public class CaptureScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(CaptureScheduler.class);
+
+    private final int concurrency;
+    private final int perHostLimit;
+    private final long chromeRssBytes;
+    private final LongSupplier freeMemoryBytes;
+    private final ExecutorService executor;
+
+    // 以下狀態都由 this 保護
+    private final Deque<Batch<?>> batches = new ArrayDeque<>();
+    private final Map<String, Integer> runningPerHost = new HashMap<>();
+    private int running;
+    private int queued;
+
+    private final Timer queueWaitTimer;
+    private final Timer captureTimer;
+
+    /**
+     * @param concurrency 同時截圖的上限，通常由 {@link #autoConcurrency} 計算
+     * @param perHostLimit 同一網站同時截圖的上限
+     * @param chromeRssBytes 每個 Chrome 預估的常駐記憶體；可用記憶體不足時暫緩啟動新的截圖
+     * @param freeMemoryBytes 查詢可用記憶體，通常為 {@link #availableMemoryBytes()}
+     */
+    public CaptureScheduler(MeterRegistry meterRegistry, int concurrency, int perHostLimit,
+                            long chromeRssBytes, LongSupplier freeMemoryBytes) {
+        this.concurrency = Math.max(1, concurrency);
+        this.perHostLimit = Math.max(1, perHostLimit);
+        this.chromeRssBytes = chromeRssBytes;
+        this.freeMemoryBytes = freeMemoryBytes;
+        this.executor = Executors.newFixedThreadPool(this.concurrency);
+        Gauge.builder("screenshot.queue.depth", this, CaptureScheduler::getQueuedCount).register(meterRegistry);
+        Gauge.builder("screenshot.active", this, CaptureScheduler::getRunningCount).register(meterRegistry);
+        this.queueWaitTimer = Timer.builder("screenshot.queue.wait").publishPercentileHistogram().register(meterRegistry);
+        this.captureTimer = Timer.builder("screenshot.capture").publishPercentileHistogram().register(meterRegistry);
+    }
+
+    /**
+     * 依機器資源估算同時截圖數：不超過 CPU 核心數，也不超過可用實體記憶體（總量乘上比例）能容納的 Chrome 數
+     * @param chromeRssBytes 每個 Chrome 預估的常駐記憶體
+     * @param memoryFraction 可分配給 Chrome 的實體記憶體比例
+     * @param maxConcurrency 上限
+     */
+    public static int autoConcurrency(long chromeRssBytes, double memoryFraction, int maxConcurrency) {
+        int cpus = Runtime.getRuntime().availableProcessors();
+        long totalMemory = totalPhysicalMemoryBytes();
+        long memorySlots = totalMemory > 0 ? (long) (totalMemory * memoryFraction) / Math.max(1, chromeRssBytes) : cpus;
+        int concurrency = (int) Math.max(1, Math.min(maxConcurrency, Math.min(cpus, memorySlots)));
+        logger.info("截圖並行數: {}（CPU 核心 {}，實體記憶體 {} MB 可容納 {} 個 Chrome，上限 {}）",
+                concurrency, cpus, totalMemory / (1024 * 1024), memorySlots, maxConcurrency);
+        return concurrency;
+    }
+
+    /**
+     * 可再分配給新程序的記憶體。Linux 的「free」不含可回收的頁面快取，長時間運作後幾乎為零，
+     * 因此改用 /proc/meminfo 的 MemAvailable；在有記憶體上限的容器（cgroup）內，再與「上限 - 已用量（不含非活躍檔案快取）」取較小值。
+     * 其他作業系統沒有這些檔案時，退回 JVM 回報的剩餘實體記憶體。
+     */
+    public static long availableMemoryBytes() {
+        long available = availableMemoryBytes(Paths.get("/proc/meminfo"), Paths.get("/sys/fs/cgroup"));
+        if (available != Long.MAX_VALUE) {
+            return available;
+        }
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean sunOs) {
+            return sunOs.getFreeMemorySize();
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * @return MemAvailable 與 cgroup 剩餘額度中較小者；都讀不到時為 Long.MAX_VALUE
+     */
+    static long availableMemoryBytes(Path meminfo, Path cgroupRoot) {
+        long available = Long.MAX_VALUE;
+        long memAvailableKb = readField(meminfo, "MemAvailable:");
+        if (memAvailableKb >= 0) {
+            available = memAvailableKb * 1024;
+        }
+        // cgroup v2 與 v1 的檔案名稱不同
+        long cgroupAvailable = cgroupAvailable(cgroupRoot.resolve("memory.max"), cgroupRoot.resolve("memory.current"),
+                cgroupRoot.resolve("memory.stat"), "inactive_file");
+        if (cgroupAvailable < 0) {
+            Path v1 = cgroupRoot.resolve("memory");
+            cgroupAvailable = cgroupAvailable(v1.resolve("memory.limit_in_bytes"), v1.resolve("memory.usage_in_bytes"),
+                    v1.resolve("memory.stat"), "total_inactive_file");
+        }
+        return cgroupAvailable >= 0 ? Math.min(available, cgroupAvailable) : available;
+    }
+
+    // 沒有上限或讀取失敗時返回 -1；v1 沒有上限時為接近 Long.MAX_VALUE 的數值
+    private static long cgroupAvailable(Path limitFile, Path usageFile, Path statFile, String inactiveFileField) {
+        long limit = readNumber(limitFile);
+        long usage = readNumber(usageFile);
+        if (limit < 0 || usage < 0 || limit >= Long.MAX_VALUE / 2) {
+            return -1;
+        }
+        long inactiveFile = Math.max(0, readField(statFile, inactiveFileField));
+        return Math.max(0, limit - Math.max(0, usage - inactiveFile));
+    }
+
+    private static long readNumber(Path file) {
+        try {
+            String value = Files.readString(file).trim();
+            return value.equals("max") ? Long.MAX_VALUE : Long.parseLong(value);
+        } catch (IOException | NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // 讀取「名稱 數值」格式的欄位，例如 /proc/meminfo 的「MemAvailable:  1234 kB」
+    private static long readField(Path file, String name) {
+        try {
+            for (String line : Files.readAllLines(file)) {
+                String[] parts = line.trim().split("\\s+");
+                if (parts.length >= 2 && parts[0].equals(name)) {
+                    return Long.parseLong(parts[1]);
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            return -1;
+        }
+        return -1;
+    }
+
+    private static long totalPhysicalMemoryBytes() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean sunOs) {
+            return sunOs.getTotalMemorySize();
+        }
+        return -1;
+    }
+
+    /**
+     * 建立一個批次；同一批次內依送出順序執行，不同批次之間輪流分配空位
+     */
+    public <T> Batch<T> newBatch() {
+        return new Batch<>();
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public synchronized int getQueuedCount() {
+        return queued;
+    }
+
+    public synchronized int getRunningCount() {
+        return running;
+    }
+
+    /**
+     * 等待執行中的截圖完成後關閉，逾時則強制中斷
+     */
+    public void shutdown(long timeout, TimeUnit unit) {
+        synchronized (this) {
+            batches.clear();
+            queued = 0;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeout, unit)) {
+                logger.warn("截圖排程器的線程池未能完全關閉在指定時間內，嘗試強制關閉。");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            logger.warn("截圖排程器的線程池關閉時被中斷。", e);
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized void enqueue(Batch<?> batch, Job<?> job) {
+        if (batch.pending.isEmpty() && !batches.contains(batch)) {
+            batches.addLast(batch);
+        }
+        batch.pending.addLast(job);
+        queued++;
+        dispatch();
+    }
+
+    // 在有空位時依批次輪流取出可執行的工作；同網站已達上限的工作留在佇列中，不阻擋同批次的其他網站
+    private synchronized void dispatch() {
+        while (running < concurrency && !batches.isEmpty()) {
+            if (running > 0 && freeMemoryBytes.getAsLong() < chromeRssBytes) {
+                logger.debug("可用記憶體不足以再啟動一個 Chrome，暫緩截圖（執行中 {}）。", running);
+                return;
+            }
+            Job<?> next = null;
+            Batch<?> owner = null;
+            for (int i = 0, size = batches.size(); i < size && next == null; i++) {
+                Batch<?> batch = batches.pollFirst();
+                for (Iterator<Job<?>> it = batch.pending.iterator(); it.hasNext(); ) {
+                    Job<?> job = it.next();
+                    if (job.isCancelled()) {
+                        it.remove();
+                        queued--;
+                    } else if (job.host.isEmpty() || runningPerHost.getOrDefault(job.host, 0) < perHostLimit) {
+                        it.remove();
+                        queued--;
+                        next = job;
+                        owner = batch;
+                        break;
+                    }
+                }
+                if (!batch.pending.isEmpty()) {
+                    batches.addLast(batch); // 輪到的批次移到最後
+                }
+            }
+            if (next == null) {
+                return; // 剩下的工作所屬網站都已達上限
+            }
+            start(next, owner);
+        }
+    }
+
+    private void start(Job<?> job, Batch<?> batch) {
+        running++;
+        if (!job.host.isEmpty()) {
+            runningPerHost.merge(job.host, 1, Integer::sum);
+        }
+        queueWaitTimer.record(System.nanoTime() - job.enqueuedAt, TimeUnit.NANOSECONDS);
+        executor.execute(() -> {
+            long start = System.nanoTime();
+            try {
+                job.run();
+            } finally {
+                captureTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                finish(job);
+                batch.add(job);
+            }
+        });
+    }
+
+    private synchronized void finish(Job<?> job) {
+        running--;
+        if (!job.host.isEmpty()) {
+            runningPerHost.computeIfPresent(job.host, (host, count) -> count > 1 ? count - 1 : null);
+        }
+        dispatch();
+    }
+
+    private synchronized void remove(Batch<?> batch) {
+        queued -= batch.pending.size();
+        batch.pending.clear();
+        batches.remove(batch);
+    }
+
+    private static class Job<T> extends FutureTask<T> {
+        private final String host;
+        private final long enqueuedAt = System.nanoTime();
+
+        private Job(String host, Callable<T> callable) {
+            super(callable);
+            this.host = host == null ? "" : host;
+        }
+    }
+
+    /**
+     * 一組截圖工作，用法與 CompletionService 相同：送出後依完成順序以 poll() 取得結果
+     */
+    public class Batch<T> {
+        private final Deque<Job<?>> pending = new ArrayDeque<>();
+        private final BlockingQueue<Future<T>> completed = new LinkedBlockingQueue<>();
+        private final List<Job<T>> submitted = new ArrayList<>();
+
+        private Batch() {
+        }
+
+        /**
+         * @param host 目標網站，用於同網站並行數限制；空字串表示不限制
+         */
+        public Future<T> submit(String host, Callable<T> task) {
+            Job<T> job = new Job<>(host, task);
+            submitted.add(job);
+            enqueue(this, job);
+            return job;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void add(Job<?> job) {
+            completed.add((Future<T>) job);
+        }
+
+        public Future<T> poll(long timeout, TimeUnit unit) throws InterruptedException {
+            return completed.poll(timeout, unit);
+        }
+
+        /**
+         * 取消尚未開始的工作並中斷執行中的工作
+         */
+        public void cancelAll() {
+            remove(this);
+            submitted.forEach(job -> job.cancel(true));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.topfoodnow.util;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.time.Duration;
+
+/**
+ * 簡易斷路器：連續失敗達門檻後開啟，期間內的呼叫直接被拒絕；
+ * 開啟時間過後放行一次試探呼叫（半開），成功則關閉，失敗則重新開啟。
+ * 狀態以 {prefix}.state 量測值公開（0 關閉、1 開啟、2 半開）。
+ */
+public class CircuitBreaker {
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openMillis;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    public CircuitBreaker(MeterRegistry meterRegistry, String prefix, int failureThreshold, Duration openDuration) {
+        this.name = prefix;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMillis = openDuration.toMillis();
+        Gauge.builder(prefix + ".state", this, breaker -> breaker.getState().ordinal())
+                .description("0=closed, 1=open, 2=half-open")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return 是否允許這次呼叫；允許後必須呼叫 onSuccess() 或 onFailure()
+     */
+    public synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.currentTimeMillis() - openedAt < openMillis) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probeInFlight = true;
+                logger.info("斷路器 {} 進入半開狀態，放行一次試探呼叫。", name);
+                return true;
+            default:
+                if (probeInFlight) {
+                    return false;
+                }
+                probeInFlight = true;
+                return true;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            logger.info("斷路器 {} 已關閉，恢復正常呼叫。", name);
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+    }
+
+    public synchronized void onFailure() {
+        probeInFlight = false;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+            logger.warn("斷路器 {} 開啟：連續失敗 {} 次，{} ms 內直接拒絕呼叫。", name, consecutiveFailures, openMillis);
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+}
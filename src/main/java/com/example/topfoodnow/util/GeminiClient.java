@@ -0,0 +1,206 @@
+package com.example.topfoodnow.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Gemini generateContent 客戶端，取代每次開新連線且沒有逾時設定的 HttpURLConnection。
+ * 所有呼叫共用同一個可重用連線的非同步 HttpClient；每次嘗試有連線與讀取逾時，整體有總期限。
+ * 連線錯誤、逾時、HTTP 429 與 5xx 會以指數退避加隨機抖動重試；連續失敗達門檻時斷路器開啟，
+ * 期間直接拋出 CircuitOpenException，由呼叫端改用資料庫 fallback。
+ */
+@Component
+public class GeminiClient {
+    private static final Logger logger = LoggerFactory.getLogger(GeminiClient.class);
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final URI endpoint;
+    private final String apiKey;
+    private final Duration readTimeout;
+    private final Duration deadline;
+    private final int maxRetries;
+    private final long retryBaseDelayMillis;
+    private final CircuitBreaker circuitBreaker;
+
+    private final Timer successTimer;
+    private final Timer failureTimer;
+    private final Counter rejectedCounter;
+    private final Counter retryCounter;
+
+    public GeminiClient(ObjectMapper objectMapper,
+                        MeterRegistry meterRegistry,
+                        @Value("${ai.api.url:https://generativelanguage.googleapis.com/v1beta/models/gemini-1.5-flash:generateContent}") String endpoint,
+                        @Value("${ai.api.key}") String apiKey,
+                        @Value("${ai.client.connect-timeout-ms:5000}") long connectTimeoutMillis,
+                        @Value("${ai.client.read-timeout-ms:30000}") long readTimeoutMillis,
+                        @Value("${ai.client.deadline-ms:60000}") long deadlineMillis,
+                        @Value("${ai.client.max-retries:2}") int maxRetries,
+                        @Value("${ai.client.retry-base-delay-ms:500}") long retryBaseDelayMillis,
+                        @Value("${ai.client.circuit.failure-threshold:3}") int failureThreshold,
+                        @Value("${ai.client.circuit.open-seconds:60}") long openSeconds) {
+        this.objectMapper = objectMapper;
+        this.endpoint = URI.create(endpoint);
+        this.apiKey = apiKey;
+        this.readTimeout = Duration.ofMillis(readTimeoutMillis);
+        this.deadline = Duration.ofMillis(deadlineMillis);
+        this.maxRetries = Math.max(0, maxRetries);
+        this.retryBaseDelayMillis = retryBaseDelayMillis;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .build();
+        this.circuitBreaker = new CircuitBreaker(meterRegistry, "ai.client.circuit", failureThreshold, Duration.ofSeconds(openSeconds));
+        this.successTimer = Timer.builder("ai.client.request").tag("outcome", "success").register(meterRegistry);
+        this.failureTimer = Timer.builder("ai.client.request").tag("outcome", "failure").register(meterRegistry);
+        this.rejectedCounter = Counter.builder("ai.client.rejected")
+                .description("斷路器開啟時被直接拒絕的呼叫").register(meterRegistry);
+        this.retryCounter = Counter.builder("ai.client.retries").register(meterRegistry);
+    }
+
+    /**
+     * 同步呼叫 generateContent
+     * @param prompt 提示詞
+     * @return Gemini 回傳的完整 JSON（UTF-8 位元組，直接交給串流解析，不先轉成字串）
+     * @throws CircuitOpenException 斷路器開啟中
+     * @throws IOException 重試後仍失敗或超過總期限
+     */
+    public byte[] generateContent(String prompt) throws IOException {
+        try {
+            return generateContentAsync(prompt).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待 Gemini 回應時被中斷");
+        } catch (ExecutionException e) {
+            throw toIOException(e.getCause());
+        }
+    }
+
+    /**
+     * 非同步呼叫 generateContent，等待回應與重試間隔都不佔用呼叫端線程
+     * @param prompt 提示詞
+     * @return 完成時為 Gemini 回傳的完整 JSON 位元組；失敗時以 IOException（斷路器開啟時為 CircuitOpenException）結束
+     */
+    public CompletableFuture<byte[]> generateContentAsync(String prompt) {
+        HttpRequest.Builder request;
+        try {
+            request = HttpRequest.newBuilder(endpoint)
+                    .header("Content-Type", "application/json")
+                    .header("x-goog-api-key", apiKey)
+                    .POST(HttpRequest.BodyPublishers.ofString(requestBody(prompt), StandardCharsets.UTF_8));
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (!circuitBreaker.tryAcquire()) {
+            rejectedCounter.increment();
+            return CompletableFuture.failedFuture(new CircuitOpenException());
+        }
+        long start = System.nanoTime();
+        long deadlineNanos = start + deadline.toNanos();
+        return attempt(request, 0, deadlineNanos).whenComplete((body, error) -> {
+            long elapsed = System.nanoTime() - start;
+            if (error == null) {
+                circuitBreaker.onSuccess();
+                successTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            } else {
+                circuitBreaker.onFailure();
+                failureTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            }
+        });
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    private CompletableFuture<byte[]> attempt(HttpRequest.Builder request, int attempt, long deadlineNanos) {
+        long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+        if (remainingMillis <= 0) {
+            return CompletableFuture.failedFuture(new HttpTimeoutException("Gemini 呼叫超過總期限 " + deadline.toMillis() + " ms"));
+        }
+        Duration attemptTimeout = Duration.ofMillis(Math.min(readTimeout.toMillis(), remainingMillis));
+        return httpClient.sendAsync(request.copy().timeout(attemptTimeout).build(),
+                        HttpResponse.BodyHandlers.ofByteArray())
+                // HttpRequest.timeout 只涵蓋到收到回應標頭，讀取回應內容也要受同一個逾時限制
+                .orTimeout(attemptTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .handle((response, error) -> {
+                    if (error != null) {
+                        return retryOrFail(request, attempt, deadlineNanos, toIOException(error), true);
+                    }
+                    int status = response.statusCode();
+                    if (status >= 200 && status < 300) {
+                        return CompletableFuture.completedFuture(response.body());
+                    }
+                    IOException failure = new IOException("Gemini API 錯誤，HTTP " + status + ":\n"
+                            + new String(response.body(), StandardCharsets.UTF_8));
+                    return retryOrFail(request, attempt, deadlineNanos, failure, status == 429 || status >= 500);
+                })
+                .thenCompose(future -> future);
+    }
+
+    private CompletableFuture<byte[]> retryOrFail(HttpRequest.Builder request, int attempt, long deadlineNanos,
+                                                  IOException failure, boolean retryable) {
+        if (!retryable || attempt >= maxRetries) {
+            return CompletableFuture.failedFuture(failure);
+        }
+        // 指數退避加完整抖動，避免多個實例在 Gemini 恢復時同時重試
+        long maxDelay = retryBaseDelayMillis << Math.min(attempt, 16);
+        long delay = ThreadLocalRandom.current().nextLong(maxDelay + 1);
+        if (System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay) >= deadlineNanos) {
+            return CompletableFuture.failedFuture(failure);
+        }
+        retryCounter.increment();
+        logger.warn("Gemini 呼叫失敗（第 {} 次），{} ms 後重試: {}", attempt + 1, delay, failure.getMessage());
+        return CompletableFuture.supplyAsync(() -> null, CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS))
+                .thenCompose(ignored -> attempt(request, attempt + 1, deadlineNanos));
+    }
+
+    private String requestBody(String prompt) throws JsonProcessingException {
+        return objectMapper.writeValueAsString(Map.of("contents", List.of(
+                Map.of("role", "user", "parts", List.of(Map.of("text", prompt))))));
+    }
+
+    private static IOException toIOException(Throwable error) {
+        Throwable cause = error;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        if (cause instanceof TimeoutException) {
+            return new HttpTimeoutException("讀取 Gemini 回應逾時");
+        }
+        return new IOException("Gemini 呼叫失敗: " + cause.getMessage(), cause);
+    }
+
+    // 斷路器開啟中，暫時不呼叫 Gemini
+    public static class CircuitOpenException extends IOException {
+        public CircuitOpenException() {
+            super("Gemini 連續失敗，斷路器開啟中，暫不呼叫");
+        }
+    }
+}
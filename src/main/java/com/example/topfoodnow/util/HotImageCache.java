@@ -0,0 +1,210 @@
+package com.example.topfoodnow.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 熱門圖片的記憶體快取，內容存放在 direct ByteBuffer（堆積外記憶體），快取變大時堆積使用量不變。
+ * 同一檔案第二次被請求時才載入，只被看過一次的圖片不會擠掉熱門圖片；
+ * 超過容量時依 GDSF（Greedy-Dual-Size-Frequency）淘汰：優先保留請求次數多、檔案小的圖片，
+ * 並以最近一次淘汰的優先值墊高新進與剛命中的項目，避免過去很熱門但已無人請求的圖片永久佔用空間。
+ * 每次命中都比對檔案的大小與修改時間，檔案被刪除或取代時改從磁碟讀取。
+ * 被淘汰的緩衝區在沒有請求使用後由 GC 回收其堆積外記憶體。
+ * 量測值：{prefix}.requests{result=hit|miss}、{prefix}.hit.ratio、{prefix}.resident.bytes、{prefix}.entries、{prefix}.evictions。
+ */
+public class HotImageCache {
+    private static final Logger logger = LoggerFactory.getLogger(HotImageCache.class);
+    private static final int ADMIT_AFTER_REQUESTS = 2;
+    private static final int MAX_TRACKED_CANDIDATES = 4096;
+
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final Map<Path, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong residentBytes = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final Counter evictionCounter;
+
+    // 尚未載入的檔案被請求的次數，只保留最近的一部分，以 this 同步
+    private final Map<Path, Integer> candidates = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, Integer> eldest) {
+            return size() > MAX_TRACKED_CANDIDATES;
+        }
+    };
+    private volatile double inflation; // 只在持有 this 時寫入
+
+    /**
+     * @param maxBytes 快取總容量
+     * @param maxEntryBytes 單一檔案上限，更大的檔案一律從磁碟讀取
+     * @param meterRegistry 量測值註冊處
+     * @param metricPrefix 量測值名稱前綴
+     */
+    public HotImageCache(long maxBytes, long maxEntryBytes, MeterRegistry meterRegistry, String metricPrefix) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = Math.min(maxEntryBytes, maxBytes);
+        FunctionCounter.builder(metricPrefix + ".requests", hits, AtomicLong::get).tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder(metricPrefix + ".requests", misses, AtomicLong::get).tag("result", "miss").register(meterRegistry);
+        Gauge.builder(metricPrefix + ".hit.ratio", this, HotImageCache::getHitRatio).register(meterRegistry);
+        Gauge.builder(metricPrefix + ".resident.bytes", residentBytes, AtomicLong::get).baseUnit("bytes").register(meterRegistry);
+        Gauge.builder(metricPrefix + ".entries", entries, Map::size).register(meterRegistry);
+        this.evictionCounter = Counter.builder(metricPrefix + ".evictions").register(meterRegistry);
+    }
+
+    /**
+     * 取得檔案內容
+     * @param file 檔案的絕對路徑
+     * @return 命中或本次剛載入時返回內容；尚未達到載入條件、檔案過大或不存在時返回 Optional.empty()，由呼叫端從磁碟讀取
+     */
+    public Optional<Entry> get(Path file) {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            invalidate(file);
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        Entry entry = entries.get(file);
+        if (entry != null) {
+            if (entry.size == attributes.size() && entry.lastModified == lastModified) {
+                hits.incrementAndGet();
+                touch(entry);
+                return Optional.of(entry);
+            }
+            invalidate(file);
+        }
+        misses.incrementAndGet();
+        if (!attributes.isRegularFile() || attributes.size() > maxEntryBytes || !admit(file)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(load(file, attributes.size(), lastModified));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            logger.warn("無法載入圖片到記憶體快取 {}: {}", file, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public void invalidate(Path file) {
+        Entry removed = entries.remove(file);
+        if (removed != null) {
+            residentBytes.addAndGet(-removed.size);
+        }
+    }
+
+    public long getResidentBytes() {
+        return residentBytes.get();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public double getHitRatio() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : (double) hits.get() / total;
+    }
+
+    private synchronized boolean admit(Path file) {
+        int requests = candidates.merge(file, 1, Integer::sum);
+        if (requests < ADMIT_AFTER_REQUESTS) {
+            return false;
+        }
+        candidates.remove(file);
+        return true;
+    }
+
+    // 由 FileChannel 直接讀入 direct buffer，不經過堆積上的 byte[]
+    private Entry load(Path file, long size, long lastModified) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) size);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // 讀到檔案結尾或緩衝區填滿為止
+            }
+        }
+        buffer.flip();
+        Entry entry = new Entry(file, buffer.asReadOnlyBuffer(), buffer.limit(), lastModified);
+        synchronized (this) {
+            entry.frequency = ADMIT_AFTER_REQUESTS;
+            entry.priority = inflation + (double) entry.frequency / Math.max(1, entry.size);
+            Entry previous = entries.put(file, entry);
+            residentBytes.addAndGet(entry.size - (previous == null ? 0 : previous.size));
+            evictIfNeeded();
+        }
+        return entry;
+    }
+
+    // 命中路徑不加鎖，同時命中時少算幾次不影響淘汰順序
+    private void touch(Entry entry) {
+        entry.frequency++;
+        entry.priority = inflation + (double) entry.frequency / Math.max(1, entry.size);
+    }
+
+    private void evictIfNeeded() {
+        while (residentBytes.get() > maxBytes && !entries.isEmpty()) {
+            Entry victim = null;
+            for (Entry candidate : entries.values()) {
+                if (victim == null || candidate.priority < victim.priority) {
+                    victim = candidate;
+                }
+            }
+            inflation = victim.priority;
+            if (entries.remove(victim.file, victim)) {
+                residentBytes.addAndGet(-victim.size);
+                evictionCounter.increment();
+                logger.debug("圖片記憶體快取超過容量，淘汰: {} (請求 {} 次, {} bytes)", victim.file.getFileName(), victim.frequency, victim.size);
+            }
+        }
+    }
+
+    public static class Entry {
+        private final Path file;
+        private final ByteBuffer buffer;
+        @Getter
+        private final long size;
+        @Getter
+        private final long lastModified;
+        private volatile int frequency;
+        private volatile double priority;
+
+        private Entry(Path file, ByteBuffer buffer, long size, long lastModified) {
+            this.file = file;
+            this.buffer = buffer;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        /**
+         * @return 唯讀且位置獨立的內容，每個請求各自取得一份，可同時讀取
+         */
+        public ByteBuffer content() {
+            return buffer.duplicate();
+        }
+
+        public String getFileName() {
+            return file.getFileName().toString();
+        }
+    }
+}
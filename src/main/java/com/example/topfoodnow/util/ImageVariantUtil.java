@@ -0,0 +1,324 @@
+package com.example.topfoodnow.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 為上傳的店家照片與餐廳截圖產生縮圖、卡片、詳細頁三種尺寸的 JPEG，與原圖放在同一目錄：
+ * 「原檔名_thumb.jpg」、「原檔名_card.jpg」、「原檔名_detail.jpg」，只縮小不放大。
+ * 產生工作在固定大小的線程池與有上限的佇列中執行，佇列已滿時略過，之後頁面再次引用時會重新排入。
+ * 解碼前先讀取圖檔標頭的寬高：超過 image.variant.max-pixels 的圖片不解碼（防止解壓縮炸彈耗盡記憶體），
+ * 遠大於最大尺寸的圖片以間隔取樣解碼，只配置需要的像素。
+ * 無法解碼、超過像素上限或產生失敗的原圖會記住（有數量上限），之後的頁面直接使用原圖，不再重複排入。
+ * 模板以 ${@imageVariantUtil.url(photoUrl, 'card')} 選擇尺寸，圖檔尚未產生時返回原圖網址。
+ * 量測值：image.variant.generate{outcome=success|unsupported|oversized|error} 記錄每張原圖產生全部尺寸的耗時，
+ * image.variant.rejected 為佇列已滿而略過的次數，image.variant.queue 為等待中的工作數。
+ */
+@Component
+public class ImageVariantUtil {
+    private static final Logger logger = LoggerFactory.getLogger(ImageVariantUtil.class);
+    private static final String URL_PREFIX = "/dynamic-content/";
+
+    public enum Variant {
+        THUMBNAIL("thumb", 160),
+        CARD("card", 480),
+        DETAIL("detail", 1024);
+
+        private final String suffix;
+        private final int maxWidth;
+
+        Variant(String suffix, int maxWidth) {
+            this.suffix = suffix;
+            this.maxWidth = maxWidth;
+        }
+
+        public String getSuffix() {
+            return suffix;
+        }
+
+        public int getMaxWidth() {
+            return maxWidth;
+        }
+    }
+
+    // 間隔取樣後的寬度至少保留最大尺寸的兩倍，之後再以雙線性插值縮小，畫質與完整解碼相近
+    private static final int SUBSAMPLE_TARGET_WIDTH = Variant.DETAIL.getMaxWidth() * 2;
+
+    private final Path baseDir;
+    private final float jpegQuality;
+    private final long maxPixels;
+    private final ThreadPoolExecutor executor;
+    private final Set<Path> pending = ConcurrentHashMap.newKeySet();
+    // 無法產生尺寸的原圖；檔名依內容雜湊產生，同一路徑的結果不會改變
+    private final Cache<Path, String> failed = Caffeine.newBuilder().maximumSize(10_000).build();
+    private final Timer successTimer;
+    private final Timer unsupportedTimer;
+    private final Timer oversizedTimer;
+    private final Timer errorTimer;
+    private final Counter rejectedCounter;
+
+    public ImageVariantUtil(@Value("${file.dynamic-content-base-dir}") String baseDir,
+                            @Value("${image.variant.threads:0}") int threads,
+                            @Value("${image.variant.queue-capacity:200}") int queueCapacity,
+                            @Value("${image.variant.jpeg-quality:0.8}") float jpegQuality,
+                            @Value("${image.variant.max-pixels:50000000}") long maxPixels,
+                            MeterRegistry meterRegistry) {
+        this.baseDir = Paths.get(baseDir).toAbsolutePath().normalize();
+        this.jpegQuality = jpegQuality;
+        this.maxPixels = maxPixels;
+        // 縮圖是 CPU 密集工作，預設只用一半核心，避免影響請求處理
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+                    Thread thread = new Thread(runnable, "image-variant-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.successTimer = Timer.builder("image.variant.generate").tag("outcome", "success").register(meterRegistry);
+        this.unsupportedTimer = Timer.builder("image.variant.generate").tag("outcome", "unsupported").register(meterRegistry);
+        this.oversizedTimer = Timer.builder("image.variant.generate").tag("outcome", "oversized").register(meterRegistry);
+        this.errorTimer = Timer.builder("image.variant.generate").tag("outcome", "error").register(meterRegistry);
+        this.rejectedCounter = Counter.builder("image.variant.rejected").register(meterRegistry);
+        Gauge.builder("image.variant.queue", executor, e -> e.getQueue().size()).register(meterRegistry);
+    }
+
+    /**
+     * 在背景為原圖產生所有尺寸；已產生、已在排隊中或佇列已滿時不做任何事
+     * @param original 原圖路徑
+     */
+    public void generateAsync(Path original) {
+        Path file = original.toAbsolutePath().normalize();
+        if (failed.getIfPresent(file) != null || !pending.add(file)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(file);
+                } catch (Exception e) {
+                    logger.warn("產生圖片尺寸失敗 {}: {}", file.getFileName(), e.getMessage());
+                } finally {
+                    pending.remove(file);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(file);
+            rejectedCounter.increment();
+            logger.debug("圖片尺寸產生佇列已滿，略過 {}", file.getFileName());
+        }
+    }
+
+    /**
+     * 為原圖產生缺少的尺寸
+     * @param original 原圖路徑
+     * @return 是否已有全部尺寸；原圖格式無法解碼（例如 WebP）或像素數超過上限時返回 false
+     * @throws IOException 讀寫失敗
+     */
+    public boolean generate(Path original) throws IOException {
+        long start = System.nanoTime();
+        if (Arrays.stream(Variant.values()).allMatch(variant -> Files.exists(variantPath(original, variant)))) {
+            return true;
+        }
+        try (ImageInputStream in = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                markFailed(original, "unsupported");
+                unsupportedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                logger.debug("無法解碼圖片，不產生其他尺寸: {}", original.getFileName());
+                return false;
+            }
+            ImageReader reader = readers.next();
+            BufferedImage source;
+            try {
+                reader.setInput(in, true, true);
+                // 寬高只讀取標頭，尚未配置像素記憶體
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    markFailed(original, "oversized");
+                    oversizedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    logger.warn("圖片像素數超過上限，不產生其他尺寸: {} ({}x{})", original.getFileName(), width, height);
+                    return false;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, width / SUBSAMPLE_TARGET_WIDTH);
+                if (step > 1) {
+                    param.setSourceSubsampling(step, step, 0, 0);
+                }
+                source = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+            BufferedImage current = toRgb(source);
+            // 由大到小依序縮放，每次都從上一個尺寸縮小，比每次從原圖縮放快
+            for (int i = Variant.values().length - 1; i >= 0; i--) {
+                Variant variant = Variant.values()[i];
+                current = scaleToWidth(current, variant.getMaxWidth());
+                Path target = variantPath(original, variant);
+                if (!Files.exists(target)) {
+                    writeJpeg(current, target);
+                }
+            }
+            successTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            markFailed(original, "error");
+            errorTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    /**
+     * 取得指定尺寸的圖片網址，供模板使用
+     * @param photoUrl 原圖網址
+     * @param size thumb、card 或 detail
+     * @return 已產生時為該尺寸的網址；外部網址、尚未產生、無法產生或尺寸不存在時為原圖網址（尚未產生的本機原圖會排入背景產生）
+     */
+    public String url(String photoUrl, String size) {
+        if (photoUrl == null || !photoUrl.startsWith(URL_PREFIX)) {
+            return photoUrl;
+        }
+        Variant variant = Arrays.stream(Variant.values())
+                .filter(v -> v.getSuffix().equalsIgnoreCase(size) || v.name().equalsIgnoreCase(size))
+                .findFirst().orElse(null);
+        Path original = baseDir.resolve(photoUrl.substring(URL_PREFIX.length())).normalize();
+        if (variant == null || !original.startsWith(baseDir) || failed.getIfPresent(original) != null) {
+            return photoUrl;
+        }
+        if (Files.exists(variantPath(original, variant))) {
+            return variantUrl(photoUrl, variant);
+        }
+        // 功能上線前的舊圖片也會在第一次被引用時補上
+        if (Files.isRegularFile(original)) {
+            generateAsync(original);
+        }
+        return photoUrl;
+    }
+
+    /**
+     * @param fileName 原圖檔名
+     * @return 原圖各尺寸的檔名，刪除原圖時一併刪除
+     */
+    public static List<String> variantFileNames(String fileName) {
+        return Arrays.stream(Variant.values()).map(variant -> variantFileName(fileName, variant)).toList();
+    }
+
+    static String variantUrl(String photoUrl, Variant variant) {
+        int slash = photoUrl.lastIndexOf('/');
+        return photoUrl.substring(0, slash + 1) + variantFileName(photoUrl.substring(slash + 1), variant);
+    }
+
+    static Path variantPath(Path original, Variant variant) {
+        return original.resolveSibling(variantFileName(original.getFileName().toString(), variant));
+    }
+
+    private static String variantFileName(String fileName, Variant variant) {
+        int dot = fileName.lastIndexOf('.');
+        String base = dot > 0 ? fileName.substring(0, dot) : fileName;
+        return base + "_" + variant.getSuffix() + ".jpg";
+    }
+
+    // JPEG 不支援透明度，以白色背景合成
+    private static BufferedImage toRgb(BufferedImage source) {
+        if (source.getType() == BufferedImage.TYPE_INT_RGB) {
+            return source;
+        }
+        BufferedImage rgb = new BufferedImage(source.getWidth(), source.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = rgb.createGraphics();
+        try {
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, rgb.getWidth(), rgb.getHeight());
+            graphics.drawImage(source, 0, 0, null);
+        } finally {
+            graphics.dispose();
+        }
+        return rgb;
+    }
+
+    // 每次最多縮小一半再以雙線性插值取樣，大幅縮小時不會出現鋸齒
+    private static BufferedImage scaleToWidth(BufferedImage source, int maxWidth) {
+        BufferedImage current = source;
+        while (current.getWidth() > maxWidth) {
+            int width = Math.max(maxWidth, current.getWidth() / 2);
+            int height = Math.max(1, (int) Math.round((double) current.getHeight() * width / current.getWidth()));
+            BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = scaled.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = scaled;
+        }
+        return current;
+    }
+
+    // 先寫暫存檔再原子地改名，頁面不會讀到寫到一半的圖片
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        Path tempFile = target.resolveSibling(target.getFileName() + ".tmp");
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(tempFile.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void markFailed(Path original, String reason) {
+        failed.put(original.toAbsolutePath().normalize(), reason);
+    }
+
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -1,12 +1,17 @@
 package com.example.topfoodnow.util;
 
 import com.example.topfoodnow.model.AiRestaurantModel;
-import org.json.JSONArray;
-import org.json.JSONObject;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -15,29 +20,166 @@ public class JsonUtil {
 
     private static final Logger logger = LoggerFactory.getLogger(JsonUtil.class);
 
-    public List<AiRestaurantModel> parseRestaurants(String jsonString) {
-        List<AiRestaurantModel> restaurants = new ArrayList<>();
-        try {
-            String cleanedJson = jsonString;
-            JSONArray jsonArray = new JSONArray(cleanedJson);
-            for (int i = 0; i < jsonArray.length(); i++) {
-                JSONObject jsonObject = jsonArray.getJSONObject(i);
-                AiRestaurantModel restaurant = new AiRestaurantModel();
+    // 模型偶爾會在字串中夾帶未跳脫的換行或定位字元
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .enable(JsonReadFeature.ALLOW_UNESCAPED_CONTROL_CHARS)
+            .enable(JsonReadFeature.ALLOW_TRAILING_COMMA)
+            .build();
 
-                restaurant.setName(jsonObject.optString("name", "未知名稱"));
-                restaurant.setAddress(jsonObject.optString("address", "未知地址"));
-                restaurant.setUrl(jsonObject.optString("url"));
+    /**
+     * 單次串流解析 Gemini generateContent 回應：定位 candidates[0].content.parts[0].text，
+     * 直接在解析器的字元緩衝區上找出其中的餐廳 JSON 陣列並逐一讀取，不建立完整回應、文字內容或陣列的中間字串。
+     * 容許 ```json 程式碼區塊與陣列前後的說明文字，並略過不可見的控制字元。
+     * @param response Gemini 回傳的 UTF-8 JSON
+     * @return 解析出的餐廳
+     * @throws IOException 回應不是預期的格式，或文字內容中沒有可解析的 JSON 陣列
+     */
+    public List<AiRestaurantModel> parseGeminiResponse(byte[] response) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(response)) {
+            if (!moveToPath(parser, "candidates", 0, "content", "parts", 0, "text")) {
+                throw new JsonParseException(parser, "Gemini 回應中找不到 candidates[0].content.parts[0].text");
+            }
+            if (parser.currentToken() != JsonToken.VALUE_STRING) {
+                throw new JsonParseException(parser, "candidates[0].content.parts[0].text 不是字串");
+            }
+            // getTextCharacters 直接回傳解析器的內部緩衝區，必須在讀取下一個 token 前用完
+            return parseRestaurantArray(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+        }
+    }
 
-                if (restaurant.getUrl() == null || restaurant.getUrl().trim().isEmpty()) {
-                    logger.warn("JsonUtil 發現餐廳 '{}' 的 URL 為空或無效。", restaurant.getName());
-                } else {
-                    logger.debug("JsonUtil 成功解析餐廳 '{}' 的 URL: {}", restaurant.getName(), restaurant.getUrl());
+    private List<AiRestaurantModel> parseRestaurantArray(char[] text, int offset, int length) throws IOException {
+        int start = -1;
+        for (int i = offset; i < offset + length; i++) {
+            if (text[i] == '[') {
+                start = i;
+                break;
+            }
+        }
+        if (start < 0) {
+            throw new JsonParseException(null, "文字內容中沒有 JSON 陣列");
+        }
+        List<AiRestaurantModel> restaurants = new ArrayList<>();
+        // 解析到陣列結束即停止，結尾的 ``` 與其他文字不會被讀取
+        try (JsonParser parser = JSON_FACTORY.createParser(new ControlCharFilterReader(text, start, offset + length))) {
+            parser.nextToken();
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new JsonParseException(parser, "餐廳 JSON 陣列未結束");
+                }
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    continue;
                 }
-                restaurants.add(restaurant);
+                restaurants.add(readRestaurant(parser));
             }
-        } catch (Exception e) {
-            logger.error("解析餐廳 JSON 失敗，原始 JSON: '{}'，錯誤: {}", jsonString, e.getMessage(), e);
         }
         return restaurants;
     }
-}
\ No newline at end of file
+
+    private AiRestaurantModel readRestaurant(JsonParser parser) throws IOException {
+        AiRestaurantModel restaurant = new AiRestaurantModel();
+        restaurant.setName("未知名稱");
+        restaurant.setAddress("未知地址");
+        restaurant.setUrl("");
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (!value.isScalarValue()) {
+                parser.skipChildren();
+                continue;
+            }
+            if (value == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (field) {
+                case "name" -> restaurant.setName(parser.getText());
+                case "address" -> restaurant.setAddress(parser.getText());
+                case "url" -> restaurant.setUrl(parser.getText());
+                default -> { }
+            }
+        }
+        if (restaurant.getUrl().trim().isEmpty()) {
+            logger.warn("JsonUtil 發現餐廳 '{}' 的 URL 為空或無效。", restaurant.getName());
+        } else {
+            logger.debug("JsonUtil 成功解析餐廳 '{}' 的 URL: {}", restaurant.getName(), restaurant.getUrl());
+        }
+        return restaurant;
+    }
+
+    // 依路徑前進到目標值，路徑元素為欄位名稱或陣列索引；途經不相關的值時整段略過
+    private static boolean moveToPath(JsonParser parser, Object... path) throws IOException {
+        if (parser.nextToken() == null) {
+            return false;
+        }
+        for (Object step : path) {
+            if (step instanceof String field) {
+                if (parser.currentToken() != JsonToken.START_OBJECT) {
+                    return false;
+                }
+                boolean found = false;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    parser.nextToken();
+                    if (field.equals(parser.currentName())) {
+                        found = true;
+                        break;
+                    }
+                    parser.skipChildren();
+                }
+                if (!found) {
+                    return false;
+                }
+            } else {
+                if (parser.currentToken() != JsonToken.START_ARRAY) {
+                    return false;
+                }
+                int index = (Integer) step;
+                for (int i = 0; i <= index; i++) {
+                    JsonToken token = parser.nextToken();
+                    if (token == JsonToken.END_ARRAY || token == null) {
+                        return false;
+                    }
+                    if (i < index) {
+                        parser.skipChildren();
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    // 讀取字元陣列的一段，略過 Tab、換行以外的控制字元與零寬度等格式字元
+    private static class ControlCharFilterReader extends Reader {
+        private final char[] source;
+        private final int end;
+        private int position;
+
+        private ControlCharFilterReader(char[] source, int start, int end) {
+            this.source = source;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read(char[] buffer, int off, int len) {
+            int count = 0;
+            while (count < len && position < end) {
+                char c = source[position++];
+                if (c == '\t' || c == '\n' || c == '\r' || !isInvisible(c)) {
+                    buffer[off + count++] = c;
+                }
+            }
+            return count == 0 && len > 0 ? -1 : count;
+        }
+
+        private static boolean isInvisible(char c) {
+            int type = Character.getType(c);
+            return type == Character.CONTROL || type == Character.FORMAT
+                    || type == Character.PRIVATE_USE || type == Character.UNASSIGNED;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.topfoodnow.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Optional;
+
+/**
+ * 以本機目錄實作的物件儲存，鍵即為相對於根目錄的路徑。
+ * 根目錄與 file.dynamic-content-base-dir 相同時，寫入 dynamic-content 的檔案本身就是物件，put 不會再複製一次。
+ */
+public class LocalObjectStorage implements ObjectStorage {
+    private final Path root;
+
+    public LocalObjectStorage(Path root) throws IOException {
+        this.root = root.toAbsolutePath().normalize();
+        Files.createDirectories(this.root);
+    }
+
+    @Override
+    public void put(String key, Path source, String contentType) throws IOException {
+        Path target = resolve(key);
+        if (Files.exists(target) && Files.isSameFile(source, target)) {
+            return;
+        }
+        Files.createDirectories(target.getParent());
+        // 先寫暫存檔再原子地改名，讀取端不會看到寫到一半的檔案
+        Path tempFile = Files.createTempFile(target.getParent(), "put", ".tmp");
+        try {
+            Files.copy(source, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    @Override
+    public Optional<InputStream> get(String key) throws IOException {
+        try {
+            return Optional.of(Files.newInputStream(resolve(key)));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public Optional<ObjectInfo> stat(String key) throws IOException {
+        Path file = resolve(key);
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                return Optional.empty();
+            }
+            return Optional.of(new ObjectInfo(key, attributes.size(), attributes.lastModifiedTime().toMillis(),
+                    URLConnection.guessContentTypeFromName(file.getFileName().toString())));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    private Path resolve(String key) {
+        Path file = root.resolve(ObjectStorage.checkKey(key)).normalize();
+        if (!file.startsWith(root)) {
+            throw new IllegalArgumentException("無效的物件鍵: " + key);
+        }
+        return file;
+    }
+}
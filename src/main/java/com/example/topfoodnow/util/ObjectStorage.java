@@ -0,0 +1,70 @@
+package com.example.topfoodnow.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * 圖片等檔案的物件儲存介面，以「子目錄/檔名」形式的鍵存取，例如 uploads/{sha256}.jpg、screenshots/{檔名}。
+ * 鍵與 photoUrl 的對應固定為 /dynamic-content/{鍵}，與實際使用的儲存後端無關。
+ * 實作：LocalObjectStorage（本機磁碟）、S3ObjectStorage（S3 相容 API，例如 AWS S3 或 MinIO）。
+ */
+public interface ObjectStorage {
+
+    /**
+     * 保存檔案，鍵已存在時覆寫
+     * @param key 物件鍵
+     * @param source 要保存的檔案，呼叫後內容不變，由呼叫端負責刪除
+     * @param contentType 內容類型，例如 image/jpeg
+     * @throws IOException 保存失敗
+     */
+    void put(String key, Path source, String contentType) throws IOException;
+
+    /**
+     * 讀取物件內容
+     * @param key 物件鍵
+     * @return 內容串流，由呼叫端關閉；物件不存在時返回 Optional.empty()
+     * @throws IOException 讀取失敗
+     */
+    Optional<InputStream> get(String key) throws IOException;
+
+    /**
+     * 查詢物件資訊，不讀取內容
+     * @param key 物件鍵
+     * @return 物件資訊；不存在時返回 Optional.empty()
+     * @throws IOException 查詢失敗
+     */
+    Optional<ObjectInfo> stat(String key) throws IOException;
+
+    /**
+     * 刪除物件，不存在時不做任何事
+     * @param key 物件鍵
+     * @throws IOException 刪除失敗
+     */
+    void delete(String key) throws IOException;
+
+    // 鍵只能是相對路徑，不可跳出儲存根目錄
+    static String checkKey(String key) {
+        if (key == null || key.isBlank() || key.startsWith("/") || key.contains("\\")) {
+            throw new IllegalArgumentException("無效的物件鍵: " + key);
+        }
+        for (String segment : key.split("/")) {
+            if (segment.isEmpty() || segment.equals(".") || segment.equals("..")) {
+                throw new IllegalArgumentException("無效的物件鍵: " + key);
+            }
+        }
+        return key;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    class ObjectInfo {
+        private final String key;
+        private final long size;
+        private final long lastModified;
+        private final String contentType;
+    }
+}
@@ -0,0 +1,369 @@
+package com.example.topfoodnow.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 輕量的餐廳照片來源：只下載網頁的 &lt;head&gt;，取出 og:image / twitter:image 後下載該圖片，
+ * 不啟動瀏覽器。找不到或下載失敗時返回 Optional.empty()，由呼叫端改用 Chrome 截圖。
+ * 網址來自 AI 回應與網頁內容，不可信任：只允許 http/https，轉址由本類別逐次處理，
+ * 每次連線前都解析主機，解析結果含迴路、鏈路本地（含雲端中繼資料 169.254.169.254）、私有網段等非公開位址時拒絕；
+ * 圖片格式以檔頭判斷，不採信 Content-Type。
+ * 限制：HttpClient 連線時會再解析一次主機，檢查與連線之間並未綁定同一個位址。
+ * 兩次解析通常命中 JVM 的 DNS 快取（networkaddress.cache.ttl，預設 30 秒）而得到相同結果，
+ * 但快取恰好在兩者之間過期、或快取被關閉時，DNS rebinding 仍可能讓連線落到內部位址；
+ * 需要完全阻擋時應在網路層（對外 proxy 或防火牆）限制出站目的地。
+ * 網頁與圖片各自必須在 timeout 內完成（含轉址、標頭與內容），逾時即取消連線，慢速回應無法長時間佔住截圖名額。
+ */
+public class OgImageFetcher {
+    private static final Logger logger = LoggerFactory.getLogger(OgImageFetcher.class);
+
+    // 依優先順序排列的 meta 名稱
+    private static final List<String> IMAGE_PROPERTIES = List.of(
+            "og:image:secure_url", "og:image", "og:image:url", "twitter:image", "twitter:image:src");
+    private static final Set<String> ALLOWED_SCHEMES = Set.of("http", "https");
+    private static final int MAX_REDIRECTS = 5;
+    private static final int MAX_HEAD_BYTES = 256 * 1024;
+    // 小於此大小的多半是追蹤像素或圖示，不適合當作卡片照片
+    private static final int MIN_IMAGE_BYTES = 1024;
+
+    private static final Pattern META_TAG = Pattern.compile("<meta\\s[^>]*>", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ATTRIBUTE = Pattern.compile(
+            "([a-zA-Z:_-]+)\\s*=\\s*(?:\"([^\"]*)\"|'([^']*)'|([^\\s\"'>]+))");
+    private static final Pattern HEAD_END = Pattern.compile("</head|<body", Pattern.CASE_INSENSITIVE);
+    private static final Pattern CHARSET = Pattern.compile("charset=([\\w-]+)", Pattern.CASE_INSENSITIVE);
+
+    private final HttpClient httpClient;
+    private final Duration timeout;
+    private final long maxImageBytes;
+    private final Predicate<InetAddress> allowedAddress;
+
+    public OgImageFetcher(Duration timeout, long maxImageBytes) {
+        this(timeout, maxImageBytes, OgImageFetcher::isPublicAddress);
+    }
+
+    // 測試以本機 HTTP 伺服器模擬網站，需要放行迴路位址
+    OgImageFetcher(Duration timeout, long maxImageBytes, Predicate<InetAddress> allowedAddress) {
+        this.timeout = timeout;
+        this.maxImageBytes = maxImageBytes;
+        this.allowedAddress = allowedAddress;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+
+    /**
+     * 取得網頁宣告的代表圖片
+     * @param pageUrl 餐廳網址
+     * @return 下載到暫存檔的圖片，用完由呼叫端刪除
+     */
+    public Optional<FetchedImage> fetch(String pageUrl) {
+        try {
+            URI pageUri = URI.create(pageUrl.trim().contains("://") ? pageUrl.trim() : "http://" + pageUrl.trim());
+            // 讀到 </head> 或 <body 就停止，不下載整份網頁
+            HttpResponse<byte[]> page = send(pageUri, "text/html,application/xhtml+xml",
+                    info -> isHtml(info) ? new LimitedBody(MAX_HEAD_BYTES, HEAD_END) : LimitedBody.discard());
+            String contentType = page.headers().firstValue("Content-Type").orElse("");
+            if (page.statusCode() / 100 != 2 || !contentType.toLowerCase(Locale.ROOT).contains("html")) {
+                logger.debug("網頁 {} 無法取得 HTML (HTTP {}, {})", pageUrl, page.statusCode(), contentType);
+                return Optional.empty();
+            }
+            Optional<String> imageUrl = findImageUrl(new String(page.body(), charsetOf(contentType)));
+            if (imageUrl.isEmpty()) {
+                return Optional.empty();
+            }
+            // 相對路徑以轉址後的最終網址為基準
+            return download(page.uri().resolve(imageUrl.get().trim()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        } catch (IOException | IllegalArgumentException e) {
+            logger.debug("取得 {} 的 og:image 失敗: {}", pageUrl, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    // 手動處理轉址，每一次連線前都重新檢查網址與解析後的位址；所有轉址與最後的內容共用同一個期限
+    private HttpResponse<byte[]> send(URI uri, String accept, Function<HttpResponse.ResponseInfo, LimitedBody> body)
+            throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        URI current = uri;
+        for (int redirects = 0; ; redirects++) {
+            checkTarget(current);
+            HttpResponse<byte[]> response = await(httpClient.sendAsync(request(current, accept),
+                    info -> info.statusCode() / 100 == 2 ? body.apply(info) : LimitedBody.discard()), deadline, current);
+            Optional<String> location = response.headers().firstValue("Location");
+            if (response.statusCode() / 100 != 3 || location.isEmpty()) {
+                return response;
+            }
+            if (redirects >= MAX_REDIRECTS) {
+                throw new IOException("轉址次數過多: " + uri);
+            }
+            current = current.resolve(location.get().trim());
+        }
+    }
+
+    // HttpRequest.timeout 只涵蓋等待回應標頭，內容的讀取以期限另外限制；逾時取消請求並關閉連線
+    private static <T> HttpResponse<T> await(CompletableFuture<HttpResponse<T>> response, long deadline, URI uri)
+            throws IOException, InterruptedException {
+        try {
+            return response.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            response.cancel(true);
+            throw new IOException("讀取逾時: " + uri);
+        } catch (InterruptedException e) {
+            response.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        }
+    }
+
+    private void checkTarget(URI uri) throws IOException {
+        String scheme = uri.getScheme() == null ? "" : uri.getScheme().toLowerCase(Locale.ROOT);
+        if (!ALLOWED_SCHEMES.contains(scheme) || uri.getHost() == null) {
+            throw new IOException("不允許的網址: " + uri);
+        }
+        // 主機的任何一個位址不公開就拒絕，避免連線時選到內部位址；連線時的再次解析不在此檢查範圍內（見類別說明）
+        for (InetAddress address : InetAddress.getAllByName(uri.getHost())) {
+            if (!allowedAddress.test(address)) {
+                throw new IOException("不允許連線到非公開位址: " + uri.getHost() + " (" + address.getHostAddress() + ")");
+            }
+        }
+    }
+
+    static boolean isPublicAddress(InetAddress address) {
+        if (address.isAnyLocalAddress() || address.isLoopbackAddress() || address.isLinkLocalAddress()
+                || address.isSiteLocalAddress() || address.isMulticastAddress()) {
+            return false;
+        }
+        byte[] bytes = address.getAddress();
+        if (address instanceof Inet4Address) {
+            int first = bytes[0] & 0xff;
+            int second = bytes[1] & 0xff;
+            // 0.0.0.0/8、100.64.0.0/10（電信級 NAT）、198.18.0.0/15（效能測試）、240.0.0.0/4（保留與廣播）
+            return first != 0 && !(first == 100 && (second & 0xc0) == 64)
+                    && !(first == 198 && (second & 0xfe) == 18) && first < 240;
+        }
+        // fc00::/7 唯一本地位址
+        return !(address instanceof Inet6Address) || (bytes[0] & 0xfe) != 0xfc;
+    }
+
+    private HttpRequest request(URI uri, String accept) {
+        return HttpRequest.newBuilder(uri)
+                .timeout(timeout)
+                .header("Accept", accept)
+                .header("User-Agent", "Mozilla/5.0 (compatible; TopFoodNow/1.0)")
+                .GET()
+                .build();
+    }
+
+    private static boolean isHtml(HttpResponse.ResponseInfo info) {
+        return info.headers().firstValue("Content-Type").orElse("").toLowerCase(Locale.ROOT).contains("html");
+    }
+
+    static Optional<String> findImageUrl(String head) {
+        Map<String, String> found = new HashMap<>();
+        Matcher tag = META_TAG.matcher(head);
+        while (tag.find()) {
+            String key = null;
+            String content = null;
+            Matcher attribute = ATTRIBUTE.matcher(tag.group());
+            while (attribute.find()) {
+                String name = attribute.group(1).toLowerCase(Locale.ROOT);
+                String value = attribute.group(2) != null ? attribute.group(2)
+                        : attribute.group(3) != null ? attribute.group(3) : attribute.group(4);
+                if (name.equals("property") || name.equals("name")) {
+                    key = value.toLowerCase(Locale.ROOT);
+                } else if (name.equals("content")) {
+                    content = value;
+                }
+            }
+            if (key != null && content != null && !content.isBlank()) {
+                found.putIfAbsent(key, decodeEntities(content));
+            }
+        }
+        return IMAGE_PROPERTIES.stream().map(found::get).filter(url -> url != null).findFirst();
+    }
+
+    private Optional<FetchedImage> download(URI imageUri) throws IOException, InterruptedException {
+        // 宣告過大就不讀內容；實際內容多讀一個位元組，用來判斷是否超過上限
+        HttpResponse<byte[]> response = send(imageUri, "image/*",
+                info -> info.headers().firstValueAsLong("Content-Length").orElse(-1) > maxImageBytes
+                        ? LimitedBody.discard() : new LimitedBody(maxImageBytes + 1, null));
+        if (response.statusCode() / 100 != 2) {
+            logger.debug("og:image {} 無法使用 (HTTP {})", imageUri, response.statusCode());
+            return Optional.empty();
+        }
+        long declared = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+        byte[] body = response.body();
+        if (declared > maxImageBytes || body.length > maxImageBytes || body.length < MIN_IMAGE_BYTES) {
+            logger.debug("og:image {} 大小不適用: {} bytes", imageUri, Math.max(declared, body.length));
+            return Optional.empty();
+        }
+        String extension = sniffExtension(body);
+        if (extension == null) {
+            logger.debug("og:image {} 不是支援的圖片格式 ({})", imageUri,
+                    response.headers().firstValue("Content-Type").orElse(""));
+            return Optional.empty();
+        }
+        Path tempFile = Files.createTempFile("og-image", "." + extension);
+        Files.write(tempFile, body);
+        return Optional.of(new FetchedImage(tempFile, extension));
+    }
+
+    // 依檔頭判斷格式：JPEG、PNG、GIF、WebP
+    static String sniffExtension(byte[] header) {
+        if (header.length >= 3 && (header[0] & 0xff) == 0xff && (header[1] & 0xff) == 0xd8 && (header[2] & 0xff) == 0xff) {
+            return "jpg";
+        }
+        String ascii = new String(header, StandardCharsets.ISO_8859_1);
+        if (ascii.startsWith("\u0089PNG\r\n\u001a\n")) {
+            return "png";
+        }
+        if (ascii.startsWith("GIF87a") || ascii.startsWith("GIF89a")) {
+            return "gif";
+        }
+        if (ascii.length() >= 12 && ascii.startsWith("RIFF") && ascii.startsWith("WEBP", 8)) {
+            return "webp";
+        }
+        return null;
+    }
+
+    private static Charset charsetOf(String contentType) {
+        Matcher matcher = CHARSET.matcher(contentType);
+        if (matcher.find()) {
+            try {
+                return Charset.forName(matcher.group(1));
+            } catch (IllegalArgumentException e) {
+                return StandardCharsets.UTF_8;
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    private static String decodeEntities(String value) {
+        return value.replace("&amp;", "&").replace("&quot;", "\"").replace("&#39;", "'")
+                .replace("&lt;", "<").replace("&gt;", ">");
+    }
+
+    /**
+     * 只收集前 limit 個位元組的回應內容；收滿或內容出現 stopAt 時取消訂閱，讓連線不再傳送其餘內容
+     */
+    private static final class LimitedBody implements HttpResponse.BodySubscriber<byte[]> {
+        private final long limit;
+        private final Pattern stopAt;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private final CompletableFuture<byte[]> result = new CompletableFuture<>();
+        private Flow.Subscription subscription;
+
+        LimitedBody(long limit, Pattern stopAt) {
+            this.limit = limit;
+            this.stopAt = stopAt;
+        }
+
+        // 轉址與錯誤回應不需要內容
+        static LimitedBody discard() {
+            return new LimitedBody(0, null);
+        }
+
+        @Override
+        public CompletionStage<byte[]> getBody() {
+            return result;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (limit == 0) {
+                finish();
+            } else {
+                subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> items) {
+            if (result.isDone()) {
+                return;
+            }
+            int scanFrom = Math.max(0, buffer.size() - 6);
+            for (ByteBuffer item : items) {
+                int length = (int) Math.min(item.remaining(), limit - buffer.size());
+                byte[] bytes = new byte[length];
+                item.get(bytes);
+                buffer.write(bytes, 0, length);
+            }
+            if (buffer.size() >= limit || reachedStop(scanFrom)) {
+                finish();
+            } else {
+                subscription.request(1);
+            }
+        }
+
+        // 標記本身是 ASCII，可以直接在位元組上以 ISO-8859-1 比對，不必先解碼
+        private boolean reachedStop(int scanFrom) {
+            if (stopAt == null) {
+                return false;
+            }
+            byte[] received = buffer.toByteArray();
+            return stopAt.matcher(new String(received, scanFrom, received.length - scanFrom, StandardCharsets.ISO_8859_1)).find();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            result.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            result.complete(buffer.toByteArray());
+        }
+
+        private void finish() {
+            subscription.cancel();
+            result.complete(buffer.toByteArray());
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class FetchedImage {
+        private final Path file;
+        private final String extension;
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.topfoodnow.util;
+
+import com.example.topfoodnow.model.AiRestaurantModel;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分層取得餐廳照片（AiRestaurantModel.photoUrl）：
+ * 先查磁碟快取；沒有時以 HTTP 讀取網頁 &lt;head&gt; 的 og:image / twitter:image（不啟動瀏覽器）；
+ * 都找不到才以 Chrome 截圖。
+ * 量測值 photo.resolve{tier} 記錄每個結果由哪一層提供及總耗時，
+ * photo.tier{tier, outcome} 記錄每一層每次嘗試的耗時與是否取得圖片。
+ */
+public class PhotoResolver {
+    private static final Logger logger = LoggerFactory.getLogger(PhotoResolver.class);
+
+    static final String PLACEHOLDER_NO_URL = "https://via.placeholder.com/150?text=No+URL";
+    static final String PLACEHOLDER_ERROR = "https://via.placeholder.com/150?text=Error+Image";
+
+    private final ScreenshotCache screenshotCache;
+    private final String screenshotSubDir;
+    private final OgImageFetcher ogImageFetcher;
+    private final WebDriverPool driverPool;
+    private final ImageVariantUtil imageVariantUtil;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * @param ogImageFetcher 為 null 時略過 og:image 層，一律截圖
+     * @param imageVariantUtil 新圖片存入快取後在背景產生各尺寸；為 null 時不產生
+     */
+    public PhotoResolver(ScreenshotCache screenshotCache, String screenshotSubDir, OgImageFetcher ogImageFetcher,
+                         WebDriverPool driverPool, ImageVariantUtil imageVariantUtil, MeterRegistry meterRegistry) {
+        this.screenshotCache = screenshotCache;
+        this.screenshotSubDir = screenshotSubDir;
+        this.ogImageFetcher = ogImageFetcher;
+        this.driverPool = driverPool;
+        this.imageVariantUtil = imageVariantUtil;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 為餐廳設定照片網址
+     * @param restaurant 餐廳，photoUrl 會被直接設定
+     * @return 同一個餐廳物件；失敗時 photoUrl 為佔位圖
+     */
+    public AiRestaurantModel resolve(AiRestaurantModel restaurant) {
+        long start = System.nanoTime();
+        String url = restaurant.getUrl();
+        if (url == null || url.trim().isEmpty()) {
+            logger.warn("餐廳: {} 的 URL 為空或無效 (URL: '{}')，跳過截圖。",
+                    restaurant.getName(), (url == null ? "null" : "'" + url + "'"));
+            restaurant.setPhotoUrl(PLACEHOLDER_NO_URL);
+            record("placeholder", start);
+            return restaurant;
+        }
+
+        long tierStart = System.nanoTime();
+        Optional<String> cachedFile = screenshotCache.lookup(url);
+        recordTier("cache", cachedFile.isPresent() ? "found" : "not_found", tierStart);
+        if (cachedFile.isPresent()) {
+            restaurant.setPhotoUrl(toPhotoUrl(cachedFile.get()));
+            logger.debug("使用快取圖片: {} -> {}", url, restaurant.getPhotoUrl());
+            record("cache", start);
+            return restaurant;
+        }
+
+        if (ogImageFetcher != null) {
+            tierStart = System.nanoTime();
+            Optional<OgImageFetcher.FetchedImage> image = ogImageFetcher.fetch(url);
+            if (image.isPresent()) {
+                try {
+                    restaurant.setPhotoUrl(toPhotoUrl(stored(screenshotCache.store(url, image.get().getFile(), image.get().getExtension()))));
+                    recordTier("og_image", "found", tierStart);
+                    record("og_image", start);
+                    logger.info("使用網站 og:image: {} -> {}", url, restaurant.getPhotoUrl());
+                    return restaurant;
+                } catch (IOException e) {
+                    logger.warn("無法保存 og:image ({}): {}", url, e.getMessage());
+                } finally {
+                    deleteQuietly(image.get().getFile());
+                }
+            }
+            recordTier("og_image", "not_found", tierStart);
+        }
+
+        tierStart = System.nanoTime();
+        boolean captured = captureScreenshot(restaurant);
+        recordTier("screenshot", captured ? "found" : "error", tierStart);
+        record(captured ? "screenshot" : "placeholder", start);
+        return restaurant;
+    }
+
+    private boolean captureScreenshot(AiRestaurantModel restaurant) {
+        WebDriverPool.PooledDriver pooled = null;
+        boolean broken = false;
+        try {
+            pooled = driverPool.borrow(2, TimeUnit.MINUTES);
+            WebDriver driver = pooled.getDriver();
+
+            logger.debug("開始截圖: {}", restaurant.getUrl());
+            driver.get(restaurant.getUrl());
+
+            Path screenshotFile = ((TakesScreenshot) driver).getScreenshotAs(OutputType.FILE).toPath();
+            try {
+                restaurant.setPhotoUrl(toPhotoUrl(stored(screenshotCache.store(restaurant.getUrl(), screenshotFile))));
+            } finally {
+                deleteQuietly(screenshotFile);
+            }
+            logger.info("成功截圖並保存: {} -> {}", restaurant.getUrl(), restaurant.getPhotoUrl());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            restaurant.setPhotoUrl(PLACEHOLDER_ERROR);
+            return false;
+        } catch (Exception e) {
+            broken = true; // 無法確定瀏覽器狀態，不放回池中
+            logger.error("截圖失敗: {} (URL: {}), 錯誤: {}",
+                    restaurant.getName(), restaurant.getUrl(), e.getMessage(), e);
+            restaurant.setPhotoUrl(PLACEHOLDER_ERROR);
+            return false;
+        } finally {
+            if (pooled != null) {
+                driverPool.release(pooled, broken);
+            }
+        }
+    }
+
+    private String stored(String fileName) {
+        if (imageVariantUtil != null) {
+            imageVariantUtil.generateAsync(screenshotCache.getDirectory().resolve(fileName));
+        }
+        return fileName;
+    }
+
+    private String toPhotoUrl(String fileName) {
+        String photoUrl = "/dynamic-content/" + screenshotSubDir + "/" + fileName;
+        return photoUrl.replace("\\", "/");
+    }
+
+    private void record(String tier, long start) {
+        Timer.builder("photo.resolve").tag("tier", tier).register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private void recordTier(String tier, String outcome, long start) {
+        Timer.builder("photo.tier").tag("tier", tier).tag("outcome", outcome).register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.debug("無法刪除暫存檔 {}: {}", file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.topfoodnow.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * 以 long[] 緊湊保存主鍵的隨機抽樣池，取代 ORDER BY RAND() 的全表排序。
+ * 首次使用時透過 loader 從資料庫載入一次，之後由寫入路徑以 add / remove 增量維護；
+ * 載入期間收到的增刪會記錄下來，在載入完成後套用，不會因為查詢早於交易提交而遺漏。
+ */
+public class RandomIdPool {
+    private final Supplier<long[]> loader;
+    private final Object loadLock = new Object();
+    // 以下欄位以 this 同步
+    private long[] ids = new long[0];
+    private int size;
+    private volatile boolean loaded;
+    private boolean loading;
+    private int generation;
+    // 載入期間發生的增刪，載入完成後套用；loader 的查詢可能在這些交易提交前就已開始
+    private final List<PendingChange> pending = new ArrayList<>();
+
+    public RandomIdPool(Supplier<long[]> loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * 隨機抽出最多 count 個不重複的主鍵
+     * @param count 需要的數量
+     * @return 抽出的主鍵，池中數量不足時全部返回
+     */
+    public long[] sample(int count) {
+        ensureLoaded();
+        synchronized (this) {
+            int n = Math.min(count, size);
+            long[] result = new long[n];
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            // 部分 Fisher-Yates：在原陣列前段交換出 n 個隨機元素，不需額外配置
+            for (int i = 0; i < n; i++) {
+                int j = i + random.nextInt(size - i);
+                long tmp = ids[i];
+                ids[i] = ids[j];
+                ids[j] = tmp;
+                result[i] = ids[i];
+            }
+            return result;
+        }
+    }
+
+    // 尚未載入且沒有進行中的載入時忽略，之後的載入會從資料庫取得最新資料
+    public synchronized void add(long id) {
+        if (loaded) {
+            append(id);
+        } else if (loading) {
+            pending.add(new PendingChange(id, true));
+        }
+    }
+
+    public synchronized void remove(long id) {
+        if (loaded) {
+            removeId(id);
+        } else if (loading) {
+            pending.add(new PendingChange(id, false));
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * 丟棄目前內容，下次抽樣時重新從資料庫載入；進行中的載入結果也會被丟棄
+     */
+    public synchronized void invalidate() {
+        loaded = false;
+        generation++;
+        pending.clear();
+        ids = new long[0];
+        size = 0;
+    }
+
+    // 查詢資料庫時不持有 this，寫入路徑的 add / remove 不會被載入阻塞
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (loadLock) {
+            while (!loaded) {
+                int loadGeneration;
+                synchronized (this) {
+                    loading = true;
+                    loadGeneration = generation;
+                }
+                long[] fresh;
+                try {
+                    fresh = loader.get();
+                } catch (RuntimeException e) {
+                    synchronized (this) {
+                        loading = false;
+                        pending.clear();
+                    }
+                    throw e;
+                }
+                synchronized (this) {
+                    loading = false;
+                    if (loadGeneration == generation) {
+                        ids = fresh;
+                        size = fresh.length;
+                        for (PendingChange change : pending) {
+                            if (change.added) {
+                                if (indexOf(change.id) < 0) {
+                                    append(change.id);
+                                }
+                            } else {
+                                removeId(change.id);
+                            }
+                        }
+                        loaded = true;
+                    }
+                    pending.clear();
+                }
+            }
+        }
+    }
+
+    private void append(long id) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(16, size * 2));
+        }
+        ids[size++] = id;
+    }
+
+    private void removeId(long id) {
+        int index = indexOf(id);
+        if (index >= 0) {
+            ids[index] = ids[--size];
+        }
+    }
+
+    private int indexOf(long id) {
+        for (int i = 0; i < size; i++) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // 將 (userId, storeId) 複合主鍵壓成一個 long
+    public static long pack(int high, int low) {
+        return ((long) high << 32) | (low & 0xFFFFFFFFL);
+    }
+
+    public static int high(long packed) {
+        return (int) (packed >>> 32);
+    }
+
+    public static int low(long packed) {
+        return (int) packed;
+    }
+
+    private static class PendingChange {
+        private final long id;
+        private final boolean added;
+
+        private PendingChange(long id, boolean added) {
+            this.id = id;
+            this.added = added;
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package com.example.topfoodnow.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * S3 相容 API（AWS S3、MinIO 等）的物件儲存，以共用的 HttpClient 發送 Signature Version 4 簽章的 REST 請求。
+ * 超過 multipartThresholdBytes 的檔案以 multipart upload 分段上傳，每段 partSizeBytes，任一段失敗時中止整個上傳，
+ * 不留下未完成的分段；較小的檔案以單一 PUT 串流上傳，內容不簽章（UNSIGNED-PAYLOAD）以免先讀一次檔案計算雜湊。
+ */
+public class S3ObjectStorage implements ObjectStorage {
+    private static final Logger logger = LoggerFactory.getLogger(S3ObjectStorage.class);
+    private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+    private static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+    private static final Pattern UPLOAD_ID = Pattern.compile("<UploadId>([^<]+)</UploadId>");
+    private static final int MAX_ERROR_BODY = 512;
+
+    private final HttpClient httpClient;
+    private final URI endpoint;
+    private final String region;
+    private final String bucket;
+    private final String accessKey;
+    private final String secretKey;
+    private final boolean pathStyle;
+    private final long multipartThresholdBytes;
+    private final long partSizeBytes;
+    private final Duration timeout;
+
+    /**
+     * @param endpoint 服務位址，例如 https://s3.ap-northeast-1.amazonaws.com 或 http://localhost:9000
+     * @param region 簽章使用的區域，MinIO 預設為 us-east-1
+     * @param bucket 儲存桶名稱
+     * @param accessKey 存取金鑰 ID
+     * @param secretKey 私密存取金鑰
+     * @param pathStyle true 時以 {endpoint}/{bucket}/{鍵} 存取（MinIO），否則以 {bucket}.{host}/{鍵} 存取
+     * @param multipartThresholdBytes 超過此大小的檔案改用 multipart upload
+     * @param partSizeBytes multipart upload 每段大小，S3 要求除最後一段外至少 5MB
+     * @param timeout 連線與每個請求的逾時
+     */
+    public S3ObjectStorage(URI endpoint, String region, String bucket, String accessKey, String secretKey,
+                           boolean pathStyle, long multipartThresholdBytes, long partSizeBytes, Duration timeout) {
+        this.endpoint = endpoint;
+        this.region = region;
+        this.bucket = bucket;
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.pathStyle = pathStyle;
+        this.multipartThresholdBytes = multipartThresholdBytes;
+        this.partSizeBytes = partSizeBytes;
+        this.timeout = timeout;
+        this.httpClient = HttpClient.newBuilder().connectTimeout(timeout).build();
+    }
+
+    @Override
+    public void put(String key, Path source, String contentType) throws IOException {
+        long size = Files.size(source);
+        if (size > multipartThresholdBytes) {
+            putMultipart(key, source, size, contentType);
+            return;
+        }
+        HttpResponse<InputStream> response = send("PUT", objectUri(key, null), HttpRequest.BodyPublishers.ofFile(source),
+                UNSIGNED_PAYLOAD, contentType);
+        expectSuccess(response, "PUT " + key).body().close();
+    }
+
+    @Override
+    public Optional<InputStream> get(String key) throws IOException {
+        HttpResponse<InputStream> response = send("GET", objectUri(key, null), HttpRequest.BodyPublishers.noBody(), sha256Hex(new byte[0]), null);
+        if (response.statusCode() == 404) {
+            response.body().close();
+            return Optional.empty();
+        }
+        if (!isSuccess(response)) {
+            expectSuccess(response, "GET " + key);
+        }
+        return Optional.of(response.body());
+    }
+
+    @Override
+    public Optional<ObjectInfo> stat(String key) throws IOException {
+        HttpResponse<InputStream> response = send("HEAD", objectUri(key, null), HttpRequest.BodyPublishers.noBody(), sha256Hex(new byte[0]), null);
+        response.body().close();
+        if (response.statusCode() == 404) {
+            return Optional.empty();
+        }
+        if (!isSuccess(response)) {
+            throw new IOException("物件儲存 HEAD " + key + " 失敗: HTTP " + response.statusCode());
+        }
+        long size = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+        long lastModified = response.headers().firstValue("Last-Modified").map(S3ObjectStorage::parseHttpDate).orElse(0L);
+        return Optional.of(new ObjectInfo(key, size, lastModified, response.headers().firstValue("Content-Type").orElse(null)));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        HttpResponse<InputStream> response = send("DELETE", objectUri(key, null), HttpRequest.BodyPublishers.noBody(), sha256Hex(new byte[0]), null);
+        if (response.statusCode() == 404) {
+            response.body().close();
+            return;
+        }
+        expectSuccess(response, "DELETE " + key).body().close();
+    }
+
+    private void putMultipart(String key, Path source, long size, String contentType) throws IOException {
+        HttpResponse<InputStream> created = send("POST", objectUri(key, "uploads"), HttpRequest.BodyPublishers.noBody(),
+                sha256Hex(new byte[0]), contentType);
+        String uploadId = extractUploadId(readBody(expectSuccess(created, "建立 multipart upload " + key)));
+        try {
+            List<String> etags = new ArrayList<>();
+            try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+                for (long offset = 0; offset < size; offset += partSizeBytes) {
+                    byte[] part = readPart(channel, offset, (int) Math.min(partSizeBytes, size - offset));
+                    URI partUri = objectUri(key, "partNumber=" + (etags.size() + 1) + "&uploadId=" + encode(uploadId));
+                    HttpResponse<InputStream> uploaded = send("PUT", partUri, HttpRequest.BodyPublishers.ofByteArray(part), sha256Hex(part), null);
+                    expectSuccess(uploaded, "上傳分段 " + (etags.size() + 1) + " " + key).body().close();
+                    etags.add(uploaded.headers().firstValue("ETag")
+                            .orElseThrow(() -> new IOException("物件儲存未回傳分段 ETag: " + key)));
+                }
+            }
+            byte[] completion = completionXml(etags).getBytes(StandardCharsets.UTF_8);
+            HttpResponse<InputStream> completed = send("POST", objectUri(key, "uploadId=" + encode(uploadId)),
+                    HttpRequest.BodyPublishers.ofByteArray(completion), sha256Hex(completion), "application/xml");
+            // 完成請求可能以 200 回應但內容為錯誤
+            String body = readBody(expectSuccess(completed, "完成 multipart upload " + key));
+            if (body.contains("<Error>")) {
+                throw new IOException("物件儲存完成 multipart upload " + key + " 失敗: " + truncate(body));
+            }
+            logger.debug("已以 {} 段上傳物件: {} ({} bytes)", etags.size(), key, size);
+        } catch (IOException | RuntimeException e) {
+            abortMultipart(key, uploadId);
+            throw e;
+        }
+    }
+
+    private void abortMultipart(String key, String uploadId) {
+        try {
+            HttpResponse<InputStream> response = send("DELETE", objectUri(key, "uploadId=" + encode(uploadId)),
+                    HttpRequest.BodyPublishers.noBody(), sha256Hex(new byte[0]), null);
+            response.body().close();
+        } catch (IOException e) {
+            logger.warn("無法中止 multipart upload {}: {}", key, e.getMessage());
+        }
+    }
+
+    private static byte[] readPart(FileChannel channel, long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("檔案在上傳途中被截短");
+            }
+        }
+        return buffer.array();
+    }
+
+    private static String completionXml(List<String> etags) {
+        StringBuilder xml = new StringBuilder("<CompleteMultipartUpload>");
+        for (int i = 0; i < etags.size(); i++) {
+            xml.append("<Part><PartNumber>").append(i + 1).append("</PartNumber><ETag>")
+                    .append(etags.get(i).replace("&", "&amp;").replace("\"", "&quot;")).append("</ETag></Part>");
+        }
+        return xml.append("</CompleteMultipartUpload>").toString();
+    }
+
+    private static String extractUploadId(String body) throws IOException {
+        Matcher matcher = UPLOAD_ID.matcher(body);
+        if (!matcher.find()) {
+            throw new IOException("物件儲存未回傳 UploadId: " + truncate(body));
+        }
+        return matcher.group(1);
+    }
+
+    private HttpResponse<InputStream> send(String method, URI uri, HttpRequest.BodyPublisher body, String payloadHash,
+                                           String contentType) throws IOException {
+        Instant now = Instant.now();
+        TreeMap<String, String> headers = new TreeMap<>();
+        headers.put("host", uri.getPort() == -1 ? uri.getHost() : uri.getHost() + ":" + uri.getPort());
+        headers.put("x-amz-content-sha256", payloadHash);
+        headers.put("x-amz-date", AMZ_DATE.format(now));
+        if (contentType != null) {
+            headers.put("content-type", contentType);
+        }
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .timeout(timeout)
+                .method(method, body)
+                .header("Authorization", authorization(method, uri, headers, payloadHash, accessKey, secretKey, region, now));
+        // host 由 HttpClient 依 URI 自行送出
+        headers.forEach((name, value) -> {
+            if (!name.equals("host")) {
+                request.header(name, value);
+            }
+        });
+        try {
+            return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("物件儲存請求被中斷: " + method + " " + uri.getPath());
+        }
+    }
+
+    private URI objectUri(String key, String query) {
+        String path = "/" + encodePath(ObjectStorage.checkKey(key));
+        String authority = endpoint.getRawAuthority();
+        if (pathStyle) {
+            path = "/" + bucket + path;
+        } else {
+            authority = bucket + "." + authority;
+        }
+        String base = endpoint.getRawPath() == null ? "" : endpoint.getRawPath().replaceAll("/+$", "");
+        return URI.create(endpoint.getScheme() + "://" + authority + base + path + (query == null ? "" : "?" + query));
+    }
+
+    /**
+     * 計算 Signature Version 4 的 Authorization 標頭
+     * @param headers 要簽章的標頭，名稱小寫並排序，須包含 host 與 x-amz-date
+     */
+    static String authorization(String method, URI uri, TreeMap<String, String> headers, String payloadHash,
+                                String accessKey, String secretKey, String region, Instant time) {
+        String amzDate = AMZ_DATE.format(time);
+        String date = amzDate.substring(0, 8);
+        String canonicalHeaders = headers.entrySet().stream()
+                .map(header -> header.getKey() + ":" + header.getValue().trim() + "\n")
+                .collect(Collectors.joining());
+        String signedHeaders = String.join(";", headers.keySet());
+        String canonicalRequest = method + "\n"
+                + (uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath()) + "\n"
+                + canonicalQuery(uri.getRawQuery()) + "\n"
+                + canonicalHeaders + "\n"
+                + signedHeaders + "\n"
+                + payloadHash;
+        String scope = date + "/" + region + "/s3/aws4_request";
+        String stringToSign = "AWS4-HMAC-SHA256\n" + amzDate + "\n" + scope + "\n"
+                + sha256Hex(canonicalRequest.getBytes(StandardCharsets.UTF_8));
+        byte[] signingKey = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), date);
+        signingKey = hmac(signingKey, region);
+        signingKey = hmac(signingKey, "s3");
+        signingKey = hmac(signingKey, "aws4_request");
+        String signature = HexFormat.of().formatHex(hmac(signingKey, stringToSign));
+        return "AWS4-HMAC-SHA256 Credential=" + accessKey + "/" + scope
+                + ",SignedHeaders=" + signedHeaders + ",Signature=" + signature;
+    }
+
+    // 查詢參數依名稱排序，沒有值的參數（例如 ?uploads）以空字串作為值
+    private static String canonicalQuery(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return "";
+        }
+        Map<String, String> parameters = new TreeMap<>();
+        for (String parameter : rawQuery.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator < 0) {
+                parameters.put(parameter, "");
+            } else {
+                parameters.put(parameter.substring(0, separator), parameter.substring(separator + 1));
+            }
+        }
+        return parameters.entrySet().stream()
+                .map(parameter -> parameter.getKey() + "=" + parameter.getValue())
+                .collect(Collectors.joining("&"));
+    }
+
+    private static String encodePath(String key) {
+        return List.of(key.split("/")).stream().map(S3ObjectStorage::encode).collect(Collectors.joining("/"));
+    }
+
+    // RFC 3986 百分比編碼，只保留非保留字元
+    private static String encode(String value) {
+        StringBuilder encoded = new StringBuilder();
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xff);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~') {
+                encoded.append(c);
+            } else {
+                encoded.append('%').append(HexFormat.of().withUpperCase().toHexDigits(b));
+            }
+        }
+        return encoded.toString();
+    }
+
+    private static byte[] hmac(byte[] key, String data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 不可用", e);
+        }
+    }
+
+    private static String sha256Hex(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+
+    private static long parseHttpDate(String value) {
+        try {
+            return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return 0;
+        }
+    }
+
+    private static boolean isSuccess(HttpResponse<?> response) {
+        return response.statusCode() / 100 == 2;
+    }
+
+    private static HttpResponse<InputStream> expectSuccess(HttpResponse<InputStream> response, String operation) throws IOException {
+        if (isSuccess(response)) {
+            return response;
+        }
+        String body;
+        try (InputStream in = response.body()) {
+            body = new String(in.readNBytes(MAX_ERROR_BODY), StandardCharsets.UTF_8);
+        }
+        throw new IOException("物件儲存 " + operation + " 失敗: HTTP " + response.statusCode() + " " + body);
+    }
+
+    private static String readBody(HttpResponse<InputStream> response) throws IOException {
+        try (InputStream in = response.body()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String truncate(String body) {
+        return body.length() > MAX_ERROR_BODY ? body.substring(0, MAX_ERROR_BODY) : body;
+    }
+}
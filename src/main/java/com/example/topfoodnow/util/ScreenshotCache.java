@@ -0,0 +1,380 @@
+package com.example.topfoodnow.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 以正規化後的餐廳網址為鍵的磁碟圖片快取，存放網站截圖或網站提供的 og:image 圖片。
+ * 檔名為「網址 SHA-256-擷取時間.副檔名」，索引可在啟動時直接由檔案重建；重新截圖會產生新檔名，同一個 photoUrl 的內容不會改變。
+ * 超過存活時間的截圖視為過期並重新擷取；總大小超過配額時，依最後使用時間淘汰最久未用的截圖（LRU）。
+ * 被新截圖取代的舊圖片不會立即刪除：已發出的 photoUrl（例如仍在提供、並持久化的 AI 推薦結果）可能還指向它，
+ * 因此保留至少 supersededRetention，之後在下一次寫入或淘汰時才刪除；配額不足時先釋放這些舊圖片的本機檔案。
+ * 指定物件儲存時，新圖片同時保存到物件儲存，舊圖片在保留期限過後才從物件儲存刪除；
+ * 配額淘汰只釋放本機磁碟，物件儲存中的圖片仍可由其他節點或讀取穿透取回。
+ */
+public class ScreenshotCache {
+    private static final Logger logger = LoggerFactory.getLogger(ScreenshotCache.class);
+    private static final Pattern FILE_NAME = Pattern.compile("([0-9a-f]{64})-(\\d+)\\.(png|jpg|gif|webp)");
+
+    private final Path directory;
+    private final long ttlMillis;
+    private final long maxBytes;
+    private final long retentionMillis;
+    private final ObjectStorage objectStorage;
+    private final String keyPrefix;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong totalBytes = new AtomicLong();
+    // 被取代、等待保留期限過後刪除的圖片，依取代時間排序；以 this 同步
+    private final Deque<Superseded> superseded = new ArrayDeque<>();
+
+    /**
+     * @param directory 截圖目錄
+     * @param ttl 截圖的新鮮期限，過期後重新擷取
+     * @param maxBytes 磁碟配額
+     */
+    public ScreenshotCache(Path directory, Duration ttl, long maxBytes) throws IOException {
+        this(directory, ttl, maxBytes, Duration.ZERO, null, null);
+    }
+
+    /**
+     * @param directory 截圖目錄
+     * @param ttl 截圖的新鮮期限，過期後重新擷取
+     * @param maxBytes 磁碟配額
+     * @param supersededRetention 被新截圖取代的舊圖片至少保留多久，應不短於引用 photoUrl 的快取（AI 推薦）的存活時間
+     * @param objectStorage 保存截圖的物件儲存，null 時只使用本機目錄
+     * @param keyPrefix 物件鍵前綴，例如 screenshots/
+     */
+    public ScreenshotCache(Path directory, Duration ttl, long maxBytes, Duration supersededRetention,
+                           ObjectStorage objectStorage, String keyPrefix) throws IOException {
+        this.directory = directory;
+        this.ttlMillis = ttl.toMillis();
+        this.maxBytes = maxBytes;
+        this.retentionMillis = supersededRetention.toMillis();
+        this.objectStorage = objectStorage;
+        this.keyPrefix = keyPrefix;
+        Files.createDirectories(directory);
+        loadIndex();
+    }
+
+    /**
+     * 查詢網址是否有仍在期限內的截圖，命中時更新最後使用時間
+     * @param url 餐廳網址
+     * @return 截圖檔名
+     */
+    public Optional<String> lookup(String url) {
+        Entry entry = entries.get(keyOf(url));
+        if (entry == null || System.currentTimeMillis() - entry.capturedAt > ttlMillis) {
+            return Optional.empty();
+        }
+        if (!Files.exists(directory.resolve(entry.fileName))) {
+            remove(entry);
+            return Optional.empty();
+        }
+        touch(entry);
+        return Optional.of(entry.fileName);
+    }
+
+    public String store(String url, Path screenshot) throws IOException {
+        return store(url, screenshot, "png");
+    }
+
+    /**
+     * 將剛取得的圖片移入快取，取代同網址的舊圖片，並在超過配額時淘汰最久未用的圖片
+     * @param url 餐廳網址
+     * @param image 圖片暫存檔
+     * @param extension 副檔名：png、jpg、gif 或 webp
+     * @return 快取中的檔名
+     */
+    public String store(String url, Path image, String extension) throws IOException {
+        String key = keyOf(url);
+        long capturedAt = System.currentTimeMillis();
+        String fileName = key + "-" + capturedAt + "." + extension;
+        Path target = directory.resolve(fileName);
+        Path tempFile = directory.resolve(fileName + ".tmp");
+        Files.copy(image, tempFile, StandardCopyOption.REPLACE_EXISTING);
+        Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        putObject(fileName, target, extension);
+
+        Entry entry = new Entry(key, fileName, capturedAt, Files.size(target));
+        entry.lastAccess = capturedAt;
+        Entry previous = entries.put(key, entry);
+        totalBytes.addAndGet(entry.size);
+        if (previous != null) {
+            if (previous.fileName.equals(fileName)) {
+                totalBytes.addAndGet(-previous.size);
+            } else {
+                // 舊圖片的大小在真正刪除時才從總大小扣除
+                retire(previous.fileName, previous.size, capturedAt);
+            }
+        }
+        purgeSuperseded(capturedAt);
+        evictIfNeeded(key);
+        return fileName;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes.get();
+    }
+
+    /**
+     * @return 已被取代、仍在保留期限內的圖片數
+     */
+    public synchronized int getSupersededCount() {
+        return superseded.size();
+    }
+
+    /**
+     * 正規化網址：協定與主機轉小寫、去除 www.、預設連接埠、片段、追蹤參數與結尾斜線，查詢參數依名稱排序
+     */
+    static String normalizeUrl(String url) {
+        String trimmed = url.trim();
+        try {
+            URI uri = new URI(trimmed.contains("://") ? trimmed : "http://" + trimmed);
+            String scheme = uri.getScheme() == null ? "http" : uri.getScheme().toLowerCase(Locale.ROOT);
+            String host = uri.getHost() == null ? "" : uri.getHost().toLowerCase(Locale.ROOT);
+            if (host.startsWith("www.")) {
+                host = host.substring(4);
+            }
+            int port = uri.getPort();
+            boolean defaultPort = port == -1 || (port == 80 && scheme.equals("http")) || (port == 443 && scheme.equals("https"));
+            String path = uri.getRawPath() == null ? "" : uri.getRawPath();
+            while (path.endsWith("/")) {
+                path = path.substring(0, path.length() - 1);
+            }
+            String query = "";
+            if (uri.getRawQuery() != null) {
+                query = Arrays.stream(uri.getRawQuery().split("&"))
+                        .filter(param -> !param.isEmpty() && !param.toLowerCase(Locale.ROOT).startsWith("utm_")
+                                && !param.startsWith("fbclid=") && !param.startsWith("gclid="))
+                        .sorted()
+                        .collect(Collectors.joining("&"));
+            }
+            // http 與 https 通常是同一個網站，視為同一張截圖
+            return host + (defaultPort ? "" : ":" + port) + path + (query.isEmpty() ? "" : "?" + query);
+        } catch (URISyntaxException e) {
+            return trimmed.toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static String keyOf(String url) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(normalizeUrl(url).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // 掃描目錄重建索引；同一網址有多張截圖時以最新的為準，較舊的視為在下一張擷取時被取代，
+    // 仍在保留期限內的繼續保留，舊版以 UUID 命名的截圖超過期限後刪除
+    private void loadIndex() throws IOException {
+        List<Path> legacy = new ArrayList<>();
+        Map<String, List<Entry>> versions = new HashMap<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                Matcher matcher = FILE_NAME.matcher(name);
+                if (!matcher.matches()) {
+                    if (name.toLowerCase(Locale.ROOT).endsWith(".png") || name.endsWith(".tmp")) {
+                        legacy.add(file);
+                    }
+                    continue;
+                }
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                Entry entry = new Entry(matcher.group(1), name, Long.parseLong(matcher.group(2)), attributes.size());
+                entry.lastAccess = Math.max(attributes.lastAccessTime().toMillis(), entry.capturedAt);
+                versions.computeIfAbsent(entry.key, key -> new ArrayList<>()).add(entry);
+            }
+        }
+        List<Superseded> retired = new ArrayList<>();
+        for (List<Entry> list : versions.values()) {
+            list.sort(Comparator.comparingLong(entry -> entry.capturedAt));
+            Entry latest = list.get(list.size() - 1);
+            entries.put(latest.key, latest);
+            totalBytes.addAndGet(latest.size);
+            for (int i = 0; i < list.size() - 1; i++) {
+                Entry older = list.get(i);
+                retired.add(new Superseded(older.fileName, older.size, list.get(i + 1).capturedAt));
+                totalBytes.addAndGet(older.size);
+            }
+        }
+        retired.sort(Comparator.comparingLong(entry -> entry.supersededAt));
+        synchronized (this) {
+            superseded.addAll(retired);
+        }
+        purgeSuperseded(System.currentTimeMillis());
+        long legacyCutoff = System.currentTimeMillis() - ttlMillis;
+        for (Path file : legacy) {
+            if (file.getFileName().toString().endsWith(".tmp")
+                    || Files.getLastModifiedTime(file).toMillis() < legacyCutoff) {
+                deleteFile(file.getFileName().toString());
+            }
+        }
+        evictIfNeeded(null);
+        logger.info("截圖快取已載入: {} 張截圖，共 {} KB，目錄: {}", entries.size(), totalBytes.get() / 1024, directory);
+    }
+
+    private synchronized void evictIfNeeded(String keepKey) {
+        if (totalBytes.get() <= maxBytes) {
+            return;
+        }
+        // 先釋放被取代圖片的本機檔案；物件儲存中的副本仍保留到期限，必要時可再取回
+        for (Superseded old : superseded) {
+            if (totalBytes.get() <= maxBytes) {
+                return;
+            }
+            if (old.size > 0) {
+                totalBytes.addAndGet(-old.size);
+                old.size = 0;
+                deleteFile(old.fileName);
+                logger.debug("截圖快取超過配額，提前刪除被取代圖片的本機檔案: {}", old.fileName);
+            }
+        }
+        List<Entry> candidates = entries.values().stream()
+                .filter(entry -> !entry.key.equals(keepKey))
+                .sorted(Comparator.comparingLong(entry -> entry.lastAccess))
+                .toList();
+        for (Entry entry : candidates) {
+            if (totalBytes.get() <= maxBytes) {
+                break;
+            }
+            remove(entry);
+            logger.debug("截圖快取超過配額，淘汰: {}", entry.fileName);
+        }
+    }
+
+    private synchronized void retire(String fileName, long size, long supersededAt) {
+        superseded.addLast(new Superseded(fileName, size, supersededAt));
+    }
+
+    // 刪除保留期限已過的舊圖片（本機檔案與物件儲存）
+    private synchronized void purgeSuperseded(long now) {
+        while (!superseded.isEmpty() && superseded.peekFirst().supersededAt + retentionMillis <= now) {
+            Superseded old = superseded.pollFirst();
+            totalBytes.addAndGet(-old.size);
+            deleteFile(old.fileName);
+            deleteObject(old.fileName);
+            logger.debug("刪除已超過保留期限的舊圖片: {}", old.fileName);
+        }
+    }
+
+    private void remove(Entry entry) {
+        if (entries.remove(entry.key, entry)) {
+            totalBytes.addAndGet(-entry.size);
+            deleteFile(entry.fileName);
+        }
+    }
+
+    // 最後使用時間寫回檔案的存取時間，重啟後仍能依使用順序淘汰
+    private void touch(Entry entry) {
+        long now = System.currentTimeMillis();
+        entry.lastAccess = now;
+        try {
+            Files.getFileAttributeView(directory.resolve(entry.fileName), BasicFileAttributeView.class)
+                    .setTimes(null, FileTime.fromMillis(now), null);
+        } catch (IOException e) {
+            logger.debug("無法更新截圖存取時間 {}: {}", entry.fileName, e.getMessage());
+        }
+    }
+
+    // 一併刪除由 ImageVariantUtil 產生的各尺寸圖片
+    private void deleteFile(String fileName) {
+        try {
+            Files.deleteIfExists(directory.resolve(fileName));
+            for (String variant : ImageVariantUtil.variantFileNames(fileName)) {
+                Files.deleteIfExists(directory.resolve(variant));
+            }
+        } catch (IOException e) {
+            logger.warn("無法刪除截圖 {}: {}", fileName, e.getMessage());
+        }
+    }
+
+    // 物件儲存失敗時截圖仍可從本機提供，下次重新截圖時會再保存
+    private void putObject(String fileName, Path file, String extension) {
+        if (objectStorage == null) {
+            return;
+        }
+        try {
+            objectStorage.put(keyPrefix + fileName, file, "image/" + (extension.equals("jpg") ? "jpeg" : extension));
+        } catch (IOException e) {
+            logger.warn("無法將截圖保存到物件儲存 {}: {}", fileName, e.getMessage());
+        }
+    }
+
+    private void deleteObject(String fileName) {
+        if (objectStorage == null) {
+            return;
+        }
+        try {
+            objectStorage.delete(keyPrefix + fileName);
+        } catch (IOException e) {
+            logger.warn("無法從物件儲存刪除截圖 {}: {}", fileName, e.getMessage());
+        }
+    }
+
+    private static class Superseded {
+        private final String fileName;
+        private final long supersededAt;
+        // 仍佔用的本機大小，配額不足提前刪除本機檔案後為 0
+        private long size;
+
+        private Superseded(String fileName, long size, long supersededAt) {
+            this.fileName = fileName;
+            this.size = size;
+            this.supersededAt = supersededAt;
+        }
+    }
+
+    private static class Entry {
+        private final String key;
+        private final String fileName;
+        private final long capturedAt;
+        private final long size;
+        private volatile long lastAccess;
+
+        private Entry(String key, String fileName, long capturedAt, long size) {
+            this.key = key;
+            this.fileName = fileName;
+            this.capturedAt = capturedAt;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.topfoodnow.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 合併同時進行的相同工作（single-flight）：第一個呼叫者執行工作，
+ * 執行期間進來的呼叫者不再重複執行，而是等待並共用同一份結果或例外。
+ * 等待時間以 {prefix}.wait 計時器記錄（role=leader/coalesced），被合併的呼叫數以 {prefix}.coalesced 計數。
+ */
+public class SingleFlight<T> {
+    private final Timer leaderTimer;
+    private final Timer coalescedTimer;
+    private final Counter coalescedCounter;
+
+    private CompletableFuture<T> inFlight; // 以 this 同步
+
+    public SingleFlight(MeterRegistry meterRegistry, String metricPrefix) {
+        this.leaderTimer = Timer.builder(metricPrefix + ".wait").tag("role", "leader").register(meterRegistry);
+        this.coalescedTimer = Timer.builder(metricPrefix + ".wait").tag("role", "coalesced").register(meterRegistry);
+        this.coalescedCounter = Counter.builder(metricPrefix + ".coalesced").register(meterRegistry);
+    }
+
+    /**
+     * 執行工作；若已有相同工作在執行中，則等待其結果
+     * @param task 要執行的工作
+     * @return 工作結果，所有同時等待的呼叫者取得同一個物件
+     * @throws Exception 工作拋出的例外，會傳給所有等待中的呼叫者
+     */
+    public T execute(Callable<T> task) throws Exception {
+        long start = System.nanoTime();
+        CompletableFuture<T> future;
+        boolean leader = false;
+        synchronized (this) {
+            if (inFlight == null) {
+                inFlight = new CompletableFuture<>();
+                leader = true;
+            }
+            future = inFlight;
+        }
+        if (leader) {
+            try {
+                future.complete(task.call());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            } finally {
+                synchronized (this) {
+                    inFlight = null;
+                }
+            }
+        } else {
+            coalescedCounter.increment();
+        }
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception exception) {
+                throw exception;
+            }
+            throw (Error) cause;
+        } finally {
+            (leader ? leaderTimer : coalescedTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public long getCoalescedCount() {
+        return (long) coalescedCounter.count();
+    }
+}
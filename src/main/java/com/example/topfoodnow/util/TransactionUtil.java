@@ -0,0 +1,24 @@
+package com.example.topfoodnow.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class TransactionUtil {
+    /**
+     * 在目前交易成功提交後才執行動作；若不在交易中則立即執行。
+     * 用於同步記憶體內的快取或索引，避免回滾後留下不存在的資料。
+     * @param action 提交後要執行的動作
+     */
+    public static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
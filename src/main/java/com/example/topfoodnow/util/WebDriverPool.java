@@ -0,0 +1,179 @@
+package com.example.topfoodnow.util;
+
+import io.github.bonigarcia.wdm.WebDriverManager;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 有上限的 WebDriver 池，重複使用瀏覽器工作階段，避免每張截圖都啟動一個新的 Chrome。
+ * 借出前做健康檢查，歸還時清除 Cookie 並回到空白頁；使用次數達上限或發生錯誤的工作階段會被關閉並重建。
+ */
+public class WebDriverPool {
+    private static final Logger logger = LoggerFactory.getLogger(WebDriverPool.class);
+
+    private final Supplier<WebDriver> driverFactory;
+    private final int maxUsesPerDriver;
+    private final Semaphore permits;
+    private final BlockingQueue<PooledDriver> idle = new LinkedBlockingQueue<>();
+    private final AtomicInteger createdCount = new AtomicInteger();
+    private volatile boolean closed;
+
+    /**
+     * @param size 同時存在的工作階段上限
+     * @param maxUsesPerDriver 每個工作階段最多使用次數，之後關閉重建，避免瀏覽器記憶體持續增長
+     * @param driverFactory 建立新工作階段
+     */
+    public WebDriverPool(int size, int maxUsesPerDriver, Supplier<WebDriver> driverFactory) {
+        this.permits = new Semaphore(Math.max(1, size), true);
+        this.maxUsesPerDriver = Math.max(1, maxUsesPerDriver);
+        this.driverFactory = driverFactory;
+    }
+
+    /**
+     * 借出一個可用的工作階段，沒有閒置的工作階段且未達上限時建立新的
+     * @param timeout 等待上限
+     * @param unit 時間單位
+     * @return 借出的工作階段，用完必須呼叫 release()
+     * @throws IllegalStateException 池已關閉或等待逾時
+     */
+    public PooledDriver borrow(long timeout, TimeUnit unit) throws InterruptedException {
+        if (closed) {
+            throw new IllegalStateException("WebDriver 池已關閉");
+        }
+        if (!permits.tryAcquire(timeout, unit)) {
+            throw new IllegalStateException("等待 WebDriver 逾時");
+        }
+        try {
+            PooledDriver pooled;
+            while ((pooled = idle.poll()) != null) {
+                if (isHealthy(pooled.driver)) {
+                    return pooled;
+                }
+                logger.warn("WebDriver 工作階段已失效（已使用 {} 次），關閉並重建。", pooled.uses);
+                quit(pooled);
+            }
+            WebDriver driver = driverFactory.get();
+            logger.debug("建立新的 WebDriver 工作階段，累計建立 {} 個。", createdCount.incrementAndGet());
+            return new PooledDriver(driver);
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 歸還工作階段
+     * @param pooled borrow() 取得的工作階段
+     * @param broken 使用過程是否發生錯誤；為 true 時直接關閉，不放回池中
+     */
+    public void release(PooledDriver pooled, boolean broken) {
+        try {
+            pooled.uses++;
+            if (closed || broken || pooled.uses >= maxUsesPerDriver || !reset(pooled.driver)) {
+                quit(pooled);
+            } else {
+                idle.offer(pooled);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * 建立無頭 Chrome 的預設工廠；chromedriver 只在第一次建立工作階段時下載與設定一次
+     * @param pageLoadTimeout 頁面載入逾時，避免單一網站卡住整個工作階段
+     */
+    public static Supplier<WebDriver> chromeDriverFactory(Duration pageLoadTimeout) {
+        AtomicBoolean setupDone = new AtomicBoolean();
+        return () -> {
+            if (!setupDone.get()) {
+                synchronized (setupDone) {
+                    if (!setupDone.get()) {
+                        WebDriverManager.chromedriver().setup();
+                        setupDone.set(true);
+                    }
+                }
+            }
+            ChromeOptions options = new ChromeOptions();
+            options.addArguments("--headless");
+            options.addArguments("--disable-gpu");
+            options.addArguments("--no-sandbox");
+            options.addArguments("--window-size=1280,800");
+            ChromeDriver driver = new ChromeDriver(options);
+            driver.manage().timeouts().pageLoadTimeout(pageLoadTimeout);
+            return driver;
+        };
+    }
+
+    public int getCreatedCount() {
+        return createdCount.get();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * 關閉池與所有閒置的工作階段；借出中的工作階段會在歸還時關閉
+     */
+    public void shutdown() {
+        closed = true;
+        PooledDriver pooled;
+        while ((pooled = idle.poll()) != null) {
+            quit(pooled);
+        }
+    }
+
+    private static boolean isHealthy(WebDriver driver) {
+        try {
+            driver.getWindowHandle();
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    // 清除上一個頁面留下的狀態，避免 Cookie 或彈窗影響下一張截圖
+    private static boolean reset(WebDriver driver) {
+        try {
+            driver.manage().deleteAllCookies();
+            driver.get("about:blank");
+            return true;
+        } catch (Exception e) {
+            logger.warn("重設 WebDriver 工作階段失敗，將關閉重建: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private static void quit(PooledDriver pooled) {
+        try {
+            pooled.driver.quit();
+        } catch (Exception e) {
+            logger.debug("關閉 WebDriver 時發生錯誤: {}", e.getMessage());
+        }
+    }
+
+    public static class PooledDriver {
+        private final WebDriver driver;
+        private int uses;
+
+        private PooledDriver(WebDriver driver) {
+            this.driver = driver;
+        }
+
+        public WebDriver getDriver() {
+            return driver;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.topfoodnow.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DynamicContentCacheFilterTest {
+
+	@TempDir
+	Path baseDir;
+
+	private DynamicContentCacheFilter filter;
+	private final byte[] image = new byte[2048];
+
+	@BeforeEach
+	void setUp() throws Exception {
+		filter = new DynamicContentCacheFilter(baseDir.toString(), "uploads/", "screenshots/", 365, true, 1, 1024,
+				new SimpleMeterRegistry());
+		image[0] = (byte) 0x89;
+		Files.createDirectories(baseDir.resolve("uploads"));
+		Files.write(baseDir.resolve("uploads/abc.png"), image);
+		Files.createDirectories(baseDir.resolve("other"));
+		Files.write(baseDir.resolve("other/abc.png"), image);
+	}
+
+	@Test
+	void servesHotImageFromMemoryWithResourceHandlerHeaders() throws Exception {
+		MockFilterChain first = perform(request("/dynamic-content/uploads/abc.png"), new MockHttpServletResponse());
+		assertThat(first.getRequest()).isNotNull(); // 第一次請求交給資源處理器
+
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		MockFilterChain second = perform(request("/dynamic-content/uploads/abc.png"), response);
+
+		assertThat(second.getRequest()).isNull();
+		assertThat(response.getStatus()).isEqualTo(200);
+		assertThat(response.getContentAsByteArray()).isEqualTo(image);
+		assertThat(response.getContentType()).isEqualTo("image/png");
+		assertThat(response.getHeader(HttpHeaders.CACHE_CONTROL)).isEqualTo("max-age=31536000, public, immutable");
+		assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("\"abc.png-800\"");
+		assertThat(response.getHeader(HttpHeaders.LAST_MODIFIED)).isNotNull();
+		assertThat(filter.getHotImageCache().getResidentBytes()).isEqualTo(image.length);
+	}
+
+	@Test
+	void leavesConditionalRangeAndOtherPathsToResourceHandler() throws Exception {
+		for (int i = 0; i < 2; i++) {
+			perform(request("/dynamic-content/uploads/abc.png"), new MockHttpServletResponse());
+		}
+
+		MockHttpServletRequest conditional = request("/dynamic-content/uploads/abc.png");
+		conditional.addHeader(HttpHeaders.IF_NONE_MATCH, "\"abc.png-800\"");
+		assertThat(perform(conditional, new MockHttpServletResponse()).getRequest()).isNotNull();
+
+		MockHttpServletRequest range = request("/dynamic-content/uploads/abc.png");
+		range.addHeader(HttpHeaders.RANGE, "bytes=0-9");
+		assertThat(perform(range, new MockHttpServletResponse()).getRequest()).isNotNull();
+
+		for (int i = 0; i < 3; i++) {
+			assertThat(perform(request("/dynamic-content/other/abc.png"), new MockHttpServletResponse()).getRequest()).isNotNull();
+			assertThat(perform(request("/dynamic-content/uploads/../other/abc.png"), new MockHttpServletResponse()).getRequest()).isNotNull();
+		}
+	}
+
+	private MockFilterChain perform(MockHttpServletRequest request, MockHttpServletResponse response) throws Exception {
+		MockFilterChain chain = new MockFilterChain();
+		filter.doFilter(request, response, chain);
+		return chain;
+	}
+
+	private static MockHttpServletRequest request(String uri) {
+		return new MockHttpServletRequest("GET", uri);
+	}
+}
@@ -0,0 +1,137 @@
+package com.example.topfoodnow.config;
+
+import com.example.topfoodnow.util.LocalObjectStorage;
+import com.example.topfoodnow.util.ObjectStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.junit.jupiter.web.SpringJUnitWebConfig;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringJUnitWebConfig(WebConfigTest.TestConfig.class)
+class WebConfigTest {
+
+	@TempDir
+	static Path baseDir;
+
+	@TempDir
+	static Path remoteDir;
+
+	@Configuration
+	@EnableWebMvc
+	@Import(WebConfig.class)
+	static class TestConfig {
+
+		@Bean
+		ObjectStorage objectStorage(@Value("${test.remote-dir}") String remoteDir) throws IOException {
+			return new LocalObjectStorage(Paths.get(remoteDir));
+		}
+	}
+
+	@DynamicPropertySource
+	static void properties(DynamicPropertyRegistry registry) {
+		registry.add("file.dynamic-content-base-dir", () -> baseDir.toString());
+		registry.add("file.screenshot-sub-dir", () -> "screenshots/");
+		registry.add("test.remote-dir", () -> remoteDir.toString());
+	}
+
+	@Autowired
+	WebApplicationContext context;
+
+	private MockMvc mockMvc;
+	private final byte[] image = new byte[4096];
+
+	@BeforeEach
+	void setUp() throws Exception {
+		mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+		Files.createDirectories(baseDir.resolve("uploads"));
+		for (int i = 0; i < image.length; i++) {
+			image[i] = (byte) i;
+		}
+		Files.write(baseDir.resolve("uploads/abc123.png"), image);
+	}
+
+	@Test
+	void repeatVisitTransfersNoBytes() throws Exception {
+		MvcResult first = mockMvc.perform(get("/dynamic-content/uploads/abc123.png"))
+				.andExpect(status().isOk())
+				.andReturn();
+		String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+		assertThat(first.getResponse().getContentAsByteArray()).isEqualTo(image);
+		assertThat(first.getResponse().getHeader(HttpHeaders.CACHE_CONTROL))
+				.contains("max-age=31536000", "public", "immutable");
+		assertThat(etag).isEqualTo("\"abc123.png-1000\"");
+
+		MvcResult byEtag = mockMvc.perform(get("/dynamic-content/uploads/abc123.png").header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified())
+				.andReturn();
+		assertThat(byEtag.getResponse().getContentAsByteArray()).isEmpty();
+
+		MvcResult byDate = mockMvc.perform(get("/dynamic-content/uploads/abc123.png")
+						.header(HttpHeaders.IF_MODIFIED_SINCE, first.getResponse().getHeader(HttpHeaders.LAST_MODIFIED)))
+				.andExpect(status().isNotModified())
+				.andReturn();
+		assertThat(byDate.getResponse().getContentAsByteArray()).isEmpty();
+	}
+
+	@Test
+	void servesByteRanges() throws Exception {
+		MvcResult result = mockMvc.perform(get("/dynamic-content/uploads/abc123.png").header(HttpHeaders.RANGE, "bytes=100-199"))
+				.andExpect(status().isPartialContent())
+				.andReturn();
+
+		assertThat(result.getResponse().getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 100-199/4096");
+		assertThat(result.getResponse().getContentAsByteArray()).hasSize(100).startsWith((byte) 100);
+	}
+
+	@Test
+	void fetchesFilesMissingLocallyFromObjectStorage() throws Exception {
+		String remote = "a".repeat(64) + "-1700000000000.jpg";
+		Files.createDirectories(remoteDir.resolve("screenshots"));
+		Files.write(remoteDir.resolve("screenshots/" + remote), image);
+
+		MvcResult result = mockMvc.perform(get("/dynamic-content/screenshots/" + remote))
+				.andExpect(status().isOk())
+				.andReturn();
+
+		assertThat(result.getResponse().getContentAsByteArray()).isEqualTo(image);
+		assertThat(result.getResponse().getHeader(HttpHeaders.ETAG)).isEqualTo("\"" + remote + "-1000\"");
+		assertThat(baseDir.resolve("screenshots/" + remote)).hasBinaryContent(image);
+	}
+
+	@Test
+	void onlyFetchesContentAddressedKeysAndRemembersMisses() throws Exception {
+		Files.createDirectories(remoteDir.resolve("uploads"));
+		Files.write(remoteDir.resolve("uploads/remote.jpg"), image);
+		// 不符合命名規則的路徑不查詢物件儲存
+		mockMvc.perform(get("/dynamic-content/uploads/remote.jpg")).andExpect(status().isNotFound());
+		assertThat(baseDir.resolve("uploads/remote.jpg")).doesNotExist();
+
+		String late = "b".repeat(64) + ".png";
+		mockMvc.perform(get("/dynamic-content/uploads/" + late)).andExpect(status().isNotFound());
+		Files.write(remoteDir.resolve("uploads/" + late), image);
+		// 剛查過不存在的鍵在期限內不再查詢
+		mockMvc.perform(get("/dynamic-content/uploads/" + late)).andExpect(status().isNotFound());
+	}
+}
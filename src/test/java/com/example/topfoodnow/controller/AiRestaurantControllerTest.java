@@ -0,0 +1,97 @@
+package com.example.topfoodnow.controller;
+
+import com.example.topfoodnow.model.AiRestaurantModel;
+import com.example.topfoodnow.service.AiRecommendCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AiRestaurantControllerTest {
+
+	private final AiRecommendCache cache = mock(AiRecommendCache.class);
+	private final CountDownLatch release = new CountDownLatch(1);
+	private AiRestaurantController controller;
+
+	@BeforeEach
+	void setUp() {
+		controller = new AiRestaurantController(cache, 60_000, 1, 1);
+	}
+
+	@AfterEach
+	void tearDown() {
+		release.countDown();
+		controller.shutdown();
+	}
+
+	@Test
+	void cachedResultIsReturnedWithoutExecutor() throws Exception {
+		List<AiRestaurantModel> restaurants = List.of(restaurant("鼎泰豐"));
+		when(cache.getCachedRecommendations()).thenReturn(Optional.of(restaurants));
+
+		CompletableFuture<List<AiRestaurantModel>> result = controller.getAIRecommend();
+
+		assertThat(result).isCompletedWithValue(restaurants);
+		verify(cache, never()).getRecommendations();
+	}
+
+	@Test
+	void rejectsWith503WhenDedicatedExecutorIsSaturated() throws Exception {
+		List<AiRestaurantModel> fallback = List.of(restaurant("備用餐廳"));
+		when(cache.getCachedRecommendations()).thenReturn(Optional.empty());
+		when(cache.getRecommendations()).thenAnswer(invocation -> {
+			release.await();
+			return fallback;
+		});
+
+		CompletableFuture<List<AiRestaurantModel>> running = controller.getAIRecommend();
+		CompletableFuture<List<AiRestaurantModel>> queued = controller.getAIRecommend();
+
+		assertThatThrownBy(controller::getAIRecommend).isInstanceOfSatisfying(ResponseStatusException.class,
+				e -> assertThat(e.getStatusCode().value()).isEqualTo(503));
+		release.countDown();
+		assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo(fallback);
+		assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo(fallback);
+	}
+
+	@Test
+	void streamUsesRequestThreadWhenCachedAndRejectsWhenSaturated() throws Exception {
+		when(cache.getCachedRecommendations()).thenReturn(Optional.of(List.of(restaurant("鼎泰豐"))));
+		controller.streamAIRecommend();
+		verify(cache, never()).streamRecommendations(any());
+
+		when(cache.getCachedRecommendations()).thenReturn(Optional.empty());
+		CountDownLatch started = new CountDownLatch(1);
+		when(cache.streamRecommendations(any())).thenAnswer(invocation -> {
+			started.countDown();
+			release.await();
+			return List.of();
+		});
+		controller.streamAIRecommend();
+		controller.streamAIRecommend();
+
+		assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThatThrownBy(controller::streamAIRecommend).isInstanceOfSatisfying(ResponseStatusException.class,
+				e -> assertThat(e.getStatusCode().value()).isEqualTo(503));
+	}
+
+	static AiRestaurantModel restaurant(String name) {
+		AiRestaurantModel restaurant = new AiRestaurantModel();
+		restaurant.setName(name);
+		return restaurant;
+	}
+}
@@ -0,0 +1,39 @@
+package com.example.topfoodnow.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.stereotype.Controller;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.flash;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+
+class UploadExceptionHandlerTest {
+
+	@Controller
+	static class OversizedUploadController {
+
+		@PostMapping({"/personal-recommend/add", "/personal-recommend/edit/{storeId}", "/other"})
+		String upload() {
+			throw new MaxUploadSizeExceededException(12 * 1024 * 1024);
+		}
+	}
+
+	private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new OversizedUploadController())
+			.setControllerAdvice(new UploadExceptionHandler(10))
+			.build();
+
+	@Test
+	void redirectsBackToFormWithSizeError() throws Exception {
+		mockMvc.perform(post("/personal-recommend/add"))
+				.andExpect(redirectedUrl("/personal-recommend/add"))
+				.andExpect(flash().attribute("errorMessage", "圖片大小不可超過 10 MB！"));
+		mockMvc.perform(post("/personal-recommend/edit/42"))
+				.andExpect(redirectedUrl("/personal-recommend/edit/42"));
+		mockMvc.perform(post("/other"))
+				.andExpect(redirectedUrl("/personal-recommend"));
+	}
+}
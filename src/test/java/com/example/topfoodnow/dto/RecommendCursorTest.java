@@ -0,0 +1,37 @@
+package com.example.topfoodnow.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RecommendCursorTest {
+
+	@Test
+	void roundTripsThroughUrlSafeToken() {
+		RecommendCursor cursor = new RecommendCursor(LocalDateTime.of(2026, 3, 1, 12, 30, 15, 123_456_000), 42, 7);
+
+		String token = cursor.encode();
+
+		assertThat(token).matches("[A-Za-z0-9_-]+");
+		assertThat(RecommendCursor.decode(token)).isEqualTo(cursor);
+	}
+
+	@Test
+	void rejectsMalformedOrTamperedTokens() {
+		assertThatThrownBy(() -> RecommendCursor.decode("not base64!")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> RecommendCursor.decode(token("2026-03-01T12:30|42"))).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> RecommendCursor.decode(token("2026-03-01T12:30|42|7|9"))).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> RecommendCursor.decode(token("yesterday|42|7"))).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> RecommendCursor.decode(token("2026-03-01T12:30|42|x"))).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> RecommendCursor.decode(token("null|null|null"))).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static String token(String raw) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,39 @@
+package com.example.topfoodnow.dto;
+
+import com.example.topfoodnow.model.UserModel;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SessionUserTest {
+
+	@Test
+	void keepsOnlyIdNameAndFamousFlag() {
+		UserModel user = new UserModel("a@example.com", "hash", "小明", true);
+		user.setId(7);
+		user.setIsFamous(null);
+
+		SessionUser sessionUser = SessionUser.from(user);
+
+		assertThat(sessionUser).isEqualTo(new SessionUser(7, "小明", false));
+		assertThat(sessionUser.toString()).doesNotContain("hash").doesNotContain("a@example.com");
+	}
+
+	@Test
+	void survivesSessionSerialization() throws Exception {
+		SessionUser sessionUser = new SessionUser(3, "網紅", true);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(sessionUser);
+		}
+
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			assertThat(in.readObject()).isEqualTo(sessionUser);
+		}
+	}
+}
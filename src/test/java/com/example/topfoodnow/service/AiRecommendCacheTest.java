@@ -0,0 +1,190 @@
+package com.example.topfoodnow.service;
+
+import com.example.topfoodnow.dto.RecommendDTO;
+import com.example.topfoodnow.model.AiRestaurantModel;
+import com.example.topfoodnow.util.BatchScreenshotUtil;
+import com.example.topfoodnow.util.GeminiClient;
+import com.example.topfoodnow.util.JsonUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AiRecommendCacheTest {
+
+	@TempDir
+	Path tempDir;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	void freshResultIsServedFromMemoryAndSurvivesRestart() throws Exception {
+		AiRecommendService service = mock(AiRecommendService.class);
+		when(service.runPipeline(any())).thenReturn(Optional.of(List.of(restaurant("鼎泰豐"))));
+
+		AiRecommendCache cache = newCache(service, 60);
+		assertThat(cache.getRecommendations()).extracting(AiRestaurantModel::getName).containsExactly("鼎泰豐");
+		assertThat(cache.getRecommendations()).extracting(AiRestaurantModel::getName).containsExactly("鼎泰豐");
+		verify(service, times(1)).runPipeline(any());
+		cache.cleanup();
+
+		AiRecommendService afterRestart = mock(AiRecommendService.class);
+		AiRecommendCache restarted = newCache(afterRestart, 60);
+		assertThat(restarted.getRecommendations()).extracting(AiRestaurantModel::getName).containsExactly("鼎泰豐");
+		verify(afterRestart, never()).runPipeline(any());
+		restarted.cleanup();
+	}
+
+	@Test
+	void expiredResultIsServedWhileRefreshingInBackground() throws Exception {
+		AiRecommendService service = mock(AiRecommendService.class);
+		when(service.runPipeline(any()))
+				.thenReturn(Optional.of(List.of(restaurant("舊餐廳"))))
+				.thenReturn(Optional.of(List.of(restaurant("新餐廳"))));
+
+		AiRecommendCache cache = newCache(service, 0);
+		cache.getRecommendations();
+		Thread.sleep(5);
+		assertThat(cache.getRecommendations()).extracting(AiRestaurantModel::getName).containsExactly("舊餐廳");
+		verify(service, timeout(2000).times(2)).runPipeline(any());
+		cache.cleanup();
+	}
+
+	@Test
+	void fallbackIsNotCached() throws Exception {
+		AiRecommendService service = mock(AiRecommendService.class);
+		when(service.runPipeline(any())).thenReturn(Optional.empty());
+		when(service.getFallbackFromDatabase()).thenReturn(List.of(restaurant("資料庫餐廳")));
+
+		AiRecommendCache cache = newCache(service, 60);
+		cache.getRecommendations();
+		cache.getRecommendations();
+		verify(service, times(2)).runPipeline(any());
+		cache.cleanup();
+	}
+
+	@Test
+	void streamingReportsListBeforePhotosInCompletionOrder() throws Exception {
+		AiRestaurantModel first = restaurant("鼎泰豐");
+		AiRestaurantModel second = restaurant("阿宗麵線");
+		AiRecommendService service = mock(AiRecommendService.class);
+		when(service.runPipeline(any())).thenAnswer(invocation -> {
+			AiRecommendService.PipelineListener listener = invocation.getArgument(0);
+			listener.onRestaurants(List.of(first, second));
+			listener.onPhoto(second, 1);
+			listener.onPhoto(first, 0);
+			return Optional.of(List.of(first, second));
+		});
+
+		List<String> events = new ArrayList<>();
+		AiRecommendCache cache = newCache(service, 60);
+		cache.streamRecommendations(new AiRecommendService.PipelineListener() {
+			@Override
+			public void onRestaurants(List<AiRestaurantModel> restaurants) {
+				events.add("restaurants:" + restaurants.size());
+			}
+
+			@Override
+			public void onPhoto(AiRestaurantModel restaurant, int index) {
+				events.add("photo:" + index);
+			}
+		});
+		assertThat(events).containsExactly("restaurants:2", "photo:1", "photo:0");
+
+		events.clear();
+		cache.streamRecommendations(new AiRecommendService.PipelineListener() {
+			@Override
+			public void onRestaurants(List<AiRestaurantModel> restaurants) {
+				events.add("cached:" + restaurants.size());
+			}
+		});
+		assertThat(events).containsExactly("cached:2");
+		cache.cleanup();
+	}
+
+	@Test
+	void withWarmupMissServesFallbackAndBuildsInBackground() throws Exception {
+		AiRecommendService service = mock(AiRecommendService.class);
+		when(service.runPipeline(any())).thenReturn(Optional.of(List.of(restaurant("鼎泰豐"))));
+		when(service.getFallbackFromDatabase()).thenReturn(List.of(restaurant("資料庫餐廳")));
+
+		AiRecommendCache cache = newCache(service, 60, true);
+		assertThat(cache.getCachedRecommendations()).isEmpty();
+		assertThat(cache.getRecommendations()).extracting(AiRestaurantModel::getName).containsExactly("資料庫餐廳");
+		verify(service, timeout(2000).times(1)).runPipeline(any());
+		for (int i = 0; i < 100 && cache.getCachedRecommendations().isEmpty(); i++) {
+			Thread.sleep(20);
+		}
+		assertThat(cache.getCachedRecommendations()).hasValueSatisfying(list ->
+				assertThat(list).extracting(AiRestaurantModel::getName).containsExactly("鼎泰豐"));
+		assertThat(cache.getAgeMillis()).isLessThan(60_000);
+		cache.cleanup();
+	}
+
+	@Test
+	void withWarmupColdStreamNeverCallsGeminiOnRequestThread() throws Exception {
+		Thread requestThread = Thread.currentThread();
+		List<Thread> geminiThreads = new CopyOnWriteArrayList<>();
+		CountDownLatch release = new CountDownLatch(1);
+		GeminiClient geminiClient = mock(GeminiClient.class);
+		when(geminiClient.generateContent(anyString())).thenAnswer(invocation -> {
+			geminiThreads.add(Thread.currentThread());
+			release.await(5, TimeUnit.SECONDS);
+			throw new GeminiClient.CircuitOpenException();
+		});
+		RecommendService recommendService = mock(RecommendService.class);
+		RecommendDTO row = new RecommendDTO();
+		row.setStoreName("資料庫餐廳");
+		when(recommendService.findRandom6Recommends()).thenReturn(List.of(row));
+		AiRecommendService service = new AiRecommendService(mock(JsonUtil.class), mock(BatchScreenshotUtil.class),
+				recommendService, geminiClient);
+
+		List<String> events = new ArrayList<>();
+		AiRecommendCache cache = newCache(service, 60, true);
+		List<AiRestaurantModel> result = cache.streamRecommendations(new AiRecommendService.PipelineListener() {
+			@Override
+			public void onRestaurants(List<AiRestaurantModel> restaurants) {
+				restaurants.forEach(r -> events.add(r.getName()));
+			}
+		});
+
+		assertThat(result).extracting(AiRestaurantModel::getName).containsExactly("資料庫餐廳");
+		assertThat(events).containsExactly("資料庫餐廳");
+		release.countDown();
+		verify(geminiClient, timeout(2000).times(1)).generateContent(anyString());
+		assertThat(geminiThreads).doesNotContain(requestThread);
+		cache.cleanup();
+	}
+
+	private AiRecommendCache newCache(AiRecommendService service, long ttlMinutes) {
+		return newCache(service, ttlMinutes, false);
+	}
+
+	private AiRecommendCache newCache(AiRecommendService service, long ttlMinutes, boolean warmupEnabled) {
+		return new AiRecommendCache(service, objectMapper, new SimpleMeterRegistry(), ttlMinutes,
+				tempDir.resolve("ai-cache.json").toString(), tempDir.resolve("dynamic").toString(), warmupEnabled);
+	}
+
+	private static AiRestaurantModel restaurant(String name) {
+		return new AiRestaurantModel(name, "台北市", "https://example.com/photo.png", "https://example.com/");
+	}
+
+}
@@ -0,0 +1,68 @@
+package com.example.topfoodnow.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AiRecommendWarmerTest {
+
+	private static final long INTERVAL = TimeUnit.MINUTES.toMillis(300);
+	private static final long RETRY = TimeUnit.MINUTES.toMillis(5);
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final AiRecommendCache cache = mock(AiRecommendCache.class);
+	private final AiRecommendWarmer warmer = new AiRecommendWarmer(cache, registry, true, 300, 0, 0, 60, 5);
+
+	@Test
+	void refreshesStaleResultAndWaitsAFullInterval() throws Exception {
+		when(cache.getLastReadAt()).thenReturn(System.currentTimeMillis());
+		when(cache.getAgeMillis()).thenReturn(Long.MAX_VALUE);
+		when(cache.refresh()).thenReturn(true);
+
+		assertThat(warmer.runOnce()).isEqualTo(INTERVAL);
+		verify(cache).refresh();
+		assertThat(runs("success")).isEqualTo(1);
+	}
+
+	@Test
+	void waitsUntilResultBecomesStale() throws Exception {
+		when(cache.getLastReadAt()).thenReturn(System.currentTimeMillis());
+		when(cache.getAgeMillis()).thenReturn(TimeUnit.MINUTES.toMillis(200));
+
+		assertThat(warmer.runOnce()).isEqualTo(TimeUnit.MINUTES.toMillis(100));
+		verify(cache, never()).refresh();
+	}
+
+	@Test
+	void keepsLastResultAndRetriesSoonerOnFailure() throws Exception {
+		when(cache.getLastReadAt()).thenReturn(System.currentTimeMillis());
+		when(cache.getAgeMillis()).thenReturn(Long.MAX_VALUE);
+		when(cache.refresh()).thenReturn(false).thenThrow(new IOException("Gemini 逾時"));
+
+		assertThat(warmer.runOnce()).isEqualTo(RETRY);
+		assertThat(warmer.runOnce()).isEqualTo(RETRY);
+		assertThat(runs("failure")).isEqualTo(2);
+	}
+
+	@Test
+	void pausesWhileIdle() throws Exception {
+		when(cache.getLastReadAt()).thenReturn(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(61));
+		when(cache.getAgeMillis()).thenReturn(Long.MAX_VALUE);
+
+		assertThat(warmer.runOnce()).isEqualTo(INTERVAL);
+		verify(cache, never()).refresh();
+		assertThat(runs("idle")).isEqualTo(1);
+	}
+
+	private double runs(String outcome) {
+		return registry.get("ai.warmup.runs").tag("outcome", outcome).counter().count();
+	}
+}
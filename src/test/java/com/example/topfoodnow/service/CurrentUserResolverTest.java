@@ -0,0 +1,87 @@
+package com.example.topfoodnow.service;
+
+import com.example.topfoodnow.dto.SessionUser;
+import com.example.topfoodnow.model.UserModel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpSession;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CurrentUserResolverTest {
+
+	private MockHttpServletRequest request;
+	private UserService userService;
+	private CurrentUserResolver resolver;
+
+	@BeforeEach
+	void setUp() {
+		request = new MockHttpServletRequest();
+		userService = mock(UserService.class);
+		resolver = new CurrentUserResolver(request, userService);
+	}
+
+	@Test
+	void withoutSessionNothingIsLoaded() {
+		assertThat(resolver.getSessionUser()).isEmpty();
+		assertThat(resolver.getUser()).isEmpty();
+
+		assertThat(request.getSession(false)).isNull();
+		verify(userService, never()).findById(anyInt());
+	}
+
+	@Test
+	void loginStoresSessionUserAndUserIsLoadedOncePerRequest() {
+		UserModel user = user();
+		MockHttpSession session = new MockHttpSession();
+		CurrentUserResolver.login(session, user);
+		request.setSession(session);
+		when(userService.findById(5)).thenReturn(Optional.of(user));
+
+		assertThat(resolver.getSessionUser()).contains(new SessionUser(5, "小明", true));
+		assertThat(resolver.getUser()).containsSame(user);
+		assertThat(resolver.getUser()).containsSame(user);
+
+		verify(userService, times(1)).findById(5);
+	}
+
+	@Test
+	void deletedUserClearsLogin() {
+		MockHttpSession session = new MockHttpSession();
+		CurrentUserResolver.login(session, user());
+		request.setSession(session);
+		when(userService.findById(5)).thenReturn(Optional.empty());
+
+		assertThat(resolver.getUser()).isEmpty();
+
+		assertThat(session.getAttribute(CurrentUserResolver.SESSION_ATTRIBUTE)).isNull();
+		assertThat(resolver.getSessionUser()).isEmpty();
+	}
+
+	@Test
+	void ignoresUnexpectedSessionAttribute() {
+		MockHttpSession session = new MockHttpSession();
+		session.setAttribute(CurrentUserResolver.SESSION_ATTRIBUTE, user());
+		request.setSession(session);
+
+		assertThat(resolver.getSessionUser()).isEmpty();
+		assertThat(resolver.getUser()).isEmpty();
+		verify(userService, never()).findById(anyInt());
+	}
+
+	private static UserModel user() {
+		UserModel user = new UserModel("a@example.com", "hash", "小明", true);
+		user.setId(5);
+		user.setIsFamous(true);
+		return user;
+	}
+}
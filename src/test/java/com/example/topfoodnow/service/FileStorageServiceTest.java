@@ -0,0 +1,115 @@
+package com.example.topfoodnow.service;
+
+import com.example.topfoodnow.util.LocalObjectStorage;
+import com.example.topfoodnow.util.ObjectStorage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FileStorageServiceTest {
+
+	@TempDir
+	Path baseDir;
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	@Test
+	void identicalContentIsStoredOnceUnderContentAddress() throws Exception {
+		FileStorageService service = new FileStorageService(baseDir.toString(), "uploads/", 1, null,
+				new LocalObjectStorage(baseDir), registry);
+		byte[] png = png(2048);
+
+		String first = service.uploadFile(new MockMultipartFile("storePhoto", "店家.png", "image/png", png));
+		String second = service.uploadFile(new MockMultipartFile("storePhoto", "edit.jpeg", "image/jpeg", png));
+
+		assertThat(first).matches("/dynamic-content/uploads/[0-9a-f]{64}\\.png").isEqualTo(second);
+		try (var files = Files.list(baseDir.resolve("uploads"))) {
+			assertThat(files).hasSize(1);
+		}
+		assertThat(service.getDiskBytes()).isEqualTo(png.length);
+		assertThat(registry.get("file.upload").tag("result", "stored").timer().count()).isEqualTo(1);
+		assertThat(registry.get("file.upload").tag("result", "duplicate").timer().count()).isEqualTo(1);
+		assertThat(registry.get("file.upload.disk.bytes").gauge().value()).isEqualTo(png.length);
+	}
+
+	@Test
+	void rejectsOversizedAndNonImageUploadsWithoutLeavingFiles() throws Exception {
+		FileStorageService service = new FileStorageService(baseDir.toString(), "uploads/", 1, null,
+				new LocalObjectStorage(baseDir), registry);
+
+		assertThatThrownBy(() -> service.uploadFile(new MockMultipartFile("storePhoto", "big.png", "image/png", png(2 * 1024 * 1024))))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> service.uploadFile(new MockMultipartFile("storePhoto", "fake.png", "image/png",
+				"<script>alert(1)</script>".getBytes())))
+				.isInstanceOf(IllegalArgumentException.class);
+
+		try (var files = Files.list(baseDir.resolve("uploads"))) {
+			assertThat(files).isEmpty();
+		}
+		assertThat(registry.get("file.upload").tag("result", "rejected").timer().count()).isEqualTo(2);
+	}
+
+	@Test
+	void savesEachContentOnceToObjectStorage(@TempDir Path remoteDir) throws Exception {
+		LocalObjectStorage remote = new LocalObjectStorage(remoteDir);
+		FileStorageService service = new FileStorageService(baseDir.toString(), "uploads/", 1, null, remote, registry);
+		byte[] png = png(2048);
+
+		String url = service.uploadFile(new MockMultipartFile("storePhoto", "a.png", "image/png", png));
+		String key = url.substring("/dynamic-content/".length());
+		long savedAt = remote.stat(key).orElseThrow().getLastModified();
+		service.uploadFile(new MockMultipartFile("storePhoto", "b.png", "image/png", png));
+
+		assertThat(Files.readAllBytes(remoteDir.resolve(key))).isEqualTo(png);
+		assertThat(remote.stat(key)).get().satisfies(info -> {
+			assertThat(info.getSize()).isEqualTo(png.length);
+			assertThat(info.getLastModified()).isEqualTo(savedAt);
+		});
+	}
+
+	@Test
+	void failedObjectStorageSaveLeavesNoLocalFile() throws Exception {
+		ObjectStorage remote = mock(ObjectStorage.class);
+		when(remote.stat(anyString())).thenReturn(Optional.empty());
+		doThrow(new IOException("connection refused")).when(remote).put(anyString(), any(), anyString());
+		FileStorageService service = new FileStorageService(baseDir.toString(), "uploads/", 1, null, remote, registry);
+
+		assertThatThrownBy(() -> service.uploadFile(new MockMultipartFile("storePhoto", "a.png", "image/png", png(2048))))
+				.isInstanceOf(IOException.class);
+
+		try (var files = Files.list(baseDir.resolve("uploads"))) {
+			assertThat(files).isEmpty();
+		}
+		assertThat(service.getDiskBytes()).isZero();
+	}
+
+	@Test
+	void detectsImageFormatFromContent() {
+		assertThat(FileStorageService.imageExtension(new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, 0}, 4)).isEqualTo("jpg");
+		assertThat(FileStorageService.imageExtension("GIF89a".getBytes(), 6)).isEqualTo("gif");
+		assertThat(FileStorageService.imageExtension("RIFF\0\0\0\0WEBP".getBytes(), 12)).isEqualTo("webp");
+		assertThat(FileStorageService.imageExtension("RIFF\0\0\0\0WAVE".getBytes(), 12)).isNull();
+	}
+
+	private static byte[] png(int size) {
+		byte[] bytes = new byte[size];
+		Arrays.fill(bytes, (byte) 7);
+		System.arraycopy(new byte[]{(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A}, 0, bytes, 0, 8);
+		return bytes;
+	}
+}
@@ -0,0 +1,88 @@
+package com.example.topfoodnow.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+/**
+ * 以 H2 記憶體資料庫比較兩種做法的共用工具：以 SQL 一次產生大量資料，並量測每次操作的平均耗時與配置量。
+ * H2 與 MySQL 的執行計畫不同，數字只用來比較同一份資料上的兩種做法，不代表正式環境的絕對值。
+ * 使用本工具的測試預設不執行：mvn test -Dtest=類別名稱 -Dh2.benchmark=true
+ */
+final class H2Benchmark {
+
+	static final String ENABLED_PROPERTY = "h2.benchmark";
+
+	private static final com.sun.management.ThreadMXBean THREADS =
+			(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+	private H2Benchmark() {
+	}
+
+	// 用戶 1..count，每 10 位有 1 位網紅
+	static void insertUsers(JdbcTemplate jdbc, int count) {
+		jdbc.update("INSERT INTO `user` (id, email, password, user_name, is_famous, enabled) "
+				+ "SELECT X, CONCAT('user', X, '@example.com'), 'hash', CONCAT('美食家', X), MOD(X, 10) = 0, TRUE "
+				+ "FROM SYSTEM_RANGE(1, ?)", count);
+	}
+
+	// 店家 1..count，店名與地址含中文，供二元分詞與 LIKE 比對
+	static void insertStores(JdbcTemplate jdbc, int count) {
+		jdbc.update("INSERT INTO store (id, name, address, photo_url, created_at) "
+				+ "SELECT X, CONCAT(CASEWHEN(MOD(X, 7) = 0, '牛肉麵', CASEWHEN(MOD(X, 7) = 1, '小籠包', '咖啡')), '店', X), "
+				+ "CONCAT('台北市', CASEWHEN(MOD(X, 3) = 0, '信義區', '大安區'), '忠孝東路', MOD(X, 500), '號'), "
+				+ "'/images/default-image.jpg', DATEADD('SECOND', X, TIMESTAMP '2024-01-01 00:00:00') "
+				+ "FROM SYSTEM_RANGE(1, ?)", count);
+	}
+
+	// 每位用戶推薦 perUser 家相鄰的店家（perUser 不可超過 stores），主鍵不重複
+	static void insertRecommends(JdbcTemplate jdbc, int users, int stores, int perUser) {
+		jdbc.update("INSERT INTO recommend_user (user_id, store_id, reason, score, created_at) "
+				+ "SELECT MOD(X, ?) + 1, MOD(MOD(X, ?) + X / ?, ?) + 1, CONCAT('推薦理由', X), MOD(X, 5) + 1, "
+				+ "DATEADD('SECOND', X, TIMESTAMP '2024-01-01 00:00:00') FROM SYSTEM_RANGE(0, ?)",
+				users, users, users, stores, (long) users * perUser - 1);
+	}
+
+	/**
+	 * 先預熱，再在時間預算內重複執行，統計平均耗時與每次操作在本執行緒配置的位元組數
+	 * @param budget 量測的時間預算（不含預熱）
+	 * @param operation 要量測的操作
+	 */
+	static Result measure(Duration budget, Callable<?> operation) throws Exception {
+		long warmupEnd = System.nanoTime() + budget.toNanos() / 2;
+		for (int i = 0; i < 5 || (i < 1000 && System.nanoTime() < warmupEnd); i++) {
+			operation.call();
+		}
+		long threadId = Thread.currentThread().getId();
+		long allocatedBefore = THREADS.getThreadAllocatedBytes(threadId);
+		long start = System.nanoTime();
+		long end = start + budget.toNanos();
+		int iterations = 0;
+		do {
+			operation.call();
+			iterations++;
+		} while (System.nanoTime() < end && iterations < 100_000);
+		long elapsed = System.nanoTime() - start;
+		long allocated = THREADS.getThreadAllocatedBytes(threadId) - allocatedBefore;
+		return new Result(iterations, elapsed / 1000.0 / iterations, allocated / iterations);
+	}
+
+	static final class Result {
+		final int iterations;
+		final double averageMicros;
+		final long bytesPerOperation;
+
+		Result(int iterations, double averageMicros, long bytesPerOperation) {
+			this.iterations = iterations;
+			this.averageMicros = averageMicros;
+			this.bytesPerOperation = bytesPerOperation;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%,.1f µs/次，%,d bytes/次（%d 次）", averageMicros, bytesPerOperation, iterations);
+		}
+	}
+}
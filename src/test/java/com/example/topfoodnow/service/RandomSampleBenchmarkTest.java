@@ -0,0 +1,77 @@
+package com.example.topfoodnow.service;
+
+import com.example.topfoodnow.config.CacheConfig;
+import com.example.topfoodnow.model.StoreModel;
+import com.example.topfoodnow.repository.StoreRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 比較首頁隨機店家的兩種取法：原本的 ORDER BY RAND() LIMIT 6（每次排序整張表）
+ * 與 RandomIdPool 抽樣後以主鍵查詢（池子載入一次，之後每次只查 6 筆）。
+ * 預設不執行：mvn test -Dtest=RandomSampleBenchmarkTest -Dh2.benchmark=true
+ */
+@EnabledIfSystemProperty(named = H2Benchmark.ENABLED_PROPERTY, matches = "true")
+@DataJpaTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:random-benchmark;MODE=MySQL;NON_KEYWORDS=USER",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(CacheConfig.class)
+class RandomSampleBenchmarkTest {
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private StoreRepository storeRepository;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@ParameterizedTest
+	@ValueSource(ints = {10_000, 100_000, 1_000_000})
+	void idPoolBeatsOrderByRand(int rows) throws Exception {
+		H2Benchmark.insertStores(jdbcTemplate, rows);
+		// 每種資料量各自建立，抽樣池從這份資料載入
+		StoreService storeService = new StoreService(storeRepository, jdbcTemplate, cacheManager);
+
+		H2Benchmark.Result orderByRand = H2Benchmark.measure(Duration.ofSeconds(3), () -> {
+			List<?> stores = entityManager.createNativeQuery("SELECT * FROM store ORDER BY RAND() LIMIT 6", StoreModel.class)
+					.getResultList();
+			entityManager.clear();
+			return stores;
+		});
+		long loadStart = System.nanoTime();
+		assertThat(storeService.findRandom6Stores()).hasSize(6);
+		long loadMillis = (System.nanoTime() - loadStart) / 1_000_000;
+		H2Benchmark.Result idPool = H2Benchmark.measure(Duration.ofSeconds(3), () -> {
+			List<StoreModel> stores = storeService.findRandom6Stores();
+			entityManager.clear();
+			return stores;
+		});
+
+		System.out.printf("%,d 家店：ORDER BY RAND() %s；抽樣池 %s（首次載入 %d ms）%n", rows, orderByRand, idPool, loadMillis);
+		assertThat(idPool.averageMicros).isLessThan(orderByRand.averageMicros);
+	}
+}
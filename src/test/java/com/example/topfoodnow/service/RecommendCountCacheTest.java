@@ -0,0 +1,93 @@
+package com.example.topfoodnow.service;
+
+import com.example.topfoodnow.event.RecommendChangedEvent;
+import com.example.topfoodnow.repository.RecommendRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RecommendCountCacheTest {
+
+	private final RecommendRepository repository = mock(RecommendRepository.class);
+	private RecommendCountCache cache;
+
+	@AfterEach
+	void tearDown() {
+		cache.cleanup();
+	}
+
+	@Test
+	void adjustsUnfilteredTotalsAndMarksSearchTotalsStale() {
+		cache = new RecommendCountCache(repository, 300, 100, 0);
+		when(repository.countFilteredRecommends(isNull(), isNull())).thenReturn(10L);
+		when(repository.countFilteredRecommends(true, null)).thenReturn(4L);
+		when(repository.countFilteredRecommends(false, null)).thenReturn(6L);
+		when(repository.countFilteredRecommends(isNull(), any(String.class))).thenReturn(2L);
+		cache.getTotal(null, null);
+		cache.getTotal(true, null);
+		cache.getTotal(false, null);
+		cache.getTotal(null, "鼎泰豐");
+
+		cache.onRecommendChanged(new RecommendChangedEvent(RecommendChangedEvent.Type.ADDED, 1, 2, true));
+
+		assertThat(cache.getTotal(null, null)).isEqualTo(11);
+		assertThat(cache.getTotal(true, null)).isEqualTo(5);
+		assertThat(cache.getTotal(false, null)).isEqualTo(6);
+		cache.getTotal(null, "鼎泰豐");
+		verify(repository, timeout(2000).times(2)).countFilteredRecommends(null, "鼎泰豐");
+	}
+
+	@Test
+	void usesTheSameSearchTermForFirstCountAndRefreshes() throws Exception {
+		cache = new RecommendCountCache(repository, 0, 100, 0);
+		when(repository.countFilteredRecommends(isNull(), any(String.class))).thenReturn(3L);
+
+		cache.getTotal(null, "ABC");
+		Thread.sleep(5);
+		cache.getTotal(null, "abc");
+
+		verify(repository, timeout(2000).times(2)).countFilteredRecommends(null, "abc");
+		verify(repository, times(0)).countFilteredRecommends(null, "ABC");
+	}
+
+	@Test
+	void doesNotDoubleCountChangesThatRaceWithRefresh() throws Exception {
+		cache = new RecommendCountCache(repository, 0, 100, 1000);
+		CountDownLatch refreshStarted = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicLong calls = new AtomicLong();
+		when(repository.countFilteredRecommends(isNull(), isNull())).thenAnswer(invocation -> {
+			if (calls.incrementAndGet() == 2) {
+				refreshStarted.countDown();
+				release.await(5, TimeUnit.SECONDS);
+			}
+			return calls.get() == 1 ? 10L : 11L; // 重新計算已包含新增的那一筆
+		});
+		assertThat(cache.getTotal(null, null)).isEqualTo(10);
+		Thread.sleep(5);
+		cache.getTotal(null, null); // 存活時間為 0，觸發背景重新計算
+		assertThat(refreshStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+		cache.onRecommendChanged(new RecommendChangedEvent(RecommendChangedEvent.Type.ADDED, 1, 2, false));
+		release.countDown();
+		verify(repository, timeout(2000).times(2)).countFilteredRecommends(null, null);
+		Thread.sleep(50);
+		// 重新計算剛完成時才送達的異動也不加減
+		cache.onRecommendChanged(new RecommendChangedEvent(RecommendChangedEvent.Type.ADDED, 1, 3, false));
+
+		assertThat(cache.getTotal(null, null)).isEqualTo(11);
+		verify(repository, timeout(2000).times(3)).countFilteredRecommends(null, null);
+	}
+}
@@ -0,0 +1,91 @@
+package com.example.topfoodnow.service;
+
+import com.example.topfoodnow.config.CacheConfig;
+import com.example.topfoodnow.dto.RecommendImportResult;
+import com.example.topfoodnow.model.UserModel;
+import com.example.topfoodnow.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 量測推薦匯入的吞吐量：20,000 行 CSV，一半是已存在的店家、一半需要新增，批次大小為預設的 500。
+ * 每一批各自提交交易，與正式環境相同，因此不使用測試交易。
+ * 預設不執行：mvn test -Dtest=RecommendImportBenchmarkTest -Dh2.benchmark=true
+ */
+@EnabledIfSystemProperty(named = H2Benchmark.ENABLED_PROPERTY, matches = "true")
+@DataJpaTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:import-benchmark;MODE=MySQL;NON_KEYWORDS=USER",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({RecommendImportService.class, StoreService.class, CacheConfig.class})
+class RecommendImportBenchmarkTest {
+
+	private static final int ROWS = 20_000;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private RecommendImportService recommendImportService;
+
+	@Test
+	void importsThousandsOfRowsPerSecond() throws Exception {
+		H2Benchmark.insertUsers(jdbcTemplate, 2);
+		H2Benchmark.insertStores(jdbcTemplate, ROWS / 2);
+		List<String> existing = jdbcTemplate.queryForList("SELECT name FROM store ORDER BY id", String.class);
+
+		// 預熱：另一位用戶匯入少量資料
+		RecommendImportResult warmup = recommendImportService.importRecommends(csv(existing.subList(0, 1_000), "預熱"),
+				RecommendImportService.Format.CSV, user(2));
+		assertThat(warmup.getImportedRows()).isEqualTo(2_000);
+
+		long start = System.nanoTime();
+		RecommendImportResult result = recommendImportService.importRecommends(csv(existing, "新店"),
+				RecommendImportService.Format.CSV, user(1));
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		assertThat(result.getImportedRows()).isEqualTo(ROWS);
+		double rowsPerSecond = ROWS / seconds;
+		System.out.printf("匯入 %,d 行（%,d 家新店）：%.2f 秒，%,.0f 行/秒%n", ROWS, ROWS / 2, seconds, rowsPerSecond);
+		assertThat(rowsPerSecond).isGreaterThan(1_000);
+	}
+
+	private UserModel user(int id) {
+		return userRepository.findById(id).orElseThrow();
+	}
+
+	// 每個已存在的店家各一行，另外再加同樣數量的新店家
+	private static ByteArrayInputStream csv(List<String> existingStores, String newPrefix) {
+		StringBuilder csv = new StringBuilder("storeName,storeAddress,storePhotoUrl,reason,score\n");
+		for (int i = 0; i < existingStores.size(); i++) {
+			csv.append(existingStores.get(i)).append(",台北市信義路").append(i).append("號,,值得再訪,4\n");
+			csv.append(newPrefix).append(i).append(",台北市大安路").append(i).append("號,,第一次吃就喜歡,5\n");
+		}
+		return new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8));
+	}
+}
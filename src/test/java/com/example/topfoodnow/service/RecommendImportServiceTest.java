@@ -0,0 +1,101 @@
+package com.example.topfoodnow.service;
+
+import com.example.topfoodnow.config.CacheConfig;
+import com.example.topfoodnow.dto.RecommendImportResult;
+import com.example.topfoodnow.model.StoreModel;
+import com.example.topfoodnow.model.UserModel;
+import com.example.topfoodnow.repository.RecommendRepository;
+import com.example.topfoodnow.repository.StoreRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:topfoodnow-import;MODE=MySQL;NON_KEYWORDS=USER",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"recommend.import.batch-size=2"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({RecommendImportService.class, StoreService.class, CacheConfig.class})
+class RecommendImportServiceTest {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private RecommendImportService recommendImportService;
+
+	@Autowired
+	private RecommendRepository recommendRepository;
+
+	@Autowired
+	private StoreRepository storeRepository;
+
+	private UserModel user;
+
+	@BeforeEach
+	void setUp() {
+		UserModel importer = new UserModel("import@example.com", "password123", "匯入者", true);
+		importer.setIsFamous(false);
+		user = entityManager.persist(importer);
+		StoreModel existing = new StoreModel();
+		existing.setName("鼎泰豐");
+		existing.setAddress("台北市信義路二段194號");
+		existing.setPhotoUrl("/images/default-image.jpg");
+		entityManager.persist(existing);
+		entityManager.flush();
+	}
+
+	@Test
+	void importsCsvAndReportsRowErrors() throws IOException {
+		String csv = "storeName,storeAddress,storePhotoUrl,reason,score\n" +
+				"鼎泰豐,台北市信義路二段194號,,小籠包必點,5\n" +
+				"\"阿宗麵線\",\"台北市萬華區峨眉街8號之1\",,\"大腸麵線, 必吃\",4\n" +
+				"阿宗麵線,台北市萬華區峨眉街8號之1,,重複,4\n" +
+				"林東芳牛肉麵,台北市中山區八德路二段274號,,湯頭濃郁,9\n" +
+				"金峰滷肉飯,台北市中正區羅斯福路一段10號,,便宜好吃,5\n";
+
+		RecommendImportResult result = recommendImportService.importRecommends(stream(csv), RecommendImportService.Format.CSV, user);
+
+		assertThat(result.getTotalRows()).isEqualTo(5);
+		assertThat(result.getImportedRows()).isEqualTo(3);
+		assertThat(result.getErrors()).extracting(RecommendImportResult.RowError::getLine).containsExactlyInAnyOrder(4, 5);
+		assertThat(recommendRepository.findRowsByUserId(user.getId())).hasSize(3);
+		assertThat(storeRepository.count()).isEqualTo(3);
+	}
+
+	@Test
+	void importsNdjsonAndSkipsAlreadyRecommendedStores() throws IOException {
+		String ndjson = "{\"storeName\":\"鼎泰豐\",\"storeAddress\":\"台北市信義路二段194號\",\"reason\":\"小籠包\",\"score\":5}\n" +
+				"not json\n";
+		RecommendImportResult first = recommendImportService.importRecommends(stream(ndjson), RecommendImportService.Format.NDJSON, user);
+		assertThat(first.getImportedRows()).isEqualTo(1);
+		assertThat(first.getErrors()).extracting(RecommendImportResult.RowError::getLine).containsExactly(2);
+
+		RecommendImportResult second = recommendImportService.importRecommends(stream(ndjson), RecommendImportService.Format.NDJSON, user);
+		assertThat(second.getImportedRows()).isZero();
+		assertThat(second.getErrorCount()).isEqualTo(2);
+	}
+
+	private static ByteArrayInputStream stream(String content) {
+		return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
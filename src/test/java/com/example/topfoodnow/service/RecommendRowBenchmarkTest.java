@@ -0,0 +1,124 @@
+package com.example.topfoodnow.service;
+
+import com.example.topfoodnow.dto.RecommendDTO;
+import com.example.topfoodnow.dto.RecommendRow;
+import com.example.topfoodnow.model.RecommendModel;
+import com.example.topfoodnow.repository.RecommendRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 比較 /all-recommends 一頁 50 筆的兩種讀法：原本以 JOIN FETCH 載入推薦、用戶、店家實體再轉成 DTO，
+ * 與直接投影成 RecommendRow 再轉成 DTO，兩者的篩選條件與排序相同。每次讀取都清空持久化內容，與每個請求各自的 EntityManager 相同。
+ * 預設不執行：mvn test -Dtest=RecommendRowBenchmarkTest -Dh2.benchmark=true
+ */
+@EnabledIfSystemProperty(named = H2Benchmark.ENABLED_PROPERTY, matches = "true")
+@DataJpaTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:row-benchmark;MODE=MySQL;NON_KEYWORDS=USER",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class RecommendRowBenchmarkTest {
+
+	private static final int PAGE_SIZE = 50;
+	// 投影改版前的 findFilteredRecommends
+	private static final String ENTITY_QUERY = "SELECT r FROM RecommendModel r "
+			+ "JOIN FETCH r.user u "
+			+ "JOIN FETCH r.store s "
+			+ "WHERE (:isFamousFilter IS NULL OR u.isFamous = :isFamousFilter) "
+			+ "AND (:searchTerm IS NULL OR :searchTerm = '' "
+			+ "       OR LOWER(u.userName) LIKE LOWER(CONCAT('%', :searchTerm, '%')) "
+			+ "       OR LOWER(s.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')) "
+			+ "       OR LOWER(s.address) LIKE LOWER(CONCAT('%', :searchTerm, '%'))) "
+			+ "ORDER BY r.createdAt DESC";
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private RecommendRepository recommendRepository;
+
+	@Test
+	void projectionAllocatesLessThanEntities() throws Exception {
+		H2Benchmark.insertUsers(jdbcTemplate, 200);
+		H2Benchmark.insertStores(jdbcTemplate, 1_000);
+		H2Benchmark.insertRecommends(jdbcTemplate, 200, 1_000, 50);
+
+		H2Benchmark.Result entities = H2Benchmark.measure(Duration.ofSeconds(5), () -> {
+			List<RecommendModel> page = entityManager.createQuery(ENTITY_QUERY, RecommendModel.class)
+					.setParameter("isFamousFilter", null)
+					.setParameter("searchTerm", null)
+					.setMaxResults(PAGE_SIZE + 1) // 與 Slice 查詢相同，多取一筆判斷是否有下一頁
+					.getResultList();
+			List<RecommendDTO> dtos = new ArrayList<>(page.size());
+			for (RecommendModel recommend : page) {
+				dtos.add(toDto(recommend));
+			}
+			entityManager.clear();
+			return dtos;
+		});
+		H2Benchmark.Result rows = H2Benchmark.measure(Duration.ofSeconds(5), () -> {
+			List<RecommendRow> page = recommendRepository.findFilteredRecommends(null, null, PageRequest.of(0, PAGE_SIZE)).getContent();
+			List<RecommendDTO> dtos = new ArrayList<>(page.size());
+			for (RecommendRow row : page) {
+				dtos.add(toDto(row));
+			}
+			entityManager.clear();
+			return dtos;
+		});
+
+		System.out.printf("每頁 %d 筆：實體 + DTO %s；RecommendRow 投影 %s%n", PAGE_SIZE, entities, rows);
+		assertThat(rows.bytesPerOperation).isLessThan(entities.bytesPerOperation);
+	}
+
+	// 與 RecommendService 的投影轉換相同
+	private static RecommendDTO toDto(RecommendRow row) {
+		RecommendDTO dto = new RecommendDTO();
+		dto.setUserId(row.getUserId());
+		dto.setUserName(row.getUserName());
+		dto.setFamous(row.getIsFamous());
+		dto.setStoreId(row.getStoreId());
+		dto.setStoreName(row.getStoreName());
+		dto.setStoreAddress(row.getStoreAddress());
+		dto.setStorePhotoUrl(row.getStorePhotoUrl());
+		dto.setReason(row.getReason());
+		dto.setScore(row.getScore());
+		dto.setCreatedAt(row.getCreatedAt());
+		return dto;
+	}
+
+	// 投影改版前的實體轉換
+	private static RecommendDTO toDto(RecommendModel recommend) {
+		RecommendDTO dto = new RecommendDTO();
+		dto.setUserId(recommend.getUser().getId());
+		dto.setUserName(recommend.getUser().getUserName());
+		dto.setFamous(recommend.getUser().getIsFamous());
+		dto.setStoreId(recommend.getStore().getId());
+		dto.setStoreName(recommend.getStore().getName());
+		dto.setStoreAddress(recommend.getStore().getAddress());
+		dto.setStorePhotoUrl(recommend.getStore().getPhotoUrl());
+		dto.setReason(recommend.getReason());
+		dto.setScore(recommend.getScore());
+		dto.setCreatedAt(recommend.getCreatedAt());
+		return dto;
+	}
+}
@@ -0,0 +1,102 @@
+package com.example.topfoodnow.service;
+
+import com.example.topfoodnow.config.CacheConfig;
+import com.example.topfoodnow.repository.RecommendRepository;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 比較 /all-recommends 搜尋的兩種做法：原本的 LIKE '%term%' 查詢加 COUNT（每次掃描三個欄位）
+ * 與二元分詞索引找出主鍵後只查詢本頁資料。資料為 1,000 位用戶、10,000 家店、100,000 筆推薦。
+ * 索引在背景線程重建，因此資料直接提交，不使用測試交易。
+ * 預設不執行：mvn test -Dtest=RecommendSearchBenchmarkTest -Dh2.benchmark=true
+ */
+@EnabledIfSystemProperty(named = H2Benchmark.ENABLED_PROPERTY, matches = "true")
+@DataJpaTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:search-benchmark;MODE=MySQL;NON_KEYWORDS=USER",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({RecommendService.class, StoreService.class, UserService.class, RecommendSearchIndex.class, RecommendCountCache.class,
+		CacheConfig.class})
+class RecommendSearchBenchmarkTest {
+
+	private static final int PAGE_SIZE = 10;
+
+	@MockitoBean
+	private MailService mailService;
+
+	@MockitoBean
+	private PasswordEncoder passwordEncoder;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private RecommendRepository recommendRepository;
+
+	@Autowired
+	private RecommendSearchIndex searchIndex;
+
+	@Autowired
+	private RecommendService recommendService;
+
+	@ParameterizedTest
+	@ValueSource(strings = {"牛肉麵", "信義區", "美食家12"})
+	void bigramIndexBeatsLikeScan(String term) throws Exception {
+		long buildMillis = populateAndBuildIndex();
+
+		H2Benchmark.Result like = H2Benchmark.measure(Duration.ofSeconds(3), () -> {
+			long total = recommendRepository.countFilteredRecommends(null, term);
+			return recommendRepository.findFilteredRecommends(null, term, PageRequest.of(0, PAGE_SIZE)).getNumberOfElements() + total;
+		});
+		H2Benchmark.Result index = H2Benchmark.measure(Duration.ofSeconds(3),
+				() -> recommendService.findAllRecommendsPaged(0, PAGE_SIZE, null, term));
+
+		long likeTotal = recommendRepository.countFilteredRecommends(null, term);
+		assertThat(recommendService.findAllRecommendsPaged(0, PAGE_SIZE, null, term).getTotalElements()).isEqualTo(likeTotal);
+		System.out.printf("搜尋「%s」（%,d 筆符合）：LIKE + COUNT %s；二元分詞索引 %s（索引重建 %d ms）%n",
+				term, likeTotal, like, index, buildMillis);
+		assertThat(index.averageMicros).isLessThan(like.averageMicros);
+	}
+
+	// 各參數共用同一份資料與索引，只在第一次建立。啟動時已有一次空資料的背景重建，
+	// 因此以索引結果與 LIKE 查詢一致作為重建完成的條件
+	private long populateAndBuildIndex() throws InterruptedException {
+		if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM recommend_user", Long.class) > 0) {
+			return 0;
+		}
+		H2Benchmark.insertUsers(jdbcTemplate, 1_000);
+		H2Benchmark.insertStores(jdbcTemplate, 10_000);
+		H2Benchmark.insertRecommends(jdbcTemplate, 1_000, 10_000, 100);
+		long expected = recommendRepository.countFilteredRecommends(null, "美食家");
+		long start = System.nanoTime();
+		searchIndex.rebuild();
+		while (searchIndex.search("美食家", null).map(List::size).orElse(0) != expected) {
+			assertThat(System.nanoTime() - start).isLessThan(Duration.ofMinutes(1).toNanos());
+			Thread.sleep(10);
+		}
+		return (System.nanoTime() - start) / 1_000_000;
+	}
+}
@@ -0,0 +1,92 @@
+package com.example.topfoodnow.service;
+
+import com.example.topfoodnow.dto.RecommendRow;
+import com.example.topfoodnow.event.RecommendChangedEvent;
+import com.example.topfoodnow.model.RecommendId;
+import com.example.topfoodnow.repository.RecommendRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RecommendSearchIndexTest {
+
+	private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 1, 12, 0);
+
+	private final RecommendRepository repository = mock(RecommendRepository.class);
+	private RecommendSearchIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new RecommendSearchIndex(repository, 2);
+		List<RecommendRow> rows = List.of(
+				row(1, "小明", false, 10, "鼎泰豐", "台北市信義區松高路", 3),
+				row(2, "美食家", true, 11, "牛肉麵大王", "台北市大安區鼎泰路", 2),
+				row(3, "阿豐", false, 12, "泰式料理", "新北市板橋區", 1));
+		when(repository.findAllRows(any(Pageable.class))).thenAnswer(invocation -> {
+			Pageable pageable = invocation.getArgument(0);
+			int from = (int) pageable.getOffset();
+			int to = Math.min(from + pageable.getPageSize(), rows.size());
+			return new SliceImpl<>(rows.subList(from, to), pageable, to < rows.size());
+		});
+	}
+
+	@Test
+	void isNotReadyBeforeRebuild() {
+		assertThat(index.isReady()).isFalse();
+		assertThat(index.search("鼎泰", null)).isEmpty();
+	}
+
+	@Test
+	void ranksStoreNameHitsFirstAndFiltersByFamous() {
+		index.rebuild();
+
+		assertThat(index.isReady()).isTrue();
+		assertThat(index.search("鼎泰", null)).contains(List.of(new RecommendId(1, 10), new RecommendId(2, 11)));
+		assertThat(index.search("鼎泰", true)).contains(List.of(new RecommendId(2, 11)));
+		assertThat(index.search("台北市", false)).contains(List.of(new RecommendId(1, 10)));
+		assertThat(index.search("MISSING", null)).contains(List.of());
+	}
+
+	@Test
+	void requiresContiguousMatchLikeSubstringSearch() {
+		index.rebuild();
+
+		// 「麵大安」的二元詞元「麵大」在店名、「大安」在地址，全部命中但字串不相連
+		assertThat(index.search("麵大安", null)).contains(List.of());
+		assertThat(index.search("麵大", null)).contains(List.of(new RecommendId(2, 11)));
+		assertThat(index.search("松高", null)).contains(List.of(new RecommendId(1, 10)));
+	}
+
+	@Test
+	void appliesChangesIncludingThoseReceivedBeforeRebuild() {
+		when(repository.findRowsByIds(anyCollection())).thenReturn(List.of(row(4, "新朋友", false, 13, "鼎泰豐信義店", "台北市", 1)));
+		index.onRecommendChanged(new RecommendChangedEvent(RecommendChangedEvent.Type.ADDED, 4, 13, false));
+		index.rebuild();
+
+		assertThat(index.search("鼎泰豐", null)).contains(List.of(new RecommendId(4, 13), new RecommendId(1, 10)));
+
+		index.onRecommendChanged(new RecommendChangedEvent(RecommendChangedEvent.Type.DELETED, 1, 10, false));
+		when(repository.findRowsByStoreId(11)).thenReturn(List.of(row(2, "美食家", true, 11, "牛肉麵二代", "台中市", 2)));
+		index.onRecommendChanged(new RecommendChangedEvent(RecommendChangedEvent.Type.UPDATED, 2, 11, true));
+
+		assertThat(index.search("鼎泰豐", null)).contains(List.of(new RecommendId(4, 13)));
+		assertThat(index.search("大王", null)).contains(List.of());
+		assertThat(index.search("二代", null)).contains(List.of(new RecommendId(2, 11)));
+	}
+
+	private static RecommendRow row(int userId, String userName, boolean famous, int storeId, String storeName,
+									String address, int minutesAgo) {
+		return new RecommendRow(userId, userName, famous, storeId, storeName, address, null, "好吃", 5,
+				NOW.minusMinutes(minutesAgo));
+	}
+}
@@ -0,0 +1,148 @@
+package com.example.topfoodnow.service;
+
+import com.example.topfoodnow.config.CacheConfig;
+import com.example.topfoodnow.dto.CursorPage;
+import com.example.topfoodnow.dto.RecommendDTO;
+import com.example.topfoodnow.model.RecommendModel;
+import com.example.topfoodnow.model.StoreModel;
+import com.example.topfoodnow.model.UserModel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:topfoodnow;MODE=MySQL;NON_KEYWORDS=USER",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.properties.hibernate.session_factory.statement_inspector=com.example.topfoodnow.service.SqlStatementCounter"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({RecommendService.class, StoreService.class, UserService.class, RecommendSearchIndex.class, RecommendCountCache.class,
+		CacheConfig.class})
+class RecommendServiceCursorTest {
+
+	@MockitoBean
+	private MailService mailService;
+
+	@MockitoBean
+	private PasswordEncoder passwordEncoder;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private RecommendService recommendService;
+
+	@BeforeEach
+	void setUp() {
+		UserModel famousUser = persistUser("famous@example.com", true);
+		UserModel normalUser = persistUser("normal@example.com", false);
+		for (int i = 0; i < 4; i++) {
+			StoreModel store = new StoreModel();
+			store.setName("店家" + i);
+			store.setAddress("台北市信義路" + i + "號");
+			store.setPhotoUrl("/images/default-image.jpg");
+			entityManager.persist(store);
+			persistRecommend(famousUser, store);
+			persistRecommend(normalUser, store);
+		}
+		entityManager.flush();
+		// 8 筆推薦中有 6 筆建立時間相同，只能靠 (user_id, store_id) 決定順序
+		entityManager.getEntityManager()
+				.createNativeQuery("UPDATE recommend_user SET created_at = ?1")
+				.setParameter(1, LocalDateTime.of(2026, 1, 1, 12, 0))
+				.executeUpdate();
+		entityManager.getEntityManager()
+				.createNativeQuery("UPDATE recommend_user SET created_at = ?1 WHERE store_id = ?2")
+				.setParameter(1, LocalDateTime.of(2026, 2, 1, 12, 0))
+				.setParameter(2, firstStoreId())
+				.executeUpdate();
+		entityManager.clear();
+	}
+
+	@Test
+	void walksForwardAndBackwardThroughTiesWithoutGapsOrDuplicates() {
+		List<String> forward = new ArrayList<>();
+		List<CursorPage<RecommendDTO>> pages = new ArrayList<>();
+		CursorPage<RecommendDTO> page = recommendService.findAllRecommendsByCursor(null, null, 3, null, null);
+		pages.add(page);
+		while (true) {
+			page.getContent().forEach(dto -> forward.add(key(dto)));
+			if (!page.hasNext()) {
+				break;
+			}
+			page = recommendService.findAllRecommendsByCursor(page.getNextCursor(), null, 3, null, null);
+			pages.add(page);
+		}
+
+		assertThat(forward).hasSize(8).doesNotHaveDuplicates();
+		assertThat(pages).hasSize(3);
+		assertThat(pages.get(0).hasPrevious()).isFalse();
+		assertThat(pages.get(2).getContent()).hasSize(2);
+		// 較新的兩筆在最前面
+		assertThat(pages.get(0).getContent().subList(0, 2))
+				.allSatisfy(dto -> assertThat(dto.getCreatedAt()).isEqualTo(LocalDateTime.of(2026, 2, 1, 12, 0)));
+
+		List<String> backward = new ArrayList<>();
+		page = pages.get(2);
+		while (page.hasPrevious()) {
+			page = recommendService.findAllRecommendsByCursor(null, page.getPreviousCursor(), 3, null, null);
+			backward.addAll(0, page.getContent().stream().map(RecommendServiceCursorTest::key).toList());
+		}
+		assertThat(backward).containsExactlyElementsOf(forward.subList(0, 6));
+		assertThat(page.hasNext()).isTrue();
+	}
+
+	@Test
+	void emptyResultHasNoCursors() {
+		CursorPage<RecommendDTO> page = recommendService.findAllRecommendsByCursor(null, null, 3, true, "不存在的店");
+
+		assertThat(page.getContent()).isEmpty();
+		assertThat(page.hasPrevious()).isFalse();
+		assertThat(page.hasNext()).isFalse();
+		assertThatThrownBy(() -> recommendService.findAllRecommendsByCursor("broken", null, 3, null, null))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private Integer firstStoreId() {
+		return ((Number) entityManager.getEntityManager().createNativeQuery("SELECT MIN(store_id) FROM recommend_user")
+				.getSingleResult()).intValue();
+	}
+
+	private static String key(RecommendDTO dto) {
+		return dto.getUserId() + "-" + dto.getStoreId();
+	}
+
+	private UserModel persistUser(String email, boolean famous) {
+		UserModel user = new UserModel(email, "password123", email, true);
+		user.setIsFamous(famous);
+		return entityManager.persist(user);
+	}
+
+	private void persistRecommend(UserModel user, StoreModel store) {
+		RecommendModel recommend = new RecommendModel();
+		recommend.setUserId(user.getId());
+		recommend.setStoreId(store.getId());
+		recommend.setUser(user);
+		recommend.setStore(store);
+		recommend.setReason("好吃");
+		recommend.setScore(5);
+		entityManager.persist(recommend);
+	}
+}
@@ -0,0 +1,122 @@
+package com.example.topfoodnow.service;
+
+import com.example.topfoodnow.config.CacheConfig;
+import com.example.topfoodnow.model.RecommendModel;
+import com.example.topfoodnow.model.StoreModel;
+import com.example.topfoodnow.model.UserModel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:topfoodnow;MODE=MySQL;NON_KEYWORDS=USER",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.properties.hibernate.session_factory.statement_inspector=com.example.topfoodnow.service.SqlStatementCounter"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({RecommendService.class, StoreService.class, UserService.class, RecommendSearchIndex.class, RecommendCountCache.class,
+		CacheConfig.class})
+class RecommendServiceQueryCountTest {
+
+	@MockitoBean
+	private MailService mailService;
+
+	@MockitoBean
+	private PasswordEncoder passwordEncoder;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private RecommendService recommendService;
+
+	private UserModel famousUser;
+	private StoreModel firstStore;
+
+	@BeforeEach
+	void setUp() {
+		famousUser = persistUser("famous@example.com", true);
+		UserModel normalUser = persistUser("normal@example.com", false);
+		for (int i = 0; i < 5; i++) {
+			StoreModel store = new StoreModel();
+			store.setName("店家" + i);
+			store.setAddress("台北市信義路" + i + "號");
+			store.setPhotoUrl("/images/default-image.jpg");
+			entityManager.persist(store);
+			if (i == 0) {
+				firstStore = store;
+			}
+			persistRecommend(famousUser, store);
+			persistRecommend(normalUser, store);
+		}
+		entityManager.flush();
+		entityManager.clear();
+		SqlStatementCounter.reset();
+	}
+
+	@Test
+	void personalRecommendListUsesOneQuery() {
+		assertThat(recommendService.getRecommendsByUserId(famousUser.getId())).hasSize(5);
+		assertThat(SqlStatementCounter.count()).isEqualTo(1);
+	}
+
+	@Test
+	void recommendDetailUsesOneQuery() {
+		assertThat(recommendService.getRecommendByUserAndStoreId(famousUser.getId(), firstStore.getId())).isPresent();
+		assertThat(SqlStatementCounter.count()).isEqualTo(1);
+	}
+
+	@Test
+	void latestFamousRecommendsUseOneQuery() {
+		assertThat(recommendService.findLatestFamousUserRecommends(6)).hasSize(5);
+		assertThat(SqlStatementCounter.count()).isEqualTo(1);
+	}
+
+	@Test
+	void allRecommendsPageCountsOnlyOnFirstVisit() {
+		assertThat(recommendService.findAllRecommendsPaged(0, 4, null, null).getTotalElements()).isEqualTo(10);
+		assertThat(SqlStatementCounter.count()).isLessThanOrEqualTo(2);
+
+		SqlStatementCounter.reset();
+		assertThat(recommendService.findAllRecommendsPaged(1, 4, null, null).getContent()).hasSize(4);
+		assertThat(SqlStatementCounter.count()).isEqualTo(1);
+	}
+
+	@Test
+	void randomRecommendsUseOneQueryOncePoolIsLoaded() {
+		recommendService.findRandom6Recommends();
+		SqlStatementCounter.reset();
+		assertThat(recommendService.findRandom6Recommends()).hasSize(6);
+		assertThat(SqlStatementCounter.count()).isEqualTo(1);
+	}
+
+	private UserModel persistUser(String email, boolean famous) {
+		UserModel user = new UserModel(email, "password123", email, true);
+		user.setIsFamous(famous);
+		return entityManager.persist(user);
+	}
+
+	private void persistRecommend(UserModel user, StoreModel store) {
+		RecommendModel recommend = new RecommendModel();
+		recommend.setUserId(user.getId());
+		recommend.setStoreId(store.getId());
+		recommend.setUser(user);
+		recommend.setStore(store);
+		recommend.setReason("好吃");
+		recommend.setScore(5);
+		entityManager.persist(recommend);
+	}
+
+}
@@ -0,0 +1,29 @@
+package com.example.topfoodnow.service;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 測試用 Hibernate StatementInspector，統計實際送出的 SQL 數量，用來鎖定每個讀取路徑的查詢次數。
+ * 依執行緒分別計數，只統計測試執行緒本身的查詢，不受背景索引重建、總數更新等其他執行緒影響。
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+	private static final ThreadLocal<AtomicInteger> COUNT = ThreadLocal.withInitial(AtomicInteger::new);
+
+	@Override
+	public String inspect(String sql) {
+		COUNT.get().incrementAndGet();
+		return sql;
+	}
+
+	public static void reset() {
+		COUNT.get().set(0);
+	}
+
+	public static int count() {
+		return COUNT.get().get();
+	}
+
+}
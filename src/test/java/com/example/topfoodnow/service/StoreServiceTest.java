@@ -0,0 +1,69 @@
+package com.example.topfoodnow.service;
+
+import com.example.topfoodnow.config.CacheConfig;
+import com.example.topfoodnow.model.StoreModel;
+import com.example.topfoodnow.repository.StoreRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StoreServiceTest {
+
+	private StoreRepository storeRepository;
+	private StoreService storeService;
+
+	@BeforeEach
+	void setUp() {
+		storeRepository = mock(StoreRepository.class);
+		storeService = new StoreService(storeRepository, mock(JdbcTemplate.class),
+				new ConcurrentMapCacheManager(CacheConfig.STORE_BY_ID, CacheConfig.STORE_BY_NAME));
+	}
+
+	@Test
+	void missAndHitBothReturnDetachedCopies() {
+		StoreModel managed = store();
+		when(storeRepository.findById(1)).thenReturn(Optional.of(managed));
+
+		StoreModel miss = storeService.getStoreById(1).orElseThrow();
+		miss.setName("被修改");
+		StoreModel hit = storeService.getStoreById(1).orElseThrow();
+
+		verify(storeRepository, times(1)).findById(1);
+		assertThat(miss).isNotSameAs(managed);
+		assertThat(managed.getName()).isEqualTo("鼎泰豐");
+		assertThat(hit).isNotSameAs(miss);
+		assertThat(hit.getName()).isEqualTo("鼎泰豐");
+	}
+
+	@Test
+	void lookupByNameReturnsCopiesOnMissAndHit() {
+		StoreModel managed = store();
+		when(storeRepository.findByName("鼎泰豐")).thenReturn(Optional.of(managed));
+
+		StoreModel miss = storeService.findStoreByName("鼎泰豐").orElseThrow();
+		StoreModel hit = storeService.findStoreByName("鼎泰豐").orElseThrow();
+
+		verify(storeRepository, times(1)).findByName("鼎泰豐");
+		assertThat(miss).isNotSameAs(managed);
+		assertThat(hit).isNotSameAs(managed).isNotSameAs(miss);
+		assertThat(hit.getId()).isEqualTo(1);
+	}
+
+	private static StoreModel store() {
+		StoreModel store = new StoreModel();
+		store.setId(1);
+		store.setName("鼎泰豐");
+		store.setAddress("台北市信義路二段194號");
+		store.setPhotoUrl("/dynamic-content/uploads/a.jpg");
+		return store;
+	}
+}
@@ -0,0 +1,73 @@
+package com.example.topfoodnow.service;
+
+import com.example.topfoodnow.config.CacheConfig;
+import com.example.topfoodnow.model.UserModel;
+import com.example.topfoodnow.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserServiceTest {
+
+	private UserRepository userRepository;
+	private UserService userService;
+
+	@BeforeEach
+	void setUp() {
+		userRepository = mock(UserRepository.class);
+		when(userRepository.save(any(UserModel.class))).thenAnswer(invocation -> invocation.getArgument(0));
+		userService = new UserService(userRepository, mock(PasswordEncoder.class), mock(MailService.class),
+				new ConcurrentMapCacheManager(CacheConfig.USER_BY_ID, CacheConfig.USER_BY_EMAIL));
+	}
+
+	@Test
+	void cachedUsersAreCopiesWithoutSecrets() {
+		when(userRepository.findById(1)).thenReturn(Optional.of(user()));
+
+		UserModel first = userService.findById(1).orElseThrow();
+		first.setUserName("被修改");
+		UserModel second = userService.findById(1).orElseThrow();
+		UserModel byEmail = userService.findByEmail("a@example.com").orElseThrow();
+
+		verify(userRepository, times(1)).findById(1);
+		assertThat(second).isNotSameAs(first).isNotSameAs(byEmail);
+		assertThat(second.getUserName()).isEqualTo("小明");
+		assertThat(second.getPassword()).isNull();
+		assertThat(second.getVerificationCode()).isNull();
+		assertThat(byEmail.getId()).isEqualTo(1);
+		assertThat(first.getPassword()).isNull();
+	}
+
+	@Test
+	void resetTokenIsWrittenToReloadedUser() {
+		UserModel stored = user();
+		when(userRepository.findById(1)).thenReturn(Optional.of(user()), Optional.of(stored));
+		UserModel cached = userService.findById(1).orElseThrow();
+
+		String token = userService.createPasswordResetTokenForUser(cached);
+
+		assertThat(stored.getResetPasswordToken()).isEqualTo(token);
+		assertThat(stored.getPassword()).isEqualTo("hash");
+		assertThat(cached.getResetPasswordToken()).isNull();
+		verify(userRepository).save(stored);
+		assertThat(userService.findById(1).orElseThrow().getResetPasswordToken()).isNull();
+	}
+
+	private static UserModel user() {
+		UserModel user = new UserModel("a@example.com", "hash", "小明", true);
+		user.setId(1);
+		user.setIsFamous(false);
+		user.setVerificationCode("code");
+		return user;
+	}
+}
@@ -0,0 +1,31 @@
+package com.example.topfoodnow.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BigramTokenizerTest {
+
+	@Test
+	void indexTokensContainUnigramsAndBigramsPerRun() {
+		assertThat(BigramTokenizer.indexTokens("鼎泰豐 101"))
+				.containsExactlyInAnyOrder("鼎", "鼎泰", "泰", "泰豐", "豐", "1", "10", "0", "01");
+	}
+
+	@Test
+	void queryTokensUseBigramsAndFallBackToUnigram() {
+		assertThat(BigramTokenizer.queryTokens("信義路")).containsExactly("信義", "義路");
+		assertThat(BigramTokenizer.queryTokens("麵")).containsExactly("麵");
+		assertThat(BigramTokenizer.queryTokens("  ")).isEmpty();
+	}
+
+	@Test
+	void queryTokensAreSubsetOfIndexTokensForSubstrings() {
+		assertThat(BigramTokenizer.indexTokens("台北市信義路二段22號"))
+				.containsAll(BigramTokenizer.queryTokens("信義路二段"))
+				.containsAll(BigramTokenizer.queryTokens("22"));
+		assertThat(BigramTokenizer.indexTokens("DinTaiFung"))
+				.containsAll(BigramTokenizer.queryTokens("taifung"));
+	}
+
+}
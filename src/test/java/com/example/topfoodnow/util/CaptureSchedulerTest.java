@@ -0,0 +1,162 @@
+package com.example.topfoodnow.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CaptureSchedulerTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private CaptureScheduler scheduler;
+
+	@AfterEach
+	void tearDown() {
+		if (scheduler != null) {
+			scheduler.shutdown(1, TimeUnit.SECONDS);
+		}
+	}
+
+	@Test
+	void availableMemoryCountsReclaimablePageCache(@TempDir Path dir) throws Exception {
+		Path meminfo = Files.writeString(dir.resolve("meminfo"),
+				"MemTotal:       16000000 kB\nMemFree:          200000 kB\nMemAvailable:    9000000 kB\nCached:          8000000 kB\n");
+		Path noCgroup = dir.resolve("no-cgroup");
+
+		// MemFree 只有約 200 MB，但大部分頁面快取可回收，MemAvailable 才是可以再啟動 Chrome 的量
+		assertThat(CaptureScheduler.availableMemoryBytes(meminfo, noCgroup)).isEqualTo(9_000_000L * 1024);
+		assertThat(CaptureScheduler.availableMemoryBytes(dir.resolve("missing"), noCgroup)).isEqualTo(Long.MAX_VALUE);
+	}
+
+	@Test
+	void availableMemoryRespectsCgroupLimit(@TempDir Path dir) throws Exception {
+		Path meminfo = Files.writeString(dir.resolve("meminfo"), "MemAvailable:    9000000 kB\n");
+		Path v2 = Files.createDirectories(dir.resolve("v2"));
+		Files.writeString(v2.resolve("memory.max"), "2147483648\n");
+		Files.writeString(v2.resolve("memory.current"), "1610612736\n");
+		Files.writeString(v2.resolve("memory.stat"), "anon 1000\ninactive_file 536870912\nactive_file 10\n");
+
+		// 上限 2 GB，已用 1.5 GB 其中 512 MB 為可回收的檔案快取，剩 1 GB
+		assertThat(CaptureScheduler.availableMemoryBytes(meminfo, v2)).isEqualTo(1024L * 1024 * 1024);
+
+		Files.writeString(v2.resolve("memory.max"), "max\n");
+		assertThat(CaptureScheduler.availableMemoryBytes(meminfo, v2)).isEqualTo(9_000_000L * 1024);
+
+		Path v1 = Files.createDirectories(dir.resolve("v1/memory"));
+		Files.writeString(v1.resolve("memory.limit_in_bytes"), "1073741824\n");
+		Files.writeString(v1.resolve("memory.usage_in_bytes"), "1073741824\n");
+		Files.writeString(v1.resolve("memory.stat"), "total_inactive_file 268435456\n");
+		assertThat(CaptureScheduler.availableMemoryBytes(meminfo, dir.resolve("v1"))).isEqualTo(268435456L);
+	}
+
+	@Test
+	void limitsConcurrentCapturesPerHost() throws Exception {
+		scheduler = new CaptureScheduler(registry, 4, 1, 0, () -> Long.MAX_VALUE);
+		AtomicInteger sameHostRunning = new AtomicInteger();
+		AtomicInteger maxSameHost = new AtomicInteger();
+		AtomicInteger totalRunning = new AtomicInteger();
+		AtomicInteger maxTotal = new AtomicInteger();
+
+		CaptureScheduler.Batch<String> batch = scheduler.newBatch();
+		List<Future<String>> futures = new ArrayList<>();
+		for (int i = 0; i < 6; i++) {
+			String host = i % 2 == 0 ? "dintaifung.com.tw" : "other-" + i + ".example";
+			futures.add(batch.submit(host, () -> {
+				boolean same = host.equals("dintaifung.com.tw");
+				if (same) {
+					maxSameHost.accumulateAndGet(sameHostRunning.incrementAndGet(), Math::max);
+				}
+				maxTotal.accumulateAndGet(totalRunning.incrementAndGet(), Math::max);
+				Thread.sleep(50);
+				totalRunning.decrementAndGet();
+				if (same) {
+					sameHostRunning.decrementAndGet();
+				}
+				return host;
+			}));
+		}
+		for (int i = 0; i < futures.size(); i++) {
+			assertThat(batch.poll(5, TimeUnit.SECONDS)).isNotNull();
+		}
+
+		assertThat(maxSameHost.get()).isEqualTo(1);
+		assertThat(maxTotal.get()).isBetween(2, 4);
+	}
+
+	@Test
+	void sharesSlotsFairlyBetweenBatches() throws Exception {
+		scheduler = new CaptureScheduler(registry, 1, 10, 0, () -> Long.MAX_VALUE);
+		CountDownLatch release = new CountDownLatch(1);
+		List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+		CaptureScheduler.Batch<String> blocker = scheduler.newBatch();
+		blocker.submit("", () -> {
+			release.await();
+			return "blocker";
+		});
+		CaptureScheduler.Batch<String> large = scheduler.newBatch();
+		CaptureScheduler.Batch<String> small = scheduler.newBatch();
+		for (int i = 0; i < 4; i++) {
+			String name = "A" + i;
+			large.submit("a.example", () -> {
+				order.add(name);
+				return name;
+			});
+		}
+		for (int i = 0; i < 2; i++) {
+			String name = "B" + i;
+			small.submit("b.example", () -> {
+				order.add(name);
+				return name;
+			});
+		}
+		assertThat(registry.get("screenshot.queue.depth").gauge().value()).isEqualTo(6);
+
+		release.countDown();
+		for (int i = 0; i < 4; i++) {
+			assertThat(large.poll(5, TimeUnit.SECONDS)).isNotNull();
+		}
+		for (int i = 0; i < 2; i++) {
+			assertThat(small.poll(5, TimeUnit.SECONDS)).isNotNull();
+		}
+
+		assertThat(order).containsExactly("A0", "B0", "A1", "B1", "A2", "A3");
+		assertThat(registry.get("screenshot.queue.depth").gauge().value()).isZero();
+		assertThat(registry.get("screenshot.capture").timer().count()).isEqualTo(7);
+	}
+
+	@Test
+	void holdsNewCapturesWhileMemoryIsLow() throws Exception {
+		AtomicLong freeMemory = new AtomicLong(100);
+		scheduler = new CaptureScheduler(registry, 4, 10, 500, freeMemory::get);
+		CountDownLatch release = new CountDownLatch(1);
+
+		CaptureScheduler.Batch<String> batch = scheduler.newBatch();
+		batch.submit("a.example", () -> {
+			release.await();
+			return "first";
+		});
+		batch.submit("b.example", () -> "second");
+		Thread.sleep(100);
+		assertThat(scheduler.getRunningCount()).isEqualTo(1);
+		assertThat(scheduler.getQueuedCount()).isEqualTo(1);
+
+		freeMemory.set(10_000);
+		release.countDown();
+		assertThat(batch.poll(5, TimeUnit.SECONDS)).isNotNull();
+		assertThat(batch.poll(5, TimeUnit.SECONDS)).isNotNull();
+	}
+}
@@ -0,0 +1,38 @@
+package com.example.topfoodnow.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvReaderTest {
+
+	@Test
+	void readsQuotedFieldsWithCommasQuotesAndNewlines() throws IOException {
+		CsvReader reader = new CsvReader(new StringReader("name,reason\r\n\"鼎泰豐, 信義店\",\"說 \"\"好吃\"\"\n再訪\"\nA,B"));
+
+		assertThat(reader.readRecord()).containsExactly("name", "reason");
+		assertThat(reader.readRecord()).containsExactly("鼎泰豐, 信義店", "說 \"好吃\"\n再訪");
+		assertThat(reader.getRecordLineNumber()).isEqualTo(2);
+		assertThat(reader.readRecord()).containsExactly("A", "B");
+		assertThat(reader.getRecordLineNumber()).isEqualTo(4);
+		assertThat(reader.readRecord()).isNull();
+	}
+
+	@Test
+	void keepsEmptyTrailingFields() throws IOException {
+		CsvReader reader = new CsvReader(new StringReader("a,,\n"));
+		assertThat(reader.readRecord()).containsExactly("a", "", "");
+		assertThat(reader.readRecord()).isNull();
+	}
+
+	@Test
+	void rejectsUnterminatedQuote() {
+		CsvReader reader = new CsvReader(new StringReader("\"abc,def\n"));
+		assertThatThrownBy(reader::readRecord).isInstanceOf(IllegalArgumentException.class);
+	}
+
+}
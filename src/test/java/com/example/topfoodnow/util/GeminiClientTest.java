@@ -0,0 +1,123 @@
+package com.example.topfoodnow.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GeminiClientTest {
+
+	private HttpServer server;
+	private final AtomicInteger requests = new AtomicInteger();
+	private final AtomicReference<String> lastApiKey = new AtomicReference<>();
+	private final AtomicReference<String> lastBody = new AtomicReference<>();
+	// 依序回傳的狀態碼，用完後一律回傳 200；負數表示延遲該毫秒數後才回應
+	private final Queue<Integer> script = new ConcurrentLinkedQueue<>();
+
+	@BeforeEach
+	void startServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.createContext("/generate", exchange -> {
+			requests.incrementAndGet();
+			lastApiKey.set(exchange.getRequestHeaders().getFirst("x-goog-api-key"));
+			lastBody.set(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+			Integer status = script.poll();
+			if (status != null && status < 0) {
+				try {
+					Thread.sleep(-status);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				status = 200;
+			}
+			int code = status == null ? 200 : status;
+			byte[] body = (code == 200 ? "{\"candidates\":[]}" : "{\"error\":" + code + "}").getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(code, body.length);
+			exchange.getResponseBody().write(body);
+			exchange.close();
+		});
+		server.start();
+	}
+
+	@AfterEach
+	void stopServer() {
+		server.stop(0);
+	}
+
+	private GeminiClient client(long readTimeoutMillis, int maxRetries, int failureThreshold, long openSeconds) {
+		return new GeminiClient(new ObjectMapper(), new SimpleMeterRegistry(),
+				"http://127.0.0.1:" + server.getAddress().getPort() + "/generate", "test-key",
+				1000, readTimeoutMillis, 5000, maxRetries, 10, failureThreshold, openSeconds);
+	}
+
+	@Test
+	void sendsPromptAndReturnsBody() throws Exception {
+		GeminiClient client = client(2000, 2, 3, 60);
+
+		assertThat(new String(client.generateContent("台北美食"), StandardCharsets.UTF_8)).isEqualTo("{\"candidates\":[]}");
+		assertThat(lastApiKey.get()).isEqualTo("test-key");
+		assertThat(lastBody.get()).contains("\"text\":\"台北美食\"").contains("\"role\":\"user\"");
+	}
+
+	@Test
+	void retriesServerErrorsButNotClientErrors() throws Exception {
+		GeminiClient client = client(2000, 2, 10, 60);
+		script.add(503);
+		script.add(429);
+
+		assertThat(new String(client.generateContent("prompt"), StandardCharsets.UTF_8)).isEqualTo("{\"candidates\":[]}");
+		assertThat(requests.get()).isEqualTo(3);
+
+		requests.set(0);
+		script.add(400);
+		assertThatThrownBy(() -> client.generateContent("prompt")).isInstanceOf(IOException.class).hasMessageContaining("HTTP 400");
+		assertThat(requests.get()).isEqualTo(1);
+	}
+
+	@Test
+	void slowResponseTimesOutAndIsRetried() throws Exception {
+		GeminiClient client = client(200, 1, 10, 60);
+		script.add(-1000);
+
+		assertThat(new String(client.generateContent("prompt"), StandardCharsets.UTF_8)).isEqualTo("{\"candidates\":[]}");
+		assertThat(requests.get()).isEqualTo(2);
+
+		script.add(-1000);
+		script.add(-1000);
+		assertThatThrownBy(() -> client.generateContent("prompt")).isInstanceOf(HttpTimeoutException.class);
+	}
+
+	@Test
+	void circuitOpensAfterConsecutiveFailuresAndProbesAfterOpenPeriod() throws Exception {
+		GeminiClient client = client(2000, 0, 2, 1);
+		script.add(500);
+		script.add(500);
+		assertThatThrownBy(() -> client.generateContent("prompt")).isInstanceOf(IOException.class);
+		assertThatThrownBy(() -> client.generateContent("prompt")).isInstanceOf(IOException.class);
+		assertThat(client.getCircuitState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+		assertThatThrownBy(() -> client.generateContent("prompt")).isInstanceOf(GeminiClient.CircuitOpenException.class);
+		assertThat(requests.get()).isEqualTo(2);
+
+		Thread.sleep(1100);
+		assertThat(new String(client.generateContent("prompt"), StandardCharsets.UTF_8)).isEqualTo("{\"candidates\":[]}");
+		assertThat(client.getCircuitState()).isEqualTo(CircuitBreaker.State.CLOSED);
+		assertThat(requests.get()).isEqualTo(3);
+	}
+}
@@ -0,0 +1,89 @@
+package com.example.topfoodnow.util;
+
+import com.example.topfoodnow.model.AiRestaurantModel;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 比較舊的三段式解析（整份回應建 JSONObject、正規表示式擷取、再建 JSONArray）與單次串流解析。
+ * 執行：mvn test-compile 後以 test classpath 執行本類別的 main，或在 IDE 直接執行。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeminiResponseParseBenchmark {
+
+	private static final Pattern FENCE = Pattern.compile("```json\\s*\\n([\\s\\S]*?)\\n```");
+
+	// 6 家為正常回應，其餘模擬較長的回應（每家約 250 bytes，含額外欄位）
+	@Param({"6", "60", "400"})
+	int restaurants;
+
+	private final JsonUtil jsonUtil = new JsonUtil();
+	private byte[] response;
+
+	@Setup
+	public void setUp() throws Exception {
+		StringBuilder text = new StringBuilder("```json\n[");
+		for (int i = 0; i < restaurants; i++) {
+			if (i > 0) {
+				text.append(",\n");
+			}
+			text.append("{\"name\": \"餐廳").append(i).append("\", \"address\": \"台北市信義區松仁路").append(i)
+					.append("號\", \"url\": \"https://restaurant-").append(i)
+					.append(".example.com.tw/\", \"description\": \"提供道地台灣小吃與創意料理，適合家庭聚餐\", \"rating\": 4.5}");
+		}
+		text.append("]\n```");
+		response = JsonUtilTest.geminiResponse(text.toString());
+	}
+
+	@Benchmark
+	public List<AiRestaurantModel> legacyThreePass() throws Exception {
+		String body = new String(response, StandardCharsets.UTF_8);
+		String content = new JSONObject(body).getJSONArray("candidates").getJSONObject(0)
+				.getJSONObject("content").getJSONArray("parts").getJSONObject(0).getString("text");
+		Matcher matcher = FENCE.matcher(content);
+		String json = matcher.find() ? matcher.group(1) : content;
+		json = json.replaceAll("[\\p{C}&&[^\t\n\r]]", "").trim();
+		JSONArray array = new JSONArray(json);
+		List<AiRestaurantModel> result = new ArrayList<>(array.length());
+		for (int i = 0; i < array.length(); i++) {
+			JSONObject object = array.getJSONObject(i);
+			result.add(new AiRestaurantModel(object.optString("name", "未知名稱"), object.optString("address", "未知地址"),
+					object.optString("url"), null));
+		}
+		return result;
+	}
+
+	@Benchmark
+	public List<AiRestaurantModel> singlePassStreaming() throws Exception {
+		return jsonUtil.parseGeminiResponse(response);
+	}
+
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder().include(GeminiResponseParseBenchmark.class.getSimpleName()).build()).run();
+	}
+}
@@ -0,0 +1,126 @@
+package com.example.topfoodnow.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HotImageCacheTest {
+
+	@TempDir
+	Path dir;
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	@Test
+	void loadsOnSecondRequestIntoDirectBuffer() throws Exception {
+		HotImageCache cache = new HotImageCache(1024 * 1024, 64 * 1024, registry, "test.cache");
+		Path file = file("a.png", 1000);
+
+		assertThat(cache.get(file)).isEmpty();
+		HotImageCache.Entry loaded = cache.get(file).orElseThrow();
+		HotImageCache.Entry hit = cache.get(file).orElseThrow();
+
+		assertThat(hit).isSameAs(loaded);
+		ByteBuffer content = hit.content();
+		assertThat(content.isDirect()).isTrue();
+		assertThat(content.isReadOnly()).isTrue();
+		assertThat(content.remaining()).isEqualTo(1000);
+		assertThat(content.get(999)).isEqualTo((byte) (999 % 251));
+		assertThat(cache.getResidentBytes()).isEqualTo(1000);
+		assertThat(registry.get("test.cache.requests").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+		assertThat(registry.get("test.cache.requests").tag("result", "miss").functionCounter().count()).isEqualTo(2);
+		assertThat(registry.get("test.cache.hit.ratio").gauge().value()).isEqualTo(1.0 / 3);
+		assertThat(registry.get("test.cache.resident.bytes").gauge().value()).isEqualTo(1000);
+	}
+
+	@Test
+	void evictsRarelyRequestedAndLargeImagesFirst() throws Exception {
+		HotImageCache cache = new HotImageCache(3000, 3000, registry, "test.cache");
+		Path popular = file("popular.png", 1000);
+		Path large = file("large.png", 1500);
+		Path newcomer = file("newcomer.png", 1000);
+
+		for (int i = 0; i < 6; i++) {
+			cache.get(popular);
+		}
+		cache.get(large);
+		cache.get(large);
+		cache.get(newcomer);
+		cache.get(newcomer);
+
+		assertThat(cache.get(popular)).isPresent();
+		assertThat(cache.get(newcomer)).isPresent();
+		assertThat(cache.size()).isEqualTo(2);
+		assertThat(cache.getResidentBytes()).isEqualTo(2000);
+		assertThat(registry.get("test.cache.evictions").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void skipsOversizedFilesAndDropsChangedOrDeletedOnes() throws Exception {
+		HotImageCache cache = new HotImageCache(1024 * 1024, 500, registry, "test.cache");
+		Path big = file("big.png", 600);
+		cache.get(big);
+		assertThat(cache.get(big)).isEmpty();
+
+		Path small = file("small.png", 100);
+		cache.get(small);
+		assertThat(cache.get(small)).isPresent();
+		Files.setLastModifiedTime(small, FileTime.fromMillis(Files.getLastModifiedTime(small).toMillis() + 5000));
+		assertThat(cache.get(small)).isEmpty();
+		assertThat(cache.getResidentBytes()).isZero();
+
+		cache.get(small);
+		Files.delete(small);
+		assertThat(cache.get(small)).isEmpty();
+		assertThat(cache.size()).isZero();
+	}
+
+	@Test
+	void fillingTheCacheKeepsHeapFlat() throws Exception {
+		int files = 16;
+		int fileSize = 1024 * 1024;
+		HotImageCache cache = new HotImageCache((long) files * fileSize, fileSize, registry, "test.cache");
+		List<Path> paths = new ArrayList<>();
+		for (int i = 0; i < files; i++) {
+			paths.add(file("image" + i + ".png", fileSize));
+		}
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		BufferPoolMXBean direct = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+				.filter(pool -> pool.getName().equals("direct"))
+				.findFirst().orElseThrow();
+		long threadId = Thread.currentThread().getId();
+		long heapBefore = threads.getThreadAllocatedBytes(threadId);
+		long directBefore = direct.getMemoryUsed();
+
+		for (Path path : paths) {
+			cache.get(path);
+			assertThat(cache.get(path)).isPresent();
+		}
+
+		long heapAllocated = threads.getThreadAllocatedBytes(threadId) - heapBefore;
+		long directAllocated = direct.getMemoryUsed() - directBefore;
+		assertThat(cache.getResidentBytes()).isEqualTo((long) files * fileSize);
+		// 16 MB 的內容全部放在堆積外，載入過程在堆積上只配置路徑、屬性與緩衝區物件
+		assertThat(directAllocated).isGreaterThanOrEqualTo((long) files * fileSize);
+		assertThat(heapAllocated).isLessThan(fileSize);
+	}
+
+	private Path file(String name, int size) throws Exception {
+		byte[] bytes = new byte[size];
+		for (int i = 0; i < size; i++) {
+			bytes[i] = (byte) (i % 251);
+		}
+		return Files.write(dir.resolve(name), bytes);
+	}
+}
@@ -0,0 +1,78 @@
+package com.example.topfoodnow.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 量測每秒可為幾張原圖產生全部尺寸（縮圖、卡片、詳細頁），以決定 image.variant.threads。
+ * 1280x800 為網站截圖，4032x3024 為手機拍攝的上傳照片。
+ * 執行：mvn test-compile 後以 test classpath 執行本類別的 main，或在 IDE 直接執行；加上 -t N 可量測 N 個線程同時處理的總吞吐量。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageVariantBenchmark {
+
+	@Param({"1280x800", "4032x3024"})
+	String size;
+
+	private Path baseDir;
+	private Path original;
+	private ImageVariantUtil util;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		String[] dimensions = size.split("x");
+		baseDir = Files.createTempDirectory("variant-bench");
+		original = ImageVariantUtilTest.png(baseDir.resolve("uploads/original.png"),
+				Integer.parseInt(dimensions[0]), Integer.parseInt(dimensions[1]));
+		util = new ImageVariantUtil(baseDir.toString(), 1, 1, 0.8f, 50_000_000L, new SimpleMeterRegistry());
+	}
+
+	@Setup(Level.Invocation)
+	public void deleteVariants() throws Exception {
+		for (String name : ImageVariantUtil.variantFileNames(original.getFileName().toString())) {
+			Files.deleteIfExists(original.resolveSibling(name));
+		}
+	}
+
+	@Benchmark
+	public boolean generateAllSizes() throws Exception {
+		return util.generate(original);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		util.shutdown();
+		try (Stream<Path> files = Files.walk(baseDir)) {
+			files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder().include(ImageVariantBenchmark.class.getSimpleName()).build()).run();
+	}
+}
@@ -0,0 +1,144 @@
+package com.example.topfoodnow.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageVariantUtilTest {
+
+	@TempDir
+	Path baseDir;
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private ImageVariantUtil util;
+
+	@AfterEach
+	void tearDown() {
+		util.shutdown();
+	}
+
+	@Test
+	void generatesDownscaledJpegVariantsNextToOriginal() throws Exception {
+		util = new ImageVariantUtil(baseDir.toString(), 1, 10, 0.8f, 50_000_000L, registry);
+		Path original = png(baseDir.resolve("screenshots/abc-1.png"), 1280, 800);
+
+		assertThat(util.generate(original)).isTrue();
+
+		assertThat(width(baseDir.resolve("screenshots/abc-1_detail.jpg"))).isEqualTo(1024);
+		assertThat(width(baseDir.resolve("screenshots/abc-1_card.jpg"))).isEqualTo(480);
+		assertThat(width(baseDir.resolve("screenshots/abc-1_thumb.jpg"))).isEqualTo(160);
+		assertThat(Files.size(baseDir.resolve("screenshots/abc-1_card.jpg"))).isLessThan(Files.size(original));
+		assertThat(registry.get("image.variant.generate").tag("outcome", "success").timer().count()).isEqualTo(1);
+	}
+
+	@Test
+	void neverUpscalesSmallImages() throws Exception {
+		util = new ImageVariantUtil(baseDir.toString(), 1, 10, 0.8f, 50_000_000L, registry);
+		Path original = png(baseDir.resolve("uploads/small.png"), 300, 200);
+
+		util.generate(original);
+
+		assertThat(width(baseDir.resolve("uploads/small_detail.jpg"))).isEqualTo(300);
+		assertThat(width(baseDir.resolve("uploads/small_card.jpg"))).isEqualTo(300);
+		assertThat(width(baseDir.resolve("uploads/small_thumb.jpg"))).isEqualTo(160);
+	}
+
+	@Test
+	void rejectsImagesOverPixelLimitWithoutDecoding() throws Exception {
+		util = new ImageVariantUtil(baseDir.toString(), 1, 10, 0.8f, 50_000_000L, registry);
+		// 只有標頭的 PNG，宣稱 100000x100000；若被完整解碼會需要數十 GB
+		Path bomb = pngHeader(baseDir.resolve("uploads/bomb.png"), 100_000, 100_000);
+
+		assertThat(util.generate(bomb)).isFalse();
+
+		assertThat(baseDir.resolve("uploads/bomb_thumb.jpg")).doesNotExist();
+		assertThat(registry.get("image.variant.generate").tag("outcome", "oversized").timer().count()).isEqualTo(1);
+	}
+
+	@Test
+	void subsamplesVeryWideImagesWhileDecoding() throws Exception {
+		util = new ImageVariantUtil(baseDir.toString(), 1, 10, 0.8f, 50_000_000L, registry);
+		Path original = png(baseDir.resolve("uploads/wide.png"), 4200, 300);
+
+		assertThat(util.generate(original)).isTrue();
+
+		assertThat(width(baseDir.resolve("uploads/wide_detail.jpg"))).isEqualTo(1024);
+		assertThat(width(baseDir.resolve("uploads/wide_thumb.jpg"))).isEqualTo(160);
+	}
+
+	@Test
+	void templateUrlFallsBackToOriginalUntilVariantExists() throws Exception {
+		util = new ImageVariantUtil(baseDir.toString(), 1, 10, 0.8f, 50_000_000L, registry);
+		png(baseDir.resolve("uploads/photo.png"), 800, 600);
+
+		assertThat(util.url("/dynamic-content/uploads/photo.png", "card")).isEqualTo("/dynamic-content/uploads/photo.png");
+		for (int i = 0; i < 100 && !Files.exists(baseDir.resolve("uploads/photo_card.jpg")); i++) {
+			Thread.sleep(20);
+		}
+		assertThat(util.url("/dynamic-content/uploads/photo.png", "card")).isEqualTo("/dynamic-content/uploads/photo_card.jpg");
+		assertThat(util.url("/dynamic-content/../secret.png", "card")).isEqualTo("/dynamic-content/../secret.png");
+		assertThat(util.url("https://example.com/a.png", "card")).isEqualTo("https://example.com/a.png");
+		assertThat(util.url(null, "card")).isNull();
+		assertThat(ImageVariantUtil.variantFileNames("abc-1.png"))
+				.containsExactly("abc-1_thumb.jpg", "abc-1_card.jpg", "abc-1_detail.jpg");
+	}
+
+	@Test
+	void originalsThatCannotProduceVariantsAreNotRequeued() throws Exception {
+		util = new ImageVariantUtil(baseDir.toString(), 1, 10, 0.8f, 50_000_000L, registry);
+		Files.createDirectories(baseDir.resolve("uploads"));
+		Files.write(baseDir.resolve("uploads/photo.webp"), "RIFF\0\0\0\0WEBPVP8 ".getBytes(StandardCharsets.ISO_8859_1));
+		pngHeader(baseDir.resolve("uploads/bomb.png"), 100_000, 100_000);
+
+		for (int i = 0; i < 5; i++) {
+			assertThat(util.url("/dynamic-content/uploads/photo.webp", "card")).isEqualTo("/dynamic-content/uploads/photo.webp");
+			assertThat(util.url("/dynamic-content/uploads/bomb.png", "card")).isEqualTo("/dynamic-content/uploads/bomb.png");
+			Thread.sleep(50);
+		}
+
+		assertThat(registry.get("image.variant.generate").tag("outcome", "unsupported").timer().count()).isEqualTo(1);
+		assertThat(registry.get("image.variant.generate").tag("outcome", "oversized").timer().count()).isEqualTo(1);
+	}
+
+	static Path png(Path path, int width, int height) throws Exception {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D graphics = image.createGraphics();
+		graphics.setColor(new Color(200, 60, 40));
+		graphics.fillRect(0, 0, width / 2, height);
+		graphics.setColor(new Color(30, 120, 200, 128));
+		graphics.fillOval(width / 4, height / 4, width / 2, height / 2);
+		graphics.dispose();
+		Files.createDirectories(path.getParent());
+		ImageIO.write(image, "png", path.toFile());
+		return path;
+	}
+
+	private static Path pngHeader(Path path, int width, int height) throws Exception {
+		ByteBuffer ihdr = ByteBuffer.allocate(17).put("IHDR".getBytes(StandardCharsets.US_ASCII))
+				.putInt(width).putInt(height).put(new byte[]{8, 2, 0, 0, 0});
+		CRC32 crc = new CRC32();
+		crc.update(ihdr.array());
+		ByteBuffer png = ByteBuffer.allocate(8 + 4 + 17 + 4)
+				.put(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'})
+				.putInt(13).put(ihdr.array()).putInt((int) crc.getValue());
+		Files.createDirectories(path.getParent());
+		return Files.write(path, png.array());
+	}
+
+	private static int width(Path path) throws Exception {
+		return ImageIO.read(path.toFile()).getWidth();
+	}
+}
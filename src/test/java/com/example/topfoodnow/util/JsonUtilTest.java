@@ -0,0 +1,64 @@
+package com.example.topfoodnow.util;
+
+import com.example.topfoodnow.model.AiRestaurantModel;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JsonUtilTest {
+
+	private final JsonUtil jsonUtil = new JsonUtil();
+
+	// 以 Jackson 組出真實結構的 Gemini 回應，text 內的引號與換行會被正確跳脫
+	static byte[] geminiResponse(String text) throws IOException {
+		Map<String, Object> response = Map.of(
+				"modelVersion", "gemini-1.5-flash",
+				"candidates", List.of(Map.of(
+						"finishReason", "STOP",
+						"safetyRatings", List.of(Map.of("category", "HARM_CATEGORY_HATE_SPEECH", "probability", "NEGLIGIBLE")),
+						"content", Map.of("role", "model", "parts", List.of(Map.of("text", text))))),
+				"usageMetadata", Map.of("promptTokenCount", 120));
+		return new ObjectMapper().writeValueAsBytes(response);
+	}
+
+	@Test
+	void extractsRestaurantsFromFencedText() throws Exception {
+		String text = "```json\n[{\"name\": \"鼎泰豐\", \"address\": \"台北市信義路二段22號\", \"url\": \"https://www.dintaifung.com.tw/\", \"tags\": [\"小籠包\"]},\n"
+				+ "{\"name\": \"\u200b阿宗麵線\", \"address\": \"台北市峨眉街8號\"}]\n```";
+
+		List<AiRestaurantModel> restaurants = jsonUtil.parseGeminiResponse(geminiResponse(text));
+
+		assertThat(restaurants).extracting(AiRestaurantModel::getName).containsExactly("鼎泰豐", "阿宗麵線");
+		assertThat(restaurants.get(0).getUrl()).isEqualTo("https://www.dintaifung.com.tw/");
+		assertThat(restaurants.get(1).getUrl()).isEmpty();
+	}
+
+	@Test
+	void toleratesPlainArrayAndSurroundingProse() throws Exception {
+		String text = "以下是推薦：\n[{\"name\": \"饒河夜市\", \"address\": null, \"url\": \"https://example.com\"}]\n祝用餐愉快";
+
+		List<AiRestaurantModel> restaurants = jsonUtil.parseGeminiResponse(geminiResponse(text));
+
+		assertThat(restaurants).singleElement().satisfies(r -> {
+			assertThat(r.getName()).isEqualTo("饒河夜市");
+			assertThat(r.getAddress()).isEqualTo("未知地址");
+		});
+	}
+
+	@Test
+	void rejectsResponsesWithoutRestaurantArray() {
+		assertThatThrownBy(() -> jsonUtil.parseGeminiResponse("{\"candidates\":[]}".getBytes(StandardCharsets.UTF_8)))
+				.isInstanceOf(IOException.class);
+		assertThatThrownBy(() -> jsonUtil.parseGeminiResponse(geminiResponse("抱歉，我無法提供推薦。")))
+				.isInstanceOf(IOException.class);
+		assertThatThrownBy(() -> jsonUtil.parseGeminiResponse(geminiResponse("[{\"name\": \"未結束\"")))
+				.isInstanceOf(IOException.class);
+	}
+}
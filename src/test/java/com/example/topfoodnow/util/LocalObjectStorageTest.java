@@ -0,0 +1,63 @@
+package com.example.topfoodnow.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LocalObjectStorageTest {
+
+	@TempDir
+	Path root;
+
+	@TempDir
+	Path sourceDir;
+
+	@Test
+	void putsReadsStatsAndDeletesObjects() throws Exception {
+		LocalObjectStorage storage = new LocalObjectStorage(root);
+		Path source = Files.write(sourceDir.resolve("photo.jpg"), new byte[]{1, 2, 3});
+
+		storage.put("uploads/abc.jpg", source, "image/jpeg");
+
+		assertThat(source).exists();
+		assertThat(storage.stat("uploads/abc.jpg")).get().satisfies(info -> {
+			assertThat(info.getSize()).isEqualTo(3);
+			assertThat(info.getContentType()).isEqualTo("image/jpeg");
+		});
+		try (InputStream in = storage.get("uploads/abc.jpg").orElseThrow()) {
+			assertThat(in.readAllBytes()).containsExactly(1, 2, 3);
+		}
+		try (var files = Files.list(root.resolve("uploads"))) {
+			assertThat(files).hasSize(1);
+		}
+
+		storage.delete("uploads/abc.jpg");
+		assertThat(storage.stat("uploads/abc.jpg")).isEmpty();
+		assertThat(storage.get("uploads/abc.jpg")).isEmpty();
+	}
+
+	@Test
+	void putOfFileAlreadyAtKeyIsNoOp() throws Exception {
+		LocalObjectStorage storage = new LocalObjectStorage(root);
+		Path file = Files.write(Files.createDirectories(root.resolve("uploads")).resolve("abc.png"), new byte[]{9});
+
+		storage.put("uploads/abc.png", file, "image/png");
+
+		assertThat(file).hasBinaryContent(new byte[]{9});
+	}
+
+	@Test
+	void rejectsKeysOutsideRoot() throws Exception {
+		LocalObjectStorage storage = new LocalObjectStorage(root);
+
+		assertThatThrownBy(() -> storage.get("../secret.jpg")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> storage.stat("/etc/passwd")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> storage.delete("uploads//a.jpg")).isInstanceOf(IllegalArgumentException.class);
+	}
+}
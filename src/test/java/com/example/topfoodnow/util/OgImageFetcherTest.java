@@ -0,0 +1,220 @@
+package com.example.topfoodnow.util;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OgImageFetcherTest {
+
+	static final byte[] JPEG = new byte[4096];
+
+	static {
+		JPEG[0] = (byte) 0xff;
+		JPEG[1] = (byte) 0xd8;
+		JPEG[2] = (byte) 0xff;
+	}
+
+	private HttpServer server;
+	private String baseUrl;
+	private final AtomicInteger bodyBytesSent = new AtomicInteger();
+
+	@BeforeEach
+	void startServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+		html("/og", "<html><head><meta property=\"og:title\" content=\"鼎泰豐\">"
+				+ "<meta name='twitter:image' content='/images/twitter.jpg'>"
+				+ "<meta content=\"/images/hero.jpg?w=1200&amp;h=630\" property=\"og:image\"></head><body>菜單</body></html>");
+		html("/none", "<html><head><title>沒有圖片</title></head><body></body></html>");
+		html("/tiny", "<html><head><meta property=\"og:image\" content=\"/images/pixel.gif\"></head></html>");
+		server.createContext("/huge", exchange -> {
+			exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+			exchange.sendResponseHeaders(200, 0);
+			try {
+				byte[] head = "<html><head><meta property=\"og:image\" content=\"/images/hero.jpg\"></head><body>"
+						.getBytes(StandardCharsets.UTF_8);
+				exchange.getResponseBody().write(head);
+				byte[] filler = "<p>很長的網頁內容</p>".repeat(1000).getBytes(StandardCharsets.UTF_8);
+				for (int i = 0; i < 200; i++) {
+					exchange.getResponseBody().write(filler);
+					bodyBytesSent.addAndGet(filler.length);
+				}
+			} catch (IOException e) {
+				// 用戶端讀完 head 後中斷連線
+			}
+			exchange.close();
+		});
+		server.createContext("/images/hero.jpg", exchange -> {
+			exchange.getResponseHeaders().set("Content-Type", "image/jpeg");
+			exchange.sendResponseHeaders(200, JPEG.length);
+			exchange.getResponseBody().write(JPEG);
+			exchange.close();
+		});
+		// Content-Type 宣稱是圖片，內容其實是 HTML
+		server.createContext("/images/fake.jpg", exchange -> {
+			byte[] bytes = "<html>".repeat(500).getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "image/jpeg");
+			exchange.sendResponseHeaders(200, bytes.length);
+			exchange.getResponseBody().write(bytes);
+			exchange.close();
+		});
+		html("/fake", "<html><head><meta property=\"og:image\" content=\"/images/fake.jpg\"></head></html>");
+		redirect("/moved", "/og");
+		redirect("/to-metadata", "http://169.254.169.254/latest/meta-data/");
+		redirect("/to-file", "file:///etc/passwd");
+		redirect("/loop", "/loop");
+		html("/og-metadata", "<html><head><meta property=\"og:image\" content=\"http://169.254.169.254/a.jpg\"></head></html>");
+		// 標頭立刻送出，內容每 100 ms 才送一個位元組
+		server.createContext("/slow", exchange -> {
+			exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+			exchange.sendResponseHeaders(200, 0);
+			try {
+				for (int i = 0; i < 100; i++) {
+					exchange.getResponseBody().write('<');
+					exchange.getResponseBody().flush();
+					Thread.sleep(100);
+				}
+			} catch (IOException | InterruptedException e) {
+				// 用戶端逾時後中斷連線
+			}
+			exchange.close();
+		});
+		server.createContext("/images/pixel.gif", exchange -> {
+			exchange.getResponseHeaders().set("Content-Type", "image/gif");
+			exchange.sendResponseHeaders(200, 43);
+			exchange.getResponseBody().write(new byte[43]);
+			exchange.close();
+		});
+		server.start();
+	}
+
+	private void html(String path, String body) {
+		server.createContext(path, exchange -> {
+			byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+			exchange.sendResponseHeaders(200, bytes.length);
+			exchange.getResponseBody().write(bytes);
+			exchange.close();
+		});
+	}
+
+	private void redirect(String path, String location) {
+		server.createContext(path, exchange -> {
+			exchange.getResponseHeaders().set("Location", location);
+			exchange.sendResponseHeaders(302, -1);
+			exchange.close();
+		});
+	}
+
+	private static OgImageFetcher fetcher(long maxImageBytes) {
+		return fetcher(Duration.ofSeconds(2), maxImageBytes);
+	}
+
+	// 只放行本機測試伺服器的迴路位址，其餘仍依正式規則檢查
+	private static OgImageFetcher fetcher(Duration timeout, long maxImageBytes) {
+		return new OgImageFetcher(timeout, maxImageBytes,
+				address -> address.isLoopbackAddress() || OgImageFetcher.isPublicAddress(address));
+	}
+
+	@AfterEach
+	void stopServer() {
+		server.stop(0);
+	}
+
+	@Test
+	void prefersOgImageAndResolvesRelativeUrl() throws Exception {
+		OgImageFetcher fetcher = fetcher(1024 * 1024);
+
+		Optional<OgImageFetcher.FetchedImage> image = fetcher.fetch(baseUrl + "/og");
+
+		assertThat(image).isPresent();
+		assertThat(image.get().getExtension()).isEqualTo("jpg");
+		assertThat(Files.size(image.get().getFile())).isEqualTo(JPEG.length);
+		Files.delete(image.get().getFile());
+		assertThat(OgImageFetcher.findImageUrl("<meta content=\"/a.jpg?w=1&amp;h=2\" property=\"og:image\">"))
+				.contains("/a.jpg?w=1&h=2");
+	}
+
+	@Test
+	void returnsEmptyWithoutUsableImage() {
+		OgImageFetcher fetcher = fetcher(1024 * 1024);
+
+		assertThat(fetcher.fetch(baseUrl + "/none")).isEmpty();
+		assertThat(fetcher.fetch(baseUrl + "/tiny")).isEmpty();
+		assertThat(fetcher.fetch(baseUrl + "/missing")).isEmpty();
+		assertThat(fetcher(1024).fetch(baseUrl + "/og")).isEmpty();
+	}
+
+	@Test
+	void stopsReadingAfterHead() throws Exception {
+		OgImageFetcher fetcher = fetcher(1024 * 1024);
+
+		Optional<OgImageFetcher.FetchedImage> image = fetcher.fetch(baseUrl + "/huge");
+
+		assertThat(image).isPresent();
+		Files.delete(image.get().getFile());
+		// 用戶端讀完 head 就關閉連線，伺服器端送不完整份網頁
+		long fullPage = 200L * 1000 * "<p>很長的網頁內容</p>".getBytes(StandardCharsets.UTF_8).length;
+		assertThat((long) bodyBytesSent.get()).isLessThan(fullPage / 2);
+	}
+
+	@Test
+	void slowBodyIsCutOffAtTimeout() {
+		OgImageFetcher fetcher = fetcher(Duration.ofMillis(500), 1024 * 1024);
+
+		long start = System.nanoTime();
+		assertThat(fetcher.fetch(baseUrl + "/slow")).isEmpty();
+		assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(3));
+	}
+
+	@Test
+	void followsRedirectsOnlyToAllowedTargets() throws Exception {
+		OgImageFetcher fetcher = fetcher(1024 * 1024);
+
+		Optional<OgImageFetcher.FetchedImage> image = fetcher.fetch(baseUrl + "/moved");
+		assertThat(image).isPresent();
+		Files.delete(image.get().getFile());
+
+		assertThat(fetcher.fetch(baseUrl + "/to-metadata")).isEmpty();
+		assertThat(fetcher.fetch(baseUrl + "/to-file")).isEmpty();
+		assertThat(fetcher.fetch(baseUrl + "/loop")).isEmpty();
+		assertThat(fetcher.fetch(baseUrl + "/og-metadata")).isEmpty();
+		assertThat(fetcher.fetch("ftp://127.0.0.1/og")).isEmpty();
+	}
+
+	@Test
+	void productionFetcherRejectsNonPublicAddresses() throws Exception {
+		assertThat(new OgImageFetcher(Duration.ofSeconds(2), 1024 * 1024).fetch(baseUrl + "/og")).isEmpty();
+
+		for (String address : new String[]{"127.0.0.1", "10.1.2.3", "172.16.0.1", "192.168.1.1", "169.254.169.254",
+				"100.64.0.1", "0.0.0.0", "::1", "fe80::1", "fd00::1", "::ffff:127.0.0.1", "224.0.0.1"}) {
+			assertThat(OgImageFetcher.isPublicAddress(InetAddress.getByName(address))).as(address).isFalse();
+		}
+		assertThat(OgImageFetcher.isPublicAddress(InetAddress.getByName("8.8.8.8"))).isTrue();
+		assertThat(OgImageFetcher.isPublicAddress(InetAddress.getByName("2001:4860:4860::8888"))).isTrue();
+	}
+
+	@Test
+	void detectsFormatFromContentInsteadOfContentType() {
+		OgImageFetcher fetcher = fetcher(1024 * 1024);
+
+		assertThat(fetcher.fetch(baseUrl + "/fake")).isEmpty();
+		assertThat(OgImageFetcher.sniffExtension(JPEG)).isEqualTo("jpg");
+		assertThat(OgImageFetcher.sniffExtension("GIF89a......".getBytes(StandardCharsets.ISO_8859_1))).isEqualTo("gif");
+		assertThat(OgImageFetcher.sniffExtension("RIFF\0\0\0\0WEBP".getBytes(StandardCharsets.ISO_8859_1))).isEqualTo("webp");
+		assertThat(OgImageFetcher.sniffExtension(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'})).isEqualTo("png");
+		assertThat(OgImageFetcher.sniffExtension("<svg".getBytes(StandardCharsets.ISO_8859_1))).isNull();
+	}
+}
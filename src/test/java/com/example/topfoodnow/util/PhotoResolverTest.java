@@ -0,0 +1,128 @@
+package com.example.topfoodnow.util;
+
+import com.example.topfoodnow.model.AiRestaurantModel;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+
+import java.io.File;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+class PhotoResolverTest {
+
+	@TempDir
+	Path dir;
+
+	private HttpServer server;
+	private String baseUrl;
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final AtomicInteger driversCreated = new AtomicInteger();
+
+	@BeforeEach
+	void startServer() throws Exception {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+		page("/with-og", "<html><head><meta property=\"og:image\" content=\"/hero.png\"></head><body></body></html>");
+		page("/without-og", "<html><head><title>小店</title></head><body></body></html>");
+		server.createContext("/hero.png", exchange -> {
+			exchange.getResponseHeaders().set("Content-Type", "image/png");
+			byte[] png = new byte[2048];
+			System.arraycopy(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'}, 0, png, 0, 8);
+			exchange.sendResponseHeaders(200, png.length);
+			exchange.getResponseBody().write(png);
+			exchange.close();
+		});
+		server.start();
+	}
+
+	private void page(String path, String body) {
+		server.createContext(path, exchange -> {
+			byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "text/html");
+			exchange.sendResponseHeaders(200, bytes.length);
+			exchange.getResponseBody().write(bytes);
+			exchange.close();
+		});
+	}
+
+	@AfterEach
+	void stopServer() {
+		server.stop(0);
+	}
+
+	// 以 mock 取代 Chrome，截圖內容為固定的暫存檔
+	private WebDriver fakeChrome() {
+		driversCreated.incrementAndGet();
+		WebDriver driver = mock(WebDriver.class, withSettings().extraInterfaces(TakesScreenshot.class).defaultAnswer(RETURNS_DEEP_STUBS));
+		when(((TakesScreenshot) driver).getScreenshotAs(any())).thenAnswer(invocation -> {
+			File file = Files.createTempFile("shot", ".png").toFile();
+			Files.write(file.toPath(), new byte[100]);
+			return file;
+		});
+		return driver;
+	}
+
+	private PhotoResolver resolver() throws Exception {
+		ScreenshotCache cache = new ScreenshotCache(dir, Duration.ofHours(1), Long.MAX_VALUE);
+		WebDriverPool pool = new WebDriverPool(1, 10, this::fakeChrome);
+		return new PhotoResolver(cache, "screenshots", new OgImageFetcher(Duration.ofSeconds(2), 1024 * 1024, InetAddress::isLoopbackAddress), pool, null, registry);
+	}
+
+	private static AiRestaurantModel restaurant(String url) {
+		AiRestaurantModel restaurant = new AiRestaurantModel();
+		restaurant.setName("測試餐廳");
+		restaurant.setUrl(url);
+		return restaurant;
+	}
+
+	private long resolvedBy(String tier) {
+		return registry.find("photo.resolve").tag("tier", tier).timers().stream().mapToLong(t -> t.count()).sum();
+	}
+
+	@Test
+	void usesOgImageWithoutLaunchingChromeAndCachesIt() throws Exception {
+		PhotoResolver resolver = resolver();
+
+		AiRestaurantModel first = resolver.resolve(restaurant(baseUrl + "/with-og"));
+		AiRestaurantModel second = resolver.resolve(restaurant(baseUrl + "/with-og/"));
+
+		assertThat(first.getPhotoUrl()).startsWith("/dynamic-content/screenshots/").endsWith(".png");
+		assertThat(second.getPhotoUrl()).isEqualTo(first.getPhotoUrl());
+		assertThat(driversCreated.get()).isZero();
+		assertThat(resolvedBy("og_image")).isEqualTo(1);
+		assertThat(resolvedBy("cache")).isEqualTo(1);
+	}
+
+	@Test
+	void fallsBackToScreenshotWhenPageHasNoImage() throws Exception {
+		PhotoResolver resolver = resolver();
+
+		AiRestaurantModel result = resolver.resolve(restaurant(baseUrl + "/without-og"));
+
+		assertThat(result.getPhotoUrl()).startsWith("/dynamic-content/screenshots/");
+		assertThat(driversCreated.get()).isEqualTo(1);
+		assertThat(resolvedBy("screenshot")).isEqualTo(1);
+		assertThat(registry.get("photo.tier").tag("tier", "og_image").tag("outcome", "not_found").timer().count()).isEqualTo(1);
+
+		assertThat(resolver.resolve(restaurant(" ")).getPhotoUrl()).contains("No+URL");
+		assertThat(resolvedBy("placeholder")).isEqualTo(1);
+	}
+}
@@ -0,0 +1,88 @@
+package com.example.topfoodnow.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RandomIdPoolTest {
+
+	@Test
+	void samplesDistinctIdsAndLoadsOnce() {
+		AtomicInteger loads = new AtomicInteger();
+		RandomIdPool pool = new RandomIdPool(() -> {
+			loads.incrementAndGet();
+			return new long[]{1, 2, 3, 4, 5};
+		});
+
+		long[] sample = pool.sample(3);
+		long[] all = pool.sample(10);
+
+		assertThat(sample).hasSize(3).doesNotHaveDuplicates();
+		assertThat(Arrays.stream(sample).allMatch(id -> id >= 1 && id <= 5)).isTrue();
+		assertThat(all).containsExactlyInAnyOrder(1, 2, 3, 4, 5);
+		assertThat(loads).hasValue(1);
+	}
+
+	@Test
+	void ignoresChangesBeforeFirstLoadAndTracksThemAfterwards() {
+		RandomIdPool pool = new RandomIdPool(() -> new long[]{1, 2});
+		pool.add(7);
+		assertThat(pool.sample(10)).containsExactlyInAnyOrder(1, 2);
+
+		pool.add(3);
+		pool.remove(1);
+		pool.remove(42);
+
+		assertThat(pool.sample(10)).containsExactlyInAnyOrder(2, 3);
+		assertThat(pool.size()).isEqualTo(2);
+	}
+
+	@Test
+	void appliesChangesCommittedWhileLoading() {
+		AtomicReference<RandomIdPool> poolRef = new AtomicReference<>();
+		// 查詢在交易提交前開始：結果沒有 9、仍有 2，且 3 已被查到
+		RandomIdPool pool = new RandomIdPool(() -> {
+			poolRef.get().add(9);
+			poolRef.get().add(3);
+			poolRef.get().remove(2);
+			return new long[]{1, 2, 3};
+		});
+		poolRef.set(pool);
+
+		long[] ids = pool.sample(10);
+
+		assertThat(ids).containsExactlyInAnyOrder(1, 3, 9);
+	}
+
+	@Test
+	void invalidateReloadsAndDiscardsLoadInProgress() {
+		AtomicInteger loads = new AtomicInteger();
+		AtomicReference<RandomIdPool> poolRef = new AtomicReference<>();
+		RandomIdPool pool = new RandomIdPool(() -> {
+			if (loads.incrementAndGet() == 1) {
+				poolRef.get().invalidate();
+				return new long[]{1};
+			}
+			return new long[]{1, 2};
+		});
+		poolRef.set(pool);
+
+		assertThat(pool.sample(10)).containsExactlyInAnyOrder(1, 2);
+		pool.invalidate();
+		assertThat(pool.sample(10)).containsExactlyInAnyOrder(1, 2);
+		assertThat(loads).hasValue(3);
+	}
+
+	@Test
+	void packsCompositeKeys() {
+		long packed = RandomIdPool.pack(7, -3);
+
+		assertThat(RandomIdPool.high(packed)).isEqualTo(7);
+		assertThat(RandomIdPool.low(packed)).isEqualTo(-3);
+		assertThat(Arrays.stream(new long[]{RandomIdPool.pack(1, 2), RandomIdPool.pack(2, 1)}).distinct()).hasSize(2);
+	}
+}
@@ -0,0 +1,88 @@
+package com.example.topfoodnow.util;
+
+import com.example.topfoodnow.model.AiRestaurantModel;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 比較共用瀏覽器工作階段與每個任務各自啟動 Chrome 的截圖耗時，頁面由本機 HTTP 伺服器提供。
+ * 需要本機安裝 Chrome，預設不執行：mvn test -Dtest=ScreenshotBenchmarkTest -Dscreenshot.benchmark=true
+ */
+@EnabledIfSystemProperty(named = "screenshot.benchmark", matches = "true")
+class ScreenshotBenchmarkTest {
+
+	private static final int PAGES = 24;
+	private static final int THREADS = 4;
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void pooledDriversAreFasterThanPerTaskDrivers() throws Exception {
+		HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", exchange -> {
+			byte[] body = ("<html><body><h1>" + exchange.getRequestURI().getPath() + "</h1></body></html>")
+					.getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+			exchange.sendResponseHeaders(200, body.length);
+			exchange.getResponseBody().write(body);
+			exchange.close();
+		});
+		server.start();
+		try {
+			String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/store/";
+			// 預熱：下載 chromedriver 並讓作業系統快取 Chrome 執行檔
+			run(baseUrl, 1, 1, PAGES);
+
+			long perTask = run(baseUrl, 1, THREADS, PAGES);
+			long pooled = run(baseUrl, PAGES, THREADS, PAGES);
+			System.out.printf("截圖 %d 頁（%d 線程）：每任務啟動 Chrome %d ms，共用工作階段 %d ms%n",
+					PAGES, THREADS, perTask, pooled);
+			assertThat(pooled).isLessThan(perTask);
+		} finally {
+			server.stop(0);
+		}
+	}
+
+	// maxUses 為 1 時等同每個任務各自啟動與關閉瀏覽器
+	private long run(String baseUrl, int maxUses, int threads, int pages) throws Exception {
+		WebDriverPool pool = new WebDriverPool(threads, maxUses, WebDriverPool.chromeDriverFactory(Duration.ofSeconds(30)));
+		// 每輪使用新的快取目錄，確保每一頁都實際截圖
+		ScreenshotCache cache = new ScreenshotCache(Files.createTempDirectory(tempDir, "run"), Duration.ofHours(1), Long.MAX_VALUE);
+		PhotoResolver resolver = new PhotoResolver(cache, "bench", null, pool, null, new SimpleMeterRegistry());
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			long start = System.nanoTime();
+			List<Future<AiRestaurantModel>> futures = new ArrayList<>();
+			for (int i = 0; i < pages; i++) {
+				AiRestaurantModel restaurant = new AiRestaurantModel();
+				restaurant.setName("store-" + i);
+				restaurant.setUrl(baseUrl + i);
+				futures.add(executor.submit(() -> resolver.resolve(restaurant)));
+			}
+			for (Future<AiRestaurantModel> future : futures) {
+				assertThat(future.get().getPhotoUrl()).startsWith("/dynamic-content/bench/");
+			}
+			return (System.nanoTime() - start) / 1_000_000;
+		} finally {
+			executor.shutdownNow();
+			pool.shutdown();
+		}
+	}
+}
@@ -0,0 +1,153 @@
+package com.example.topfoodnow.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScreenshotCacheTest {
+
+	@TempDir
+	Path dir;
+
+	private Path png(int size) throws Exception {
+		Path file = Files.createTempFile("shot", ".png");
+		Files.write(file, new byte[size]);
+		return file;
+	}
+
+	@Test
+	void normalizesEquivalentUrlsToSameEntry() {
+		assertThat(ScreenshotCache.normalizeUrl("https://www.DinTaiFung.com.tw/"))
+				.isEqualTo(ScreenshotCache.normalizeUrl("http://dintaifung.com.tw"))
+				.isEqualTo(ScreenshotCache.normalizeUrl("dintaifung.com.tw/#menu"))
+				.isEqualTo(ScreenshotCache.normalizeUrl("https://dintaifung.com.tw:443/?utm_source=gemini"));
+		assertThat(ScreenshotCache.normalizeUrl("https://example.com/?b=2&a=1"))
+				.isEqualTo(ScreenshotCache.normalizeUrl("https://example.com?a=1&b=2"))
+				.isNotEqualTo(ScreenshotCache.normalizeUrl("https://example.com/?a=1"));
+	}
+
+	@Test
+	void reusesStoredScreenshotAcrossRestarts() throws Exception {
+		ScreenshotCache cache = new ScreenshotCache(dir, Duration.ofHours(1), 10_000);
+		assertThat(cache.lookup("https://www.dintaifung.com.tw/")).isEmpty();
+
+		String fileName = cache.store("https://www.dintaifung.com.tw/", png(100));
+		assertThat(cache.lookup("https://dintaifung.com.tw")).contains(fileName);
+
+		ScreenshotCache restarted = new ScreenshotCache(dir, Duration.ofHours(1), 10_000);
+		assertThat(restarted.lookup("https://dintaifung.com.tw")).contains(fileName);
+		assertThat(restarted.getTotalBytes()).isEqualTo(100);
+	}
+
+	@Test
+	void expiredScreenshotIsReplacedOnRecapture() throws Exception {
+		ScreenshotCache cache = new ScreenshotCache(dir, Duration.ZERO, 10_000);
+		String first = cache.store("https://example.com", png(100));
+		Thread.sleep(5);
+
+		assertThat(cache.lookup("https://example.com")).isEmpty();
+		String second = cache.store("https://example.com", png(120));
+
+		assertThat(second).isNotEqualTo(first);
+		assertThat(dir.resolve(first)).doesNotExist();
+		assertThat(dir.resolve(second)).exists();
+		assertThat(cache.size()).isEqualTo(1);
+		assertThat(cache.getTotalBytes()).isEqualTo(120);
+	}
+
+	@Test
+	void keepsSupersededScreenshotsUntilRetentionPasses(@TempDir Path remoteDir) throws Exception {
+		LocalObjectStorage remote = new LocalObjectStorage(remoteDir);
+		ScreenshotCache cache = new ScreenshotCache(dir, Duration.ZERO, 10_000, Duration.ofMillis(200), remote, "screenshots/");
+		String first = cache.store("https://example.com", png(100));
+		Thread.sleep(5);
+		String second = cache.store("https://example.com", png(120));
+
+		// 仍在提供的舊結果引用的 photoUrl 不會立即失效
+		assertThat(dir.resolve(first)).exists();
+		assertThat(remote.stat("screenshots/" + first)).isPresent();
+		assertThat(cache.getSupersededCount()).isEqualTo(1);
+		assertThat(cache.getTotalBytes()).isEqualTo(220);
+
+		ScreenshotCache restarted = new ScreenshotCache(dir, Duration.ZERO, 10_000, Duration.ofMillis(200), remote, "screenshots/");
+		assertThat(restarted.getSupersededCount()).isEqualTo(1);
+		assertThat(dir.resolve(first)).exists();
+
+		Thread.sleep(250);
+		restarted.store("https://other.example.com", png(50));
+
+		assertThat(dir.resolve(first)).doesNotExist();
+		assertThat(remote.stat("screenshots/" + first)).isEmpty();
+		assertThat(dir.resolve(second)).exists();
+		assertThat(restarted.getSupersededCount()).isZero();
+		assertThat(restarted.getTotalBytes()).isEqualTo(170);
+	}
+
+	@Test
+	void overQuotaFreesSupersededLocalFilesFirst(@TempDir Path remoteDir) throws Exception {
+		LocalObjectStorage remote = new LocalObjectStorage(remoteDir);
+		ScreenshotCache cache = new ScreenshotCache(dir, Duration.ofHours(1), 250, Duration.ofHours(1), remote, "screenshots/");
+		String first = cache.store("https://example.com", png(100));
+		Thread.sleep(5);
+		String second = cache.store("https://example.com", png(100));
+		String other = cache.store("https://other.example.com", png(100));
+
+		assertThat(dir.resolve(first)).doesNotExist();
+		assertThat(remote.stat("screenshots/" + first)).isPresent();
+		assertThat(dir.resolve(second)).exists();
+		assertThat(dir.resolve(other)).exists();
+		assertThat(cache.getTotalBytes()).isEqualTo(200);
+	}
+
+	@Test
+	void mirrorsScreenshotsToObjectStorage(@TempDir Path remoteDir) throws Exception {
+		LocalObjectStorage remote = new LocalObjectStorage(remoteDir);
+		ScreenshotCache cache = new ScreenshotCache(dir, Duration.ZERO, 150, Duration.ZERO, remote, "screenshots/");
+		String first = cache.store("https://example.com", png(100));
+		Thread.sleep(5);
+		String second = cache.store("https://example.com", png(120));
+		String other = cache.store("https://other.example.com", png(100));
+
+		assertThat(remote.stat("screenshots/" + first)).isEmpty();
+		assertThat(remote.stat("screenshots/" + second)).get().extracting(ObjectStorage.ObjectInfo::getSize).isEqualTo(120L);
+		assertThat(remote.stat("screenshots/" + other)).isPresent();
+		// 配額淘汰只釋放本機磁碟
+		assertThat(dir.resolve(second)).doesNotExist();
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedWhenOverQuota() throws Exception {
+		ScreenshotCache cache = new ScreenshotCache(dir, Duration.ofHours(1), 250);
+		String a = cache.store("https://a.example", png(100));
+		Thread.sleep(5);
+		String b = cache.store("https://b.example", png(100));
+		Thread.sleep(5);
+		cache.lookup("https://a.example");
+		Thread.sleep(5);
+
+		String c = cache.store("https://c.example", png(100));
+
+		assertThat(dir.resolve(b)).doesNotExist();
+		assertThat(dir.resolve(a)).exists();
+		assertThat(dir.resolve(c)).exists();
+		assertThat(cache.getTotalBytes()).isEqualTo(200);
+	}
+
+	@Test
+	void removesStaleLegacyScreenshotsOnStartup() throws Exception {
+		Path legacy = Files.write(dir.resolve("6f1c2b1e-uuid.png"), new byte[10]);
+		Files.setLastModifiedTime(legacy, FileTime.fromMillis(System.currentTimeMillis() - Duration.ofDays(30).toMillis()));
+		Path recent = Files.write(dir.resolve("recent-uuid.png"), new byte[10]);
+
+		new ScreenshotCache(dir, Duration.ofDays(7), 10_000);
+
+		assertThat(legacy).doesNotExist();
+		assertThat(recent).exists();
+	}
+}
@@ -0,0 +1,70 @@
+package com.example.topfoodnow.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+	@Test
+	void concurrentCallersShareOneExecution() throws Exception {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		SingleFlight<Object> flight = new SingleFlight<>(registry, "test.flight");
+		AtomicInteger executions = new AtomicInteger();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Object shared = new Object();
+
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Object>> results = new ArrayList<>();
+			results.add(pool.submit(() -> flight.execute(() -> {
+				executions.incrementAndGet();
+				started.countDown();
+				release.await();
+				return shared;
+			})));
+			started.await();
+			for (int i = 0; i < 7; i++) {
+				results.add(pool.submit(() -> flight.execute(() -> {
+					executions.incrementAndGet();
+					return new Object();
+				})));
+			}
+			// 等待其他呼叫者都進入等待後再放行
+			while (flight.getCoalescedCount() < 7) {
+				Thread.sleep(5);
+			}
+			release.countDown();
+			for (Future<Object> result : results) {
+				assertThat(result.get(5, TimeUnit.SECONDS)).isSameAs(shared);
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+		assertThat(executions).hasValue(1);
+		assertThat(registry.get("test.flight.wait").tag("role", "coalesced").timer().count()).isEqualTo(7);
+	}
+
+	@Test
+	void exceptionIsPropagatedAndNextCallRunsAgain() throws Exception {
+		SingleFlight<String> flight = new SingleFlight<>(new SimpleMeterRegistry(), "test.flight");
+		assertThatThrownBy(() -> flight.execute(() -> {
+			throw new IOException("boom");
+		})).isInstanceOf(IOException.class).hasMessage("boom");
+		assertThat(flight.execute(() -> "ok")).isEqualTo("ok");
+	}
+
+}
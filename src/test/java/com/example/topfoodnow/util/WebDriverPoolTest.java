@@ -0,0 +1,86 @@
+package com.example.topfoodnow.util;
+
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WebDriverPoolTest {
+
+	private final List<WebDriver> created = new ArrayList<>();
+
+	private WebDriver newDriver() {
+		WebDriver driver = mock(WebDriver.class, RETURNS_DEEP_STUBS);
+		created.add(driver);
+		return driver;
+	}
+
+	@Test
+	void reusesDriverAndResetsStateBetweenUses() throws Exception {
+		WebDriverPool pool = new WebDriverPool(2, 10, this::newDriver);
+
+		WebDriverPool.PooledDriver first = pool.borrow(1, TimeUnit.SECONDS);
+		pool.release(first, false);
+		WebDriverPool.PooledDriver second = pool.borrow(1, TimeUnit.SECONDS);
+
+		assertThat(second.getDriver()).isSameAs(first.getDriver());
+		assertThat(pool.getCreatedCount()).isEqualTo(1);
+		verify(first.getDriver().manage()).deleteAllCookies();
+		verify(first.getDriver()).get("about:blank");
+		verify(first.getDriver(), never()).quit();
+	}
+
+	@Test
+	void recyclesDriverAfterMaxUsesOrFailure() throws Exception {
+		WebDriverPool pool = new WebDriverPool(1, 2, this::newDriver);
+
+		WebDriverPool.PooledDriver pooled = pool.borrow(1, TimeUnit.SECONDS);
+		pool.release(pooled, false);
+		pooled = pool.borrow(1, TimeUnit.SECONDS);
+		pool.release(pooled, false); // 第二次使用達上限
+		verify(created.get(0)).quit();
+
+		pooled = pool.borrow(1, TimeUnit.SECONDS);
+		assertThat(pooled.getDriver()).isSameAs(created.get(1));
+		pool.release(pooled, true);
+		verify(created.get(1)).quit();
+		assertThat(pool.getIdleCount()).isZero();
+	}
+
+	@Test
+	void replacesCrashedIdleDriverOnBorrow() throws Exception {
+		WebDriverPool pool = new WebDriverPool(1, 10, this::newDriver);
+		WebDriverPool.PooledDriver pooled = pool.borrow(1, TimeUnit.SECONDS);
+		pool.release(pooled, false);
+		when(created.get(0).getWindowHandle()).thenThrow(new WebDriverException("session deleted"));
+
+		WebDriverPool.PooledDriver replacement = pool.borrow(1, TimeUnit.SECONDS);
+
+		assertThat(replacement.getDriver()).isSameAs(created.get(1));
+		verify(created.get(0)).quit();
+	}
+
+	@Test
+	void boundsConcurrentSessionsAndQuitsIdleOnShutdown() throws Exception {
+		WebDriverPool pool = new WebDriverPool(1, 10, this::newDriver);
+		WebDriverPool.PooledDriver pooled = pool.borrow(1, TimeUnit.SECONDS);
+
+		assertThatThrownBy(() -> pool.borrow(50, TimeUnit.MILLISECONDS)).isInstanceOf(IllegalStateException.class);
+
+		pool.release(pooled, false);
+		pool.shutdown();
+		verify(created.get(0)).quit();
+		assertThatThrownBy(() -> pool.borrow(1, TimeUnit.SECONDS)).isInstanceOf(IllegalStateException.class);
+	}
+}